@@ -19,7 +19,7 @@ import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.tests.samplecontent.SampleContent;
 import com.adobe.qe.toughday.tests.sequential.CreatePageTreeTest;
 import com.adobe.qe.toughday.tests.sequential.PublishPageTest;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 
 @Description(desc = "This test creates pages hierarchically and activates them. Each child on each level has \"base\" children. " +
         "Each author thread fills in a level in the pages tree, up to base^level")
@@ -76,7 +76,7 @@ public class ActivatePagesTreeTest extends CompositeTest {
         return createPageTreeTest.getTemplate();
     }
 
-    @ConfigArgSet(required = false, desc = "How many direct child pages will a page have.", defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, desc = "How many direct child pages will a page have.", defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public void setBase(String base) {
         createPageTreeTest.setBase(base);
     }
@@ -19,7 +19,7 @@ import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.tests.sequential.CreatePageTreeTest;
 import com.adobe.qe.toughday.tests.sequential.image.UploadImageTest;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 import com.adobe.qe.toughday.tests.utils.WcmUtils;
 
 @Tag(tags = { "author" })
@@ -129,7 +129,7 @@ public class AuthoringTreeTest extends CompositeTest {
         return this.uploadImageTest.getFileName();
     }
 
-    @ConfigArgSet(required = false, defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public AuthoringTreeTest setBase(String base) {
         this.createPageTest.setBase(base);
         return this;
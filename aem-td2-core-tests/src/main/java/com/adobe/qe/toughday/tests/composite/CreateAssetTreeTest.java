@@ -19,7 +19,7 @@ import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.tests.sequential.CreateFolderTreeTest;
 import com.adobe.qe.toughday.tests.sequential.image.UploadImageTest;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 
 @Tag(tags = { "author" })
 @Description(desc="This test creates folders with assets hierarchically. " +
@@ -96,7 +96,7 @@ public class CreateAssetTreeTest extends CompositeTest {
         return uploadImageTest.getResourcePath();
     }
 
-    @ConfigArgSet(required = false, defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public CreateAssetTreeTest setBase(String base) {
         createFolderTreeTest.setBase(base);
         return this;
@@ -19,7 +19,7 @@ import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.tests.sequential.CreateFolderTreeTest;
 import com.adobe.qe.toughday.tests.sequential.UploadPDFTest;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 
 @Tag(tags = { "author" })
 @Description(desc="This test creates folders and PDFs hierarchically. " +
@@ -99,7 +99,7 @@ public class CreatePDFTreeTest extends CompositeTest {
         return uploadPDFTest.getResourcePath();
     }
 
-    @ConfigArgSet(required = false, defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public void setBase(String base) {
         createFolderTreeTest.setBase(base);
     }
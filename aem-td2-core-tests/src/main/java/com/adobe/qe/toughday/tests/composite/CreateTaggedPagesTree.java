@@ -20,7 +20,7 @@ import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.tests.sequential.*;
 import com.adobe.qe.toughday.tests.sequential.tags.AddTagToResourceTest;
 import com.adobe.qe.toughday.tests.sequential.tags.CreateTagTreeTest;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 import com.adobe.qe.toughday.tests.utils.WcmUtils;
 
 @Tag(tags = { "author" })
@@ -106,7 +106,7 @@ public class CreateTaggedPagesTree extends CompositeTest {
         return createTagTreeTest.getTitle();
     }
 
-    @ConfigArgSet(required = false, defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public AbstractTest setBase(String base) {
         createPageTreeTest.setBase(base);
         createTagTreeTest.setBase(base);
@@ -20,7 +20,7 @@ import com.adobe.qe.toughday.api.core.AbstractTest;
 import com.adobe.qe.toughday.api.core.CompositeTest;
 import com.adobe.qe.toughday.tests.sequential.CreateFolderTreeTest;
 import com.adobe.qe.toughday.tests.sequential.users.CreateUserTest;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 
 @Tag(tags = { "author" })
 @Description(desc = "This test creates folders hierarchically. In addition, it creates users in each folder.")
@@ -255,7 +255,7 @@ public class CreateUserTreeTest extends CompositeTest {
         return this.createFolderTreeTest.getBase();
     }
 
-    @ConfigArgSet(required = false, desc = "How many direct child folders will a folder have.", defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, desc = "How many direct child folders will a folder have.", defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public CreateUserTreeTest setBase(String base) {
         this.createFolderTreeTest.setBase(base);
         return this;
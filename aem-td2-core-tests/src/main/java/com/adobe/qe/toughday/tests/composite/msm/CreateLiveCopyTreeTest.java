@@ -20,7 +20,7 @@ import com.adobe.qe.toughday.tests.samplecontent.SampleContent;
 import com.adobe.qe.toughday.tests.sequential.CreatePageTreeTest;
 import com.adobe.qe.toughday.tests.sequential.msm.CreateLiveCopyFromPageTest;
 import com.adobe.qe.toughday.tests.sequential.msm.RolloutTest;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 import com.adobe.qe.toughday.tests.utils.WcmUtils;
 
 @Description(desc = "This test creates pages and live copies hierarchically.")
@@ -107,7 +107,7 @@ public class CreateLiveCopyTreeTest  extends CompositeTest {
         return this.createLcTest.getTitle();
     }
 
-    @ConfigArgSet(required = false, defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public CreateLiveCopyTreeTest setBase(String base) {
         this.createPageTest.setBase(base);
         this.createLcTest.setBase(base);
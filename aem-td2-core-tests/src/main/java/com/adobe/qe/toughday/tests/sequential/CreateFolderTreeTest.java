@@ -15,7 +15,7 @@ import com.adobe.qe.toughday.api.annotations.*;
 import com.adobe.qe.toughday.api.core.AbstractTest;
 import com.adobe.qe.toughday.api.core.FluentLogging;
 import com.adobe.qe.toughday.tests.samplecontent.SampleContent;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
@@ -32,26 +32,25 @@ public class CreateFolderTreeTest extends AEMTestBase {
     public static final String DEFAULT_PARENT_PATH = SampleContent.TOUGHDAY_DAM_FOLDER;
     public static final String DEFAULT_TITLE = "toughday";
 
-    // needed for synchronizing
-    private TreePhaser phaser;
+    private TreeNodeAllocator allocator;
 
     private String rootParentPath = DEFAULT_PARENT_PATH;
     private String title = DEFAULT_TITLE;
     private String resourceType = FOLDER_RESOURCE_TYPE;
 
-    private int nextChild;
+    private TreeNodeAllocator.Node node;
+    private long nextChild;
 
     private String parentPath;
     private String nodeName;
     private boolean failed = false;
 
     public CreateFolderTreeTest() {
-        phaser = new TreePhaser();
-        AbstractTest.addExtraThread(phaser.mon);
+        allocator = new TreeNodeAllocator();
     }
 
-    protected CreateFolderTreeTest(TreePhaser phaser, String parentPath, String title, String resourceType) {
-        this.phaser = phaser;
+    protected CreateFolderTreeTest(TreeNodeAllocator allocator, String parentPath, String title, String resourceType) {
+        this.allocator = allocator;
         this.rootParentPath = parentPath;
         this.title = title;
         this.resourceType = resourceType;
@@ -69,15 +68,16 @@ public class CreateFolderTreeTest extends AEMTestBase {
     }
 
     @Before
-    private void before() {
-        phaser.register();
-
-        // this gets the next node on the level and potentially waits for other threads to reset the level
-        // save those values for later use
-        this.nextChild = phaser.getNextNode();
-        this.parentPath = rootParentPath + TreePhaser.computeParentPath(nextChild, phaser.getLevel(), phaser.getBase(), title);
-        this.nodeName = TreePhaser.computeNodeName(nextChild, phaser.getBase(), title);
+    private void before() throws InterruptedException {
+        // save the position of the node for later use, the node is completed after it is created
+        this.node = allocator.allocate();
+        this.nextChild = node.getIndex();
+        this.parentPath = rootParentPath + TreeNodeAllocator.computeParentPath(nextChild, node.getLevel(), allocator.getBase(), title);
+        this.nodeName = TreeNodeAllocator.computeNodeName(nextChild, allocator.getBase(), title);
         this.failed = false;
+
+        // only the parent of the node has to exist, the rest of its level could still be in progress
+        allocator.awaitParent(node);
     }
 
     @Override
@@ -109,8 +109,10 @@ public class CreateFolderTreeTest extends AEMTestBase {
             }
         }
         communicate("parentPath", parentPath);
-        // de-register
-        phaser.arriveAndDeregister();
+        // the children can be created now, if it failed they fail too
+        if (node != null) {
+            allocator.complete(node);
+        }
     }
 
     private void createFolder() throws Throwable {
@@ -128,7 +130,7 @@ public class CreateFolderTreeTest extends AEMTestBase {
 
     @Override
     public AbstractTest newInstance() {
-        return new CreateFolderTreeTest(phaser, rootParentPath, title, resourceType);
+        return new CreateFolderTreeTest(allocator, rootParentPath, title, resourceType);
     }
 
     @ConfigArgSet(required = false, defaultValue = DEFAULT_TITLE,
@@ -155,15 +157,15 @@ public class CreateFolderTreeTest extends AEMTestBase {
         return rootParentPath;
     }
 
-    @ConfigArgSet(required = false, desc = "How many direct child folders will a folder have.", defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, desc = "How many direct child folders will a folder have.", defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public AbstractTest setBase(String base) {
-        this.phaser.setBase(Integer.parseInt(base));
+        this.allocator.setBase(Integer.parseInt(base));
         return this;
     }
 
     @ConfigArgGet
     public int getBase() {
-        return this.phaser.getBase();
+        return this.allocator.getBase();
     }
 
     @ConfigArgSet(required = false, desc = "Reasource type for folders.", defaultValue = FOLDER_RESOURCE_TYPE)
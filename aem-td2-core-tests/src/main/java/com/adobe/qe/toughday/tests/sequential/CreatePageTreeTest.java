@@ -16,7 +16,7 @@ import com.adobe.qe.toughday.api.core.AbstractTest;
 import com.adobe.qe.toughday.api.core.FluentLogging;
 import com.adobe.qe.toughday.tests.composite.AuthoringTreeTest;
 import com.adobe.qe.toughday.tests.samplecontent.SampleContent;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 import com.adobe.qe.toughday.tests.utils.WcmUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
@@ -33,24 +33,25 @@ import java.util.UUID;
                 "Each author thread fills in a level in the pages tree, up to base^level")
 public class CreatePageTreeTest extends AEMTestBase {
 
-    private final TreePhaser phaser;
+    private final TreeNodeAllocator allocator;
 
     public String rootParentPath = SampleContent.TOUGHDAY_SITE;
     private String template = SampleContent.TOUGHDAY_TEMPLATE;
     private String title = AuthoringTreeTest.DEFAULT_PAGE_TITLE;
 
-    private Integer nextChild;
+    private TreeNodeAllocator.Node node;
+    private long nextChild;
 
     private String parentPath;
     private String nodeName;
     private boolean failed = false;
 
     public CreatePageTreeTest() {
-        phaser = new TreePhaser();
+        allocator = new TreeNodeAllocator();
     }
 
-    protected CreatePageTreeTest(TreePhaser phaser, String parentPath, String template, String title) {
-        this.phaser = phaser;
+    protected CreatePageTreeTest(TreeNodeAllocator allocator, String parentPath, String template, String title) {
+        this.allocator = allocator;
         this.rootParentPath = parentPath;
         this.template = template;
         this.title = title;
@@ -68,15 +69,16 @@ public class CreatePageTreeTest extends AEMTestBase {
     }
 
     @Before
-    private void setup() {
-        phaser.register();
-
-        // this gets the next node on the level and potentially waits for other threads to reset the level
-        // save those values for later use
-        this.nextChild = phaser.getNextNode();
-        this.parentPath = TreePhaser.computeParentPath(nextChild, phaser.getLevel(), phaser.getBase(), title, rootParentPath);
-        this.nodeName = TreePhaser.computeNodeName(nextChild, phaser.getBase(), title);
+    private void setup() throws InterruptedException {
+        // save the position of the node for later use, the node is completed after it is created
+        this.node = allocator.allocate();
+        this.nextChild = node.getIndex();
+        this.parentPath = TreeNodeAllocator.computeParentPath(nextChild, node.getLevel(), allocator.getBase(), title, rootParentPath);
+        this.nodeName = TreeNodeAllocator.computeNodeName(nextChild, allocator.getBase(), title);
         this.failed = false;
+
+        // only the parent of the node has to exist, the rest of its level could still be in progress
+        allocator.awaitParent(node);
     }
 
     @Override
@@ -108,8 +110,10 @@ public class CreatePageTreeTest extends AEMTestBase {
             }
         }
 
-        // de-register
-        phaser.arriveAndDeregister();
+        // the children can be created now, if it failed they fail too
+        if (node != null) {
+            allocator.complete(node);
+        }
     }
 
     private void createPage() throws Throwable {
@@ -126,7 +130,7 @@ public class CreatePageTreeTest extends AEMTestBase {
 
     @Override
     public AbstractTest newInstance() {
-        return new CreatePageTreeTest(phaser, rootParentPath, template, title);
+        return new CreatePageTreeTest(allocator, rootParentPath, template, title);
     }
 
     @ConfigArgSet(required = false, defaultValue = AuthoringTreeTest.DEFAULT_PAGE_TITLE,
@@ -164,14 +168,14 @@ public class CreatePageTreeTest extends AEMTestBase {
         return this.template;
     }
 
-    @ConfigArgSet(required = false, desc = "How many direct child pages will a page have.",defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, desc = "How many direct child pages will a page have.",defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public AbstractTest setBase(String base) {
-        this.phaser.setBase(Integer.parseInt(base));
+        this.allocator.setBase(Integer.parseInt(base));
         return this;
     }
 
     @ConfigArgGet
     public int getBase() {
-        return this.phaser.getBase();
+        return this.allocator.getBase();
     }
 }
@@ -46,6 +46,12 @@ public class PublishPageTest extends AEMTestBase {
         this.withReferences = withReferences;
     }
 
+    @Override
+    public boolean retainsResponseBodies() {
+        // the measured responses are parsed
+        return true;
+    }
+
     @Override
     public void test() throws Throwable {
         String pagePath = getCommunication("resource", null);
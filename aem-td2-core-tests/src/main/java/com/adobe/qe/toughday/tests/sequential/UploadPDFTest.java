@@ -12,17 +12,17 @@ governing permissions and limitations under the License.
 package com.adobe.qe.toughday.tests.sequential;
 
 import com.adobe.qe.toughday.api.core.AbstractTest;
-import com.adobe.qe.toughday.api.annotations.After;
 import com.adobe.qe.toughday.api.annotations.Before;
+import com.adobe.qe.toughday.api.annotations.CloneSetup;
 import com.adobe.qe.toughday.api.annotations.Description;
 import com.adobe.qe.toughday.api.annotations.Tag;
 import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.tests.samplecontent.SampleContent;
+import com.adobe.qe.toughday.tests.utils.AssetPool;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.entity.mime.content.StringBody;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -49,9 +49,11 @@ public class UploadPDFTest extends AEMTestBase {
     private String fileName = DEFAULT_PDF_NAME;
     private String resourcePath = DEFAULT_PDF_PATH;
     private String parentPath = DEFAULT_PARENT_PATH;
+    private int poolSize = Integer.parseInt(AssetPool.DEFAULT_SIZE);
 
     private String currentID;
-    private File currentFile;
+    private String currentFileName;
+    private AssetPool assetPool;
 
     public UploadPDFTest() throws IOException {
         //Force font caching
@@ -62,32 +64,49 @@ public class UploadPDFTest extends AEMTestBase {
         doc.close();
     }
 
-    private UploadPDFTest(String fileName, String resourcePath, String parentPath) {
+    private UploadPDFTest(String fileName, String resourcePath, String parentPath, int poolSize) {
         this.resourcePath = resourcePath;
         this.parentPath = parentPath;
         this.fileName = fileName;
+        this.poolSize = poolSize;
+    }
+
+    @CloneSetup
+    private void generatePDFs() throws IOException {
+        getAssetPool();
     }
 
     @Before
-    private void before() throws ClientException, IOException {
+    private void before() throws IOException {
+        assetPool = getAssetPool();
         currentID = UUID.randomUUID().toString();
-        String nextFileName = fileName + currentID + ".pdf";
+        currentFileName = fileName + currentID + ".pdf";
+    }
 
-        // image processing: read, add noise and save to file
-        PDDocument doc = PDDocument.load( getPDF(this.resourcePath));
-        addNoise(doc, currentID);
-        currentFile = new File(workspace, nextFileName);
-        doc.save(currentFile);
-        doc.close();
+    /*
+        The documents with noise are generated once, the uploads only mark them with their id.
+     */
+    private AssetPool getAssetPool() throws IOException {
+        return AssetPool.getInstance(AssetPool.Format.PDF, resourcePath, poolSize, index -> {
+            try (InputStream pdfStream = getPDF(resourcePath);
+                 PDDocument doc = PDDocument.load(pdfStream)) {
+                addNoise(doc, UUID.randomUUID().toString());
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                doc.save(out);
+                return out.toByteArray();
+            } catch (ClientException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        });
     }
 
     @Override
     public void test() throws Throwable {
         MultipartEntityBuilder multiPartEntity = MultipartEntityBuilder.create();
         try {
-            multiPartEntity.addPart("file", new FileBody(currentFile));
+            multiPartEntity.addPart("file", assetPool.nextBody(currentID, PDF_CONTENT_TYPE, currentFileName));
             multiPartEntity.addPart(Constants.PARAMETER_CHARSET, new StringBody(Constants.CHARSET_UTF8));
-            multiPartEntity.addPart("fileName", new StringBody(currentFile.getName(),
+            multiPartEntity.addPart("fileName", new StringBody(currentFileName,
                     Charset.forName(Constants.CHARSET_UTF8)));
         } catch (UnsupportedEncodingException e) {
             throw new ClientException("Could not create Multipart Post!", e);
@@ -96,27 +115,22 @@ public class UploadPDFTest extends AEMTestBase {
         String currentParentPath = StringUtils.stripEnd(getCommunication("parentPath", parentPath), "/");
 
         try {
-            logger().debug("{}: Trying to upload pdf={}/{}", Thread.currentThread().getName(), currentParentPath, currentFile.getName());
+            logger().debug("{}: Trying to upload pdf={}/{}", Thread.currentThread().getName(), currentParentPath, currentFileName);
 
             benchmark().measure(this, "UploadPDF", getDefaultClient()).doPost(currentParentPath + ".createasset.html", multiPartEntity.build(), HttpStatus.SC_OK);
         } catch (Throwable e) {
-            logger().warn("{}: Failed to upload pdf={}/{}", Thread.currentThread().getName(), currentParentPath, currentFile.getName());
+            logger().warn("{}: Failed to upload pdf={}/{}", Thread.currentThread().getName(), currentParentPath, currentFileName);
             logger().debug(Thread.currentThread().getName() + ": ERROR: ", e);
 
             throw e;
         }
 
-        logger().debug("{}: Successfully uploaded pdf={}/{}", Thread.currentThread().getName(), currentParentPath, currentFile.getName());
-    }
-
-    @After
-    private void after() {
-        currentFile.delete();
+        logger().debug("{}: Successfully uploaded pdf={}/{}", Thread.currentThread().getName(), currentParentPath, currentFileName);
     }
 
     @Override
     public AbstractTest newInstance() {
-        return new UploadPDFTest(fileName, resourcePath, parentPath);
+        return new UploadPDFTest(fileName, resourcePath, parentPath, poolSize);
     }
 
     @ConfigArgSet(required = false, defaultValue = UploadPDFTest.DEFAULT_PDF_NAME, desc = "The name of the file to be created")
@@ -150,6 +164,17 @@ public class UploadPDFTest extends AEMTestBase {
         return this.parentPath;
     }
 
+    @ConfigArgSet(required = false, defaultValue = AssetPool.DEFAULT_SIZE,
+            desc = "How many different PDFs are generated at setup and kept in memory. The uploads reuse them, marked with a unique id")
+    public void setPoolSize(String poolSize) {
+        this.poolSize = Integer.parseInt(poolSize);
+    }
+
+    @ConfigArgGet
+    public int getPoolSize() {
+        return this.poolSize;
+    }
+
     /**
      * Get an InputStream of a PDF, either from the filesystem or from the resources.
      * @param filename
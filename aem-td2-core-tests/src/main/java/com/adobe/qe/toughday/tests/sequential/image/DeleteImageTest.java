@@ -34,7 +34,7 @@ public class DeleteImageTest extends DeletePageTest {
         if (UploadImageTest.lastCreated.get() == null) {
             throw new SkippedTestException(new ClientException("No image uploaded(by UploadImageTest). Marking as skipped."));
         }
-        return UploadImageTest.lastCreated.get().getName();
+        return UploadImageTest.lastCreated.get();
     }
 
     @Override
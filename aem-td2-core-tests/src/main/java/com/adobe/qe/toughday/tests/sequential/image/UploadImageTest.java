@@ -16,16 +16,16 @@ import com.adobe.qe.toughday.api.annotations.Description;
 import com.adobe.qe.toughday.api.annotations.Tag;
 import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
-import com.adobe.qe.toughday.api.annotations.After;
 import com.adobe.qe.toughday.api.annotations.Before;
+import com.adobe.qe.toughday.api.annotations.CloneSetup;
 import com.adobe.qe.toughday.tests.composite.AuthoringTest;
 import com.adobe.qe.toughday.tests.sequential.AEMTestBase;
 import com.adobe.qe.toughday.tests.samplecontent.SampleContent;
+import com.adobe.qe.toughday.tests.utils.AssetPool;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntity;
-import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.entity.mime.content.StringBody;
 import org.apache.sling.testing.clients.ClientException;
 import org.apache.sling.testing.clients.Constants;
@@ -48,44 +48,64 @@ public class UploadImageTest extends AEMTestBase {
     private String resourcePath = AuthoringTest.DEFAULT_RESOURCE_PATH;
     private String mimeType = AuthoringTest.DEFAULT_MIME_TYPE; //TODO do we really need this?
     private String parentPath = SampleContent.TOUGHDAY_DAM_FOLDER;
+    private int poolSize = Integer.parseInt(AssetPool.DEFAULT_SIZE);
 
-    public static ThreadLocal<File> lastCreated = new ThreadLocal<>();
+    /**
+     * The name of the last image uploaded by the current thread.
+     */
+    public static ThreadLocal<String> lastCreated = new ThreadLocal<>();
     public static Random rnd = new Random();
     public static final AtomicInteger nextNumber = new AtomicInteger(0);
 
-    private BufferedImage img;
-    private InputStream imageStream;
+    private AssetPool assetPool;
 
     public UploadImageTest() {}
 
-    private UploadImageTest(String fileName, String resourcePath, String mimeType, String parentPath) {
+    private UploadImageTest(String fileName, String resourcePath, String mimeType, String parentPath, int poolSize) {
         this.resourcePath = resourcePath;
         this.mimeType = mimeType;
         this.parentPath = parentPath;
         this.fileName = fileName;
+        this.poolSize = poolSize;
+    }
+
+    @CloneSetup
+    private void generateImages() throws IOException {
+        getAssetPool();
     }
 
     @Before
-    private void before() throws ClientException, IOException {
-        String nextFileName = fileName + nextNumber.getAndIncrement() + ".png";
+    private void before() throws IOException {
+        assetPool = getAssetPool();
+        lastCreated.set(fileName + nextNumber.getAndIncrement() + ".png");
+    }
 
-        // image processing: read, add noise and save to file
-        imageStream = UploadImageTest.getImage(this.resourcePath);
-        img = ImageIO.read(imageStream);
-        addNoise(img);
-        File last = new File(workspace, nextFileName);
-        ImageIO.write(img, "png", last);
-        lastCreated.set(last);
+    /*
+        The images with noise are generated once, the uploads only mark them with their file name.
+     */
+    private AssetPool getAssetPool() throws IOException {
+        return AssetPool.getInstance(AssetPool.Format.PNG, resourcePath, poolSize, index -> {
+            BufferedImage img;
+            try (InputStream imageStream = UploadImageTest.getImage(resourcePath)) {
+                img = ImageIO.read(imageStream);
+            } catch (ClientException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            addNoise(img);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(img, "png", out);
+            return out.toByteArray();
+        });
     }
 
     @Override
     public void test() throws Throwable {
         MultipartEntity multiPartEntity = new MultipartEntity(HttpMultipartMode.BROWSER_COMPATIBLE);
         try {
-            multiPartEntity.addPart("file", new FileBody(lastCreated.get()));
+            multiPartEntity.addPart("file", assetPool.nextBody(lastCreated.get(), mimeType, lastCreated.get()));
 
             multiPartEntity.addPart(Constants.PARAMETER_CHARSET, new StringBody(Constants.CHARSET_UTF8));
-            multiPartEntity.addPart("fileName", new StringBody(lastCreated.get().getName(),
+            multiPartEntity.addPart("fileName", new StringBody(lastCreated.get(),
                             Charset.forName(Constants.CHARSET_UTF8)));
         } catch (UnsupportedEncodingException e) {
             throw new ClientException("Could not create Multipart Post!", e);
@@ -94,30 +114,23 @@ public class UploadImageTest extends AEMTestBase {
         String currentParentPath = StringUtils.stripEnd(getCommunication("parentPath", parentPath), "/");
 
         try {
-            logger().debug("{}: Trying to upload image={}{}", Thread.currentThread().getName(), currentParentPath, lastCreated.get().getName());
+            logger().debug("{}: Trying to upload image={}{}", Thread.currentThread().getName(), currentParentPath, lastCreated.get());
 
             benchmark().measure(this, "UploadImage", getDefaultClient()).doPost(currentParentPath + ".createasset.html", multiPartEntity, HttpStatus.SC_OK);
         } catch (Throwable e) {
-            logger().warn("{}: Failed to upload image={}{}", Thread.currentThread().getName(), currentParentPath, lastCreated.get().getName());
+            logger().warn("{}: Failed to upload image={}{}", Thread.currentThread().getName(), currentParentPath, lastCreated.get());
             logger().debug(Thread.currentThread().getName() + ": ERROR: ", e);
 
             throw e;
         }
 
-        logger().debug("{}: Successfully uploaded image={}{}", Thread.currentThread().getName(), currentParentPath, lastCreated.get().getName());
-    }
-
-    @After
-    private void after() {
-        if (!lastCreated.get().delete()) {
-            throw new RuntimeException("Cannot delete file " + lastCreated.get().getName());
-        }
+        logger().debug("{}: Successfully uploaded image={}{}", Thread.currentThread().getName(), currentParentPath, lastCreated.get());
     }
 
 
     @Override
     public AbstractTest newInstance() {
-        return new UploadImageTest(fileName, resourcePath, mimeType, parentPath);
+        return new UploadImageTest(fileName, resourcePath, mimeType, parentPath, poolSize);
     }
 
 
@@ -162,6 +175,17 @@ public class UploadImageTest extends AEMTestBase {
         return this.parentPath;
     }
 
+    @ConfigArgSet(required = false, defaultValue = AssetPool.DEFAULT_SIZE,
+            desc = "How many different images are generated at setup and kept in memory. The uploads reuse them, marked with their file name")
+    public void setPoolSize(String poolSize) {
+        this.poolSize = Integer.parseInt(poolSize);
+    }
+
+    @ConfigArgGet
+    public int getPoolSize() {
+        return this.poolSize;
+    }
+
     /**
      * Get an InputStream of an image, either from the filesystem or from the resources.
      * @param filename
@@ -17,7 +17,7 @@ import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.tests.sequential.AEMTestBase;
 import com.adobe.qe.toughday.tests.samplecontent.SampleContent;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 import com.adobe.qe.toughday.tests.utils.WcmUtils;
 
 import java.util.UUID;
@@ -35,7 +35,7 @@ public class CreateLiveCopyFromPageTest extends AEMTestBase {
     public static final String DEFAULT_DESTINATION_ROOT_PAGE = SampleContent.TOUGHDAY_SITE;
     public static final String DEFAULT_PAGE_TITLE = "lc";
 
-    private final TreePhaser phaser;
+    private final TreeNodeAllocator allocator;
 
     private String title;
     private String sourcePage;
@@ -43,18 +43,19 @@ public class CreateLiveCopyFromPageTest extends AEMTestBase {
     private String destinationRoot;
     private String nodeName;
     private boolean failed = false;
-    private int nextChild;
+    private TreeNodeAllocator.Node node;
+    private long nextChild;
 
 
     public CreateLiveCopyFromPageTest() {
-        this.phaser = new TreePhaser();
+        this.allocator = new TreeNodeAllocator();
         this.sourcePage = DEFAULT_SOURCE_ROOT_PAGE;
         this.destinationRoot = DEFAULT_DESTINATION_ROOT_PAGE;
         this.title = DEFAULT_PAGE_TITLE;
     }
 
-    public CreateLiveCopyFromPageTest(TreePhaser phaser, String title, String sourcePage, String destinationRoot) {
-        this.phaser = phaser;
+    public CreateLiveCopyFromPageTest(TreeNodeAllocator allocator, String title, String sourcePage, String destinationRoot) {
+        this.allocator = allocator;
         this.sourcePage = sourcePage;
         this.destinationRoot = destinationRoot;
         this.title = title;
@@ -74,15 +75,16 @@ public class CreateLiveCopyFromPageTest extends AEMTestBase {
     @Before
     private void before() throws Throwable {
         this.sourcePage = getCommunication("resource", sourcePage);
-        phaser.register();
-
-        // this gets the next node on the level and potentially waits for other threads to reset the level
-        // save those values for later use
-        this.nextChild = phaser.getNextNode();
-        this.destinationPage = TreePhaser.computeParentPath(nextChild, phaser.getLevel(),
-                phaser.getBase(), title, destinationRoot);
-        this.nodeName = TreePhaser.computeNodeName(nextChild, phaser.getBase(), title);
+        // save the position of the node for later use, the node is completed after it is created
+        this.node = allocator.allocate();
+        this.nextChild = node.getIndex();
+        this.destinationPage = TreeNodeAllocator.computeParentPath(nextChild, node.getLevel(),
+                allocator.getBase(), title, destinationRoot);
+        this.nodeName = TreeNodeAllocator.computeNodeName(nextChild, allocator.getBase(), title);
         this.failed = false;
+
+        // only the parent of the node has to exist, the rest of its level could still be in progress
+        allocator.awaitParent(node);
     }
 
     @Override
@@ -127,13 +129,15 @@ public class CreateLiveCopyFromPageTest extends AEMTestBase {
             }
         }
 
-        // de-register
-        phaser.arriveAndDeregister();
+        // the children can be created now, if it failed they fail too
+        if (node != null) {
+            allocator.complete(node);
+        }
     }
 
     @Override
     public AbstractTest newInstance() {
-        return new CreateLiveCopyFromPageTest(phaser, title, sourcePage, destinationRoot);
+        return new CreateLiveCopyFromPageTest(allocator, title, sourcePage, destinationRoot);
     }
 
     @ConfigArgSet(required = false, desc = "The source page for live copies", defaultValue = DEFAULT_SOURCE_ROOT_PAGE)
@@ -169,14 +173,14 @@ public class CreateLiveCopyFromPageTest extends AEMTestBase {
         return this.title;
     }
 
-    @ConfigArgSet(required = false, desc = "How many direct child pages will a page have.", defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, desc = "How many direct child pages will a page have.", defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public AbstractTest setBase(String base) {
-        this.phaser.setBase(Integer.parseInt(base));
+        this.allocator.setBase(Integer.parseInt(base));
         return this;
     }
 
     @ConfigArgGet
     public int getBase() {
-        return this.phaser.getBase();
+        return this.allocator.getBase();
     }
 }
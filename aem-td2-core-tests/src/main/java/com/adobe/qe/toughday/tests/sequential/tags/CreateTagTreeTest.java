@@ -16,7 +16,7 @@ import com.adobe.qe.toughday.api.annotations.*;
 import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.tests.sequential.AEMTestBase;
-import com.adobe.qe.toughday.tests.utils.TreePhaser;
+import com.adobe.qe.toughday.tests.utils.TreeNodeAllocator;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -44,21 +44,22 @@ public class CreateTagTreeTest extends AEMTestBase {
     private static final String NAMEPSPACE_DESCRIPTION = "Isolated namespace for ToughDay testing";
     private static final String TAG_DESCRIPTION = "Toughday Tag";
 
-    private TreePhaser phaser;
+    private TreeNodeAllocator allocator;
     private boolean failed;
     private String parentPath;
     private String title = DEFAULT_TAG_TITLE; //TODO use this
     private String nodeName;
     private String namespace = DEFAULT_NAMESPACE;
-    private int nextChild;
+    private TreeNodeAllocator.Node node;
+    private long nextChild;
     private String extra_tag;
 
     public CreateTagTreeTest() {
-        phaser = new TreePhaser();
+        allocator = new TreeNodeAllocator();
     }
 
-    public CreateTagTreeTest(TreePhaser phaser, String namespace, String title, String extra_tag) {
-        this.phaser = phaser;
+    public CreateTagTreeTest(TreeNodeAllocator allocator, String namespace, String title, String extra_tag) {
+        this.allocator = allocator;
         this.namespace = namespace;
         this.title = title;
         this.extra_tag = extra_tag;
@@ -85,15 +86,16 @@ public class CreateTagTreeTest extends AEMTestBase {
     }
 
     @Before
-    private void before() {
-        phaser.register();
-
-        // this gets the next node on the level and potentially waits for other threads to reset the level
-        // save those values for later use
-        this.nextChild = phaser.getNextNode();
-        this.parentPath = namespace + ":" + StringUtils.stripStart(TreePhaser.computeParentPath(nextChild, phaser.getLevel(), phaser.getBase(), title), "/");
-        this.nodeName = TreePhaser.computeNodeName(nextChild, phaser.getBase(), title);
+    private void before() throws InterruptedException {
+        // save the position of the node for later use, the node is completed after it is created
+        this.node = allocator.allocate();
+        this.nextChild = node.getIndex();
+        this.parentPath = namespace + ":" + StringUtils.stripStart(TreeNodeAllocator.computeParentPath(nextChild, node.getLevel(), allocator.getBase(), title), "/");
+        this.nodeName = TreeNodeAllocator.computeNodeName(nextChild, allocator.getBase(), title);
         this.failed = false;
+
+        // only the parent of the node has to exist, the rest of its level could still be in progress
+        allocator.awaitParent(node);
     }
 
     @Override
@@ -131,8 +133,10 @@ public class CreateTagTreeTest extends AEMTestBase {
             }
         }
 
-        // de-register
-        phaser.arriveAndDeregister();
+        // the children can be created now, if it failed they fail too
+        if (node != null) {
+            allocator.complete(node);
+        }
     }
 
     private void createNamespace(String title, String tag, String description) throws Throwable {
@@ -162,7 +166,7 @@ public class CreateTagTreeTest extends AEMTestBase {
 
     @Override
     public AbstractTest newInstance() {
-        return new CreateTagTreeTest(phaser, namespace, title, extra_tag);
+        return new CreateTagTreeTest(allocator, namespace, title, extra_tag);
     }
 
     @ConfigArgSet(required = false, defaultValue = DEFAULT_NAMESPACE,
@@ -189,14 +193,14 @@ public class CreateTagTreeTest extends AEMTestBase {
         return this.title;
     }
 
-    @ConfigArgSet(required = false, desc = "How many direct child tags will a tag have.", defaultValue = TreePhaser.DEFAULT_BASE)
+    @ConfigArgSet(required = false, desc = "How many direct child tags will a tag have.", defaultValue = TreeNodeAllocator.DEFAULT_BASE)
     public AbstractTest setBase(String base) {
-        this.phaser.setBase(Integer.parseInt(base));
+        this.allocator.setBase(Integer.parseInt(base));
         return this;
     }
 
     @ConfigArgGet
     public int getBase() {
-        return this.phaser.getBase();
+        return this.allocator.getBase();
     }
 }
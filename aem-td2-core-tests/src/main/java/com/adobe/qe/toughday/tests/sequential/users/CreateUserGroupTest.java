@@ -56,6 +56,12 @@ public class CreateUserGroupTest extends AEMTestBase {
         this.increment = increment;
     }
 
+    @Override
+    public boolean retainsResponseBodies() {
+        // the measured responses are parsed
+        return true;
+    }
+
     @Setup
     private void setup() {
         try {
@@ -0,0 +1,187 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.tests.utils;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Binaries generated once and uploaded many times. Generating a unique asset for every upload costs more than the
+ * upload itself, so a few variants are generated at setup and kept in memory. Every upload takes the next variant and
+ * gets a cheap unique mark, inserted while the body is streamed, so no two uploads send the same binary.
+ * The pools are shared by all the clones of a test.
+ */
+public class AssetPool {
+    public static final String DEFAULT_SIZE = "16";
+
+    private static final Map<String, AssetPool> POOLS = new HashMap<>();
+
+    /**
+     * Generates the variant with the given index.
+     */
+    public interface Generator {
+        byte[] generate(int index) throws IOException;
+    }
+
+    /**
+     * Where and how the unique marks are written, so that the assets stay valid.
+     */
+    public enum Format {
+        /**
+         * A tEXt chunk is inserted before the IEND chunk, which ends every png.
+         */
+        PNG {
+            @Override
+            int markOffset(byte[] asset) {
+                return asset.length - 12;
+            }
+
+            @Override
+            byte[] mark(String id) {
+                byte[] text = ("toughday\0" + id).getBytes(StandardCharsets.ISO_8859_1);
+                byte[] chunk = new byte[text.length + 12];
+                writeInt(chunk, 0, text.length);
+                System.arraycopy("tEXt".getBytes(StandardCharsets.US_ASCII), 0, chunk, 4, 4);
+                System.arraycopy(text, 0, chunk, 8, text.length);
+                CRC32 crc = new CRC32();
+                crc.update(chunk, 4, text.length + 4);
+                writeInt(chunk, text.length + 8, (int) crc.getValue());
+                return chunk;
+            }
+        },
+
+        /**
+         * A comment is appended after the end of the document.
+         */
+        PDF {
+            @Override
+            int markOffset(byte[] asset) {
+                return asset.length;
+            }
+
+            @Override
+            byte[] mark(String id) {
+                return ("\n%toughday " + id + "\n").getBytes(StandardCharsets.ISO_8859_1);
+            }
+        };
+
+        abstract int markOffset(byte[] asset);
+
+        abstract byte[] mark(String id);
+
+        private static void writeInt(byte[] buffer, int offset, int value) {
+            buffer[offset] = (byte) (value >>> 24);
+            buffer[offset + 1] = (byte) (value >>> 16);
+            buffer[offset + 2] = (byte) (value >>> 8);
+            buffer[offset + 3] = (byte) value;
+        }
+    }
+
+    private final Format format;
+    private final byte[][] assets;
+    private final int[] markOffsets;
+    private final AtomicInteger next = new AtomicInteger(0);
+
+    private AssetPool(Format format, int size, Generator generator) throws IOException {
+        if (size < 1) {
+            throw new IllegalArgumentException("The asset pool must hold at least one asset.");
+        }
+        this.format = format;
+        this.assets = new byte[size][];
+        this.markOffsets = new int[size];
+        for (int i = 0; i < size; i++) {
+            assets[i] = generator.generate(i);
+            markOffsets[i] = format.markOffset(assets[i]);
+        }
+    }
+
+    /**
+     * Returns the pool for the given source, generating it the first time.
+     * @param format the format of the assets
+     * @param source identifies the source of the assets, for example the resource they are generated from
+     * @param size how many variants are generated
+     * @param generator generates the variants
+     */
+    public static synchronized AssetPool getInstance(Format format, String source, int size, Generator generator)
+            throws IOException {
+        String key = format + ":" + size + ":" + source;
+        AssetPool pool = POOLS.get(key);
+        if (pool == null) {
+            pool = new AssetPool(format, size, generator);
+            POOLS.put(key, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Takes the next variant and marks it with the given id.
+     * @param id unique for every upload
+     * @param mimeType the mime type of the body
+     * @param fileName the file name of the body
+     * @return a body streaming the marked asset from memory
+     */
+    public ContentBody nextBody(String id, String mimeType, String fileName) {
+        int index = (next.getAndIncrement() & Integer.MAX_VALUE) % assets.length;
+        return new MarkedAssetBody(assets[index], markOffsets[index], format.mark(id), mimeType, fileName);
+    }
+
+    public int size() {
+        return assets.length;
+    }
+
+    private static class MarkedAssetBody extends AbstractContentBody {
+        private final byte[] asset;
+        private final int markOffset;
+        private final byte[] mark;
+        private final String fileName;
+
+        private MarkedAssetBody(byte[] asset, int markOffset, byte[] mark, String mimeType, String fileName) {
+            super(ContentType.create(mimeType));
+            this.asset = asset;
+            this.markOffset = markOffset;
+            this.mark = mark;
+            this.fileName = fileName;
+        }
+
+        @Override
+        public String getFilename() {
+            return fileName;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(asset, 0, markOffset);
+            out.write(mark);
+            out.write(asset, markOffset, asset.length - markOffset);
+        }
+
+        @Override
+        public String getTransferEncoding() {
+            return MIME.ENC_BINARY;
+        }
+
+        @Override
+        public long getContentLength() {
+            return asset.length + mark.length;
+        }
+    }
+}
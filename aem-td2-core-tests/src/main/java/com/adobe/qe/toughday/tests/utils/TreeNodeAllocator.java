@@ -0,0 +1,179 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.tests.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out the nodes of a tree in which every node has "base" children, level by level. The nodes are numbered in
+ * breadth first order, so allocating one is a single atomic increment. A worker only waits for the parent of its node
+ * to be created, the other workers continue, even if the level is not complete.
+ * Every allocated node must be completed, even if its creation failed, otherwise the workers of its children wait
+ * until they are interrupted.
+ */
+public class TreeNodeAllocator {
+    public static final String DEFAULT_BASE = "10";
+
+    private int base = Integer.parseInt(DEFAULT_BASE);
+
+    private final AtomicLong nextNode = new AtomicLong(0);
+
+    /*
+        The nodes below the watermark are all completed, the ones above it are kept in a set until the watermark
+        reaches them. As the nodes are completed roughly in the order they are allocated, the set stays small.
+     */
+    private final AtomicLong completedWatermark = new AtomicLong(0);
+    private final Set<Long> completedAboveWatermark = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * A node of the tree.
+     */
+    public static class Node {
+        private final long id;
+        private final long parentId;
+        private final int level;
+        private final long index;
+
+        private Node(long id, long parentId, int level, long index) {
+            this.id = id;
+            this.parentId = parentId;
+            this.level = level;
+            this.index = index;
+        }
+
+        /**
+         * @return the level of the node, starting with 1 for the children of the root
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * @return the index of the node in its level
+         */
+        public long getIndex() {
+            return index;
+        }
+    }
+
+    /**
+     * Allocates the next node, without waiting.
+     */
+    public Node allocate() {
+        long id = nextNode.getAndIncrement();
+        int level = 1;
+        long levelStart = 0;
+        long levelSize = base;
+        while (id >= levelStart + levelSize) {
+            levelStart += levelSize;
+            levelSize *= base;
+            level++;
+        }
+        long index = id - levelStart;
+        long parentId = level == 1 ? -1 : levelStart - levelSize / base + index / base;
+        return new Node(id, parentId, level, index);
+    }
+
+    /**
+     * Waits until the parent of the node is completed. The nodes on the first level do not wait, the root is expected
+     * to exist.
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitParent(Node node) throws InterruptedException {
+        long parentId = node.parentId;
+        if (parentId < 0 || isCompleted(parentId)) {
+            return;
+        }
+
+        CompletableFuture<Void> waiter = waiters.computeIfAbsent(parentId, k -> new CompletableFuture<>());
+        // the parent could have been completed before the waiter was registered
+        if (isCompleted(parentId)) {
+            waiters.remove(parentId, waiter);
+            waiter.complete(null);
+            return;
+        }
+        try {
+            waiter.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Marks the node as completed and releases the workers waiting for it.
+     */
+    public void complete(Node node) {
+        completedAboveWatermark.add(node.id);
+        advanceWatermark();
+        CompletableFuture<Void> waiter = waiters.remove(node.id);
+        if (waiter != null) {
+            waiter.complete(null);
+        }
+    }
+
+    /*
+        The set is checked first: an id leaves it only after the watermark moved past it, so reading the watermark
+        afterwards cannot miss a completed node.
+     */
+    private boolean isCompleted(long id) {
+        return completedAboveWatermark.contains(id) || id < completedWatermark.get();
+    }
+
+    private void advanceWatermark() {
+        while (true) {
+            long watermark = completedWatermark.get();
+            if (!completedAboveWatermark.contains(watermark)) {
+                return;
+            }
+            if (completedWatermark.compareAndSet(watermark, watermark + 1)) {
+                completedAboveWatermark.remove(watermark);
+            }
+        }
+    }
+
+    public void setBase(int base) {
+        this.base = base;
+    }
+
+    public int getBase() {
+        return base;
+    }
+
+    public static String computeParentPath(long nextChild, int level, int base, String title, String prefix) {
+        prefix = (null != prefix) ? prefix : "/";
+        prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        if (level == 1) {
+            return prefix;
+        }
+
+        String path = Long.toString(nextChild / base, base);
+        path = StringUtils.leftPad(path, level-1, "0");
+        path = StringUtils.stripStart(path.replace("", "/" + title), "/");
+        path = prefix + StringUtils.stripEnd(path, title);
+        return path;
+    }
+
+    public static String computeParentPath(long nextChild, int level, int base, String title) {
+        return computeParentPath(nextChild, level, base, title, "/");
+    }
+
+    public static String computeNodeName(long nextChild, int base, String title) {
+        return title + Long.toString(nextChild % base, base);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.tests.utils;
+
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class AssetPoolTest {
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = AssetPoolTest.class.getClassLoader().getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] write(ContentBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        Assert.assertEquals(body.getContentLength(), out.size());
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testMarkedPngIsStillAnImage() throws IOException {
+        byte[] png = resource("image.png");
+        BufferedImage original = ImageIO.read(new ByteArrayInputStream(png));
+        AssetPool pool = AssetPool.getInstance(AssetPool.Format.PNG, "test-image.png", 1, index -> png);
+
+        byte[] marked = write(pool.nextBody("upload-1", "image/png", "upload-1.png"));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(marked));
+
+        Assert.assertNotNull(image);
+        Assert.assertEquals(original.getWidth(), image.getWidth());
+        Assert.assertEquals(original.getHeight(), image.getHeight());
+        Assert.assertTrue(new String(marked, StandardCharsets.ISO_8859_1).contains("tEXttoughday\0upload-1"));
+        // the png still ends with the IEND chunk
+        Assert.assertArrayEquals(Arrays.copyOfRange(png, png.length - 12, png.length),
+                Arrays.copyOfRange(marked, marked.length - 12, marked.length));
+    }
+
+    @Test
+    public void testMarkedPdfEndsWithAComment() throws IOException {
+        byte[] pdf = resource("document.pdf");
+        AssetPool pool = AssetPool.getInstance(AssetPool.Format.PDF, "test-document.pdf", 1, index -> pdf);
+
+        byte[] marked = write(pool.nextBody("upload-1", "application/pdf", "upload-1.pdf"));
+        String content = new String(marked, StandardCharsets.ISO_8859_1);
+        String trailer = content.substring(content.lastIndexOf("%%EOF") + "%%EOF".length()).trim();
+
+        Assert.assertEquals("%toughday upload-1", trailer);
+        try (PDDocument document = PDDocument.load(marked)) {
+            Assert.assertTrue(document.getNumberOfPages() > 0);
+        }
+    }
+
+    @Test
+    public void testEveryBodyIsDifferent() throws IOException {
+        byte[] pdf = resource("document.pdf");
+        AssetPool pool = AssetPool.getInstance(AssetPool.Format.PDF, "test-unique.pdf", 1, index -> pdf);
+
+        // the pool has a single variant, only the marks tell the bodies apart
+        byte[] first = write(pool.nextBody("upload-1", "application/pdf", "upload-1.pdf"));
+        byte[] second = write(pool.nextBody("upload-2", "application/pdf", "upload-2.pdf"));
+
+        Assert.assertEquals(first.length, second.length);
+        Assert.assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void testVariantsAreTakenInTurn() throws IOException {
+        AssetPool pool = AssetPool.getInstance(AssetPool.Format.PDF, "test-variants.pdf", 3,
+                index -> ("%PDF-1.4\n%variant " + index + "\n%%EOF").getBytes(StandardCharsets.ISO_8859_1));
+
+        Assert.assertSame(pool, AssetPool.getInstance(AssetPool.Format.PDF, "test-variants.pdf", 3, index -> null));
+        Assert.assertEquals(3, pool.size());
+        for (int i = 0; i < 6; i++) {
+            String body = new String(write(pool.nextBody("id", "application/pdf", "file.pdf")), StandardCharsets.ISO_8859_1);
+            Assert.assertTrue(body, body.startsWith("%PDF-1.4\n%variant " + i % 3 + "\n"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPoolIsRejected() throws IOException {
+        AssetPool.getInstance(AssetPool.Format.PNG, "test-empty.png", 0, index -> new byte[0]);
+    }
+}
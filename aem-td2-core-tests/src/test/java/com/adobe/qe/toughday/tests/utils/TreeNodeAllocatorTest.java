@@ -0,0 +1,263 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.tests.utils;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TreeNodeAllocatorTest {
+    private TreeNodeAllocator allocator;
+
+    @Before
+    public void before() {
+        allocator = new TreeNodeAllocator();
+        allocator.setBase(3);
+    }
+
+    private static String key(int level, long index) {
+        return level + ":" + index;
+    }
+
+    private static String key(TreeNodeAllocator.Node node) {
+        return key(node.getLevel(), node.getIndex());
+    }
+
+    private static String parentKey(TreeNodeAllocator.Node node, int base) {
+        return key(node.getLevel() - 1, node.getIndex() / base);
+    }
+
+    private List<TreeNodeAllocator.Node> allocate(int count) {
+        List<TreeNodeAllocator.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(allocator.allocate());
+        }
+        return nodes;
+    }
+
+    private Thread awaitParentInBackground(TreeNodeAllocator.Node node, CountDownLatch released) {
+        Thread thread = new Thread(() -> {
+            try {
+                allocator.awaitParent(node);
+                released.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void testNodesAllocatedLevelByLevel() {
+        List<TreeNodeAllocator.Node> nodes = allocate(3 + 9 + 2);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(1, nodes.get(i).getLevel());
+            Assert.assertEquals(i, nodes.get(i).getIndex());
+        }
+        for (int i = 0; i < 9; i++) {
+            Assert.assertEquals(2, nodes.get(3 + i).getLevel());
+            Assert.assertEquals(i, nodes.get(3 + i).getIndex());
+        }
+        Assert.assertEquals(3, nodes.get(12).getLevel());
+        Assert.assertEquals(0, nodes.get(12).getIndex());
+        Assert.assertEquals(3, nodes.get(13).getLevel());
+        Assert.assertEquals(1, nodes.get(13).getIndex());
+    }
+
+    @Test
+    public void testFirstLevelDoesNotWait() throws Exception {
+        for (TreeNodeAllocator.Node node : allocate(3)) {
+            allocator.awaitParent(node);
+        }
+    }
+
+    @Test
+    public void testChildWaitsOnlyForItsParent() throws Exception {
+        List<TreeNodeAllocator.Node> nodes = allocate(3 + 9);
+        // completed out of order, the first node of the level is still in progress
+        allocator.complete(nodes.get(2));
+
+        // the children of the third node
+        for (int i = 9; i < 12; i++) {
+            allocator.awaitParent(nodes.get(i));
+        }
+
+        CountDownLatch released = new CountDownLatch(1);
+        Thread waiting = awaitParentInBackground(nodes.get(3), released);
+        Assert.assertFalse(released.await(200, TimeUnit.MILLISECONDS));
+
+        allocator.complete(nodes.get(1));
+        Assert.assertFalse(released.await(200, TimeUnit.MILLISECONDS));
+
+        allocator.complete(nodes.get(0));
+        Assert.assertTrue(released.await(5, TimeUnit.SECONDS));
+        waiting.join(5000);
+    }
+
+    @Test
+    public void testCompletedParentsDoNotWait() throws Exception {
+        List<TreeNodeAllocator.Node> nodes = allocate(3 + 9 + 27);
+        for (int i = 0; i < 3 + 9; i++) {
+            allocator.complete(nodes.get(i));
+        }
+        for (TreeNodeAllocator.Node node : nodes) {
+            allocator.awaitParent(node);
+        }
+    }
+
+    @Test
+    public void testWaitingWorkerCanBeInterrupted() throws Exception {
+        List<TreeNodeAllocator.Node> nodes = allocate(3 + 1);
+        CountDownLatch released = new CountDownLatch(1);
+        Thread waiting = awaitParentInBackground(nodes.get(3), released);
+
+        waiting.interrupt();
+        waiting.join(5000);
+        Assert.assertFalse(waiting.isAlive());
+        Assert.assertEquals(1, released.getCount());
+    }
+
+    @Test
+    public void testConcurrentWorkersCreateEveryNodeOnceAfterItsParent() throws Exception {
+        final int base = allocator.getBase();
+        final int total = 3 + 9 + 27 + 81 + 100;
+        final int workers = 8;
+        final Set<String> created = ConcurrentHashMap.newKeySet();
+        final Set<String> duplicates = ConcurrentHashMap.newKeySet();
+        final Set<String> orphans = ConcurrentHashMap.newKeySet();
+        final AtomicInteger remaining = new AtomicInteger(total);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        TreeNodeAllocator.Node node = allocator.allocate();
+                        try {
+                            allocator.awaitParent(node);
+                            if (node.getLevel() > 1 && !created.contains(parentKey(node, base))) {
+                                orphans.add(key(node));
+                            }
+                            if (!created.add(key(node))) {
+                                duplicates.add(key(node));
+                            }
+                        } finally {
+                            allocator.complete(node);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals("Duplicate nodes: " + duplicates, 0, duplicates.size());
+        Assert.assertEquals("Nodes created before their parent: " + orphans, 0, orphans.size());
+        Assert.assertEquals(total, created.size());
+
+        // no gaps: every level is filled from its first index, only the last one can be incomplete
+        Map<Integer, Long> sizes = new TreeMap<>();
+        for (String node : created) {
+            sizes.merge(Integer.parseInt(node.substring(0, node.indexOf(':'))), 1L, Long::sum);
+        }
+        long levelSize = base;
+        for (Map.Entry<Integer, Long> level : sizes.entrySet()) {
+            for (long index = 0; index < level.getValue(); index++) {
+                Assert.assertTrue(created.contains(key(level.getKey(), index)));
+            }
+            if (level.getKey() < sizes.size()) {
+                Assert.assertEquals(levelSize, (long) level.getValue());
+            }
+            levelSize *= base;
+        }
+        Assert.assertEquals(5, sizes.size());
+    }
+
+    @Test
+    public void testNodesCompletedOutOfOrderReleaseEveryWaiter() throws Exception {
+        final int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(2 * threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                TreeNodeAllocator roundAllocator = new TreeNodeAllocator();
+                roundAllocator.setBase(3);
+                List<TreeNodeAllocator.Node> nodes = new ArrayList<>();
+                for (int i = 0; i < 3 + 9 + 27 + 81; i++) {
+                    nodes.add(roundAllocator.allocate());
+                }
+                Set<String> completed = ConcurrentHashMap.newKeySet();
+                Set<String> releasedEarly = ConcurrentHashMap.newKeySet();
+                CountDownLatch start = new CountDownLatch(1);
+
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    List<TreeNodeAllocator.Node> toComplete = new ArrayList<>();
+                    List<TreeNodeAllocator.Node> toAwait = new ArrayList<>();
+                    for (int i = t; i < nodes.size(); i += threads) {
+                        toComplete.add(nodes.get(i));
+                        toAwait.add(nodes.get(nodes.size() - 1 - i));
+                    }
+                    // the completions are out of order, the watermark moves while the waiters check it
+                    Collections.shuffle(toComplete, new Random(round * threads + t));
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (TreeNodeAllocator.Node node : toComplete) {
+                            completed.add(key(node));
+                            roundAllocator.complete(node);
+                        }
+                        return null;
+                    }));
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (TreeNodeAllocator.Node node : toAwait) {
+                            roundAllocator.awaitParent(node);
+                            if (node.getLevel() > 1 && !completed.contains(parentKey(node, 3))) {
+                                releasedEarly.add(key(node));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    // a waiter that missed the completion of its parent would wait forever
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                Assert.assertEquals("Released before their parent: " + releasedEarly, 0, releasedEarly.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,660 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.async;
+
+import com.adobe.qe.toughday.api.annotations.labels.Nullable;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.config.GlobalArgs;
+import org.apache.http.Header;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal non-blocking HTTP/1.1 client. A few event loop threads multiplex all the connections, so the number of
+ * requests in flight is bounded by the connection limit and not by the number of threads. Connections are kept alive
+ * and reused for the same host; when all of them are busy, the requests wait in a queue. Only plain http is supported.
+ */
+public class AsyncHttpClient implements Closeable {
+    private static final long TICK_MILLIS = 100;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final String USER_AGENT = "toughday2";
+
+    private static AsyncHttpClient instance;
+    private static List<Object> instanceSettings;
+
+    private final EventLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final int maxConnectionsPerRoute;
+    private final long keepAliveNanos;
+    private final long timeoutMillis;
+    private final boolean tcpNoDelay;
+    private final int socketBuffer;
+    private volatile boolean closed;
+
+    /**
+     * Constructor
+     * @param eventLoops the number of threads handling the connections
+     * @param maxConnectionsPerRoute the maximum number of connections to the same host
+     * @param keepAliveMillis how long an idle connection can be reused
+     * @param timeoutMillis how long a request can take, including the wait for a connection
+     * @param tcpNoDelay whether to disable Nagle's algorithm
+     * @param socketBuffer the size of the socket send and receive buffers
+     */
+    public AsyncHttpClient(int eventLoops, int maxConnectionsPerRoute, long keepAliveMillis, long timeoutMillis,
+                           boolean tcpNoDelay, int socketBuffer) throws IOException {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(keepAliveMillis);
+        this.timeoutMillis = timeoutMillis;
+        this.tcpNoDelay = tcpNoDelay;
+        this.socketBuffer = socketBuffer;
+        this.loops = new EventLoop[eventLoops];
+        for (int i = 0; i < eventLoops; i++) {
+            loops[i] = new EventLoop("toughday-http-io-" + i);
+        }
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * Returns the client shared by all the asynchronous tests, built from the http settings of the global args. The
+     * client is rebuilt only if the settings change, and closed with the other shared resources at the end of the run.
+     */
+    public static synchronized AsyncHttpClient getInstance(GlobalArgs args) throws IOException {
+        int maxConnections = Math.min(args.getHttpMaxTotal(), args.getHttpMaxPerRoute());
+        List<Object> settings = Arrays.asList(maxConnections, args.getHttpKeepAlive(), args.getTimeout(),
+                args.getHttpTcpNoDelay(), args.getHttpSocketBuffer());
+        if (instance == null || !settings.equals(instanceSettings)) {
+            if (instance != null) {
+                instance.close();
+            } else {
+                AbstractTest.addSharedResource(AsyncHttpClient::closeInstance);
+            }
+            instance = new AsyncHttpClient(Runtime.getRuntime().availableProcessors(), maxConnections,
+                    args.getHttpKeepAlive(), args.getTimeout(), args.getHttpTcpNoDelay(), args.getHttpSocketBuffer());
+            instanceSettings = settings;
+        }
+        return instance;
+    }
+
+    /**
+     * Closes the shared client, stopping its threads and closing its connections. The next call to
+     * {@link #getInstance(GlobalArgs)} creates a new client.
+     */
+    public static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+            instanceSettings = null;
+        }
+    }
+
+    /**
+     * Sends a request.
+     * @param method the http method
+     * @param uri the absolute uri of the request
+     * @param headers additional headers. Host, Content-Length and, unless given, User-Agent are added by the client
+     * @param body the body of the request, or null if there is none
+     * @return a future of the response. Cancelling it closes the connection the request was sent on.
+     */
+    public CompletableFuture<AsyncHttpResponse> execute(String method, URI uri, List<Header> headers, @Nullable byte[] body) {
+        CompletableFuture<AsyncHttpResponse> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException("The client is closed"));
+            return future;
+        }
+        if (!"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            future.completeExceptionally(new IllegalArgumentException("The asynchronous client supports only http: " + uri));
+            return future;
+        }
+
+        int port = uri.getPort() != -1 ? uri.getPort() : 80;
+        Route route = routes.computeIfAbsent(uri.getHost() + ":" + port, key -> new Route(uri.getHost(), port));
+        Exchange exchange = new Exchange(method, encode(method, uri, route, headers, body), future);
+        future.whenComplete((response, throwable) -> {
+            if (future.isCancelled()) {
+                exchange.cancel();
+            }
+        });
+        route.dispatch(exchange);
+        return future;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.thread.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Route route : routes.values()) {
+            route.failPending();
+        }
+    }
+
+    private static ByteBuffer encode(String method, URI uri, Route route, List<Header> headers, @Nullable byte[] body) {
+        StringBuilder head = new StringBuilder(256);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        head.append(method).append(' ').append(path);
+        if (uri.getRawQuery() != null) {
+            head.append('?').append(uri.getRawQuery());
+        }
+        head.append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(route.hostHeader).append("\r\n");
+
+        boolean userAgent = false;
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase("Host") || header.getName().equalsIgnoreCase("Content-Length")) {
+                continue;
+            }
+            userAgent |= header.getName().equalsIgnoreCase("User-Agent");
+            head.append(header.getName()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        if (!userAgent) {
+            head.append("User-Agent: ").append(USER_AGENT).append("\r\n");
+        }
+        if (body != null) {
+            head.append("Content-Length: ").append(body.length).append("\r\n");
+        } else if (method.equals("POST") || method.equals("PUT")) {
+            head.append("Content-Length: 0\r\n");
+        }
+        head.append("\r\n");
+
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer request = ByteBuffer.allocate(headBytes.length + (body != null ? body.length : 0));
+        request.put(headBytes);
+        if (body != null) {
+            request.put(body);
+        }
+        request.flip();
+        return request;
+    }
+
+    private EventLoop nextLoop() {
+        return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    }
+
+    private final class Exchange {
+        private final String method;
+        private final ByteBuffer request;
+        private final CompletableFuture<AsyncHttpResponse> future;
+        private final long deadline;
+        private volatile Connection connection;
+        private int attempts;
+
+        private Exchange(String method, ByteBuffer request, CompletableFuture<AsyncHttpResponse> future) {
+            this.method = method;
+            this.request = request;
+            this.future = future;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        /*
+            A reused connection can be closed by the server right when the request is sent. Requests without side
+            effects are then retried once on a new connection.
+         */
+        private boolean isRetryable() {
+            return attempts == 0 && (method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS")
+                    || method.equals("PUT") || method.equals("DELETE"));
+        }
+
+        private boolean isExpired(long now) {
+            return now - deadline > 0;
+        }
+
+        private void cancel() {
+            Connection current = connection;
+            if (current != null) {
+                current.loop.execute(() -> {
+                    if (current.exchange == this) {
+                        current.close();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * The connections to one host. Accessed from the callers of the client and from the event loops.
+     */
+    private final class Route {
+        private final InetSocketAddress address;
+        private final String hostHeader;
+        private final Deque<Connection> idle = new ArrayDeque<>();
+        private final Deque<Exchange> pending = new ArrayDeque<>();
+        private int open;
+
+        private Route(String host, int port) {
+            this.address = new InetSocketAddress(host, port);
+            this.hostHeader = port == 80 ? host : host + ":" + port;
+        }
+
+        private void dispatch(Exchange exchange) {
+            Connection connection;
+            List<Connection> expired = null;
+            synchronized (this) {
+                long now = System.nanoTime();
+                // the most recently used connections are at the head, so once one expired, all that follow did too
+                while ((connection = idle.pollFirst()) != null && now - connection.idleSince > keepAliveNanos) {
+                    if (expired == null) {
+                        expired = new ArrayList<>();
+                    }
+                    expired.add(connection);
+                }
+                if (connection == null) {
+                    if (open < maxConnectionsPerRoute) {
+                        open++;
+                        connection = new Connection(this, nextLoop());
+                    } else {
+                        pending.addLast(exchange);
+                    }
+                }
+            }
+
+            if (expired != null) {
+                for (Connection expiredConnection : expired) {
+                    expiredConnection.loop.execute(expiredConnection::close);
+                }
+            }
+            if (connection != null) {
+                connection.assign(exchange);
+            }
+        }
+
+        /*
+            Called from the loop of the connection once its response was read.
+         */
+        private void release(Connection connection) {
+            Exchange next;
+            List<Exchange> expired = new ArrayList<>(0);
+            synchronized (this) {
+                next = pollPending(expired);
+                if (next == null) {
+                    connection.idleSince = System.nanoTime();
+                    idle.addFirst(connection);
+                }
+            }
+            timeOut(expired);
+            if (next == null) {
+                return;
+            }
+            next.connection = connection;
+            connection.start(next);
+        }
+
+        /*
+            Called from the loop of the connection once it was closed.
+         */
+        private void closed(Connection connection) {
+            Exchange next;
+            Connection replacement = null;
+            List<Exchange> expired = new ArrayList<>(0);
+            synchronized (this) {
+                idle.remove(connection);
+                open--;
+                next = closed ? null : pollPending(expired);
+                if (next != null) {
+                    open++;
+                    replacement = new Connection(this, nextLoop());
+                }
+            }
+            timeOut(expired);
+            if (replacement != null) {
+                replacement.assign(next);
+            }
+        }
+
+        private void failPending() {
+            List<Exchange> failed;
+            synchronized (this) {
+                failed = new ArrayList<>(pending);
+                pending.clear();
+            }
+            for (Exchange exchange : failed) {
+                exchange.future.completeExceptionally(new IllegalStateException("The client is closed"));
+            }
+        }
+
+        /*
+            Called from the event loops on every tick. Fails the exchanges that waited for a connection longer than the
+            timeout and drops the cancelled ones.
+         */
+        private void expirePending(long now) {
+            List<Exchange> expired = new ArrayList<>(0);
+            synchronized (this) {
+                Iterator<Exchange> exchanges = pending.iterator();
+                while (exchanges.hasNext()) {
+                    Exchange exchange = exchanges.next();
+                    if (exchange.future.isDone() || exchange.isExpired(now)) {
+                        exchanges.remove();
+                        if (!exchange.future.isDone()) {
+                            expired.add(exchange);
+                        }
+                    }
+                }
+            }
+            timeOut(expired);
+        }
+
+        /*
+            The exchanges that expired while waiting are collected, to be failed once the lock of the route is released.
+         */
+        private Exchange pollPending(List<Exchange> expired) {
+            long now = System.nanoTime();
+            Exchange exchange;
+            while ((exchange = pending.pollFirst()) != null) {
+                if (exchange.isExpired(now)) {
+                    expired.add(exchange);
+                } else if (!exchange.future.isDone()) {
+                    return exchange;
+                }
+            }
+            return null;
+        }
+
+        private void timeOut(List<Exchange> expired) {
+            for (Exchange exchange : expired) {
+                exchange.future.completeExceptionally(
+                        new SocketTimeoutException("No connection within " + timeoutMillis + " ms"));
+            }
+        }
+    }
+
+    /**
+     * A connection is only used from the thread of its event loop, except for {@link #assign(Exchange)}.
+     */
+    private final class Connection {
+        private final Route route;
+        private final EventLoop loop;
+        private final HttpResponseParser parser = new HttpResponseParser();
+        private SocketChannel channel;
+        private SelectionKey key;
+        private boolean closed;
+        private int served;
+        private Exchange exchange;
+        private ByteBuffer out;
+        private volatile long idleSince;
+
+        private Connection(Route route, EventLoop loop) {
+            this.route = route;
+            this.loop = loop;
+        }
+
+        private void assign(Exchange exchange) {
+            exchange.connection = this;
+            loop.execute(() -> start(exchange));
+        }
+
+        private void start(Exchange exchange) {
+            if (closed) {
+                // closed by the server while the request was on its way to the loop
+                route.dispatch(exchange);
+                return;
+            }
+            if (exchange.future.isDone()) {
+                if (channel == null) {
+                    closed = true;
+                    route.closed(this);
+                } else {
+                    route.release(this);
+                }
+                return;
+            }
+
+            this.exchange = exchange;
+            this.out = exchange.request.duplicate();
+            parser.reset(exchange.method.equals("HEAD"));
+            loop.active.add(this);
+            try {
+                if (channel == null) {
+                    connect();
+                } else {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    write();
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        private void connect() throws IOException {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, socketBuffer);
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, socketBuffer);
+            if (channel.connect(route.address)) {
+                key = channel.register(loop.selector, SelectionKey.OP_WRITE, this);
+                write();
+            } else {
+                key = channel.register(loop.selector, SelectionKey.OP_CONNECT, this);
+            }
+        }
+
+        private void finishConnect() throws IOException {
+            if (channel.finishConnect()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                write();
+            }
+        }
+
+        private void write() throws IOException {
+            if (out == null) {
+                key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+            channel.write(out);
+            if (!out.hasRemaining()) {
+                out = null;
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void read(ByteBuffer buffer) throws IOException {
+            buffer.clear();
+            int count = channel.read(buffer);
+            if (count < 0) {
+                endOfStream();
+                return;
+            }
+            if (count == 0) {
+                return;
+            }
+            buffer.flip();
+            if (exchange == null) {
+                // nothing is expected on an idle connection
+                close();
+                return;
+            }
+            if (parser.feed(buffer)) {
+                complete(parser.isKeepAlive() && !buffer.hasRemaining());
+            }
+        }
+
+        private void endOfStream() {
+            if (exchange != null && parser.endOfStream()) {
+                complete(false);
+            } else if (exchange != null && served > 0 && !parser.hasReceivedAnything() && exchange.isRetryable()) {
+                Exchange retry = exchange;
+                retry.attempts++;
+                exchange = null;
+                close();
+                route.dispatch(retry);
+            } else {
+                fail(new EOFException("Connection closed by the server"));
+            }
+        }
+
+        private void complete(boolean reuse) {
+            Exchange done = exchange;
+            exchange = null;
+            served++;
+            loop.active.remove(this);
+            AsyncHttpResponse response = parser.toResponse();
+            if (reuse) {
+                route.release(this);
+            } else {
+                close();
+            }
+            done.future.complete(response);
+        }
+
+        private void fail(Throwable throwable) {
+            Exchange failed = exchange;
+            exchange = null;
+            close();
+            if (failed != null) {
+                failed.future.completeExceptionally(throwable);
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            loop.active.remove(this);
+            if (key != null) {
+                key.cancel();
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // nothing left to do with this connection
+                }
+            }
+            Exchange interrupted = exchange;
+            exchange = null;
+            route.closed(this);
+            if (interrupted != null) {
+                interrupted.future.completeExceptionally(new IOException("Connection closed"));
+            }
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Set<Connection> active = new HashSet<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+        private EventLoop(String name) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        private void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != thread) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            long lastCheck = System.nanoTime();
+            while (!closed) {
+                try {
+                    selector.select(TICK_MILLIS);
+                } catch (IOException e) {
+                    continue;
+                }
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // a failing task must not stop the loop, the futures of its exchange were already completed
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isConnectable()) {
+                            connection.finishConnect();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read(readBuffer);
+                        }
+                    } catch (IOException | CancelledKeyException e) {
+                        connection.fail(e);
+                    } catch (RuntimeException e) {
+                        connection.fail(e);
+                    }
+                }
+
+                long now = System.nanoTime();
+                if (now - lastCheck >= TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS)) {
+                    lastCheck = now;
+                    // the exchanges waiting for a connection belong to no loop, the first one expires them. This is
+                    // done first, so that they are not sent on the connections freed by the expired exchanges below.
+                    if (this == loops[0]) {
+                        for (Route route : routes.values()) {
+                            route.expirePending(now);
+                        }
+                    }
+                    for (Connection connection : new ArrayList<>(active)) {
+                        if (connection.exchange != null && connection.exchange.isExpired(now)) {
+                            connection.fail(new SocketTimeoutException("No response within " + timeoutMillis + " ms"));
+                        }
+                    }
+                }
+            }
+
+            for (SelectionKey key : new ArrayList<>(selector.keys())) {
+                ((Connection) key.attachment()).fail(new IllegalStateException("The client is closed"));
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // the loop is done anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.async;
+
+import com.adobe.qe.toughday.api.annotations.labels.Nullable;
+import org.apache.http.Header;
+import org.apache.http.entity.ContentType;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Response received by the {@link AsyncHttpClient}, with the whole body.
+ */
+public class AsyncHttpResponse {
+    private final int statusCode;
+    private final String reasonPhrase;
+    private final List<Header> headers;
+    private final byte[] content;
+
+    AsyncHttpResponse(int statusCode, String reasonPhrase, List<Header> headers, byte[] content) {
+        this.statusCode = statusCode;
+        this.reasonPhrase = reasonPhrase;
+        this.headers = headers;
+        this.content = content;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public List<Header> getHeaders() {
+        return headers;
+    }
+
+    public @Nullable Header getFirstHeader(String name) {
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(name)) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    public byte[] getContentBytes() {
+        return content;
+    }
+
+    public long getContentLength() {
+        return content.length;
+    }
+
+    /**
+     * The body decoded with the charset from the Content-Type header, UTF-8 if there is none.
+     */
+    public String getContent() {
+        Charset charset = StandardCharsets.UTF_8;
+        Header contentType = getFirstHeader("Content-Type");
+        if (contentType != null) {
+            try {
+                Charset declared = ContentType.parse(contentType.getValue()).getCharset();
+                if (declared != null) {
+                    charset = declared;
+                }
+            } catch (RuntimeException e) {
+                // malformed header, keep the default charset
+            }
+        }
+        return new String(content, charset);
+    }
+}
@@ -0,0 +1,280 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.async;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental parser of HTTP/1.x responses, fed with whatever the socket returned. Supports bodies delimited by
+ * Content-Length, chunked transfer encoding or the end of the connection. Not thread safe.
+ */
+class HttpResponseParser {
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    // the announced length of a body is not trusted beyond this, the buffer grows with the bytes actually received
+    private static final int MAX_BODY_PREALLOCATION = 1024 * 1024;
+
+    private enum State {
+        STATUS_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, BODY_UNTIL_CLOSE, DONE
+    }
+
+    private State state;
+    private boolean headRequest;
+    private final StringBuilder line = new StringBuilder(128);
+    private boolean lastWasCR;
+
+    private String version;
+    private int statusCode;
+    private String reasonPhrase;
+    private List<Header> headers;
+    private long remaining;
+    private boolean keepAlive;
+    private boolean receivedAnything;
+
+    private byte[] body = new byte[0];
+    private int bodyLength;
+
+    void reset(boolean headRequest) {
+        this.headRequest = headRequest;
+        this.state = State.STATUS_LINE;
+        this.line.setLength(0);
+        this.lastWasCR = false;
+        this.headers = new ArrayList<>();
+        this.receivedAnything = false;
+        this.body = new byte[0];
+        this.bodyLength = 0;
+    }
+
+    /**
+     * @return true if the response is complete
+     */
+    boolean feed(ByteBuffer buffer) throws IOException {
+        receivedAnything |= buffer.hasRemaining();
+        while (buffer.hasRemaining() && state != State.DONE) {
+            switch (state) {
+                case STATUS_LINE:
+                    if (readLine(buffer)) {
+                        parseStatusLine();
+                    }
+                    break;
+                case HEADERS:
+                    if (readLine(buffer)) {
+                        if (line.length() == 0) {
+                            endOfHeaders();
+                        } else {
+                            parseHeader();
+                        }
+                    }
+                    break;
+                case BODY:
+                    readBody(buffer, remaining);
+                    if (remaining == 0) {
+                        state = State.DONE;
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    if (readLine(buffer)) {
+                        parseChunkSize();
+                    }
+                    break;
+                case CHUNK_DATA:
+                    readBody(buffer, remaining);
+                    if (remaining == 0) {
+                        state = State.CHUNK_END;
+                    }
+                    break;
+                case CHUNK_END:
+                    if (readLine(buffer)) {
+                        takeLine();
+                        state = State.CHUNK_SIZE;
+                    }
+                    break;
+                case TRAILERS:
+                    // the trailer fields are discarded, an empty line ends them
+                    if (readLine(buffer) && takeLine().isEmpty()) {
+                        state = State.DONE;
+                    }
+                    break;
+                case BODY_UNTIL_CLOSE:
+                    readBody(buffer, buffer.remaining());
+                    break;
+            }
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * Called when the server closed the connection.
+     * @return true if the response is complete, which is the case only for bodies delimited by the end of the connection
+     */
+    boolean endOfStream() {
+        if (state == State.BODY_UNTIL_CLOSE) {
+            state = State.DONE;
+        }
+        return state == State.DONE;
+    }
+
+    boolean hasReceivedAnything() {
+        return receivedAnything;
+    }
+
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    AsyncHttpResponse toResponse() {
+        return new AsyncHttpResponse(statusCode, reasonPhrase, headers, Arrays.copyOf(body, bodyLength));
+    }
+
+    private boolean readLine(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            char c = (char) (buffer.get() & 0xFF);
+            if (c == '\n') {
+                if (lastWasCR) {
+                    line.setLength(line.length() - 1);
+                }
+                lastWasCR = false;
+                return true;
+            }
+            if (state != State.BODY && state != State.CHUNK_DATA && state != State.BODY_UNTIL_CLOSE) {
+                if (line.length() >= MAX_LINE_LENGTH) {
+                    throw new IOException("Response line longer than " + MAX_LINE_LENGTH + " characters");
+                }
+            }
+            line.append(c);
+            lastWasCR = c == '\r';
+        }
+        return false;
+    }
+
+    private void parseStatusLine() throws IOException {
+        String statusLine = takeLine();
+        if (statusLine.isEmpty()) {
+            // tolerate empty lines before the status line
+            return;
+        }
+        String[] parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            throw new IOException("Invalid status line: " + statusLine);
+        }
+        try {
+            statusCode = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid status line: " + statusLine);
+        }
+        version = parts[0];
+        reasonPhrase = parts.length > 2 ? parts[2] : "";
+        state = State.HEADERS;
+    }
+
+    private void parseHeader() throws IOException {
+        String header = takeLine();
+        int colon = header.indexOf(':');
+        if (colon <= 0) {
+            throw new IOException("Invalid header: " + header);
+        }
+        headers.add(new BasicHeader(header.substring(0, colon).trim(), header.substring(colon + 1).trim()));
+    }
+
+    private void endOfHeaders() throws IOException {
+        if (statusCode / 100 == 1) {
+            // interim response, the real one follows
+            headers = new ArrayList<>();
+            state = State.STATUS_LINE;
+            return;
+        }
+
+        String connection = headerValue("Connection");
+        keepAlive = "HTTP/1.1".equals(version)
+                ? !"close".equalsIgnoreCase(connection)
+                : "keep-alive".equalsIgnoreCase(connection);
+
+        String transferEncoding = headerValue("Transfer-Encoding");
+        String contentLength = headerValue("Content-Length");
+        if (headRequest || statusCode == 204 || statusCode == 304) {
+            state = State.DONE;
+        } else if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+            state = State.CHUNK_SIZE;
+        } else if (contentLength != null) {
+            try {
+                remaining = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + contentLength);
+            }
+            if (remaining < 0) {
+                throw new IOException("Invalid Content-Length: " + contentLength);
+            }
+            ensureBodyCapacity(Math.min(remaining, MAX_BODY_PREALLOCATION));
+            state = remaining == 0 ? State.DONE : State.BODY;
+        } else {
+            keepAlive = false;
+            state = State.BODY_UNTIL_CLOSE;
+        }
+    }
+
+    private void parseChunkSize() throws IOException {
+        String sizeLine = takeLine();
+        int extension = sizeLine.indexOf(';');
+        String size = (extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim();
+        try {
+            remaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid chunk size: " + sizeLine);
+        }
+        if (remaining < 0) {
+            throw new IOException("Invalid chunk size: " + sizeLine);
+        }
+        if (remaining == 0) {
+            state = State.TRAILERS;
+        } else {
+            ensureBodyCapacity(bodyLength + Math.min(remaining, MAX_BODY_PREALLOCATION));
+            state = State.CHUNK_DATA;
+        }
+    }
+
+    private void readBody(ByteBuffer buffer, long max) {
+        int count = (int) Math.min(buffer.remaining(), max);
+        ensureBodyCapacity((long) bodyLength + count);
+        buffer.get(body, bodyLength, count);
+        bodyLength += count;
+        remaining -= count;
+    }
+
+    private void ensureBodyCapacity(long capacity) {
+        if (capacity > body.length) {
+            int newCapacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity, Math.min(body.length * 2L, Integer.MAX_VALUE - 8)));
+            body = Arrays.copyOf(body, newCapacity);
+        }
+    }
+
+    private String headerValue(String name) {
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private String takeLine() {
+        // the bytes were appended as ISO-8859-1 characters
+        String value = line.toString();
+        line.setLength(0);
+        return value;
+    }
+}
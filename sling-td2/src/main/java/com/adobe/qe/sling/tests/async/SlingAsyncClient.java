@@ -0,0 +1,220 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.async;
+
+import com.adobe.qe.sling.tests.utils.SlingHttpData;
+import com.adobe.qe.toughday.api.annotations.labels.Nullable;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.api.core.config.GlobalArgs;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
+import org.apache.sling.testing.clients.ClientException;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Asynchronous counterpart of the Sling client, for {@link SlingAsyncTestBase} tests. The requests are sent through
+ * the shared {@link AsyncHttpClient}, so only the http protocol and basic authentication are supported.
+ */
+public class SlingAsyncClient {
+    private final AsyncHttpClient httpClient;
+    private final URI baseUri;
+    private final String user;
+    private final Header authorization;
+    private final @Nullable AbstractTest parent;
+    private final @Nullable String label;
+
+    public SlingAsyncClient(AsyncHttpClient httpClient, URI baseUri, String user, String password) {
+        this(httpClient, baseUri, user, new BasicHeader("Authorization", "Basic " + Base64.getEncoder()
+                .encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8))), null, null);
+    }
+
+    private SlingAsyncClient(AsyncHttpClient httpClient, URI baseUri, String user, Header authorization,
+                             @Nullable AbstractTest parent, @Nullable String label) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri.getPath().endsWith("/") ? baseUri : URI.create(baseUri + "/");
+        this.user = user;
+        this.authorization = authorization;
+        this.parent = parent;
+        this.label = label;
+    }
+
+    /**
+     * Creates a client for the host, user and password from the Global Args.
+     * @param args the GlobalArgs
+     * @return the client
+     * @throws Exception if the base uri is not valid
+     * @throws IllegalArgumentException if the protocol is not http or the authentication method is not basic
+     */
+    public static SlingAsyncClient create(GlobalArgs args) throws Exception {
+        if (!"http".equalsIgnoreCase(args.getProtocol())) {
+            throw new IllegalArgumentException("The asynchronous client supports only the http protocol, not " + args.getProtocol());
+        }
+        if (!args.getAuthMethod().equals("basic")) {
+            throw new IllegalArgumentException("The asynchronous client supports only the basic authentication method");
+        }
+        URIBuilder uriBuilder = new URIBuilder()
+                .setScheme(args.getProtocol())
+                .setHost(args.getHost())
+                .setPort(args.getPort());
+
+        if (args.getContextPath() != null) {
+            URI cp = URI.create("/").resolve(args.getContextPath());
+            uriBuilder.setPath(cp.getPath());
+        }
+
+        return new SlingAsyncClient(AsyncHttpClient.getInstance(args), uriBuilder.build(), args.getUser(), args.getPassword());
+    }
+
+    /**
+     * Returns a view of this client that benchmarks every request as a step of the given test. The data of the
+     * results is a {@link SlingHttpData}.
+     * @param parent the test that sends the requests
+     * @param label the name of the step
+     */
+    public SlingAsyncClient measure(AbstractTest parent, String label) {
+        return new SlingAsyncClient(httpClient, baseUri, user, authorization, parent, label);
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public URI getUrl() {
+        return baseUri;
+    }
+
+    public CompletableFuture<AsyncHttpResponse> doGetAsync(String path, @Nullable List<NameValuePair> parameters,
+                                                           @Nullable List<Header> headers, int... expectedStatus) {
+        return doRequestAsync("GET", path, parameters, null, headers, expectedStatus);
+    }
+
+    public CompletableFuture<AsyncHttpResponse> doGetAsync(String path, int... expectedStatus) {
+        return doGetAsync(path, null, null, expectedStatus);
+    }
+
+    public CompletableFuture<AsyncHttpResponse> doPostAsync(String path, @Nullable HttpEntity entity,
+                                                            @Nullable List<Header> headers, int... expectedStatus) {
+        List<Header> allHeaders = headers != null ? new ArrayList<>(headers) : new ArrayList<>();
+        byte[] body;
+        try {
+            body = entity != null ? EntityUtils.toByteArray(entity) : null;
+        } catch (Exception e) {
+            CompletableFuture<AsyncHttpResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        if (entity != null && entity.getContentType() != null) {
+            allHeaders.add(entity.getContentType());
+        }
+        return doRequestAsync("POST", path, null, body, allHeaders, expectedStatus);
+    }
+
+    public CompletableFuture<AsyncHttpResponse> doPostAsync(String path, @Nullable HttpEntity entity, int... expectedStatus) {
+        return doPostAsync(path, entity, null, expectedStatus);
+    }
+
+    /**
+     * Sends a request.
+     * @param method the http method
+     * @param path the path of the request, relative to the base uri
+     * @param parameters query parameters
+     * @param body the body of the request, or null if there is none
+     * @param headers additional headers
+     * @param expectedStatus the accepted status codes. If none is given, any status is accepted.
+     * @return a future of the response, completed exceptionally with a {@link ClientException} if the status was
+     * not expected
+     */
+    public CompletableFuture<AsyncHttpResponse> doRequestAsync(String method, String path,
+                                                               @Nullable List<NameValuePair> parameters,
+                                                               @Nullable byte[] body, @Nullable List<Header> headers,
+                                                               int... expectedStatus) {
+        if (parent == null) {
+            return send(method, path, parameters, body, headers, expectedStatus, null);
+        }
+        return parent.benchmark().measureAsync(parent, label, (TestResult<SlingHttpData> testResult) -> {
+            return send(method, path, parameters, body, headers, expectedStatus, testResult);
+        });
+    }
+
+    private CompletableFuture<AsyncHttpResponse> send(String method, String path, @Nullable List<NameValuePair> parameters,
+                                                      @Nullable byte[] body, @Nullable List<Header> headers,
+                                                      int[] expectedStatus, @Nullable TestResult<SlingHttpData> testResult) {
+        URI uri;
+        try {
+            URIBuilder builder = new URIBuilder(baseUri.resolve(path.startsWith("/") ? path.substring(1) : path));
+            if (parameters != null) {
+                builder.addParameters(parameters);
+            }
+            uri = builder.build();
+        } catch (Exception e) {
+            CompletableFuture<AsyncHttpResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        List<Header> allHeaders = new ArrayList<>();
+        allHeaders.add(authorization);
+        allHeaders.addAll(headers != null ? headers : Collections.<Header>emptyList());
+
+        long start = System.nanoTime();
+        CompletableFuture<AsyncHttpResponse> exchange = httpClient.execute(method, uri, allHeaders, body);
+        CompletableFuture<AsyncHttpResponse> checked = exchange.thenApply(response -> {
+            if (testResult != null) {
+                SlingHttpData data = new SlingHttpData()
+                        .withMethod(method)
+                        .withUrl(uri.toString())
+                        .withResponseCode(response.getStatusCode())
+                        .withUser(user)
+                        .withBytes(response.getContentLength())
+                        .withLatency(TestResult.milliDurationFromNano(start, System.nanoTime()));
+                testResult.withData(data);
+            }
+            checkStatus(method, uri, response, expectedStatus);
+            return response;
+        });
+        // cancelling the returned future, like the run modes do on timeouts, releases the connection of the exchange
+        checked.whenComplete((response, throwable) -> {
+            if (checked.isCancelled()) {
+                exchange.cancel(false);
+            }
+        });
+        return checked;
+    }
+
+    private static void checkStatus(String method, URI uri, AsyncHttpResponse response, int[] expectedStatus) {
+        if (expectedStatus == null || expectedStatus.length == 0) {
+            return;
+        }
+        for (int status : expectedStatus) {
+            if (status == response.getStatusCode()) {
+                return;
+            }
+        }
+        ClientException exception = new ClientException("Expected HTTP status " + Arrays.toString(expectedStatus)
+                + " but got " + response.getStatusCode() + " for " + method + " " + uri, response.getStatusCode());
+        throw new CompletionException(exception);
+    }
+}
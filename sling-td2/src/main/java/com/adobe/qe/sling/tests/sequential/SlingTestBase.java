@@ -12,20 +12,16 @@ governing permissions and limitations under the License.
 package com.adobe.qe.sling.tests.sequential;
 
 import com.adobe.qe.sling.tests.utils.SlingClientsProxyFactory;
+import com.adobe.qe.sling.tests.utils.SlingConnectionManager;
 import com.adobe.qe.toughday.api.core.SequentialTest;
 import com.adobe.qe.toughday.api.core.config.GlobalArgs;
 import org.apache.http.auth.AuthSchemeProvider;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.config.Lookup;
 import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
-import org.apache.http.ssl.SSLContexts;
 import org.apache.sling.testing.clients.SlingClient;
 import org.apache.sling.testing.clients.interceptors.FormBasedAuthInterceptor;
 
-import javax.net.ssl.SSLContext;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -39,6 +35,14 @@ public abstract class SlingTestBase extends SequentialTest {
         benchmark().registerHierarchyProxyFactory(SlingClient.class, new SlingClientsProxyFactory());
     }
 
+    /**
+     * Whether the bodies of the measured responses are kept for this test even if the "httpresponsebody" global arg
+     * discards them. Tests that parse the responses of measured requests must return true.
+     */
+    public boolean retainsResponseBodies() {
+        return false;
+    }
+
     public SlingClient getDefaultClient() throws Exception {
         if (defaultClient == null) {
             defaultClient = SlingTestBase.createClient(getGlobalArgs());
@@ -69,13 +73,8 @@ public abstract class SlingTestBase extends SequentialTest {
                 args.getUser(),
                 args.getPassword());
 
-        if(!args.getHostValidationEnabled()) {
-            SSLContext sslContext = SSLContexts.custom()
-                    .loadTrustMaterial(null, new TrustSelfSignedStrategy())
-                    .build();
-            SSLConnectionSocketFactory sslFactory = new SSLConnectionSocketFactory(sslContext, new NoopHostnameVerifier());
-            builder.httpClientBuilder().setSSLSocketFactory(sslFactory);
-        }
+        // all the clients share one connection pool, which also knows whether the host has to be validated
+        SlingConnectionManager.getInstance(args).configure(builder.httpClientBuilder());
 
         if(args.getAuthMethod().equals("basic")) {
             //no-op
@@ -0,0 +1,97 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.utils;
+
+/**
+ * Durations of the phases of the http requests executed by the current thread. They are accumulated by the shared
+ * connection manager and by the request executor of the clients, so a proxy resets the timer before a request and
+ * reads it after the request returns. The time spent reading the body is not included, it is measured by the proxy.
+ */
+public final class HttpPhaseTimer {
+    private static final ThreadLocal<HttpPhaseTimer> CURRENT = ThreadLocal.withInitial(HttpPhaseTimer::new);
+
+    private long leaseNano;
+    private long connectNano;
+    private long tlsNano;
+    private long writeNano;
+    private long firstByteNano;
+
+    private HttpPhaseTimer() {
+    }
+
+    /**
+     * Returns the timer of the current thread.
+     */
+    public static HttpPhaseTimer current() {
+        return CURRENT.get();
+    }
+
+    public void reset() {
+        leaseNano = 0;
+        connectNano = 0;
+        tlsNano = 0;
+        writeNano = 0;
+        firstByteNano = 0;
+    }
+
+    void addLease(long nano) {
+        leaseNano += nano;
+    }
+
+    void addConnect(long nano) {
+        connectNano += nano;
+    }
+
+    void addTls(long nano) {
+        tlsNano += nano;
+    }
+
+    void addWrite(long nano) {
+        writeNano += nano;
+    }
+
+    void addFirstByte(long nano) {
+        firstByteNano += nano;
+    }
+
+    /**
+     * @return how long the requests waited for a connection from the pool
+     */
+    public long getLeaseNano() {
+        return leaseNano;
+    }
+
+    /**
+     * @return how long it took to open new connections, without the TLS handshake
+     */
+    public long getConnectNano() {
+        return connectNano;
+    }
+
+    public long getTlsNano() {
+        return tlsNano;
+    }
+
+    /**
+     * @return how long it took to send the requests, headers and bodies
+     */
+    public long getWriteNano() {
+        return writeNano;
+    }
+
+    /**
+     * @return how long it took, after the requests were sent, until the headers of the responses were received
+     */
+    public long getFirstByteNano() {
+        return firstByteNano;
+    }
+}
@@ -11,6 +11,7 @@ governing permissions and limitations under the License.
 */
 package com.adobe.qe.sling.tests.utils;
 
+import com.adobe.qe.sling.tests.sequential.SlingTestBase;
 import com.adobe.qe.toughday.api.annotations.labels.Nullable;
 import com.adobe.qe.toughday.api.core.AbstractTest;
 import com.adobe.qe.toughday.api.annotations.labels.NotThreadSafe;
@@ -20,24 +21,33 @@ import com.adobe.qe.toughday.api.core.benchmark.ResultInfo;
 import com.adobe.qe.toughday.api.core.benchmark.TestResult;
 import org.apache.commons.lang3.tuple.Triple;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.sling.testing.clients.ClientException;
 import org.apache.sling.testing.clients.SlingClient;
 import org.apache.sling.testing.clients.SlingClientConfig;
 import org.apache.sling.testing.clients.SlingHttpResponse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.CRC32;
 
 @NotThreadSafe(description = "Don't reuse a proxy for requests. Always create a new proxy for a new request.")
 public class SlingClientProxy extends SlingClient implements Proxy<SlingClient> {
+    private static final String RETAIN_BODY = "retain";
+    private static final String CHECKSUM_BODY = "checksum";
+    private static final ThreadLocal<byte[]> DISCARD_BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
 
     public SlingClientProxy(CloseableHttpClient http, SlingClientConfig config) throws ClientException {
         super(http, config);
@@ -69,6 +79,8 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
 
     private boolean recordResult = true;
     private TestResult<SlingHttpData> testResult;
+    private @Nullable CountingInputStream discardedBody;
+    private long transferNano;
 
     private boolean shouldIRecord() {
         boolean tmp = recordResult;
@@ -78,8 +90,11 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
 
     public SlingHttpResponse doGet(String requestPath, List<NameValuePair> parameters, List<Header> headers, int... expectedStatus) throws ClientException {
         boolean recordResultHere = shouldIRecord();
+        String bodyMode = responseBodyMode();
         ResultInfo<SlingHttpResponse, SlingHttpData> result = benchmark().computeTestResult(test, (TestResult<SlingHttpData> testResult) -> {
-            return super.doGet(requestPath, parameters, headers, expectedStatus);
+            SlingHttpResponse response = super.doStreamGet(requestPath, parameters, headers, expectedStatus);
+            readBody(response, bodyMode);
+            return response;
         });
 
         TestResult<SlingHttpData> currentResult = result.getTestResult();
@@ -88,7 +103,8 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
 
         currentResult.withData(this.testResult.getData());
         if(response != null) {
-            currentResult.getData().withBytes(response.getContent().length());
+            recordBytes(currentResult.getData(), response);
+            currentResult.getData().withTransferTime(TestResult.milliDurationFromNano(0, transferNano));
         }
 
         if(recordResultHere) {
@@ -104,8 +120,11 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
     @Override
     public SlingHttpResponse doRequest(HttpUriRequest request, List<Header> headers, int... expectedStatus) throws ClientException {
         boolean recordResultHere = shouldIRecord();
+        String bodyMode = responseBodyMode();
         ResultInfo<SlingHttpResponse, SlingHttpData> result = benchmark().computeTestResult(test, (TestResult<SlingHttpData> testResult) -> {
-            return super.doRequest(request, headers, expectedStatus);
+            SlingHttpResponse response = super.doStreamRequest(request, headers, expectedStatus);
+            readBody(response, bodyMode);
+            return response;
         });
 
         TestResult<SlingHttpData> currentResult = result.getTestResult();
@@ -114,7 +133,8 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
 
         currentResult.withData(this.testResult.getData());
         if(response != null) {
-            currentResult.getData().withBytes(response.getContent().length());
+            recordBytes(currentResult.getData(), response);
+            currentResult.getData().withTransferTime(TestResult.milliDurationFromNano(0, transferNano));
         }
 
         if(recordResultHere) {
@@ -133,6 +153,8 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
 
         ResultInfo<SlingHttpResponse, SlingHttpData> result = benchmark().computeTestResult(test, (TestResult<SlingHttpData> testResult) -> {
             SlingHttpData data = testResult.getData() != null ? testResult.getData() : new SlingHttpData();
+            HttpPhaseTimer timer = HttpPhaseTimer.current();
+            timer.reset();
             SlingHttpResponse response = target.doRawRequest(method, uri, headers, expectedStatus);
             Header contentLengthHeader = response.getFirstHeader("Content-Length");
             long bytes = contentLengthHeader != null ? Long.parseLong(contentLengthHeader.getValue()) : response.getEntity().getContentLength();
@@ -141,6 +163,7 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
                     .withResponseCode(response.getStatusLine().getStatusCode())
                     .withUser(target.getUser())
                     .withBytes(bytes);
+            recordPhases(data, timer);
             testResult.withData(data);
             return response;
         });
@@ -168,6 +191,8 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
 
         ResultInfo<SlingHttpResponse, SlingHttpData> result = benchmark().computeTestResult(test, (TestResult<SlingHttpData> testResult) -> {
             SlingHttpData data = testResult.getData() != null ? testResult.getData() : new SlingHttpData();
+            HttpPhaseTimer timer = HttpPhaseTimer.current();
+            timer.reset();
             SlingHttpResponse response = target.doStreamRequest(request, headers, expectedStatus);
             Header contentLengthHeader = response.getFirstHeader("Content-Length");
             long bytes = contentLengthHeader != null ? Long.parseLong(contentLengthHeader.getValue()) : response.getEntity().getContentLength();
@@ -177,6 +202,7 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
                     .withQuery(getQueryString(request))
                     .withUser(target.getUser())
                     .withBytes(bytes);
+            recordPhases(data, timer);
 
             testResult.withData(data);
             return response;
@@ -199,6 +225,121 @@ public class SlingClientProxy extends SlingClient implements Proxy<SlingClient>
         return response;
     }
 
+    /*
+        The bodies are retained unless the global args say otherwise and the test does not need them.
+     */
+    private String responseBodyMode() {
+        for (AbstractTest current = test; current != null; current = current.getParent()) {
+            if (current instanceof SlingTestBase) {
+                SlingTestBase slingTest = (SlingTestBase) current;
+                if (slingTest.retainsResponseBodies() || slingTest.getGlobalArgs() == null) {
+                    return RETAIN_BODY;
+                }
+                return slingTest.getGlobalArgs().getHttpResponseBody();
+            }
+        }
+        return RETAIN_BODY;
+    }
+
+    /*
+        Reads the body the way the global args say, the time it takes is reported as the transfer phase.
+     */
+    private void readBody(SlingHttpResponse response, String bodyMode) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (bodyMode.equals(RETAIN_BODY)) {
+                discardedBody = null;
+                response.getContent();
+            } else {
+                discardBody(response, bodyMode);
+            }
+        } finally {
+            transferNano = System.nanoTime() - start;
+        }
+    }
+
+    /*
+        Streams the body through a counting stream and drops it. The entity is replaced, so a test that reads the
+        content anyway gets an explanation instead of an already consumed stream.
+     */
+    private void discardBody(SlingHttpResponse response, String bodyMode) throws IOException {
+        discardedBody = null;
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return;
+        }
+
+        CountingInputStream body = new CountingInputStream(entity.getContent(), CHECKSUM_BODY.equals(bodyMode) ? new CRC32() : null);
+        try {
+            byte[] buffer = DISCARD_BUFFER.get();
+            while (body.read(buffer) != -1) {
+                // only counted
+            }
+        } finally {
+            body.close();
+        }
+        discardedBody = body;
+        response.setEntity(new DiscardedEntity(entity, body.getCount()));
+    }
+
+    private static void recordPhases(SlingHttpData data, HttpPhaseTimer timer) {
+        data.withLeaseTime(TestResult.milliDurationFromNano(0, timer.getLeaseNano()))
+                .withConnectTime(TestResult.milliDurationFromNano(0, timer.getConnectNano()))
+                .withTlsTime(TestResult.milliDurationFromNano(0, timer.getTlsNano()))
+                .withWriteTime(TestResult.milliDurationFromNano(0, timer.getWriteNano()))
+                .withFirstByteTime(TestResult.milliDurationFromNano(0, timer.getFirstByteNano()));
+    }
+
+    private void recordBytes(SlingHttpData data, SlingHttpResponse response) {
+        if (discardedBody == null) {
+            data.withBytes(response.getContent().length());
+            return;
+        }
+        data.withBytes(discardedBody.getCount());
+        if (discardedBody.getChecksum() != null) {
+            data.withChecksum(Long.toHexString(discardedBody.getChecksum().getValue()));
+        }
+    }
+
+    /**
+     * Stands for a response body that was consumed without being kept.
+     */
+    private static class DiscardedEntity extends AbstractHttpEntity {
+        private final long length;
+
+        private DiscardedEntity(HttpEntity original, long length) {
+            this.length = length;
+            setContentType(original.getContentType());
+            setContentEncoding(original.getContentEncoding());
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return length;
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new IllegalStateException("The response body was discarded because of the httpresponsebody global " +
+                    "arg. Tests that parse the responses must override SlingTestBase.retainsResponseBodies().");
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) {
+            getContent();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
     private List<Map<String, String>> getQueryString(HttpUriRequest request) {
         if (request instanceof HttpEntityEnclosingRequestBase) {
             HttpEntityEnclosingRequestBase httpRequest = (HttpEntityEnclosingRequestBase) request;
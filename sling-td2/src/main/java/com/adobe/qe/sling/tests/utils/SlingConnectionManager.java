@@ -0,0 +1,233 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.utils;
+
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.config.GlobalArgs;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.TextUtils;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool shared by all the clients created with the global args, so that the clones of the tests reuse the
+ * same connections instead of each opening its own. The time the calling thread spends leasing, opening and using the
+ * connections is accumulated in its {@link HttpPhaseTimer}, so that every phase can be reported separately from the
+ * time of the request.
+ */
+public class SlingConnectionManager extends PoolingHttpClientConnectionManager {
+    private static final HttpRequestExecutor REQUEST_EXECUTOR = new TimedRequestExecutor();
+
+    private static SlingConnectionManager instance;
+    private static List<Object> instanceSettings;
+
+    private final ConnectionKeepAliveStrategy keepAliveStrategy;
+
+    private SlingConnectionManager(Registry<ConnectionSocketFactory> registry, GlobalArgs args) {
+        super(registry);
+        setMaxTotal(args.getHttpMaxTotal());
+        setDefaultMaxPerRoute(args.getHttpMaxPerRoute());
+        setValidateAfterInactivity(args.getHttpValidateAfterInactivity());
+        setDefaultSocketConfig(SocketConfig.custom()
+                .setTcpNoDelay(args.getHttpTcpNoDelay())
+                .setSndBufSize(args.getHttpSocketBuffer())
+                .setRcvBufSize(args.getHttpSocketBuffer())
+                .setSoKeepAlive(true)
+                .build());
+        setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setBufferSize(args.getHttpSocketBuffer())
+                .build());
+
+        long keepAlive = args.getHttpKeepAlive();
+        this.keepAliveStrategy = (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+        };
+    }
+
+    /**
+     * Returns the pool for the given args. The pool is created once and reused as long as the http settings do not
+     * change, a pool that is replaced is shut down. The pool is closed when the execution ends.
+     */
+    public static synchronized SlingConnectionManager getInstance(GlobalArgs args) throws Exception {
+        List<Object> settings = Arrays.asList(args.getHostValidationEnabled(), args.getHttpMaxTotal(),
+                args.getHttpMaxPerRoute(), args.getHttpKeepAlive(), args.getHttpValidateAfterInactivity(),
+                args.getHttpSocketBuffer(), args.getHttpTcpNoDelay());
+        if (instance == null || !settings.equals(instanceSettings)) {
+            // same as SSLConnectionSocketFactory.getSystemSocketFactory(), but timing the handshakes
+            SSLConnectionSocketFactory sslFactory = args.getHostValidationEnabled()
+                    ? new TimedSSLConnectionSocketFactory((SSLSocketFactory) SSLSocketFactory.getDefault(),
+                            split(System.getProperty("https.protocols")), split(System.getProperty("https.cipherSuites")),
+                            SSLConnectionSocketFactory.getDefaultHostnameVerifier())
+                    : new TimedSSLConnectionSocketFactory(SSLContexts.custom()
+                            .loadTrustMaterial(null, new TrustSelfSignedStrategy())
+                            .build(), new NoopHostnameVerifier());
+            Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", sslFactory)
+                    .build();
+
+            if (instance != null) {
+                instance.shutdown();
+            } else {
+                AbstractTest.addSharedResource(SlingConnectionManager::closeInstance);
+            }
+            instance = new SlingConnectionManager(registry, args);
+            instanceSettings = settings;
+        }
+        return instance;
+    }
+
+    /**
+     * Shuts the pool down, closing all its connections. The next call to {@link #getInstance(GlobalArgs)} creates
+     * a new pool.
+     */
+    public static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+            instanceSettings = null;
+        }
+    }
+
+    /**
+     * Makes the client built with this builder use the pool. The pool outlives the clients, closing one of them does
+     * not close the connections of the others.
+     */
+    public void configure(HttpClientBuilder builder) {
+        builder.setConnectionManager(this)
+                .setConnectionManagerShared(true)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .setRequestExecutor(REQUEST_EXECUTOR);
+    }
+
+    private static String[] split(String value) {
+        return TextUtils.isBlank(value) ? null : value.split(" *, *");
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return request.get(timeout, unit);
+                } finally {
+                    HttpPhaseTimer.current().addLease(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void connect(HttpClientConnection managedConn, HttpRoute route, int connectTimeout, HttpContext context)
+            throws IOException {
+        HttpPhaseTimer timer = HttpPhaseTimer.current();
+        long tlsBefore = timer.getTlsNano();
+        long start = System.nanoTime();
+        try {
+            super.connect(managedConn, route, connectTimeout, context);
+        } finally {
+            // the handshake happens while connecting, it is reported on its own
+            timer.addConnect(System.nanoTime() - start - (timer.getTlsNano() - tlsBefore));
+        }
+    }
+
+    /**
+     * Times the TLS handshakes, which are done when the plain socket is layered.
+     */
+    private static class TimedSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+        private TimedSSLConnectionSocketFactory(SSLContext sslContext, HostnameVerifier hostnameVerifier) {
+            super(sslContext, hostnameVerifier);
+        }
+
+        private TimedSSLConnectionSocketFactory(SSLSocketFactory socketFactory, String[] supportedProtocols,
+                                                String[] supportedCipherSuites, HostnameVerifier hostnameVerifier) {
+            super(socketFactory, supportedProtocols, supportedCipherSuites, hostnameVerifier);
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.createLayeredSocket(socket, target, port, context);
+            } finally {
+                HttpPhaseTimer.current().addTls(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Times sending the requests and waiting for the heads of the responses. The bodies are read later, by the callers.
+     */
+    private static class TimedRequestExecutor extends HttpRequestExecutor {
+        @Override
+        protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                throws IOException, HttpException {
+            long start = System.nanoTime();
+            try {
+                return super.doSendRequest(request, conn, context);
+            } finally {
+                HttpPhaseTimer.current().addWrite(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                throws IOException, HttpException {
+            long start = System.nanoTime();
+            try {
+                return super.doReceiveResponse(request, conn, context);
+            } finally {
+                HttpPhaseTimer.current().addFirstByte(System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -11,16 +11,27 @@ governing permissions and limitations under the License.
 */
 package com.adobe.qe.sling.tests.utils;
 
+import com.adobe.qe.toughday.api.core.benchmark.PhasedData;
+
 import java.util.List;
 import java.util.Map;
+import java.util.function.ObjLongConsumer;
 
-public class SlingHttpData {
+public class SlingHttpData implements PhasedData {
     private String url;
     private String method;
     private int responseCode;
     private List<Map<String, String>> query;
     private long bytes;
-    private double latency = Double.NaN;
+    private String checksum;
+    // null until a finite latency is set, json has no representation for NaN
+    private Double latency;
+    private double leaseTime;
+    private double connectTime;
+    private double tlsTime;
+    private double writeTime;
+    private double firstByteTime;
+    private double transferTime;
     private String user;
 
     public SlingHttpData() {
@@ -51,8 +62,62 @@ public class SlingHttpData {
         return (T) this;
     }
 
+    /**
+     * @param checksum the CRC32 of the response body, in hex. Only computed when the body is discarded with a checksum
+     */
+    public <T extends SlingHttpData> T withChecksum(String checksum) {
+        this.checksum = checksum;
+        return (T) this;
+    }
+
     public <T extends SlingHttpData> T withLatency(double latency) {
-        this.latency = latency;
+        this.latency = Double.isNaN(latency) || Double.isInfinite(latency) ? null : latency;
+        return (T) this;
+    }
+
+    /**
+     * @param leaseTime how long, in milliseconds, the request waited for a connection from the pool
+     */
+    public <T extends SlingHttpData> T withLeaseTime(double leaseTime) {
+        this.leaseTime = leaseTime;
+        return (T) this;
+    }
+
+    /**
+     * @param connectTime how long, in milliseconds, it took to open a new connection, without the TLS handshake
+     */
+    public <T extends SlingHttpData> T withConnectTime(double connectTime) {
+        this.connectTime = connectTime;
+        return (T) this;
+    }
+
+    public <T extends SlingHttpData> T withTlsTime(double tlsTime) {
+        this.tlsTime = tlsTime;
+        return (T) this;
+    }
+
+    /**
+     * @param writeTime how long, in milliseconds, it took to send the request
+     */
+    public <T extends SlingHttpData> T withWriteTime(double writeTime) {
+        this.writeTime = writeTime;
+        return (T) this;
+    }
+
+    /**
+     * @param firstByteTime how long, in milliseconds, it took after the request was sent until the head of the response
+     *                      was received
+     */
+    public <T extends SlingHttpData> T withFirstByteTime(double firstByteTime) {
+        this.firstByteTime = firstByteTime;
+        return (T) this;
+    }
+
+    /**
+     * @param transferTime how long, in milliseconds, it took to read the body of the response
+     */
+    public <T extends SlingHttpData> T withTransferTime(double transferTime) {
+        this.transferTime = transferTime;
         return (T) this;
     }
 
@@ -81,8 +146,58 @@ public class SlingHttpData {
         return bytes;
     }
 
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public double getLatency() {
+        return latency != null ? latency : Double.NaN;
+    }
+
+    public double getLeaseTime() {
+        return leaseTime;
+    }
+
+    public double getConnectTime() {
+        return connectTime;
+    }
+
+    public double getTlsTime() {
+        return tlsTime;
+    }
+
+    public double getWriteTime() {
+        return writeTime;
+    }
+
+    public double getFirstByteTime() {
+        return firstByteTime;
+    }
+
+    public double getTransferTime() {
+        return transferTime;
+    }
+
     public String user() {
         return user;
     }
 
+    @Override
+    public void forEachPhase(ObjLongConsumer<String> consumer) {
+        // every response has a head, nothing was measured when the time to the first byte is missing
+        if (firstByteTime == 0) {
+            return;
+        }
+        consumer.accept(LEASE_PHASE, toNano(leaseTime));
+        consumer.accept(CONNECT_PHASE, toNano(connectTime));
+        consumer.accept(TLS_PHASE, toNano(tlsTime));
+        consumer.accept(WRITE_PHASE, toNano(writeTime));
+        consumer.accept(FIRST_BYTE_PHASE, toNano(firstByteTime));
+        consumer.accept(TRANSFER_PHASE, toNano(transferTime));
+    }
+
+    private static long toNano(double milliseconds) {
+        return Math.round(milliseconds * 1000 * 1000);
+    }
+
 }
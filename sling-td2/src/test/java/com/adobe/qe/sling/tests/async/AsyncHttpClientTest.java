@@ -0,0 +1,178 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.async;
+
+import org.junit.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncHttpClientTest {
+    private static final String RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok";
+
+    private ServerSocket serverSocket;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    // every request is answered only once a permit is released
+    private final Semaphore responses = new Semaphore(0);
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private AsyncHttpClient client;
+    private URI uri;
+
+    @Before
+    public void before() throws IOException {
+        serverSocket = new ServerSocket(0);
+        uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/path");
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    sockets.add(socket);
+                    connections.incrementAndGet();
+                    Thread handler = new Thread(() -> serve(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void serve(Socket socket) {
+        try (InputStream in = socket.getInputStream(); OutputStream out = socket.getOutputStream()) {
+            int matched = 0;
+            for (int b = in.read(); b >= 0; b = in.read()) {
+                // the requests have no body, each one ends with an empty line
+                matched = b == "\r\n\r\n".charAt(matched) ? matched + 1 : (b == '\r' ? 1 : 0);
+                if (matched == 4) {
+                    matched = 0;
+                    requests.incrementAndGet();
+                    responses.acquire();
+                    out.write(RESPONSE.getBytes(StandardCharsets.ISO_8859_1));
+                    out.flush();
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // the connection is gone
+        }
+    }
+
+    private CompletableFuture<AsyncHttpResponse> get() {
+        return client.execute("GET", uri, Collections.emptyList(), null);
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (java.util.concurrent.TimeoutException e) {
+            Assert.fail("The request neither completed nor failed");
+        }
+        Assert.fail("The request should have failed");
+        return null;
+    }
+
+    @Test
+    public void testRequestsWaitForABusyPool() throws Exception {
+        client = new AsyncHttpClient(1, 1, 30000, 10000, true, 8192);
+        CompletableFuture<AsyncHttpResponse> first = get();
+        CompletableFuture<AsyncHttpResponse> second = get();
+        CompletableFuture<AsyncHttpResponse> third = get();
+
+        responses.release(3);
+        Assert.assertEquals("ok", first.get(5, TimeUnit.SECONDS).getContent());
+        Assert.assertEquals("ok", second.get(5, TimeUnit.SECONDS).getContent());
+        Assert.assertEquals("ok", third.get(5, TimeUnit.SECONDS).getContent());
+        // the queued requests were sent on the only connection, one after the other
+        Assert.assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void testRequestsWaitingForAConnectionTimeOut() throws Exception {
+        client = new AsyncHttpClient(1, 1, 30000, 300, true, 8192);
+        CompletableFuture<AsyncHttpResponse> sent = get();
+        CompletableFuture<AsyncHttpResponse> waiting = get();
+
+        Throwable sentFailure = failure(sent);
+        Assert.assertTrue(sentFailure instanceof SocketTimeoutException);
+        Assert.assertTrue(sentFailure.getMessage(), sentFailure.getMessage().startsWith("No response"));
+        Throwable waitingFailure = failure(waiting);
+        Assert.assertTrue(waitingFailure instanceof SocketTimeoutException);
+    }
+
+    @Test
+    public void testQueuedRequestTimesOutWhileTheConnectionIsBusy() throws Exception {
+        client = new AsyncHttpClient(1, 1, 30000, 400, true, 8192);
+        CompletableFuture<AsyncHttpResponse> first = get();
+        CompletableFuture<AsyncHttpResponse> second = get();
+        CompletableFuture<AsyncHttpResponse> third = get();
+        Thread.sleep(200);
+        // the second request gets the connection, the third one expires while it waits for it
+        responses.release();
+        Assert.assertEquals("ok", first.get(5, TimeUnit.SECONDS).getContent());
+
+        Throwable secondFailure = failure(second);
+        Assert.assertTrue(secondFailure.getMessage(), secondFailure.getMessage().startsWith("No response"));
+        Throwable thirdFailure = failure(third);
+        Assert.assertTrue(thirdFailure instanceof SocketTimeoutException);
+        Assert.assertTrue(thirdFailure.getMessage(), thirdFailure.getMessage().startsWith("No connection"));
+    }
+
+    @Test
+    public void testCancellingAnExchangeClosesItsConnection() throws Exception {
+        client = new AsyncHttpClient(1, 1, 30000, 10000, true, 8192);
+        CompletableFuture<AsyncHttpResponse> cancelled = get();
+        CompletableFuture<AsyncHttpResponse> pending = get();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (requests.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        pending.cancel(false);
+        cancelled.cancel(false);
+
+        // the connection of the cancelled request cannot be reused, the request waiting for it is not sent
+        responses.release(2);
+        Assert.assertEquals("ok", get().get(5, TimeUnit.SECONDS).getContent());
+        Assert.assertEquals(2, connections.get());
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @After
+    public void after() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+}
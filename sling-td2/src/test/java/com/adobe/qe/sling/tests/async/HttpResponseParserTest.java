@@ -0,0 +1,136 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.async;
+
+import org.junit.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class HttpResponseParserTest {
+    private HttpResponseParser parser;
+
+    @Before
+    public void before() {
+        parser = new HttpResponseParser();
+        parser.reset(false);
+    }
+
+    private static ByteBuffer bytes(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /*
+        Feeds the response one byte at a time, like the worst split the socket can produce.
+     */
+    private boolean feedBytewise(String response) throws IOException {
+        boolean done = false;
+        for (byte b : response.getBytes(StandardCharsets.ISO_8859_1)) {
+            Assert.assertFalse("The response completed before its last byte", done);
+            done = parser.feed(ByteBuffer.wrap(new byte[] { b }));
+        }
+        return done;
+    }
+
+    @Test
+    public void testContentLengthBody() throws Exception {
+        Assert.assertTrue(feedBytewise("HTTP/1.1 200 OK\r\nContent-Length: 5\r\nX-Test: a: b\r\n\r\nhello"));
+        AsyncHttpResponse response = parser.toResponse();
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals("OK", response.getReasonPhrase());
+        Assert.assertEquals("a: b", response.getFirstHeader("x-test").getValue());
+        Assert.assertEquals("hello", response.getContent());
+        Assert.assertTrue(parser.isKeepAlive());
+    }
+
+    @Test
+    public void testChunkedBody() throws Exception {
+        Assert.assertTrue(feedBytewise("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5;name=value\r\nhello\r\n1\r\n,\r\n6\r\n world\r\n0\r\n\r\n"));
+        Assert.assertEquals("hello, world", parser.toResponse().getContent());
+        Assert.assertTrue(parser.isKeepAlive());
+    }
+
+    @Test
+    public void testChunkedBodyWithTrailers() throws Exception {
+        ByteBuffer buffer = bytes("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "2\r\nok\r\n0\r\nChecksum: abc\r\nExpires: never\r\n\r\nHTTP/1.1");
+        Assert.assertTrue(parser.feed(buffer));
+        Assert.assertEquals("ok", parser.toResponse().getContent());
+        // the next response on the connection is left in the buffer
+        Assert.assertEquals(8, buffer.remaining());
+
+        parser.reset(false);
+        Assert.assertTrue(feedBytewise("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n0\r\nChecksum: abc\r\n\r\n"));
+        Assert.assertEquals("", parser.toResponse().getContent());
+    }
+
+    @Test
+    public void testInterimResponsesAreSkipped() throws Exception {
+        Assert.assertTrue(feedBytewise("HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 102 Processing\r\nX-Interim: true\r\n\r\n"
+                + "HTTP/1.1 201 Created\r\nContent-Length: 2\r\n\r\nok"));
+        AsyncHttpResponse response = parser.toResponse();
+        Assert.assertEquals(201, response.getStatusCode());
+        Assert.assertNull(response.getFirstHeader("X-Interim"));
+        Assert.assertEquals("ok", response.getContent());
+    }
+
+    @Test
+    public void testBodyDelimitedByTheEndOfTheConnection() throws Exception {
+        Assert.assertFalse(parser.feed(bytes("HTTP/1.1 200 OK\r\n\r\nuntil")));
+        Assert.assertFalse(parser.feed(bytes(" closed")));
+        Assert.assertTrue(parser.endOfStream());
+        Assert.assertEquals("until closed", parser.toResponse().getContent());
+        Assert.assertFalse(parser.isKeepAlive());
+    }
+
+    @Test
+    public void testTruncatedResponseIsNotComplete() throws Exception {
+        Assert.assertFalse(parser.feed(bytes("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nshort")));
+        Assert.assertFalse(parser.endOfStream());
+        Assert.assertTrue(parser.hasReceivedAnything());
+    }
+
+    @Test
+    public void testResponsesWithoutBody() throws Exception {
+        parser.reset(true);
+        Assert.assertTrue(parser.feed(bytes("HTTP/1.1 200 OK\r\nContent-Length: 100\r\n\r\n")));
+        Assert.assertEquals("", parser.toResponse().getContent());
+
+        parser.reset(false);
+        Assert.assertTrue(parser.feed(bytes("HTTP/1.0 204 No Content\r\nConnection: keep-alive\r\n\r\n")));
+        Assert.assertTrue(parser.isKeepAlive());
+
+        parser.reset(false);
+        Assert.assertTrue(parser.feed(bytes("HTTP/1.1 304 Not Modified\r\nConnection: close\r\n\r\n")));
+        Assert.assertFalse(parser.isKeepAlive());
+    }
+
+    @Test
+    public void testAnnouncedLengthIsNotPreallocated() throws Exception {
+        // the announced size is not allocated up front, only what is received is buffered
+        Assert.assertFalse(parser.feed(bytes("HTTP/1.1 200 OK\r\nContent-Length: 2147483000\r\n\r\nstart")));
+        parser.reset(false);
+        Assert.assertFalse(parser.feed(bytes("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n7ffffff0\r\nstart")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidStatusLine() throws Exception {
+        parser.feed(bytes("SMTP ready\r\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativeContentLength() throws Exception {
+        parser.feed(bytes("HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n"));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.async;
+
+import com.adobe.qe.sling.tests.utils.SlingHttpData;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.RunMap;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.api.core.config.GlobalArgs;
+import org.junit.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class SlingAsyncClientTest {
+    private static final String RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello";
+
+    private ServerSocket serverSocket;
+    private final List<String> requestHeads = new CopyOnWriteArrayList<>();
+    private final List<TestResult> recorded = new CopyOnWriteArrayList<>();
+    private final Map<String, Object> settings = new HashMap<>();
+
+    public static class GetTest extends SlingAsyncTestBase {
+        @Override
+        public CompletableFuture<?> test() throws Throwable {
+            return getDefaultClient().measure(this, "Get").doGetAsync("/content/page.html", 200);
+        }
+
+        @Override
+        public AbstractTest newInstance() {
+            return new GetTest();
+        }
+    }
+
+    @Before
+    public void before() throws IOException {
+        AsyncHttpClient.closeInstance();
+        AbstractTest.getSharedResources().clear();
+
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread handler = new Thread(() -> serve(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        settings.put("getProtocol", "http");
+        settings.put("getHost", "localhost");
+        settings.put("getPort", serverSocket.getLocalPort());
+        settings.put("getUser", "admin");
+        settings.put("getPassword", "admin");
+        settings.put("getAuthMethod", "basic");
+        settings.put("getTimeout", 10000L);
+        settings.put("getShowSteps", false);
+        settings.put("getHttpMaxTotal", 4);
+        settings.put("getHttpMaxPerRoute", 4);
+        settings.put("getHttpKeepAlive", 30000L);
+        settings.put("getHttpSocketBuffer", 8192);
+        settings.put("getHttpTcpNoDelay", true);
+    }
+
+    private void serve(Socket socket) {
+        try (Socket closed = socket; InputStream in = socket.getInputStream(); OutputStream out = socket.getOutputStream()) {
+            StringBuilder head = new StringBuilder();
+            for (int b = in.read(); b >= 0; b = in.read()) {
+                head.append((char) b);
+                // the requests have no body, each one ends with an empty line
+                if (head.length() >= 4 && head.lastIndexOf("\r\n\r\n") == head.length() - 4) {
+                    requestHeads.add(head.toString());
+                    head.setLength(0);
+                    out.write(RESPONSE.getBytes(StandardCharsets.ISO_8859_1));
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // the connection is gone
+        }
+    }
+
+    private GlobalArgs args() {
+        Map<String, Object> values = new HashMap<>(settings);
+        return (GlobalArgs) Proxy.newProxyInstance(GlobalArgs.class.getClassLoader(), new Class[] { GlobalArgs.class },
+                (proxy, method, arguments) -> values.get(method.getName()));
+    }
+
+    private RunMap runMap() {
+        return (RunMap) Proxy.newProxyInstance(RunMap.class.getClassLoader(), new Class[] { RunMap.class },
+                (proxy, method, arguments) -> {
+                    if (method.getName().equals("record")) {
+                        recorded.add((TestResult) arguments[0]);
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    public void testMeasuredRequestRecordsSlingHttpData() throws Throwable {
+        GetTest test = new GetTest();
+        test.setGlobalArgs(args());
+        test.benchmark().setRunMap(runMap());
+
+        AsyncHttpResponse response = (AsyncHttpResponse) test.test().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("hello", response.getContent());
+
+        Assert.assertEquals(1, recorded.size());
+        TestResult result = recorded.get(0);
+        Assert.assertEquals(TestResult.Status.PASSED, result.getStatus());
+        Assert.assertEquals("Get", result.getTest().getName());
+        SlingHttpData data = (SlingHttpData) result.getData();
+        Assert.assertEquals("GET", data.getMethod());
+        Assert.assertEquals("http://localhost:" + serverSocket.getLocalPort() + "/content/page.html", data.getUrl());
+        Assert.assertEquals(200, data.getResponseCode());
+        Assert.assertEquals(5, data.getBytes());
+        Assert.assertTrue(data.getLatency() >= 0);
+
+        String head = requestHeads.get(0);
+        Assert.assertTrue(head, head.startsWith("GET /content/page.html HTTP/1.1\r\n"));
+        Assert.assertTrue(head, head.contains("Authorization: Basic " + Base64.getEncoder()
+                .encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testUnexpectedStatusFailsTheStep() throws Throwable {
+        GetTest test = new GetTest();
+        test.setGlobalArgs(args());
+        test.benchmark().setRunMap(runMap());
+        SlingAsyncClient client = test.getDefaultClient().measure(test, "Missing");
+
+        try {
+            client.doGetAsync("/missing", 404).get(5, TimeUnit.SECONDS);
+            Assert.fail("The request should have failed");
+        } catch (java.util.concurrent.ExecutionException e) {
+            Assert.assertTrue(e.getCause().toString(), e.getCause().getMessage().contains("200"));
+        }
+
+        Assert.assertEquals(1, recorded.size());
+        Assert.assertEquals(TestResult.Status.FAILED, recorded.get(0).getStatus());
+        Assert.assertEquals(200, ((SlingHttpData) recorded.get(0).getData()).getResponseCode());
+    }
+
+    @Test
+    public void testHttpsIsRejectedWhenTheClientIsCreated() throws Exception {
+        settings.put("getProtocol", "https");
+        try {
+            SlingAsyncClient.create(args());
+            Assert.fail("https should have been rejected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("https"));
+        }
+    }
+
+    @Test
+    public void testSharedClientIsClosedWithTheRun() throws Exception {
+        AsyncHttpClient client = AsyncHttpClient.getInstance(args());
+        Assert.assertSame(client, AsyncHttpClient.getInstance(args()));
+        settings.put("getHttpMaxPerRoute", 2);
+        AsyncHttpClient rebuilt = AsyncHttpClient.getInstance(args());
+        Assert.assertNotSame(client, rebuilt);
+        // the client is closed through the same resource, whichever client is current
+        Assert.assertEquals(1, AbstractTest.getSharedResources().size());
+
+        AbstractTest.getSharedResources().get(0).close();
+        Assert.assertNotSame(rebuilt, AsyncHttpClient.getInstance(args()));
+        try {
+            rebuilt.execute("GET", java.net.URI.create("http://localhost:" + serverSocket.getLocalPort() + "/"),
+                    Collections.emptyList(), null).get(5, TimeUnit.SECONDS);
+            Assert.fail("A closed client should not send requests");
+        } catch (java.util.concurrent.ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @After
+    public void after() throws IOException {
+        AsyncHttpClient.closeInstance();
+        AbstractTest.getSharedResources().clear();
+        serverSocket.close();
+    }
+}
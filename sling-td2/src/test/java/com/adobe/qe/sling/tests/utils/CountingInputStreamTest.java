@@ -0,0 +1,76 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+public class CountingInputStreamTest {
+    private static final byte[] BODY = new byte[20000];
+
+    static {
+        for (int i = 0; i < BODY.length; i++) {
+            BODY[i] = (byte) (i * 31);
+        }
+    }
+
+    private static long crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    @Test
+    public void testCountsAndChecksumsTheReadBytes() throws IOException {
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(BODY), new CRC32());
+        Assert.assertEquals(BODY[0] & 0xFF, in.read());
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer, 0, buffer.length) != -1) {
+            // only counted
+        }
+
+        Assert.assertEquals(-1, in.read());
+        Assert.assertEquals(BODY.length, in.getCount());
+        Assert.assertEquals(crc(BODY), in.getChecksum().getValue());
+    }
+
+    @Test
+    public void testSkippedBytesAreCounted() throws IOException {
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(BODY), null);
+        Assert.assertEquals(100, in.skip(100));
+        Assert.assertEquals(100, in.read(new byte[100], 0, 100));
+
+        Assert.assertEquals(200, in.getCount());
+        Assert.assertNull(in.getChecksum());
+    }
+
+    @Test
+    public void testSkippedBytesArePartOfTheChecksum() throws IOException {
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(BODY), new CRC32());
+        // more than the skip buffer, so that the bytes are read in several chunks
+        Assert.assertEquals(10000, in.skip(10000));
+        Assert.assertEquals(BODY.length - 10000, in.skip(Long.MAX_VALUE));
+        Assert.assertEquals(0, in.skip(10));
+
+        Assert.assertEquals(BODY.length, in.getCount());
+        Assert.assertEquals(crc(BODY), in.getChecksum().getValue());
+    }
+
+    @Test
+    public void testMarkIsNotSupported() {
+        Assert.assertFalse(new CountingInputStream(new ByteArrayInputStream(BODY), null).markSupported());
+    }
+}
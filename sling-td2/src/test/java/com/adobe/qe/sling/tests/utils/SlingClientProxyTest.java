@@ -0,0 +1,166 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.utils;
+
+import com.adobe.qe.sling.tests.sequential.SlingTestBase;
+import com.adobe.qe.toughday.api.annotations.Internal;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.RunMap;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.api.core.config.GlobalArgs;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpEntity;
+import org.apache.sling.testing.clients.SlingClient;
+import org.apache.sling.testing.clients.SlingHttpResponse;
+import org.junit.*;
+
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+public class SlingClientProxyTest {
+    private static final byte[] BODY = "{\"jcr:primaryType\":\"cq:Page\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final List<TestResult> recorded = new CopyOnWriteArrayList<>();
+    private final Map<String, Object> settings = new HashMap<>();
+
+    @Internal
+    public static class PageTest extends SlingTestBase {
+        private boolean retainsBodies;
+
+        public void setRetainsBodies(boolean retainsBodies) {
+            this.retainsBodies = retainsBodies;
+        }
+
+        @Override
+        public boolean retainsResponseBodies() {
+            return retainsBodies;
+        }
+
+        @Override
+        public void test() {
+        }
+
+        @Override
+        public AbstractTest newInstance() {
+            PageTest test = new PageTest();
+            test.setRetainsBodies(retainsBodies);
+            return test;
+        }
+    }
+
+    @Before
+    public void before() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        });
+        server.start();
+        settings.put("getShowSteps", false);
+    }
+
+    private SlingClient client(boolean retainsBodies, String responseBody) throws Exception {
+        settings.put("getHttpResponseBody", responseBody);
+        Map<String, Object> values = new HashMap<>(settings);
+        GlobalArgs args = (GlobalArgs) Proxy.newProxyInstance(GlobalArgs.class.getClassLoader(), new Class[] { GlobalArgs.class },
+                (proxy, method, arguments) -> values.get(method.getName()));
+        RunMap runMap = (RunMap) Proxy.newProxyInstance(RunMap.class.getClassLoader(), new Class[] { RunMap.class },
+                (proxy, method, arguments) -> {
+                    if (method.getName().equals("record")) {
+                        recorded.add((TestResult) arguments[0]);
+                    }
+                    return null;
+                });
+
+        PageTest test = new PageTest();
+        test.setRetainsBodies(retainsBodies);
+        test.setGlobalArgs(args);
+        test.benchmark().setRunMap(runMap);
+        SlingClient target = new SlingClient(URI.create("http://localhost:" + server.getAddress().getPort() + "/"), "admin", "admin");
+        return new SlingClientsProxyFactory().createProxy(target, test, test.benchmark());
+    }
+
+    private SlingHttpData recordedData() {
+        Assert.assertEquals(1, recorded.size());
+        Assert.assertEquals(TestResult.Status.PASSED, recorded.get(0).getStatus());
+        return (SlingHttpData) recorded.get(0).getData();
+    }
+
+    @Test
+    public void testDiscardedBodyIsCounted() throws Exception {
+        SlingHttpResponse response = client(false, "discard").doGet("/content/page.json", 200);
+
+        SlingHttpData data = recordedData();
+        Assert.assertEquals(200, data.getResponseCode());
+        Assert.assertEquals(BODY.length, data.getBytes());
+        Assert.assertNull(data.getChecksum());
+        Assert.assertEquals(BODY.length, response.getEntity().getContentLength());
+    }
+
+    @Test
+    public void testChecksumOfTheDiscardedBody() throws Exception {
+        client(false, "checksum").doGet("/content/page.json", 200);
+
+        CRC32 crc = new CRC32();
+        crc.update(BODY, 0, BODY.length);
+        SlingHttpData data = recordedData();
+        Assert.assertEquals(BODY.length, data.getBytes());
+        Assert.assertEquals(Long.toHexString(crc.getValue()), data.getChecksum());
+    }
+
+    @Test
+    public void testRetainedBody() throws Exception {
+        SlingHttpResponse response = client(false, "retain").doGet("/content/page.json", 200);
+
+        Assert.assertEquals(new String(BODY, StandardCharsets.UTF_8), response.getContent());
+        Assert.assertEquals(BODY.length, recordedData().getBytes());
+    }
+
+    @Test
+    public void testTestThatRetainsBodiesOverridesTheGlobalArg() throws Exception {
+        SlingHttpResponse response = client(true, "discard").doGet("/content/page.json", 200);
+
+        Assert.assertEquals(new String(BODY, StandardCharsets.UTF_8), response.getContent());
+        Assert.assertEquals(BODY.length, recordedData().getBytes());
+    }
+
+    @Test
+    public void testReadingADiscardedBodyFails() throws Exception {
+        SlingHttpResponse response = client(false, "discard").doGet("/content/page.json", 200);
+        HttpEntity entity = response.getEntity();
+
+        Assert.assertEquals("application/json", entity.getContentType().getValue());
+        try {
+            entity.getContent();
+            Assert.fail("A discarded body should not be readable");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("retainsResponseBodies"));
+        }
+    }
+
+    @After
+    public void after() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.sling.tests.utils;
+
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.config.GlobalArgs;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.*;
+
+import java.io.Closeable;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SlingConnectionManagerTest {
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("localhost", 4502));
+
+    private final Map<String, Object> settings = new HashMap<>();
+
+    @Before
+    public void before() {
+        SlingConnectionManager.closeInstance();
+        AbstractTest.getSharedResources().clear();
+        settings.put("getHostValidationEnabled", false);
+        settings.put("getHttpMaxTotal", 20);
+        settings.put("getHttpMaxPerRoute", 10);
+        settings.put("getHttpKeepAlive", 30000L);
+        settings.put("getHttpValidateAfterInactivity", 1000);
+        settings.put("getHttpSocketBuffer", 8192);
+        settings.put("getHttpTcpNoDelay", true);
+    }
+
+    private GlobalArgs args() {
+        Map<String, Object> values = new HashMap<>(settings);
+        return (GlobalArgs) Proxy.newProxyInstance(GlobalArgs.class.getClassLoader(), new Class[] { GlobalArgs.class },
+                (proxy, method, arguments) -> values.get(method.getName()));
+    }
+
+    private static boolean isShutDown(SlingConnectionManager manager) {
+        try {
+            manager.requestConnection(ROUTE, null).cancel();
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void testPoolReusedForTheSameSettings() throws Exception {
+        SlingConnectionManager manager = SlingConnectionManager.getInstance(args());
+        Assert.assertSame(manager, SlingConnectionManager.getInstance(args()));
+        Assert.assertEquals(20, manager.getMaxTotal());
+        Assert.assertEquals(10, manager.getDefaultMaxPerRoute());
+        Assert.assertFalse(isShutDown(manager));
+        Assert.assertEquals(1, AbstractTest.getSharedResources().size());
+    }
+
+    @Test
+    public void testReplacedPoolIsShutDown() throws Exception {
+        SlingConnectionManager manager = SlingConnectionManager.getInstance(args());
+        settings.put("getHttpMaxTotal", 50);
+        SlingConnectionManager rebuilt = SlingConnectionManager.getInstance(args());
+
+        Assert.assertNotSame(manager, rebuilt);
+        Assert.assertEquals(50, rebuilt.getMaxTotal());
+        Assert.assertTrue(isShutDown(manager));
+        Assert.assertFalse(isShutDown(rebuilt));
+        Assert.assertSame(rebuilt, SlingConnectionManager.getInstance(args()));
+        // the pool is closed through the same resource, whichever pool is current
+        Assert.assertEquals(1, AbstractTest.getSharedResources().size());
+    }
+
+    @Test
+    public void testPoolClosedWithTheSharedResources() throws Exception {
+        SlingConnectionManager manager = SlingConnectionManager.getInstance(args());
+        for (Closeable resource : AbstractTest.getSharedResources()) {
+            resource.close();
+        }
+        AbstractTest.getSharedResources().clear();
+        Assert.assertTrue(isShutDown(manager));
+
+        SlingConnectionManager rebuilt = SlingConnectionManager.getInstance(args());
+        Assert.assertNotSame(manager, rebuilt);
+        Assert.assertFalse(isShutDown(rebuilt));
+        Assert.assertEquals(1, AbstractTest.getSharedResources().size());
+    }
+
+    @After
+    public void after() {
+        SlingConnectionManager.closeInstance();
+        AbstractTest.getSharedResources().clear();
+    }
+}
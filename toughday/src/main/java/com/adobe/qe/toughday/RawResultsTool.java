@@ -0,0 +1,162 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday;
+
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.api.core.benchmark.TimestampFormatter;
+import com.adobe.qe.toughday.publishers.BinaryRawReader;
+import com.adobe.qe.toughday.publishers.PhaseColumns;
+import com.google.gson.Gson;
+import org.HdrHistogram.Histogram;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line tool for the raw results files written by the
+ * {@link com.adobe.qe.toughday.publishers.BinaryPublisher}. The file is streamed, so it can be larger than the memory.
+ */
+public class RawResultsTool {
+    private static final String USAGE = "Usage: java -cp toughday2.jar " + RawResultsTool.class.getName()
+            + " <csv|json|aggregate> <raw results file> [<output file>]";
+    private static final Gson GSON = new Gson();
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        try (BinaryRawReader reader = new BinaryRawReader(args[1]);
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                     args.length == 3 ? new FileOutputStream(args[2]) : System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            switch (args[0]) {
+                case "csv":
+                    toCsv(reader, out);
+                    break;
+                case "json":
+                    toJson(reader, out);
+                    break;
+                case "aggregate":
+                    aggregate(reader, out);
+                    break;
+                default:
+                    System.err.println(USAGE);
+                    System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not process " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes the results in the same format as the raw results of the
+     * {@link com.adobe.qe.toughday.publishers.CSVPublisher}. The columns of the values that are missing are left
+     * empty.
+     */
+    public static void toCsv(BinaryRawReader reader, Writer out) throws IOException {
+        StringBuilder row = new StringBuilder(256);
+        PhaseColumns phaseColumns = new PhaseColumns();
+        out.write("Name,Status,Thread,Start Timestamp,End Timestamp,Duration,Data,Lease,Connect,TLS,Write,First Byte,Transfer");
+        out.write(System.lineSeparator());
+        for (BinaryRawReader.Record record = reader.next(); record != null; record = reader.next()) {
+            row.setLength(0);
+            row.append(record.getName()).append(',')
+                    .append(record.getStatus().name()).append(',')
+                    .append(record.getThreadId()).append(',');
+            TimestampFormatter.appendTo(row, record.getStartTimestamp()).append(',');
+            TimestampFormatter.appendTo(row, record.getEndTimestamp()).append(',');
+            if (record.getDurationNano() >= 0) {
+                row.append(record.getDuration());
+            }
+            row.append(',');
+            if (record.getData() != null) {
+                row.append(StringEscapeUtils.escapeCsv(record.getData()));
+            }
+            phaseColumns.append(row, record);
+            row.append(System.lineSeparator());
+            out.append(row);
+        }
+    }
+
+    /**
+     * Writes the results as json, one object per line.
+     */
+    public static void toJson(BinaryRawReader reader, Writer out) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        for (BinaryRawReader.Record record = reader.next(); record != null; record = reader.next()) {
+            line.setLength(0);
+            line.append("{\"name\":").append(GSON.toJson(record.getName()))
+                    .append(",\"status\":\"").append(record.getStatus().name())
+                    .append("\",\"thread\":").append(record.getThreadId())
+                    .append(",\"start\":\"");
+            TimestampFormatter.appendTo(line, record.getStartTimestamp()).append("\",\"end\":\"");
+            TimestampFormatter.appendTo(line, record.getEndTimestamp()).append("\",\"durationNano\":")
+                    .append(record.getDurationNano())
+                    .append(",\"scheduleDelayNano\":").append(record.getScheduleDelayNano())
+                    .append(",\"data\":").append(record.getData())
+                    .append('}').append(System.lineSeparator());
+            out.append(line);
+        }
+    }
+
+    /**
+     * Writes, for every test, the number of results by status and the duration percentiles in milliseconds.
+     */
+    public static void aggregate(BinaryRawReader reader, Writer out) throws IOException {
+        Map<String, Aggregate> aggregates = new LinkedHashMap<>();
+        for (BinaryRawReader.Record record = reader.next(); record != null; record = reader.next()) {
+            aggregates.computeIfAbsent(record.getName(), name -> new Aggregate()).record(record);
+        }
+
+        out.write("Name,Passed,Failed,Skipped,Min,Median,90p,99p,Max,Average");
+        out.write(System.lineSeparator());
+        for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            Histogram histogram = aggregate.histogram;
+            out.write(String.format("%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f", entry.getKey(),
+                    aggregate.passed, aggregate.failed, aggregate.skipped,
+                    millis(histogram.getMinValue()), millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getMaxValue()), histogram.getMean() / 1000000.0d));
+            out.write(System.lineSeparator());
+        }
+    }
+
+    private static double millis(long nano) {
+        return TestResult.milliDurationFromNano(0, nano);
+    }
+
+    private static class Aggregate {
+        private final Histogram histogram = new Histogram(3);
+        private long passed;
+        private long failed;
+        private long skipped;
+
+        private void record(BinaryRawReader.Record record) {
+            if (record.getStatus() == TestResult.Status.PASSED) {
+                passed++;
+                if (record.getDurationNano() >= 0) {
+                    histogram.recordValue(record.getDurationNano());
+                }
+            } else if (record.getStatus() == TestResult.Status.FAILED) {
+                failed++;
+            } else {
+                skipped++;
+            }
+        }
+    }
+}
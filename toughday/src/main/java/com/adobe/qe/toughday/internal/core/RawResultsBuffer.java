@@ -0,0 +1,254 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core;
+
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded buffer for the raw test results, between the workers that record them and the publishers. The slots are
+ * allocated once, when the buffer is created. Any number of threads can add results concurrently without locking,
+ * while results are taken out by one thread at a time. What happens when the publishers cannot keep up and the
+ * buffer fills up is decided by the {@link Policy}.
+ */
+public class RawResultsBuffer {
+    public static final int DEFAULT_CAPACITY = 1 << 17;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * What to do with a new result when the buffer is full.
+     */
+    public enum Policy {
+        /**
+         * Wait until there is room for the result. Slows down the workers to the pace of the publishers.
+         */
+        BLOCK,
+        /**
+         * Drop the result.
+         */
+        DROP_NEWEST,
+        /**
+         * Once more than half of the buffer is used, keep the results with a probability that decreases linearly
+         * with the free space left, so that the published results remain a uniform sample of the run.
+         */
+        SAMPLE;
+
+        public static Policy fromString(String policy) {
+            for (Policy value : values()) {
+                if (value.name().replace("_", "").equalsIgnoreCase(policy.replace("_", "").replace("-", ""))) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Unknown raw results buffer policy \"" + policy
+                    + "\". Expected one of: block, dropnewest, sample.");
+        }
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final Policy policy;
+    /*
+        Each slot has a sequence number that tells whether it is free for the producer that claimed position p
+        (sequence == p) or holds the result of position p for the consumer (sequence == p + 1). This is the bounded
+        queue of Dmitry Vyukov, with a single consumer.
+     */
+    private final AtomicReferenceArray<TestResult> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public RawResultsBuffer(int capacity, Policy policy) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("The capacity of the raw results buffer must be between 1 and " + MAX_CAPACITY);
+        }
+        // rounded up to a power of two, so that the position of a slot is a mask away
+        int roundedCapacity = 1;
+        while (roundedCapacity < capacity) {
+            roundedCapacity <<= 1;
+        }
+        this.capacity = roundedCapacity;
+        this.mask = this.capacity - 1;
+        this.policy = policy;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public RawResultsBuffer() {
+        this(DEFAULT_CAPACITY, Policy.BLOCK);
+    }
+
+    /**
+     * Add a result, applying the policy of the buffer if it is full.
+     * @return true if the result was added, false if it was dropped.
+     */
+    public boolean offer(TestResult testResult) {
+        boolean added;
+        switch (policy) {
+            case BLOCK:
+                added = tryOffer(testResult);
+                while (!added && !Thread.currentThread().isInterrupted()) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    added = tryOffer(testResult);
+                }
+                break;
+            case SAMPLE:
+                long free = capacity - size();
+                added = (free * 2 >= capacity || ThreadLocalRandom.current().nextLong(capacity / 2 + 1) < free)
+                        && tryOffer(testResult);
+                break;
+            default:
+                added = tryOffer(testResult);
+        }
+        if (!added) {
+            dropped.incrementAndGet();
+        }
+        return added;
+    }
+
+    /**
+     * Add a result if there is room for it.
+     * @return true if the result was added, false if the buffer is full.
+     */
+    public boolean tryOffer(TestResult testResult) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, testResult);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Take the oldest result out of the buffer.
+     * @return the result or null if the buffer is empty.
+     */
+    public synchronized TestResult poll() {
+        TestResult testResult = peek();
+        if (testResult != null) {
+            removeHead();
+        }
+        return testResult;
+    }
+
+    /**
+     * Take out at most {@code maxResults} results.
+     */
+    public synchronized List<TestResult> drain(int maxResults) {
+        List<TestResult> testResults = new ArrayList<>(Math.min(maxResults, size()));
+        TestResult testResult;
+        while (testResults.size() < maxResults && (testResult = peek()) != null) {
+            testResults.add(testResult);
+            removeHead();
+        }
+        return testResults;
+    }
+
+    /**
+     * Take out all the results that are currently in the buffer.
+     */
+    public List<TestResult> drain() {
+        return drain(capacity);
+    }
+
+    /**
+     * Move the results of this buffer into another one, for as long as it has room for them. The results which do
+     * not fit remain in this buffer.
+     * @return the number of moved results
+     */
+    public synchronized int drainTo(RawResultsBuffer other) {
+        int moved = 0;
+        TestResult testResult;
+        while ((testResult = peek()) != null && other.tryOffer(testResult)) {
+            removeHead();
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Get the results currently in the buffer, without taking them out.
+     */
+    public synchronized List<TestResult> snapshot() {
+        List<TestResult> testResults = new ArrayList<>(size());
+        for (long position = head; ; position++) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                return testResults;
+            }
+            testResults.add(slots.get(index));
+        }
+    }
+
+    public synchronized void clear() {
+        while (peek() != null) {
+            removeHead();
+        }
+    }
+
+    private TestResult peek() {
+        int index = (int) (head & mask);
+        return sequences.get(index) == head + 1 ? slots.get(index) : null;
+    }
+
+    private void removeHead() {
+        int index = (int) (head & mask);
+        slots.lazySet(index, null);
+        sequences.set(index, head + capacity);
+        head = head + 1;
+    }
+
+    /**
+     * The number of results in the buffer. It is only an estimation while results are added.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * The number of results that were dropped since the buffer was created.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
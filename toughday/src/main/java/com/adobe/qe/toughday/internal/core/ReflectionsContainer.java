@@ -18,18 +18,32 @@ import com.adobe.qe.toughday.api.feeders.Feeder;
 import com.adobe.qe.toughday.metrics.Metric;
 import com.adobe.qe.toughday.internal.core.engine.RunMode;
 import com.adobe.qe.toughday.internal.core.engine.PublishMode;
+import com.adobe.qe.toughday.internal.core.index.ComponentIndex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.reflections.Reflections;
-import org.reflections.scanners.ResourcesScanner;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.regex.Pattern;
 
 /**
- * Wrapper for the reflections library. Uses singleton.
+ * Container of the components known to Tough Day. Uses singleton. The components are read from the indexes generated
+ * at build time in every jar, the class path is scanned only when the core classes were not indexed.
  */
 public class ReflectionsContainer {
+    private static final Logger LOG = LogManager.getLogger(ReflectionsContainer.class);
     private static final Pattern toughdayContentPackagePattern = Pattern.compile("toughday_sample-.*.zip");
-    private static Reflections reflections = new Reflections("");
+    private static List<ComponentIndex> indexes = new CopyOnWriteArrayList<>();
+    private static Reflections reflections = loadIndexes();
     private static ReflectionsContainer instance = new ReflectionsContainer();
 
     /**
@@ -58,6 +72,25 @@ public class ReflectionsContainer {
                 || klass.isAnnotationPresent(Internal.class);
     }
 
+    /**
+     * Loads the indexes visible to the class loader of the core classes.
+     * @return the result of scanning the class path, if the core classes were not indexed. null otherwise.
+     */
+    private static Reflections loadIndexes() {
+        try {
+            ComponentIndex index = ComponentIndex.load(ReflectionsContainer.class.getClassLoader());
+            if (index.contains(ReflectionsContainer.class.getName())) {
+                indexes.add(index);
+                return null;
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not read the component indexes.", e);
+        }
+
+        LOG.warn("No component index found for the core classes, scanning the class path.");
+        return new Reflections("");
+    }
+
     /**
      * Constructor.
      */
@@ -66,11 +99,36 @@ public class ReflectionsContainer {
 
         updateContainerContent();
 
-        Reflections reflections = new Reflections("", new ResourcesScanner());
-        Iterator<String> iterator = reflections.getResources(toughdayContentPackagePattern).iterator();
-        if (iterator.hasNext()) {
-            toughdayContentPackage = iterator.next();
+        toughdayContentPackage = findToughdayContentPackage();
+    }
+
+    // the content package is copied at the root of the jar, next to the core classes
+    private static String findToughdayContentPackage() {
+        CodeSource codeSource = ReflectionsContainer.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return null;
         }
+
+        try {
+            File location = new File(codeSource.getLocation().toURI());
+            if (location.isDirectory()) {
+                String[] names = location.list((dir, name) -> toughdayContentPackagePattern.matcher(name).matches());
+                return names != null && names.length > 0 ? names[0] : null;
+            }
+
+            try (JarFile jarFile = new JarFile(location)) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (toughdayContentPackagePattern.matcher(name).matches()) {
+                        return name;
+                    }
+                }
+            }
+        } catch (URISyntaxException | IOException | IllegalArgumentException e) {
+            LOG.warn("Could not look for the Tough Day content package.", e);
+        }
+        return null;
     }
 
     private void updateContainerContent() {
@@ -84,7 +142,7 @@ public class ReflectionsContainer {
         feederClasses = new HashMap<>();
         classRegister = new HashSet<>();
 
-        for(Class<? extends AbstractTest> testClass : reflections.getSubTypesOf(AbstractTest.class)) {
+        for(Class<? extends AbstractTest> testClass : getSubTypesOf(AbstractTest.class)) {
             if(excludeClass(testClass))
                 continue;
 
@@ -99,7 +157,7 @@ public class ReflectionsContainer {
             }
         }
 
-        for (Class<? extends Publisher> publisherClass : reflections.getSubTypesOf(Publisher.class)) {
+        for (Class<? extends Publisher> publisherClass : getSubTypesOf(Publisher.class)) {
             if (excludeClass(publisherClass))
                 continue;
 
@@ -114,7 +172,7 @@ public class ReflectionsContainer {
             }
         }
 
-        for (Class<? extends SuiteSetup> suiteSetupClass : reflections.getSubTypesOf(SuiteSetup.class)) {
+        for (Class<? extends SuiteSetup> suiteSetupClass : getSubTypesOf(SuiteSetup.class)) {
             if (Modifier.isAbstract(suiteSetupClass.getModifiers()))
                 continue;
             if (suiteSetupClasses.containsKey(suiteSetupClass.getSimpleName()))
@@ -124,7 +182,7 @@ public class ReflectionsContainer {
             suiteSetupClasses.put(suiteSetupClass.getSimpleName(), suiteSetupClass);
         }
 
-        for (Class<? extends PublishMode> publishModeClass : reflections.getSubTypesOf(PublishMode.class)) {
+        for (Class<? extends PublishMode> publishModeClass : getSubTypesOf(PublishMode.class)) {
             if(excludeClass(publishModeClass)) continue;
             String identifier = publishModeClass.getSimpleName().toLowerCase();
             if(publishModeClasses.containsKey(identifier)) {
@@ -135,7 +193,7 @@ public class ReflectionsContainer {
             publishModeClasses.put(identifier, publishModeClass);
         }
 
-        for(Class<? extends RunMode> runModeClass : reflections.getSubTypesOf(RunMode.class)) {
+        for(Class<? extends RunMode> runModeClass : getSubTypesOf(RunMode.class)) {
             if(excludeClass(runModeClass)) continue;
             String identifier = runModeClass.getSimpleName().toLowerCase();
             if(runModeClasses.containsKey(identifier)) {
@@ -146,7 +204,7 @@ public class ReflectionsContainer {
             runModeClasses.put(identifier, runModeClass);
         }
 
-        for (Class<? extends Metric> metricClass : reflections.getSubTypesOf(Metric.class)) {
+        for (Class<? extends Metric> metricClass : getSubTypesOf(Metric.class)) {
             if (excludeClass(metricClass)) { continue; }
 
             addToClassRegister(metricClass.getName());
@@ -160,7 +218,7 @@ public class ReflectionsContainer {
             }
         }
 
-        for (Class<? extends Feeder> feederClass : reflections.getSubTypesOf(Feeder.class)) {
+        for (Class<? extends Feeder> feederClass : getSubTypesOf(Feeder.class)) {
             if (excludeClass(feederClass)) { continue; }
             addToClassRegister(feederClass.getName());
             feederClasses.put(feederClass.getName(), feederClass);
@@ -311,17 +369,55 @@ public class ReflectionsContainer {
     }
 
     /**
-     * This method makes the Reflections instance aware about the new classes dynamically loaded from the jar files.
-     * @param reflections
+     * Makes the container aware of the classes dynamically loaded from the extension jar files. The jars built with
+     * the component index are read from their index, only the other ones are scanned.
+     * @param classLoader the class loader of the extensions
+     * @param jarFiles the extension jar files
      */
+    public void mergeExtensions(ClassLoader classLoader, List<JarFile> jarFiles) throws IOException {
+        ComponentIndex index = new ComponentIndex(classLoader);
+        for (JarFile jarFile : jarFiles) {
+            JarEntry indexEntry = jarFile.getJarEntry(ComponentIndex.RESOURCE);
+            if (indexEntry != null) {
+                try (InputStream in = jarFile.getInputStream(indexEntry)) {
+                    index.read(in);
+                }
+                continue;
+            }
 
-    public void merge(Reflections reflections) {
-        this.reflections = reflections;
+            LOG.warn("No component index found in " + jarFile.getName() + ", scanning it.");
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.endsWith(".class")) {
+                    continue;
+                }
+                try {
+                    index.add(Class.forName(name.substring(0, name.length() - ".class".length()).replace('/', '.'),
+                            false, classLoader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    LOG.debug("Skipping " + name + " from " + jarFile.getName(), e);
+                }
+            }
+        }
+
+        indexes.add(index);
         updateContainerContent();
     }
 
+    /**
+     * Get all the known classes that extend or implement, directly or not, the given type.
+     * @param type the supertype
+     */
     public static <T> Set<Class<? extends T>> getSubTypesOf(final Class<T> type) {
-       return reflections.getSubTypesOf(type);
+        Set<Class<? extends T>> subTypes = new LinkedHashSet<>();
+        for (ComponentIndex index : indexes) {
+            subTypes.addAll(index.getSubTypesOf(type));
+        }
+        if (reflections != null) {
+            subTypes.addAll(reflections.getSubTypesOf(type));
+        }
+        return subTypes;
     }
     /**
      * Verifies if the given name is a feeder class
@@ -15,18 +15,25 @@ import com.adobe.qe.toughday.api.core.AbstractTest;
 import com.adobe.qe.toughday.api.core.RunMap;
 import com.adobe.qe.toughday.api.core.SkippedTestException;
 import com.adobe.qe.toughday.internal.core.benckmark.AdHocTest;
+import com.adobe.qe.toughday.api.core.benchmark.PhasedData;
 import com.adobe.qe.toughday.api.core.benchmark.TestResult;
-import org.HdrHistogram.SynchronizedHistogram;
+import com.adobe.qe.toughday.api.core.benchmark.TimestampFormatter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.WriterReaderPhaser;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.lang3.tuple.Triple;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Map for storing benchmarks. Thread safe for benchmarking operations. Not thread safe for  adding and removing tests.
+ * Map for storing benchmarks. Thread safe and lock free for benchmarking operations. Not thread safe for  adding and removing tests.
  */
 public class RunMapImpl implements RunMap {
 
@@ -35,6 +42,7 @@ public class RunMapImpl implements RunMap {
     /*
         The map should remain unordered (hash map) for faster access, that is why we are using a second
         data structure - list - to keep the order of the tests in output, just for the global run map.
+        The lock only guards the structure of the map and of the list, the workers look up the entries without it.
         For now this is an internal implementation detail, we don't need to expose this unless
         a future run mode would require it.
      */
@@ -43,20 +51,39 @@ public class RunMapImpl implements RunMap {
     private List<AbstractTest> orderedTests;
 
     /*
-        This is not the usual read/write scenario, actually quite the opposite, we want concurrent writes, exclusive read.
-        We want to allow concurrent writes in the test results collection, while threads execute tests - use readLock
-        We want that when the aggregator reads the results, nobody is writing new results              - use writeLock
+        The workers add the results concurrently and the aggregator drains them, the buffer needs no external locking.
+        Results added while the aggregator drains are either taken now or in the next interval. The instances created
+        from this run map record directly into its buffer, so the results are not moved again and only this run map
+        allocates the slots. The buffer is allocated when it is first used, since the engine replaces it anyway.
      */
-    private ReadWriteLock testResultsLock = new ReentrantReadWriteLock();
-    private ConcurrentLinkedQueue<TestResult> currentTestResults = new ConcurrentLinkedQueue<>();
+    private volatile RawResultsBuffer currentTestResults;
+    private volatile boolean sharedTestResults = false;
+
+    /*
+        The interval, in nanoseconds, at which the executions recorded in this run map are expected to start. When it is
+        set, the response times are corrected for coordinated omission by HdrHistogram, which back-fills the samples that
+        would have been recorded if the executions were not delayed by the slow ones.
+     */
+    private long expectedIntervalNano = 0;
+
+    /*
+        Set by the first snapshot. From then on, the entries also keep totals that are never reinitialized, so the
+        intervals measured between snapshots are not cut short when the publish mode reinitializes the statistics.
+     */
+    private volatile boolean keepsTotals = false;
 
     public RunMapImpl() {
-        runMap = new HashMap<>();
+        this(null);
+    }
+
+    private RunMapImpl(RawResultsBuffer currentTestResults) {
+        runMap = new ConcurrentHashMap<>();
         orderedTests = Collections.synchronizedList(new ArrayList<>());
+        this.currentTestResults = currentTestResults;
     }
 
-    private RunMapImpl (List<AbstractTest> orderedTests) {
-        this();
+    private RunMapImpl (List<AbstractTest> orderedTests, RawResultsBuffer currentTestResults) {
+        this(currentTestResults);
         this.orderedTests.addAll(orderedTests);
         for (AbstractTest test : orderedTests) {
             runMap.put(test, new TestEntry(test));
@@ -82,6 +109,15 @@ public class RunMapImpl implements RunMap {
         }
     }
 
+    /**
+     * Set the interval at which the executions recorded in this run map are expected to start. Used by closed-loop
+     * run modes, which do not schedule the executions, for correcting the response times for coordinated omission.
+     * @param expectedInterval the interval in milliseconds. 0 disables the correction.
+     */
+    public void setExpectedInterval(long expectedInterval) {
+        this.expectedIntervalNano = TimeUnit.MILLISECONDS.toNanos(expectedInterval);
+    }
+
     public TestStatistics getRecord(AbstractTest test) {
         runMapLock.readLock().lock();
         try {
@@ -91,8 +127,42 @@ public class RunMapImpl implements RunMap {
         }
     }
 
+    /**
+     * Use the given buffer for the raw results of this run map and of all the instances created from it by
+     * {@link #newInstance()}. The results in the current buffer are discarded.
+     * @param rawResultsBuffer
+     */
+    public void shareRawResults(RawResultsBuffer rawResultsBuffer) {
+        this.currentTestResults = rawResultsBuffer;
+        this.sharedTestResults = true;
+    }
+
+    public RawResultsBuffer getRawResults() {
+        RawResultsBuffer rawResults = currentTestResults;
+        if (rawResults == null) {
+            synchronized (this) {
+                rawResults = currentTestResults;
+                if (rawResults == null) {
+                    rawResults = new RawResultsBuffer();
+                    currentTestResults = rawResults;
+                }
+            }
+        }
+        return rawResults;
+    }
+
+    /**
+     * Get the results currently waiting to be published, without taking them out.
+     */
     public Collection<TestResult> getCurrentTestResults() {
-        return currentTestResults;
+        return getRawResults().snapshot();
+    }
+
+    /**
+     * Take out the results waiting to be published.
+     */
+    public Collection<TestResult> drainCurrentTestResults() {
+        return getRawResults().drain();
     }
 
     /**
@@ -105,49 +175,52 @@ public class RunMapImpl implements RunMap {
     }
 
     public void record(TestResult testResult) {
-        testResultsLock.readLock().lock();
-        currentTestResults.add(testResult);
-        testResultsLock.readLock().unlock();
+        boolean published = getRawResults().offer(testResult);
 
-        runMapLock.readLock().lock();
-        try {
-            if (testResult.isShowInAggregatedView()) {
-                AbstractTest test = testResult.getTest();
-                TestEntry entry = runMap.get(test);
-                if (entry == null) {
-                    runMapLock.readLock().unlock();
-                    addTest(test);
-                    runMapLock.readLock().lock();
-                    entry = runMap.get(test);
-                }
-                entry.record(testResult);
+        if (testResult.isShowInAggregatedView()) {
+            TestEntry entry = getOrAddEntry(testResult.getTest());
+            entry.record(testResult);
+            if (!published) {
+                entry.recordDropped();
             }
-        } finally {
-            runMapLock.readLock().unlock();
         }
     }
 
+    /**
+     * Count a result that was recorded, but could not be published later on.
+     */
+    public void recordDropped(TestResult testResult) {
+        if (testResult.isShowInAggregatedView()) {
+            getOrAddEntry(testResult.getTest()).recordDropped();
+        }
+    }
+
+    /**
+     * Count an execution of the test that the run mode dropped before it started, because it could not keep up.
+     */
+    public void recordDropped(AbstractTest test) {
+        getOrAddEntry(test).recordDropped();
+    }
+
+    private TestEntry getOrAddEntry(AbstractTest test) {
+        TestEntry entry = runMap.get(test);
+        if (entry == null) {
+            addTest(test);
+            entry = runMap.get(test);
+        }
+        return entry;
+    }
+
     public Map<AbstractTest, Long> aggregateAndReinitialize(RunMap otherRunmap) {
         RunMapImpl other = (RunMapImpl) otherRunmap;
-        other.testResultsLock.writeLock().lock();
-        try {
-            this.testResultsLock.writeLock().lock();
-            try {
-                TestResult testResult = other.currentTestResults.poll();
-                while (testResult != null) {
-                    this.currentTestResults.add(testResult);
-                    testResult = other.currentTestResults.poll();
-                }
-            } finally {
-                this.testResultsLock.writeLock().unlock();
-            }
-        } finally {
-            other.testResultsLock.writeLock().unlock();
+        if (other.getRawResults() != this.getRawResults()) {
+            // the results that do not fit are left in the other buffer, which applies its policy when it fills up
+            other.getRawResults().drainTo(this.getRawResults());
         }
 
         this.runMapLock.writeLock().lock();
         try {
-            other.runMapLock.writeLock().lock();
+            other.runMapLock.readLock().lock();
             try {
                 Map<AbstractTest, Long> counts = new HashMap<>();
                 synchronized (orderedTests) {
@@ -164,7 +237,7 @@ public class RunMapImpl implements RunMap {
                 }
                 return counts;
             } finally {
-                other.runMapLock.writeLock().unlock();
+                other.runMapLock.readLock().unlock();
             }
         } finally {
             this.runMapLock.writeLock().unlock();
@@ -178,7 +251,10 @@ public class RunMapImpl implements RunMap {
                 testEntry.init();
                 testEntry.reinitTime();
             }
-            clearCurrentTestResults();
+            // a shared buffer also holds the results of the other instances, they are only taken out by publishing them
+            if (!sharedTestResults) {
+                clearCurrentTestResults();
+            }
         } finally {
             runMapLock.writeLock().unlock();
         }
@@ -198,21 +274,36 @@ public class RunMapImpl implements RunMap {
         }
     }
 
-    public void clearCurrentTestResults() {
+    /**
+     * Take a snapshot of the statistics of all the tests, merged together. The snapshots are not affected by
+     * {@link #reinitialize()}, they count everything recorded since the first snapshot of this run map.
+     */
+    public Snapshot snapshot() {
+        runMapLock.readLock().lock();
         try {
-            runMapLock.writeLock().lock();
-
-            currentTestResults.clear();
+            keepsTotals = true;
+            Snapshot snapshot = new Snapshot();
+            for (TestEntry entry : runMap.values()) {
+                entry.addTo(snapshot);
+            }
+            return snapshot;
         } finally {
-            runMapLock.writeLock().unlock();
+            runMapLock.readLock().unlock();
         }
     }
 
+    public void clearCurrentTestResults() {
+        getRawResults().clear();
+    }
+
     public RunMap newInstance() {
         try {
             runMapLock.readLock().lock();
 
-            return new RunMapImpl(orderedTests);
+            // the instances record into the buffer of this run map, which must not discard their results any more
+            RawResultsBuffer rawResults = getRawResults();
+            sharedTestResults = true;
+            return new RunMapImpl(orderedTests, rawResults);
         } finally {
             runMapLock.readLock().unlock();
         }
@@ -287,24 +378,155 @@ public class RunMapImpl implements RunMap {
 
 
     /**
-     * A test statistics entry
+     * The statistics of all the tests of a run map, merged together, as they were at a certain moment. The statistics
+     * of an interval are computed by subtracting the snapshot taken at its start from the one taken at its end.
+     */
+    public static class Snapshot {
+        private final Histogram responseTimeHistogram = new Histogram(3);
+        private long passedRuns;
+        private long failRuns;
+        private long lastNanoTime = Long.MIN_VALUE;
+        private long durationNanos = 0;
+
+        private Snapshot() {
+        }
+
+        /**
+         * Get the statistics recorded after an earlier snapshot of the same run map, even if the run map was
+         * reinitialized in the meantime.
+         * @param earlier the snapshot taken at the start of the interval
+         */
+        public Snapshot since(Snapshot earlier) {
+            Snapshot interval = new Snapshot();
+            interval.responseTimeHistogram.add(responseTimeHistogram);
+            interval.responseTimeHistogram.subtract(earlier.responseTimeHistogram);
+            interval.passedRuns = passedRuns - earlier.passedRuns;
+            interval.failRuns = failRuns - earlier.failRuns;
+            interval.lastNanoTime = lastNanoTime;
+            interval.durationNanos = Math.max(0, lastNanoTime - earlier.lastNanoTime);
+            return interval;
+        }
+
+        /**
+         * Get the time between the last results recorded before two snapshots, which is the time in which the results
+         * of an interval were recorded. The results reach the global run map when they are aggregated, so this is more
+         * accurate than the time between the snapshots.
+         * @return the duration in nanoseconds, or 0 if it is not known.
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public long getPassedRuns() {
+            return passedRuns;
+        }
+
+        public long getFailRuns() {
+            return failRuns;
+        }
+
+        /**
+         * Get the response time at the given percentile, in nanoseconds. Only the passed runs have a response time.
+         */
+        public long getResponseTimeAtPercentile(double percentile) {
+            return responseTimeHistogram.getValueAtPercentile(percentile);
+        }
+    }
+
+    /**
+     * The statistics recorded by the workers during an interval. Every field supports concurrent writers without
+     * locking, but the interval is only read and reset after it was swapped out of the writers' way.
+     */
+    private static class Interval {
+        private final ConcurrentHistogram histogram = new ConcurrentHistogram(3);
+        private final ConcurrentHistogram responseTimeHistogram = new ConcurrentHistogram(3);
+        private final LongAdder totalDuration = new LongAdder();
+        private final LongAdder failRuns = new LongAdder();
+        private final LongAdder skippedRuns = new LongAdder();
+        private final LongAdder droppedResults = new LongAdder();
+        private final LongAccumulator lastNanoTime = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        private final ConcurrentHashMap<Class<? extends Throwable>, LongAdder> failsMap = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, ConcurrentHistogram> phaseHistograms = new ConcurrentHashMap<>();
+
+        private void reset() {
+            histogram.reset();
+            responseTimeHistogram.reset();
+            // the histograms are kept, the same phases are reported again in the next interval
+            for (ConcurrentHistogram phaseHistogram : phaseHistograms.values()) {
+                phaseHistogram.reset();
+            }
+            totalDuration.reset();
+            failRuns.reset();
+            skippedRuns.reset();
+            droppedResults.reset();
+            lastNanoTime.reset();
+            failsMap.clear();
+        }
+    }
+
+    /**
+     * The statistics of an entry that are read by the snapshots. Unlike the other statistics of the entry, they are
+     * never reinitialized.
+     */
+    private static class Totals {
+        private final Histogram responseTimeHistogram = new Histogram(3);
+        private long passedRuns;
+        private long failRuns;
+        private long lastNanoTime;
+
+        private Totals(long lastNanoTime) {
+            this.lastNanoTime = lastNanoTime;
+        }
+
+        private void add(Histogram responseTimes, long passedRuns, long failRuns, long lastNanoTime) {
+            this.responseTimeHistogram.add(responseTimes);
+            this.passedRuns += passedRuns;
+            this.failRuns += failRuns;
+            this.lastNanoTime = Math.max(this.lastNanoTime, lastNanoTime);
+        }
+    }
+
+    /**
+     * A test statistics entry. The workers record into the active interval without taking any lock, in the same way
+     * HdrHistogram's Recorder does: readers swap the intervals and wait, on a {@link WriterReaderPhaser}, only for
+     * the writers that were already recording in the interval that was swapped out, then fold it into the accumulated
+     * statistics. The accumulated statistics are only accessed by readers, while holding the monitor of the entry.
      */
     public class TestEntry implements TestStatistics {
         public static final double ONE_BILLION_D = 1000 * 1000 * 1000.0d;
         private static final long ONE_MILION = 1000000;
         private AbstractTest test;
-        private double totalDuration;
+
+        private final WriterReaderPhaser recordingPhaser = new WriterReaderPhaser();
+        private volatile Interval activeInterval = new Interval();
+        private Interval inactiveInterval = new Interval();
+
+        private long totalDuration;
         private long failRuns;
         private long skippedRuns;
+        private long droppedResults;
         private Map<Class<? extends Throwable>, Long> failsMap;
         private long lastNanoTime;
-        private SynchronizedHistogram histogram;
+        private Histogram histogram;
+        private Histogram responseTimeHistogram;
+        private Map<String, Histogram> phaseHistograms = new HashMap<>();
+        private Totals totals;
 
-        private void init() {
+        private synchronized void init() {
+            collect();
+            reset();
+        }
+
+        private void reset() {
             totalDuration = 0;
             failRuns = 0;
             skippedRuns = 0;
+            droppedResults = 0;
             histogram.reset();
+            responseTimeHistogram.reset();
+            for (Histogram phaseHistogram : phaseHistograms.values()) {
+                phaseHistogram.reset();
+            }
             failsMap = new HashMap<>();
         }
 
@@ -314,16 +536,21 @@ public class RunMapImpl implements RunMap {
          */
         public TestEntry(AbstractTest test) {
             this.test = test;
-            histogram = new SynchronizedHistogram(3600000L /* 1h */, 3);
+            // the durations are recorded in nanoseconds, the histograms grow to fit any value that is recorded
+            histogram = new Histogram(3);
+            responseTimeHistogram = new Histogram(3);
             reinitTime();
             init();
+            if (keepsTotals) {
+                totals = new Totals(lastNanoTime);
+            }
         }
 
 
-        public synchronized void record(TestResult testResult) {
+        public void record(TestResult testResult) {
             switch (testResult.getStatus()) {
                 case PASSED:
-                    recordRun(testResult.getDuration());
+                    recordPassed(testResult);
                     break;
                 case SKIPPED:
                     recordSkipped(testResult.getSkippedCause());
@@ -334,38 +561,174 @@ public class RunMapImpl implements RunMap {
             }
         }
 
+        /* All the fields of a result are written in one critical section, so they end up in the same interval. */
+        private void recordPassed(TestResult testResult) {
+            long criticalValue = recordingPhaser.writerCriticalSectionEnter();
+            try {
+                Interval interval = activeInterval;
+                addRun(interval, testResult.getDurationNano());
+                addResponseTime(interval, testResult.getResponseTimeNano());
+                if (testResult.getData() instanceof PhasedData) {
+                    addPhases(interval, (PhasedData) testResult.getData());
+                }
+            } finally {
+                recordingPhaser.writerCriticalSectionExit(criticalValue);
+            }
+        }
+
         /**
          * Mark a skipped run
          * @param e
          */
-        public synchronized void recordSkipped(SkippedTestException e) {
-            lastNanoTime = System.nanoTime();
-            skippedRuns++;
+        public void recordSkipped(SkippedTestException e) {
+            long criticalValue = recordingPhaser.writerCriticalSectionEnter();
+            try {
+                Interval interval = activeInterval;
+                interval.lastNanoTime.accumulate(System.nanoTime());
+                interval.skippedRuns.increment();
+            } finally {
+                recordingPhaser.writerCriticalSectionExit(criticalValue);
+            }
         }
 
         /**
          * Mark a failed run
          * @param e
          */
-        public synchronized void recordFail(Throwable e) {
-            lastNanoTime = System.nanoTime();
-            if (!failsMap.containsKey(e.getClass())) {
-                failsMap.put(e.getClass(), 0L);
+        public void recordFail(Throwable e) {
+            long criticalValue = recordingPhaser.writerCriticalSectionEnter();
+            try {
+                Interval interval = activeInterval;
+                interval.lastNanoTime.accumulate(System.nanoTime());
+                if (e != null) {
+                    interval.failsMap.computeIfAbsent(e.getClass(), k -> new LongAdder()).increment();
+                }
+                interval.failRuns.increment();
+            } finally {
+                recordingPhaser.writerCriticalSectionExit(criticalValue);
             }
-            failsMap.put(e.getClass(), failsMap.get(e.getClass()) + 1);
-
-            failRuns++;
         }
 
         /**
          * Record numbers for a successful run
-         * @param duration
+         * @param durationNano the duration in nanoseconds
          */
-        public synchronized void recordRun(double duration) {
-            long endTimestamp = System.currentTimeMillis();
-            histogram.recordValue((long) duration);
-            lastNanoTime = System.nanoTime();
-            totalDuration += duration;
+        public void recordRun(long durationNano) {
+            long criticalValue = recordingPhaser.writerCriticalSectionEnter();
+            try {
+                addRun(activeInterval, durationNano);
+            } finally {
+                recordingPhaser.writerCriticalSectionExit(criticalValue);
+            }
+        }
+
+        private void addRun(Interval interval, long durationNano) {
+            interval.histogram.recordValue(durationNano);
+            interval.lastNanoTime.accumulate(System.nanoTime());
+            interval.totalDuration.add(durationNano);
+        }
+
+        /**
+         * Record the response time of a successful run
+         * @param responseTimeNano the response time in nanoseconds
+         */
+        public void recordResponseTime(long responseTimeNano) {
+            long criticalValue = recordingPhaser.writerCriticalSectionEnter();
+            try {
+                addResponseTime(activeInterval, responseTimeNano);
+            } finally {
+                recordingPhaser.writerCriticalSectionExit(criticalValue);
+            }
+        }
+
+        private void addResponseTime(Interval interval, long responseTimeNano) {
+            if (expectedIntervalNano > 0) {
+                interval.responseTimeHistogram.recordValueWithExpectedInterval(responseTimeNano, expectedIntervalNano);
+            } else {
+                interval.responseTimeHistogram.recordValue(responseTimeNano);
+            }
+        }
+
+        /**
+         * Record the durations of the phases of a successful run
+         * @param data the data of the run, reporting the phases
+         */
+        public void recordPhases(PhasedData data) {
+            long criticalValue = recordingPhaser.writerCriticalSectionEnter();
+            try {
+                addPhases(activeInterval, data);
+            } finally {
+                recordingPhaser.writerCriticalSectionExit(criticalValue);
+            }
+        }
+
+        private void addPhases(Interval interval, PhasedData data) {
+            data.forEachPhase((phase, durationNano) -> interval.phaseHistograms
+                    .computeIfAbsent(phase, k -> new ConcurrentHistogram(3))
+                    .recordValue(Math.max(0, durationNano)));
+        }
+
+        /**
+         * Mark a result that was not published, because the raw results buffer was full
+         */
+        public void recordDropped() {
+            long criticalValue = recordingPhaser.writerCriticalSectionEnter();
+            try {
+                activeInterval.droppedResults.increment();
+            } finally {
+                recordingPhaser.writerCriticalSectionExit(criticalValue);
+            }
+        }
+
+        /**
+         * Swap the intervals and fold the one that was being recorded into the accumulated statistics. The writers
+         * are never blocked, they simply continue in the other interval.
+         */
+        private synchronized void collect() {
+            recordingPhaser.readerLock();
+            try {
+                Interval completed = activeInterval;
+                activeInterval = inactiveInterval;
+                inactiveInterval = completed;
+                recordingPhaser.flipPhase();
+
+                histogram.add(completed.histogram);
+                responseTimeHistogram.add(completed.responseTimeHistogram);
+                addPhases(completed.phaseHistograms);
+                totalDuration += completed.totalDuration.sum();
+                failRuns += completed.failRuns.sum();
+                skippedRuns += completed.skippedRuns.sum();
+                droppedResults += completed.droppedResults.sum();
+                lastNanoTime = Math.max(lastNanoTime, completed.lastNanoTime.get());
+                for (Map.Entry<Class<? extends Throwable>, LongAdder> fail : completed.failsMap.entrySet()) {
+                    failsMap.merge(fail.getKey(), fail.getValue().sum(), Long::sum);
+                }
+                if (totals != null) {
+                    totals.add(completed.responseTimeHistogram, completed.histogram.getTotalCount(),
+                            completed.failRuns.sum(), completed.lastNanoTime.get());
+                }
+                completed.reset();
+            } finally {
+                recordingPhaser.readerUnlock();
+            }
+        }
+
+        private synchronized void addTo(Snapshot snapshot) {
+            collect();
+            if (totals == null) {
+                // what was recorded until the first snapshot is not needed, the intervals start with a snapshot
+                totals = new Totals(lastNanoTime);
+            }
+            snapshot.responseTimeHistogram.add(totals.responseTimeHistogram);
+            snapshot.passedRuns += totals.passedRuns;
+            snapshot.failRuns += totals.failRuns;
+            snapshot.lastNanoTime = Math.max(snapshot.lastNanoTime, totals.lastNanoTime);
+        }
+
+        private void addPhases(Map<String, ? extends Histogram> otherPhaseHistograms) {
+            for (Map.Entry<String, ? extends Histogram> phase : otherPhaseHistograms.entrySet()) {
+                phaseHistograms.computeIfAbsent(phase.getKey(), k -> new Histogram(3)).add(phase.getValue());
+            }
         }
 
         //TODO refactor this?
@@ -379,22 +742,26 @@ public class RunMapImpl implements RunMap {
         }
 
         @Override
-        public String getTimestamp() {
-            return TIME_STAMP_FORMAT.format(new Date(startMillisTime + ((lastNanoTime - startNanoTime) / ONE_MILION)));
+        public synchronized String getTimestamp() {
+            collect();
+            return TimestampFormatter.format(startMillisTime + ((lastNanoTime - startNanoTime) / ONE_MILION));
         }
 
         @Override
-        public double getTotalDuration() {
+        public synchronized double getTotalDuration() {
+            collect();
             return totalDuration;
         }
 
         @Override
-        public long getTotalRuns() {
+        public synchronized long getTotalRuns() {
+            collect();
             return histogram.getTotalCount();
         }
 
         @Override
-        public double getRealThroughput() {
+        public synchronized double getRealThroughput() {
+            collect();
             return ((double) histogram.getTotalCount() * ONE_BILLION_D) / (lastNanoTime - startNanoTime);
         }
 
@@ -405,36 +772,62 @@ public class RunMapImpl implements RunMap {
         }*/
 
         @Override
-        public long getMinDuration() {
+        public synchronized long getMinDuration() {
+            collect();
             return histogram.getMinValue();
         }
 
         @Override
-        public long getMaxDuration() {
+        public synchronized long getMaxDuration() {
+            collect();
             return histogram.getMaxValue();
         }
 
         @Override
-        public double getAverageDuration() {
+        public synchronized double getAverageDuration() {
+            collect();
             return histogram.getMean();
         }
 
         @Override
-        public long getFailRuns() {
+        public synchronized long getFailRuns() {
+            collect();
             return failRuns;
         }
 
         @Override
-        public long getSkippedRuns() {
+        public synchronized long getSkippedRuns() {
+            collect();
             return skippedRuns;
         }
 
-        public long getValueAtPercentile(double percentile) {
+        @Override
+        public synchronized long getDroppedResults() {
+            collect();
+            return droppedResults;
+        }
+
+        public synchronized long getValueAtPercentile(double percentile) {
+            collect();
             return histogram.getValueAtPercentile(percentile);
         }
 
         @Override
-        public double getStandardDeviation() {
+        public synchronized long getResponseTimeAtPercentile(double percentile) {
+            collect();
+            return responseTimeHistogram.getValueAtPercentile(percentile);
+        }
+
+        @Override
+        public synchronized long getPhaseDurationAtPercentile(String phase, double percentile) {
+            collect();
+            Histogram phaseHistogram = phaseHistograms.get(phase);
+            return phaseHistogram != null ? phaseHistogram.getValueAtPercentile(percentile) : 0;
+        }
+
+        @Override
+        public synchronized double getStandardDeviation() {
+            collect();
             return histogram.getStdDeviation();
         }
 
@@ -444,22 +837,34 @@ public class RunMapImpl implements RunMap {
         }*/
 
         @Override
-        public long getMedianDuration() {
+        public synchronized long getMedianDuration() {
+            collect();
             return histogram.getValueAtPercentile(50);
         }
 
         public synchronized long aggregateAndReinitialize(TestEntry other) {
             long totalRuns = 0;
             synchronized (other) {
+                other.collect();
                 totalRuns = other.histogram.getTotalCount();
                 this.histogram.add(other.histogram);
+                this.responseTimeHistogram.add(other.responseTimeHistogram);
+                this.addPhases(other.phaseHistograms);
                 this.lastNanoTime = Math.max(this.lastNanoTime, other.lastNanoTime);
                 this.totalDuration += other.totalDuration;
                 this.failRuns += other.failRuns;
                 this.skippedRuns += other.skippedRuns;
-                other.init();
+                this.droppedResults += other.droppedResults;
+                for (Map.Entry<Class<? extends Throwable>, Long> fail : other.failsMap.entrySet()) {
+                    this.failsMap.merge(fail.getKey(), fail.getValue(), Long::sum);
+                }
+                if (this.totals != null) {
+                    this.totals.add(other.responseTimeHistogram, totalRuns, other.failRuns, other.lastNanoTime);
+                }
+                // the records that arrived after the collect stay in the other entry, for the next aggregation
+                other.reset();
             }
             return totalRuns;
         }
     }
-}
\ No newline at end of file
+}
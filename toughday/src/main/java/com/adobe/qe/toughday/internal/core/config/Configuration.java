@@ -34,7 +34,6 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.LoggerConfig;
-import org.reflections.Reflections;
 
 import java.io.File;
 import java.io.IOException;
@@ -114,10 +113,12 @@ public class Configuration {
             e.printStackTrace();
         }
 
-        Reflections reflections = new Reflections(classLoader);
-
         // make reflection container aware of the new dynamically loaded classes
-        ReflectionsContainer.getInstance().merge(reflections);
+        try {
+            ReflectionsContainer.getInstance().mergeExtensions(classLoader, jarFiles);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read the extension jar files.", e);
+        }
     }
 
     /**
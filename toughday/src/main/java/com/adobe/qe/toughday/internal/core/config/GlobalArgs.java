@@ -14,6 +14,7 @@ package com.adobe.qe.toughday.internal.core.config;
 import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.api.core.Publisher;
+import com.adobe.qe.toughday.internal.core.RawResultsBuffer;
 import com.adobe.qe.toughday.metrics.Metric;
 import com.adobe.qe.toughday.metrics.Name;
 import com.adobe.qe.toughday.metrics.Timestamp;
@@ -42,6 +43,15 @@ public class GlobalArgs implements com.adobe.qe.toughday.api.core.config.GlobalA
     public static final String DEFAULT_DRY_RUN = "false";
     public static final String DEFAULT_SAVE_CONFIG = "true";
     public static final String DEFAULT_LOG_PATH = ".";
+    public static final String DEFAULT_RAW_BUFFER = "131072";
+    public static final String DEFAULT_RAW_BUFFER_POLICY = "block";
+    public static final String DEFAULT_HTTP_MAX_TOTAL = "1000";
+    public static final String DEFAULT_HTTP_MAX_PER_ROUTE = "1000";
+    public static final String DEFAULT_HTTP_KEEP_ALIVE = "30000";
+    public static final String DEFAULT_HTTP_VALIDATE_AFTER_INACTIVITY = "2000";
+    public static final String DEFAULT_HTTP_SOCKET_BUFFER = "65536";
+    public static final String DEFAULT_HTTP_TCP_NO_DELAY = "true";
+    public static final String DEFAULT_HTTP_RESPONSE_BODY = "discard";
     private String host;
     private int port;
     private String user;
@@ -60,6 +70,15 @@ public class GlobalArgs implements com.adobe.qe.toughday.api.core.config.GlobalA
     private boolean showSteps = false;
     private boolean hostValidationEnabled = true;
     private String logPath;
+    private int rawBuffer = Integer.parseInt(DEFAULT_RAW_BUFFER);
+    private RawResultsBuffer.Policy rawBufferPolicy = RawResultsBuffer.Policy.fromString(DEFAULT_RAW_BUFFER_POLICY);
+    private int httpMaxTotal = Integer.parseInt(DEFAULT_HTTP_MAX_TOTAL);
+    private int httpMaxPerRoute = Integer.parseInt(DEFAULT_HTTP_MAX_PER_ROUTE);
+    private long httpKeepAlive = Long.parseLong(DEFAULT_HTTP_KEEP_ALIVE);
+    private int httpValidateAfterInactivity = Integer.parseInt(DEFAULT_HTTP_VALIDATE_AFTER_INACTIVITY);
+    private int httpSocketBuffer = Integer.parseInt(DEFAULT_HTTP_SOCKET_BUFFER);
+    private boolean httpTcpNoDelay = Boolean.parseBoolean(DEFAULT_HTTP_TCP_NO_DELAY);
+    private String httpResponseBody = DEFAULT_HTTP_RESPONSE_BODY;
 
     /**
      * Constructor
@@ -365,6 +384,110 @@ public class GlobalArgs implements com.adobe.qe.toughday.api.core.config.GlobalA
         return this.hostValidationEnabled;
     }
 
+    @ConfigArgGet
+    public int getRawBuffer() {
+        return rawBuffer;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_RAW_BUFFER, desc = "How many raw results can wait to be published. " +
+            "Rounded up to a power of two.")
+    public void setRawBuffer(String rawBuffer) {
+        this.rawBuffer = Integer.parseInt(rawBuffer);
+    }
+
+    @ConfigArgGet
+    public String getRawBufferPolicy() {
+        return rawBufferPolicy.name().toLowerCase().replace("_", "");
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_RAW_BUFFER_POLICY, desc = "What happens to the new raw results " +
+            "when the publishers cannot keep up and the raw buffer is full: block (the tests wait), dropnewest (they are not published) " +
+            "or sample (once the buffer is half full, they are published with a decreasing probability). Dropped results are counted by the Dropped metric.")
+    public void setRawBufferPolicy(String rawBufferPolicy) {
+        this.rawBufferPolicy = RawResultsBuffer.Policy.fromString(rawBufferPolicy);
+    }
+
+    @ConfigArgGet
+    public int getHttpMaxTotal() {
+        return httpMaxTotal;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_HTTP_MAX_TOTAL, desc = "Maximum number of http connections, " +
+            "shared by all the tests.")
+    public void setHttpMaxTotal(String httpMaxTotal) {
+        this.httpMaxTotal = Integer.parseInt(httpMaxTotal);
+    }
+
+    @ConfigArgGet
+    public int getHttpMaxPerRoute() {
+        return httpMaxPerRoute;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_HTTP_MAX_PER_ROUTE, desc = "Maximum number of http connections " +
+            "to the same host.")
+    public void setHttpMaxPerRoute(String httpMaxPerRoute) {
+        this.httpMaxPerRoute = Integer.parseInt(httpMaxPerRoute);
+    }
+
+    @ConfigArgGet
+    public long getHttpKeepAlive() {
+        return httpKeepAlive;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_HTTP_KEEP_ALIVE, desc = "How long, in milliseconds, an idle http " +
+            "connection is kept open, unless the server asks for less.")
+    public void setHttpKeepAlive(String httpKeepAlive) {
+        this.httpKeepAlive = Long.parseLong(httpKeepAlive);
+    }
+
+    @ConfigArgGet
+    public int getHttpValidateAfterInactivity() {
+        return httpValidateAfterInactivity;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_HTTP_VALIDATE_AFTER_INACTIVITY, desc = "After how many " +
+            "milliseconds of inactivity an http connection is checked before being reused.")
+    public void setHttpValidateAfterInactivity(String httpValidateAfterInactivity) {
+        this.httpValidateAfterInactivity = Integer.parseInt(httpValidateAfterInactivity);
+    }
+
+    @ConfigArgGet
+    public int getHttpSocketBuffer() {
+        return httpSocketBuffer;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_HTTP_SOCKET_BUFFER, desc = "Size in bytes of the send and receive " +
+            "buffers of the http sockets.")
+    public void setHttpSocketBuffer(String httpSocketBuffer) {
+        this.httpSocketBuffer = Integer.parseInt(httpSocketBuffer);
+    }
+
+    @ConfigArgGet
+    public boolean getHttpTcpNoDelay() {
+        return httpTcpNoDelay;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_HTTP_TCP_NO_DELAY, desc = "Disable Nagle's algorithm on the http sockets.")
+    public void setHttpTcpNoDelay(String httpTcpNoDelay) {
+        this.httpTcpNoDelay = Boolean.parseBoolean(httpTcpNoDelay);
+    }
+
+    @ConfigArgGet
+    public String getHttpResponseBody() {
+        return httpResponseBody;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_HTTP_RESPONSE_BODY, desc = "What happens with the bodies of " +
+            "the measured http responses: \"retain\" keeps them in memory, \"discard\" only counts their bytes while " +
+            "streaming them, \"checksum\" also computes their CRC32. Tests that parse the responses always retain them.")
+    public void setHttpResponseBody(String httpResponseBody) {
+        if (!Arrays.asList("retain", "discard", "checksum").contains(httpResponseBody)) {
+            throw new IllegalArgumentException("Unknown value for httpresponsebody: " + httpResponseBody +
+                    ". Possible values are \"retain\", \"discard\" and \"checksum\".");
+        }
+        this.httpResponseBody = httpResponseBody;
+    }
+
     @ConfigArgGet
     public String getLogPath() {
         return logPath;
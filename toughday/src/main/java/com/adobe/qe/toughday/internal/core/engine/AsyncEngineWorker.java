@@ -15,7 +15,7 @@ package com.adobe.qe.toughday.internal.core.engine;
  * Base class for all async workers in engine.
  */
 public abstract class AsyncEngineWorker implements Runnable {
-    private boolean finish = false;
+    private volatile boolean finish = false;
 
     /**
      * Method for correctly shutting down a worker.
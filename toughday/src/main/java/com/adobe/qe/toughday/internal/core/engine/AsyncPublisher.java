@@ -0,0 +1,238 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import com.adobe.qe.toughday.api.core.MetricResult;
+import com.adobe.qe.toughday.api.core.Publisher;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.internal.core.RawResultsBuffer;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Runs a publisher on its own thread, so that a slow publisher only delays itself and never the aggregation of the
+ * results or the other publishers. The requests are published in the order in which they were made. The raw results
+ * wait in a queue bounded by {@link Publisher#getQueueCapacity()}. The caller never waits for a publisher: when the
+ * queue fills up, the new batches are dropped, or with the sample policy their results are sampled. The backpressure
+ * of the block policy is applied by the raw results buffer, in front of the aggregator. Every result that is not
+ * published is reported as dropped, as soon as it is dropped. An intermediate report that is still
+ * waiting to be published is replaced by a newer one, since only the latest snapshot is relevant. Final reports and
+ * finishing the publisher are always accepted.
+ */
+public class AsyncPublisher {
+    private final Publisher publisher;
+    private final RawResultsBuffer.Policy policy;
+    private final Consumer<TestResult> droppedListener;
+    private final Thread worker;
+
+    // guarded by this
+    private final Deque<Runnable> requests = new ArrayDeque<>();
+    private int queuedRawBatches = 0;
+    private IntermediateRequest queuedIntermediate = null;
+    private boolean publishing = false;
+    private boolean stopped = false;
+    private boolean dropping = false;
+    private long droppedRawResults = 0;
+
+    /**
+     * Constructor.
+     * @param publisher the publisher run by this worker
+     * @param policy what happens to the raw results when the queue of the publisher is full
+     * @param droppedListener called for every raw result that is not published
+     */
+    public AsyncPublisher(Publisher publisher, RawResultsBuffer.Policy policy, Consumer<TestResult> droppedListener) {
+        this.publisher = publisher;
+        this.policy = policy;
+        this.droppedListener = droppedListener;
+        this.worker = new Thread(this::run, "publisher-" + publisher.getName());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Publisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Queue a batch of raw results. This never waits for the publisher, a batch that does not fit in the queue is dropped.
+     */
+    public void publishRaw(Collection<TestResult> testResults) {
+        if (testResults.isEmpty() || !publisher.getRawPublish()) {
+            return;
+        }
+
+        List<TestResult> dropped = Collections.emptyList();
+        synchronized (this) {
+            int capacity = publisher.getQueueCapacity();
+            Collection<TestResult> accepted = testResults;
+            if (queuedRawBatches >= capacity) {
+                dropped = new ArrayList<>(testResults);
+                accepted = Collections.emptyList();
+            } else if (policy == RawResultsBuffer.Policy.SAMPLE && (capacity - queuedRawBatches) * 2 < capacity) {
+                // like the raw results buffer, keep the results with a probability that decreases with the free space
+                long free = capacity - queuedRawBatches;
+                dropped = new ArrayList<>();
+                List<TestResult> sampled = new ArrayList<>(testResults.size());
+                for (TestResult testResult : testResults) {
+                    (ThreadLocalRandom.current().nextLong(capacity / 2 + 1) < free ? sampled : dropped).add(testResult);
+                }
+                accepted = sampled;
+            }
+
+            if (!dropped.isEmpty()) {
+                droppedRawResults += dropped.size();
+                if (!dropping) {
+                    dropping = true;
+                    Engine.LOG.warn("Publisher " + publisher.getName() + " cannot keep up with the raw results. " +
+                            "New results are dropped until it catches up.");
+                }
+            }
+            if (!accepted.isEmpty()) {
+                Collection<TestResult> batch = accepted;
+                queuedRawBatches++;
+                enqueue(() -> {
+                    synchronized (AsyncPublisher.this) {
+                        queuedRawBatches--;
+                    }
+                    publisher.publishRaw(batch);
+                });
+            }
+        }
+
+        for (TestResult testResult : dropped) {
+            droppedListener.accept(testResult);
+        }
+    }
+
+    public synchronized void publishAggregatedIntermediate(Map<String, List<MetricResult>> results) {
+        if (queuedIntermediate != null) {
+            queuedIntermediate.results = copy(results);
+            return;
+        }
+        queuedIntermediate = new IntermediateRequest(copy(results));
+        enqueue(queuedIntermediate);
+    }
+
+    public synchronized void publishAggregatedFinal(Map<String, List<MetricResult>> results) {
+        Map<String, List<MetricResult>> copy = copy(results);
+        enqueue(() -> publisher.publishAggregatedFinal(copy));
+    }
+
+    public synchronized void finish() {
+        enqueue(publisher::finish);
+    }
+
+    /**
+     * The number of raw results which were not published because the queue was full.
+     */
+    public synchronized long getDroppedRawResults() {
+        return droppedRawResults;
+    }
+
+    /**
+     * Wait for the requests made so far to be published, then stop the thread of the publisher.
+     * @param timeoutMillis how long to wait for the publisher to catch up
+     * @return true if all the requests were published
+     */
+    public boolean stopAndAwait(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this) {
+            stopped = true;
+            notifyAll();
+            while (!requests.isEmpty() || publishing) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    worker.interrupt();
+                    return false;
+                }
+                wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    private void enqueue(Runnable request) {
+        if (stopped) {
+            Engine.LOG.warn("Publisher " + publisher.getName() + " was already stopped.");
+            return;
+        }
+        requests.addLast(request);
+        notifyAll();
+    }
+
+    private void run() {
+        while (true) {
+            Runnable request;
+            synchronized (this) {
+                while (requests.isEmpty() && !stopped) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (requests.isEmpty()) {
+                    return;
+                }
+                request = requests.pollFirst();
+                if (request == queuedIntermediate) {
+                    queuedIntermediate = null;
+                }
+                if (queuedRawBatches == 0) {
+                    dropping = false;
+                }
+                publishing = true;
+            }
+
+            try {
+                request.run();
+            } catch (Throwable e) {
+                Engine.LOG.error("Publisher " + publisher.getName() + " failed to publish", e);
+            } finally {
+                synchronized (this) {
+                    publishing = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /*
+        The publishers are allowed to modify the results they receive, so each one gets its own copy.
+     */
+    private static Map<String, List<MetricResult>> copy(Map<String, List<MetricResult>> results) {
+        Map<String, List<MetricResult>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<MetricResult>> entry : results.entrySet()) {
+            copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private class IntermediateRequest implements Runnable {
+        private Map<String, List<MetricResult>> results;
+
+        IntermediateRequest(Map<String, List<MetricResult>> results) {
+            this.results = results;
+        }
+
+        @Override
+        public void run() {
+            Map<String, List<MetricResult>> latest;
+            synchronized (AsyncPublisher.this) {
+                latest = results;
+            }
+            publisher.publishAggregatedIntermediate(latest);
+        }
+    }
+}
@@ -82,7 +82,7 @@ public class AsyncResultAggregator extends AsyncEngineWorker {
                 if(sleepMillis > 0) {
                     Thread.sleep(sleepMillis);
                 } else {
-                    Engine.LOG.warn("Publishers are taking more than 1 second to complete." +
+                    Engine.LOG.warn("Aggregating the results is taking more than 1 second." +
                             " This may affect the results that you are seeing.");
                 }
 
@@ -94,13 +94,12 @@ public class AsyncResultAggregator extends AsyncEngineWorker {
 
                     Phase phase = engine.getCurrentPhase();
                     Map<String, List<MetricResult>> results = filterResults();
-                    phase.getPublishMode().publish(phase.getPublishMode().getRunMap().getCurrentTestResults());
+                    phase.getPublishMode().publish(phase.getPublishMode().getRunMap().drainCurrentTestResults());
 
                     if (phase.getMeasurable() && !testsFinishedInPhase) {
                         phase.getPublishMode().publishIntermediateResults(results);
                     }
 
-                    ((RunMapImpl)phase.getPublishMode().getRunMap()).clearCurrentTestResults();
                     elapsed = (System.nanoTime() - start) / 1000000l;
                 } finally {
                     engine.getCurrentPhaseLock().readLock().unlock();
@@ -123,7 +122,7 @@ public class AsyncResultAggregator extends AsyncEngineWorker {
         try {
             engine.getCurrentPhaseLock().readLock().lock();
             for(Publisher publisher : engine.getCurrentPhase().getPublishers()) {
-                publisher.finish();
+                engine.getAsyncPublisher(publisher).finish();
             }
         } finally {
             engine.getCurrentPhaseLock().readLock().unlock();
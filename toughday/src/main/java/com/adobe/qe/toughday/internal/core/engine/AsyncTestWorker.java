@@ -26,6 +26,7 @@ public abstract class AsyncTestWorker extends AsyncEngineWorker {
     protected long lastTestStart;
     protected AbstractTest currentTest;
     protected ReentrantLock mutex;
+    private TimeoutWheel.Timeout timeout;
 
     /**
      * Constructor
@@ -60,5 +61,25 @@ public abstract class AsyncTestWorker extends AsyncEngineWorker {
      */
     public ReentrantLock getMutex() { return mutex; }
 
+    /**
+     * Registers the timeout of the test that has just started on this worker. Must be called by the worker thread,
+     * after the current test and the start time were set.
+     * @param engine the engine running the test
+     */
+    protected void watchTimeout(Engine engine) {
+        AsyncTimeoutChecker timeoutChecker = engine.getTimeoutChecker();
+        timeout = timeoutChecker != null ? timeoutChecker.watch(this) : null;
+    }
+
+    /**
+     * Cancels the timeout of the test that has just finished on this worker.
+     */
+    protected void cancelTimeout() {
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
     public abstract boolean hasExited();
 }
@@ -12,17 +12,23 @@ governing permissions and limitations under the License.
 package com.adobe.qe.toughday.internal.core.engine;
 
 import com.adobe.qe.toughday.api.core.AbstractTest;
-import com.adobe.qe.toughday.internal.core.TestSuite;
 
-import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Worker for checking timeout and interrupting test worker threads when timeout is exceeded.
- * It uses Thread.interrupt for letting workers know the
+ * The workers register the deadline of every test they start and cancel it when the test finishes, so only the
+ * running tests are tracked. This worker advances the {@link TimeoutWheel} holding the deadlines.
  */
 public class AsyncTimeoutChecker extends AsyncEngineWorker {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int TICKS_PER_WHEEL = 512;
+    private static final long INTERRUPT_REPEAT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
     private Engine engine;
     private final Thread mainThread;
+    private final TimeoutWheel wheel = new TimeoutWheel(TICK_NANOS, TICKS_PER_WHEEL, System.nanoTime());
 
     /**
      * Constructor.
@@ -33,62 +39,73 @@ public class AsyncTimeoutChecker extends AsyncEngineWorker {
     }
 
     /**
-     * Method for checking timeout and interrupting test worker threads if timeout is exceeded.
+     * Registers the deadline of the test that the worker has just started. Must be called by the worker, after its
+     * current test and start time were set.
+     * @param worker the worker running the test
+     * @return the timeout, to be cancelled when the test finishes
+     */
+    public TimeoutWheel.Timeout watch(AsyncTestWorker worker) {
+        AbstractTest test = worker.getCurrentTest();
+        long start = worker.getLastTestStart();
+        Long testTimeout = test.getTimeout();
+        long timeout = testTimeout >= 0 ? testTimeout : engine.getGlobalArgs().getTimeout();
+
+        return wheel.schedule(() -> interruptWorkerIfTimeout(worker, test, start),
+                start + TimeUnit.MILLISECONDS.toNanos(timeout));
+    }
+
+    /**
+     * Method for interrupting a test worker thread whose test exceeded the timeout.
      * It uses Thread.interrupt for letting worker threads know the timeout has exceeded. Runners must know
      * how to correctly handled all outcomes of a Thread.interrupt see:
      * http://docs.oracle.com/javase/7/docs/api/java/lang/Thread.html#interrupt()
+     * Workers running on virtual threads are interrupted the same way. Unlike a platform thread, a virtual thread
+     * blocked in a socket operation is released by the interrupt, which closes the socket.
+     * The interrupt can be swallowed by the code under test, so it is repeated until the test finishes.
      */
-    private void interruptWorkerIfTimeout(AsyncTestWorker worker) {
-        AbstractTest currentTest = worker.getCurrentTest();
-        if(currentTest == null)
-            return;
-
-        Long testTimeout = currentTest.getTimeout();
-        long timeout = testTimeout >= 0 ? testTimeout : engine.getGlobalArgs().getTimeout();
-
+    private void interruptWorkerIfTimeout(AsyncTestWorker worker, AbstractTest test, long start) {
         if (!worker.getMutex().tryLock()) {
-            /* nothing to interrupt. if the test was running
-               the mutex would've been successfully acquired. */
+            /* the worker holds the mutex only briefly, while it starts or finishes a test. the test could still be
+               running afterwards, so it is checked again on the next tick. */
+            recheck(worker, test, start, wheel.getTickNanos());
             return;
         }
 
         try {
-            if (((System.nanoTime() - worker.getLastTestStart()) / 1000000l > timeout)
-                    && currentTest == worker.getCurrentTest()) {
+            // the worker could have moved on to another execution since the deadline was registered
+            if (test == worker.getCurrentTest() && start == worker.getLastTestStart()
+                    && worker.getWorkerThread() != null) {
                 worker.getWorkerThread().interrupt();
+                recheck(worker, test, start, INTERRUPT_REPEAT_NANOS);
             }
         } finally {
             worker.getMutex().unlock();
         }
     }
 
+    private void recheck(AsyncTestWorker worker, AbstractTest test, long start, long delayNanos) {
+        wheel.schedule(() -> interruptWorkerIfTimeout(worker, test, start), System.nanoTime() + delayNanos);
+    }
+
     /**
      * Implementation of Runnable interface.
      */
     @Override
     public void run() {
         try {
+            long nextRunCheck = System.nanoTime() + runCheckInterval();
             while(!isFinished()) {
-                long minTimeout = engine.getCurrentPhase().getTestSuite().getMinTimeout();
-
-                try {
-                    Thread.sleep(Math.round(Math.ceil(minTimeout * Engine.TIMEOUT_CHECK_FACTOR)));
-
-                    engine.getCurrentPhaseLock().readLock().lock();
-                    RunMode.RunContext context =  engine.getCurrentPhase().getRunMode().getRunContext();
-                    Collection<AsyncTestWorker> testWorkers = context.getTestWorkers();
-                    synchronized (testWorkers) {
-                        for (AsyncTestWorker worker : testWorkers) {
-                            interruptWorkerIfTimeout(worker);
-                        }
-                    }
-                    if (context.isRunFinished()) {
-                        if(engine.areTestsRunning() && mainThread.getState() == Thread.State.TIMED_WAITING) {
-                            mainThread.interrupt();
-                        }
-                    }
-                } finally {
-                    engine.getCurrentPhaseLock().readLock().unlock();
+                long now = System.nanoTime();
+                wheel.advance(now);
+
+                if (now - nextRunCheck >= 0) {
+                    nextRunCheck = now + runCheckInterval();
+                    checkRunFinished();
+                }
+
+                LockSupport.parkNanos(wheel.getTickNanos());
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
                 }
             }
         } catch (InterruptedException e) {
@@ -98,4 +115,28 @@ public class AsyncTimeoutChecker extends AsyncEngineWorker {
             Engine.LOG.error("Unexpected exception caught", e);
         }
     }
+
+    private long runCheckInterval() {
+        // the checker can start before the first phase
+        Phase phase = engine.getCurrentPhase();
+        long minTimeout = phase != null ? phase.getTestSuite().getMinTimeout() : engine.getGlobalArgs().getTimeout();
+        return TimeUnit.MILLISECONDS.toNanos(Math.round(Math.ceil(minTimeout * Engine.TIMEOUT_CHECK_FACTOR)));
+    }
+
+    private void checkRunFinished() {
+        try {
+            engine.getCurrentPhaseLock().readLock().lock();
+            if (engine.getCurrentPhase() == null) {
+                return;
+            }
+            RunMode.RunContext context =  engine.getCurrentPhase().getRunMode().getRunContext();
+            if (context.isRunFinished()) {
+                if(engine.areTestsRunning() && mainThread.getState() == Thread.State.TIMED_WAITING) {
+                    mainThread.interrupt();
+                }
+            }
+        } finally {
+            engine.getCurrentPhaseLock().readLock().unlock();
+        }
+    }
 }
@@ -14,12 +14,12 @@ package com.adobe.qe.toughday.internal.core.engine;
 import com.adobe.qe.toughday.Main;
 import com.adobe.qe.toughday.api.annotations.feeders.FeederGet;
 import com.adobe.qe.toughday.api.core.AbstractTest;
-import com.adobe.qe.toughday.api.core.AssumptionUtils;
+import com.adobe.qe.toughday.api.core.LifecycleMethods;
 import com.adobe.qe.toughday.api.core.Publisher;
 import com.adobe.qe.toughday.api.core.RunnersContainer;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
 import com.adobe.qe.toughday.api.feeders.Feeder;
 import com.adobe.qe.toughday.internal.core.*;
-import com.adobe.qe.toughday.api.annotations.Setup;
 import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
 import com.adobe.qe.toughday.internal.core.config.Configuration;
 import com.adobe.qe.toughday.internal.core.config.GlobalArgs;
@@ -30,12 +30,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -51,7 +54,7 @@ public class Engine {
     public static final int RESULT_AGGREATION_DELAY = 1000; //in 1 Second
     protected static final int WAIT_TERMINATION_FACTOR = 30;
     protected static final double TIMEOUT_CHECK_FACTOR = 0.03;
-    protected static Random _rnd = new Random();
+    protected static final long PUBLISHERS_STOP_TIMEOUT = 30 * 1000L;
 
     private final Configuration configuration;
     private GlobalArgs globalArgs;
@@ -61,6 +64,8 @@ public class Engine {
     private Phase currentPhase;
     private final ReadWriteLock currentPhaseLock = new ReentrantReadWriteLock();
     private volatile boolean testsRunning;
+    private volatile AsyncTimeoutChecker timeoutChecker;
+    private final Map<Publisher, AsyncPublisher> asyncPublishers = new ConcurrentHashMap<>();
 
     /**
      * Constructor
@@ -94,6 +99,12 @@ public class Engine {
 
     public boolean areTestsRunning() { return testsRunning; }
 
+    /**
+     * Getter for the worker enforcing the timeouts of the tests.
+     * @return the timeout checker, or null if the engine has not started running the tests.
+     */
+    public AsyncTimeoutChecker getTimeoutChecker() { return timeoutChecker; }
+
     /**
      * Recursive method for preparing a test to run.
      * @param test
@@ -284,22 +295,13 @@ public class Engine {
     
     //TODO find a place in the AbstractTestRunner for this. The problem is that we need to invoke it at a specific time.
     public void runSetup(AbstractTest test) throws Exception {
-        LinkedList<Method> setupMethods = new LinkedList<>();
-        Class currentClass = test.getClass();
-        while(!currentClass.getName().equals(AbstractTest.class.getName())) {
-            for (Method method : currentClass.getDeclaredMethods()) {
-                if (method.getAnnotation(Setup.class) != null) {
-                    AssumptionUtils.validateAnnotatedMethod(method, Setup.class);
-                    setupMethods.addFirst(method);
-                }
-            }
-            currentClass = currentClass.getSuperclass();
-        }
         test.benchmark().setRunMap(currentPhase.getPublishMode().getRunMap());
-        for(Method setupMethod : setupMethods) {
-            setupMethod.setAccessible(true);
-            setupMethod.invoke(test);
-            setupMethod.setAccessible(false);
+        try {
+            LifecycleMethods.forClass(test.getClass()).invokeSetup(test);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
         }
         test.benchmark().setRunMap(null);
 
@@ -333,7 +335,7 @@ public class Engine {
         AsyncResultAggregator resultAggregator = new AsyncResultAggregator(this);
 
         // Create the timeout checker thread
-        AsyncTimeoutChecker timeoutChecker = new AsyncTimeoutChecker(this, Thread.currentThread());
+        timeoutChecker = new AsyncTimeoutChecker(this, Thread.currentThread());
 
         Thread shutdownHook = new Thread() {
             public void run() {
@@ -359,11 +361,22 @@ public class Engine {
                     resultAggregator.aggregateResults();
                     shutdownAndAwaitTermination(currentPhase.getRunMode().getExecutorService());
                     shutdownAndAwaitTermination(engineExecutorService);
-                    currentPhase.getPublishMode().publish(currentPhase.getPublishMode().getRunMap().getCurrentTestResults());
+                    closeSharedResources();
+                    currentPhase.getPublishMode().publish(currentPhase.getPublishMode().getRunMap().drainCurrentTestResults());
 
                     if (wasMeasurable) {
                         currentPhase.getPublishMode().publishFinalResults(resultAggregator.filterResults());
                     }
+
+                    for (AsyncPublisher asyncPublisher : asyncPublishers.values()) {
+                        if (!asyncPublisher.stopAndAwait(PUBLISHERS_STOP_TIMEOUT)) {
+                            LOG.warn("Publisher " + asyncPublisher.getPublisher().getName() + " did not finish publishing in time.");
+                        }
+                        if (asyncPublisher.getDroppedRawResults() > 0) {
+                            LOG.warn("Publisher " + asyncPublisher.getPublisher().getName() + " dropped "
+                                    + asyncPublisher.getDroppedRawResults() + " raw results, because it could not keep up.");
+                        }
+                    }
                 } catch (Throwable e) {
                     System.out.println("Exception in shutdown hook!");
                     e.printStackTrace();
@@ -395,6 +408,8 @@ public class Engine {
 
             phasesWithoutDuration.remove(phase);
 
+            currentPhase.getPublishMode().getRunMap().shareRawResults(
+                    new RawResultsBuffer(globalArgs.getRawBuffer(), RawResultsBuffer.Policy.fromString(globalArgs.getRawBufferPolicy())));
             currentPhase.getPublishMode().getRunMap().reinitStartTimes();
 
             // Run the setup step of the suite
@@ -410,6 +425,8 @@ public class Engine {
                 add(test);
             }
 
+            phase.setTestSelector(new TestSelector(phase.getTestSuite(), phase.getCounts(), engineSync));
+
             RunMode currentRunmode = phase.getRunMode();
             Long currentDuration = phase.getDuration();
 
@@ -460,53 +477,26 @@ public class Engine {
         return engineSync;
     }
 
+    public static void logGlobal(String message) {
+        LOG.info(message);
+        LogManager.getLogger(Main.class).info(message);
+    }
+
     /**
-     * Method for getting the next weighted random test form the test suite
-     * TODO: optimize
+     * Close the resources that the tests shared for the whole run, such as connection pools.
      */
-    public static AbstractTest getNextTest(TestSuite testSuite, Map<AbstractTest, AtomicLong> counts, ReentrantReadWriteLock engineSync) throws InterruptedException {
-        //If we didn't find the next test we start looking for it assuming that not all counts are done
-        while (testSuite.getTests().size() != 0) {
-            engineSync.readLock().lock();
-            try {
-                int randomNumber = _rnd.nextInt(testSuite.getTotalWeight());
-                for (AbstractTest test : testSuite.getTests()) {
-                    int testWeight = test.getWeight();
-
-                    long testRuns = counts.get(test).get();
-                    Long maxRuns = test.getCount();
-
-                    //If max runs was exceeded for a test
-                    if (maxRuns >= 0 && testRuns > maxRuns) {
-                        //Try to acquire the lock for removing the test from the suite
-                        engineSync.readLock().unlock();
-                        engineSync.writeLock().lock();
-                        try {
-                            if(!testSuite.contains(test.getName())) { break; }
-                            //Remove test from suite
-                            testSuite.remove(test);
-                            //Start looking for the test from the beginning as the total weight changed
-                            break;
-                        } finally {
-                            engineSync.writeLock().unlock();
-                            engineSync.readLock().lock();
-                        }
-                    }
-                    if (randomNumber < testWeight) {
-                        return test;
-                    }
-                    randomNumber = randomNumber - testWeight;
+    private void closeSharedResources() {
+        List<Closeable> resources = AbstractTest.getSharedResources();
+        synchronized (resources) {
+            for (Closeable resource : resources) {
+                try {
+                    resource.close();
+                } catch (IOException | RuntimeException e) {
+                    LOG.warn("Could not close " + resource, e);
                 }
-            } finally {
-                engineSync.readLock().unlock();
             }
+            resources.clear();
         }
-        return null;
-    }
-
-    public static void logGlobal(String message) {
-        LOG.info(message);
-        LogManager.getLogger(Main.class).info(message);
     }
 
     /**
@@ -535,6 +525,22 @@ public class Engine {
         return currentPhase;
     }
 
+    /**
+     * Get the worker that runs the given publisher on its own thread. The same worker is used for all the phases.
+     */
+    public AsyncPublisher getAsyncPublisher(Publisher publisher) {
+        return asyncPublishers.computeIfAbsent(publisher, key -> new AsyncPublisher(key,
+                RawResultsBuffer.Policy.fromString(globalArgs.getRawBufferPolicy()), this::recordDroppedResult));
+    }
+
+    /* The results that a publisher could not keep up with are counted by the Dropped metric of the current phase. */
+    private void recordDroppedResult(TestResult testResult) {
+        Phase phase = currentPhase;
+        if (phase != null) {
+            phase.getPublishMode().getRunMap().recordDropped(testResult);
+        }
+    }
+
     public ReadWriteLock getCurrentPhaseLock() {
         return currentPhaseLock;
     }
@@ -0,0 +1,88 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The kind of threads on which a run mode executes its test workers.
+ */
+public enum ExecutorStrategy {
+    /**
+     * A cached pool of platform threads. Every running worker holds an operating system thread.
+     */
+    PLATFORM,
+    /**
+     * A new virtual thread for every worker. A blocked worker does not hold an operating system thread, so the number
+     * of workers is not limited by the number of native threads. Requires a JVM with virtual threads (21 or newer);
+     * older JVMs fall back to {@link #PLATFORM}.
+     */
+    VIRTUAL;
+
+    public static final String DEFAULT = "platform";
+
+    private static final Logger LOG = LogManager.getLogger(ExecutorStrategy.class);
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public static ExecutorStrategy fromString(String strategy) {
+        try {
+            return valueOf(strategy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown executor: " + strategy +
+                    ". Possible values are \"platform\" and \"virtual\".");
+        }
+    }
+
+    /**
+     * Whether this JVM can run the workers on virtual threads.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Creates the executor service for the test workers of a run mode.
+     */
+    public ExecutorService newExecutor() {
+        if (this == VIRTUAL) {
+            if (isVirtualThreadsSupported()) {
+                try {
+                    return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    LOG.warn("Could not create the virtual thread executor. Platform threads will be used.", e);
+                }
+            } else {
+                LOG.warn("Virtual threads are not supported by this JVM (" + System.getProperty("java.version") +
+                        "). Platform threads will be used.");
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
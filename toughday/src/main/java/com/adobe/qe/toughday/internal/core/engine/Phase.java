@@ -38,6 +38,7 @@ public class Phase {
     private Map<String, Publisher> publishers = new HashMap<>();
     private Map<String, Metric> metrics = new LinkedHashMap<>();
     private Map<AbstractTest, AtomicLong> counts = new HashMap<>();
+    private TestSelector testSelector;
 
     @ConfigArgGet
     public String getName() {
@@ -87,6 +88,14 @@ public class Phase {
         return counts;
     }
 
+    public TestSelector getTestSelector() {
+        return testSelector;
+    }
+
+    public void setTestSelector(TestSelector testSelector) {
+        this.testSelector = testSelector;
+    }
+
     public TestSuite getTestSuite() {
         return testSuite;
     }
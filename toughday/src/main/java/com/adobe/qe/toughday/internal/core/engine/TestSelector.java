@@ -0,0 +1,183 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import com.adobe.qe.toughday.api.annotations.labels.Nullable;
+import com.adobe.qe.toughday.api.annotations.labels.ThreadSafe;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.internal.core.TestSuite;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Picks the next test to run from a test suite, with a probability proportional to the weight of the test.
+ * The selection is done in constant time, using an alias table (Vose's method) and a thread local random
+ * source, so it never blocks the workers. The table is immutable: when a test reaches its count, a new table
+ * without it is built and swapped atomically.
+ */
+@ThreadSafe
+public class TestSelector {
+    private final TestSuite testSuite;
+    private final ReadWriteLock suiteLock;
+    private final AtomicReference<AliasTable> table;
+
+    /**
+     * Constructor.
+     * @param testSuite the suite from which the tests are picked. Tests that reach their count are removed from it.
+     * @param counts the number of executions of each test
+     * @param suiteLock lock guarding the modifications of the test suite
+     */
+    public TestSelector(TestSuite testSuite, Map<AbstractTest, AtomicLong> counts, ReadWriteLock suiteLock) {
+        this.testSuite = testSuite;
+        this.suiteLock = suiteLock;
+
+        List<AbstractTest> tests = new ArrayList<>();
+        List<AtomicLong> testCounts = new ArrayList<>();
+        for (AbstractTest test : testSuite.getTests()) {
+            tests.add(test);
+            AtomicLong count = counts.get(test);
+            testCounts.add(count != null ? count : new AtomicLong(0));
+        }
+        this.table = new AtomicReference<>(new AliasTable(tests, testCounts));
+    }
+
+    /**
+     * Method for getting the next weighted random test from the test suite.
+     * @return the next test to run, or null if there are no more tests to execute.
+     */
+    public @Nullable AbstractTest next() {
+        while (true) {
+            AliasTable current = table.get();
+            if (current.isEmpty()) {
+                return null;
+            }
+
+            int index = current.sample(ThreadLocalRandom.current());
+            AbstractTest test = current.tests[index];
+            long maxRuns = test.getCount();
+
+            //If max runs was exceeded for a test
+            if (maxRuns >= 0 && current.counts[index].get() > maxRuns) {
+                remove(current, index);
+                continue;
+            }
+            return test;
+        }
+    }
+
+    private void remove(AliasTable current, int index) {
+        AbstractTest test = current.tests[index];
+        //Only the thread that manages to swap the table removes the test from the suite
+        if (table.compareAndSet(current, current.without(index))) {
+            suiteLock.writeLock().lock();
+            try {
+                if (testSuite.contains(test.getName())) {
+                    testSuite.remove(test);
+                }
+            } finally {
+                suiteLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Immutable alias table over the tests with a positive weight.
+     */
+    private static class AliasTable {
+        private final AbstractTest[] tests;
+        private final AtomicLong[] counts;
+        private final double[] probability;
+        private final int[] alias;
+
+        AliasTable(List<AbstractTest> allTests, List<AtomicLong> allCounts) {
+            List<AbstractTest> tests = new ArrayList<>();
+            List<AtomicLong> counts = new ArrayList<>();
+            long totalWeight = 0;
+            for (int i = 0; i < allTests.size(); i++) {
+                AbstractTest test = allTests.get(i);
+                if (test.getWeight() > 0) {
+                    tests.add(test);
+                    counts.add(allCounts.get(i));
+                    totalWeight += test.getWeight();
+                }
+            }
+
+            int n = tests.size();
+            this.tests = tests.toArray(new AbstractTest[n]);
+            this.counts = counts.toArray(new AtomicLong[n]);
+            this.probability = new double[n];
+            this.alias = new int[n];
+
+            double[] scaled = new double[n];
+            Deque<Integer> small = new ArrayDeque<>();
+            Deque<Integer> large = new ArrayDeque<>();
+            for (int i = 0; i < n; i++) {
+                scaled[i] = (double) this.tests[i].getWeight() * n / totalWeight;
+                if (scaled[i] < 1.0) {
+                    small.push(i);
+                } else {
+                    large.push(i);
+                }
+            }
+
+            while (!small.isEmpty() && !large.isEmpty()) {
+                int less = small.pop();
+                int more = large.pop();
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1.0;
+                if (scaled[more] < 1.0) {
+                    small.push(more);
+                } else {
+                    large.push(more);
+                }
+            }
+
+            // whatever is left is only off from 1 because of rounding errors
+            while (!large.isEmpty()) {
+                probability[large.pop()] = 1.0;
+            }
+            while (!small.isEmpty()) {
+                probability[small.pop()] = 1.0;
+            }
+        }
+
+        boolean isEmpty() {
+            return tests.length == 0;
+        }
+
+        int sample(ThreadLocalRandom random) {
+            int column = random.nextInt(tests.length);
+            return random.nextDouble() < probability[column] ? column : alias[column];
+        }
+
+        AliasTable without(int index) {
+            List<AbstractTest> remainingTests = new ArrayList<>();
+            List<AtomicLong> remainingCounts = new ArrayList<>();
+            for (int i = 0; i < tests.length; i++) {
+                if (i != index) {
+                    remainingTests.add(tests[i]);
+                    remainingCounts.add(counts[i]);
+                }
+            }
+            return new AliasTable(remainingTests, remainingCounts);
+        }
+    }
+}
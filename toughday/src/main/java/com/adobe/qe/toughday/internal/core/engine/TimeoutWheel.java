@@ -0,0 +1,180 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timer wheel for the timeouts of the running tests. Any thread can schedule and cancel timeouts, but only
+ * one thread advances the wheel and runs the expired tasks. The cost of advancing the wheel depends only on the number
+ * of timeouts that were scheduled recently or that expire, not on the number of workers. A timeout never fires before
+ * its deadline and it fires at most one tick after it.
+ */
+public class TimeoutWheel {
+    private static final Logger LOG = LogManager.getLogger(TimeoutWheel.class);
+
+    private final long tickNanos;
+    private final Timeout[] buckets;
+    private final int mask;
+    private final long startNanos;
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private long nextTick = 0;
+
+    /**
+     * Constructor.
+     * @param tickNanos the duration of a tick, in nanoseconds
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     * @param startNanos the {@code System.nanoTime()} of the first tick
+     */
+    public TimeoutWheel(long tickNanos, int ticksPerWheel, long startNanos) {
+        if (tickNanos <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("The tick duration and the number of ticks must be positive.");
+        }
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+
+        this.tickNanos = tickNanos;
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Getter for the duration of a tick, in nanoseconds.
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Schedules a task to run when the deadline passes, unless the returned timeout is cancelled before.
+     * @param task the task, run by the thread advancing the wheel
+     * @param deadlineNanos the {@code System.nanoTime()} after which the task must run
+     */
+    public Timeout schedule(Runnable task, long deadlineNanos) {
+        Timeout timeout = new Timeout(task, deadlineNanos);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Runs the tasks of all the timeouts that expired until the given moment. Must be called only by the thread
+     * that owns the wheel.
+     * @param nowNanos the current {@code System.nanoTime()}
+     */
+    public void advance(long nowNanos) {
+        long currentTick = (nowNanos - startNanos) / tickNanos;
+        while (nextTick <= currentTick) {
+            transferScheduled();
+            expire(nextTick);
+            nextTick++;
+        }
+    }
+
+    /* The new timeouts are put in their buckets by the owner thread, so the buckets need no synchronization. The ones
+    whose deadline has already passed go in the bucket that is about to expire. */
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            long deadlineTick = Math.max(nextTick, ceilDiv(timeout.deadlineNanos - startNanos, tickNanos));
+            timeout.remainingRounds = (deadlineTick - nextTick) / buckets.length;
+
+            int index = (int) (deadlineTick & mask);
+            timeout.next = buckets[index];
+            buckets[index] = timeout;
+        }
+    }
+
+    private void expire(long tick) {
+        int index = (int) (tick & mask);
+        Timeout previous = null;
+        Timeout timeout = buckets[index];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            boolean remove = timeout.isCancelled() || timeout.remainingRounds <= 0;
+            if (remove) {
+                if (previous == null) {
+                    buckets[index] = next;
+                } else {
+                    previous.next = next;
+                }
+                timeout.next = null;
+                timeout.expire();
+            } else {
+                timeout.remainingRounds--;
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return value <= 0 ? 0 : (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * A task scheduled in the wheel.
+     */
+    public static final class Timeout {
+        private static final int SCHEDULED = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(SCHEDULED);
+        private long remainingRounds;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancels the timeout.
+         * @return true if the task will not run, false if it has already run.
+         */
+        public boolean cancel() {
+            return state.compareAndSet(SCHEDULED, CANCELLED) || state.get() == CANCELLED;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(SCHEDULED, EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                LOG.error("Unexpected exception caught in timeout task", e);
+            }
+        }
+    }
+}
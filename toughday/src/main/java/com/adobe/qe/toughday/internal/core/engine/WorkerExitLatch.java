@@ -0,0 +1,125 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the test workers of a run mode that have not exited yet, so the run mode can wait for all of them
+ * to exit without polling. A worker is registered before it is started and signals its exit when its run
+ * method returns. Unlike a {@link java.util.concurrent.CountDownLatch}, workers can be registered at any time,
+ * for run modes that add workers while running.
+ */
+public class WorkerExitLatch {
+    /**
+     * How long the workers are allowed to finish their current test when the run mode stops, before being interrupted.
+     */
+    public static final long GRACE_PERIOD_MILLIS = 5000;
+    private static final long INTERRUPT_INTERVAL_MILLIS = 100;
+
+    private int running = 0;
+
+    /**
+     * Registers a worker that is about to start.
+     */
+    public synchronized void register() {
+        running++;
+    }
+
+    /**
+     * Signals that a registered worker has exited, or that it could not be started.
+     */
+    public synchronized void exited() {
+        if (--running == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Getter for the number of registered workers that have not exited yet.
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * Waits for all the registered workers to exit.
+     * @throws InterruptedException if the waiting thread was interrupted
+     */
+    public synchronized void await() throws InterruptedException {
+        while (running > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Waits for all the registered workers to exit.
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if all the workers exited, false if the timeout elapsed first
+     * @throws InterruptedException if the waiting thread was interrupted
+     */
+    public synchronized boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (running > 0) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the workers to exit, which should have been told to finish their execution. The workers still running
+     * a test after the grace period are interrupted, repeatedly, until they exit. The calling thread can be interrupted
+     * by the timeout checker when the run finishes, so interrupts do not stop the waiting.
+     * @param workers the workers of the run mode
+     */
+    public void awaitOrInterrupt(Collection<AsyncTestWorker> workers) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GRACE_PERIOD_MILLIS);
+        while (true) {
+            try {
+                if (await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            AsyncTestWorker[] remaining;
+            synchronized (workers) {
+                remaining = workers.toArray(new AsyncTestWorker[0]);
+            }
+            for (AsyncTestWorker worker : remaining) {
+                interruptIfRunning(worker);
+            }
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(INTERRUPT_INTERVAL_MILLIS);
+        }
+    }
+
+    private static void interruptIfRunning(AsyncTestWorker worker) {
+        if (worker.hasExited() || !worker.getMutex().tryLock()) {
+            return;
+        }
+
+        try {
+            if (worker.getWorkerThread() != null) {
+                worker.getWorkerThread().interrupt();
+            }
+        } finally {
+            worker.getMutex().unlock();
+        }
+    }
+}
@@ -30,7 +30,7 @@ public class Simple extends PublishMode {
         try {
             engine.getCurrentPhaseLock().readLock().lock();
             for(Publisher publisher : engine.getCurrentPhase().getPublishers()) {
-                publisher.publishAggregatedIntermediate(results);
+                engine.getAsyncPublisher(publisher).publishAggregatedIntermediate(results);
             }
         } finally {
             engine.getCurrentPhaseLock().readLock().unlock();
@@ -42,7 +42,7 @@ public class Simple extends PublishMode {
         try {
             engine.getCurrentPhaseLock().readLock().lock();
             for(Publisher publisher : engine.getCurrentPhase().getPublishers()) {
-                publisher.publishRaw(testResults);
+                engine.getAsyncPublisher(publisher).publishRaw(testResults);
             }
         } finally {
             engine.getCurrentPhaseLock().readLock().unlock();
@@ -54,7 +54,7 @@ public class Simple extends PublishMode {
         try {
             engine.getCurrentPhaseLock().readLock().lock();
             for (Publisher publisher : engine.getCurrentPhase().getPublishers()) {
-                publisher.publishAggregatedFinal(results);
+                engine.getAsyncPublisher(publisher).publishAggregatedFinal(results);
             }
         } finally {
             engine.getCurrentPhaseLock().readLock().unlock();
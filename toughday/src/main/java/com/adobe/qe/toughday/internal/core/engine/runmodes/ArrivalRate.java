@@ -0,0 +1,402 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
+import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
+import com.adobe.qe.toughday.api.annotations.Description;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.AbstractTestRunner;
+import com.adobe.qe.toughday.api.core.RunMap;
+import com.adobe.qe.toughday.api.core.RunnersContainer;
+import com.adobe.qe.toughday.internal.core.engine.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleSupplier;
+
+@Description(desc = "Generates an open-model load: every execution is scheduled at its own intended start time, " +
+        "following a uniform or poisson arrival process, regardless of how long the tests take.")
+public class ArrivalRate implements RunMode {
+    private static final Logger LOG = LoggerFactory.getLogger(ArrivalRate.class);
+
+    private static final String DEFAULT_RATE_STRING = "50";
+    private static final double DEFAULT_RATE = Double.parseDouble(DEFAULT_RATE_STRING);
+    private static final String DEFAULT_DISTRIBUTION = "uniform";
+
+    private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // how often the rate is re-evaluated while a ramp is at zero requests per second
+    private static final long IDLE_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // how far behind the schedule the dispatcher can fall before we warn about it
+    private static final long MAX_SCHEDULE_LAG_NANOS = ONE_SECOND_NANOS;
+    // executions are spread over a few run maps to avoid contention on the recording path
+    private static final int RUN_MAPS_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() * 2);
+
+    enum Distribution {
+        UNIFORM, POISSON
+    }
+
+    private AtomicBoolean loggedOOMWarning = new AtomicBoolean(false);
+    private AtomicBoolean loggedLagWarning = new AtomicBoolean(false);
+
+    private ExecutorService executorService;
+    private ExecutorStrategy executor = ExecutorStrategy.PLATFORM;
+    private final Collection<AsyncTestWorker> testWorkers = Collections.synchronizedSet(new HashSet<AsyncTestWorker>());
+    private final WorkerExitLatch exitLatch = new WorkerExitLatch();
+    private final List<RunMap> runMaps = new ArrayList<>();
+    private ArrivalScheduler scheduler;
+
+    private double rate = DEFAULT_RATE;
+    // set by the run modes that drive this one, it replaces the configured rate
+    private volatile DoubleSupplier rateSupplier;
+    private double start = -1;
+    private double end = -1;
+    private Distribution distribution = Distribution.UNIFORM;
+
+    private TestCache testCache;
+    private Phase phase;
+    private Engine engine;
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_RATE_STRING,
+            desc = "The number of executions started per second. Fractional values (e.g. 0.5) are allowed.")
+    public void setRate(String rate) {
+        checkNotNegative(Double.parseDouble(rate), "rate");
+        this.rate = Double.parseDouble(rate);
+    }
+
+    @ConfigArgGet
+    public double getRate() {
+        return rate;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = "-1",
+            desc = "The arrival rate to start ramping from. Rises (or falls) linearly to \"end\" over the duration of the phase.")
+    public void setStart(String start) {
+        if (!start.equals("-1")) {
+            checkNotNegative(Double.parseDouble(start), "start");
+        }
+        this.start = Double.parseDouble(start);
+    }
+
+    @ConfigArgGet
+    public double getStart() {
+        return start;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = "-1", desc = "The arrival rate reached at the end of the phase.")
+    public void setEnd(String end) {
+        if (!end.equals("-1")) {
+            checkNotNegative(Double.parseDouble(end), "end");
+        }
+        this.end = Double.parseDouble(end);
+    }
+
+    @ConfigArgGet
+    public double getEnd() {
+        return end;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_DISTRIBUTION,
+            desc = "The distribution of the time between two consecutive executions: \"uniform\" or \"poisson\".")
+    public void setDistribution(String distribution) {
+        try {
+            this.distribution = Distribution.valueOf(distribution.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown arrival distribution: " + distribution +
+                    ". Possible values are \"uniform\" and \"poisson\".");
+        }
+    }
+
+    @ConfigArgGet
+    public String getDistribution() {
+        return distribution.toString().toLowerCase();
+    }
+
+    @ConfigArgGet
+    public String getExecutor() {
+        return executor.toString();
+    }
+
+    @ConfigArgSet(required = false, defaultValue = ExecutorStrategy.DEFAULT,
+            desc = "The threads running the tests: \"platform\" or \"virtual\". Virtual threads need Java 21 or newer, platform threads are used otherwise.")
+    public void setExecutor(String executor) {
+        this.executor = ExecutorStrategy.fromString(executor);
+    }
+
+    private boolean isVariableRate() {
+        return start != -1 && end != -1;
+    }
+
+    private void checkNotNegative(double param, String property) {
+        if (param < 0) {
+            throw new IllegalArgumentException("Property " + property + " incorrectly configured as negative.");
+        }
+    }
+
+    private void checkInvalidArgs() {
+        if ((start != -1 && end == -1) || (start == -1 && end != -1)) {
+            throw new IllegalArgumentException("Cannot configure only one limit (start/end) for Arrival Rate mode.");
+        }
+
+        if (isVariableRate() && rate != DEFAULT_RATE) {
+            throw new IllegalArgumentException("Arrival Rate mode cannot be configured with both start/end and rate.");
+        }
+
+        if (!isVariableRate() && rate == 0) {
+            throw new IllegalArgumentException("Arrival Rate mode cannot be configured with a rate of 0.");
+        }
+    }
+
+    @Override
+    public void runTests(Engine engine) {
+        checkInvalidArgs();
+
+        this.engine = engine;
+        this.phase = engine.getCurrentPhase();
+        this.testCache = new TestCache(phase.getTestSuite());
+
+        synchronized (runMaps) {
+            for (int i = 0; i < RUN_MAPS_COUNT; i++) {
+                runMaps.add(phase.getPublishMode().getRunMap().newInstance());
+            }
+        }
+
+        this.executorService = executor.newExecutor();
+        this.scheduler = new ArrivalScheduler();
+        executorService.execute(scheduler);
+    }
+
+    @Override
+    public RunContext getRunContext() {
+        return new RunContext() {
+            @Override
+            public Collection<AsyncTestWorker> getTestWorkers() {
+                return testWorkers;
+            }
+
+            @Override
+            public Collection<RunMap> getRunMaps() {
+                return runMaps;
+            }
+
+            @Override
+            public boolean isRunFinished() {
+                // the scheduler is created when the tests start running
+                return scheduler != null && scheduler.isFinished();
+            }
+        };
+    }
+
+    @Override
+    public void finishExecutionAndAwait() {
+        scheduler.finishExecution();
+
+        synchronized (testWorkers) {
+            for (AsyncTestWorker testWorker : testWorkers) {
+                testWorker.finishExecution();
+            }
+        }
+
+        exitLatch.awaitOrInterrupt(testWorkers);
+    }
+
+    /**
+     * Makes the arrival rate follow the given supplier, which is queried before every execution, instead of the
+     * configured rate or ramp. Used by the run modes that adjust the rate while running.
+     */
+    void setRateSupplier(DoubleSupplier rateSupplier) {
+        this.rateSupplier = rateSupplier;
+    }
+
+    /**
+     * Waits for the executions that were already dispatched to complete.
+     * @return true if they completed, false if the timeout elapsed first
+     * @throws InterruptedException if the waiting thread was interrupted
+     */
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return exitLatch.await(timeout, unit);
+    }
+
+    /**
+     * Getter for the number of executions that were dispatched and did not complete yet.
+     */
+    int getInFlight() {
+        return exitLatch.getRunning();
+    }
+
+    /**
+     * Stops dispatching new executions. The run is finished, the executions already started are left to complete.
+     */
+    void stopDispatching() {
+        scheduler.finishExecution();
+    }
+
+    @Override
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Computes the arrival rate, in executions per second, after {@code elapsedNanos} since the phase started.
+     */
+    double currentRate(long elapsedNanos, long durationNanos) {
+        DoubleSupplier rateSupplier = this.rateSupplier;
+        if (rateSupplier != null) {
+            return rateSupplier.getAsDouble();
+        }
+
+        if (!isVariableRate()) {
+            return rate;
+        }
+
+        double progress = durationNanos <= 0 ? 1.0 : Math.min(1.0, (double) elapsedNanos / durationNanos);
+        return start + (end - start) * progress;
+    }
+
+    /**
+     * Computes the time between two consecutive intended start times for the given rate.
+     */
+    long interArrivalNanos(double currentRate, Random random) {
+        if (currentRate <= 0) {
+            return IDLE_TICK_NANOS;
+        }
+
+        double meanNanos = ONE_SECOND_NANOS / currentRate;
+        if (distribution == Distribution.POISSON) {
+            // exponentially distributed gaps produce a poisson arrival process
+            return Math.max(1, Math.round(-Math.log(1.0 - random.nextDouble()) * meanNanos));
+        }
+        return Math.max(1, Math.round(meanNanos));
+    }
+
+    /**
+     * Executes one test, as scheduled by the {@link ArrivalScheduler}. A worker is created for every execution and
+     * it is only tracked while the test is running.
+     */
+    private class AsyncTestWorkerImpl extends AsyncTestWorker {
+        private final AbstractTest test;
+        private final RunMap runMap;
+        private final long intendedStart;
+        private volatile boolean exited = false;
+
+        public AsyncTestWorkerImpl(AbstractTest test, RunMap runMap, long intendedStart) {
+            this.test = test;
+            this.runMap = runMap;
+            this.intendedStart = intendedStart;
+        }
+
+        @Override
+        public void run() {
+            mutex.lock();
+            lastTestStart = System.nanoTime();
+            workerThread = Thread.currentThread();
+            currentTest = test;
+            watchTimeout(engine);
+            mutex.unlock();
+            try {
+                AbstractTestRunner runner = RunnersContainer.getInstance().getRunner(test);
+                runner.runTest(test, runMap, intendedStart);
+            } catch (Throwable e) {
+                LOG.warn("Exceptions from tests should not reach this point", e);
+            }
+
+            cancelTimeout();
+            mutex.lock();
+            currentTest = null;
+            exited = true;
+            testCache.add(test);
+            Thread.interrupted();
+            mutex.unlock();
+
+            testWorkers.remove(this);
+            exitLatch.exited();
+        }
+
+        @Override
+        public boolean hasExited() {
+            return exited;
+        }
+    }
+
+    /**
+     * Dispatches the executions at their intended start times. The schedule is computed only from the configured
+     * rate, so it never depends on how long the previous executions took. If the dispatcher falls behind, the
+     * late executions are started immediately, in order to catch up with the schedule.
+     */
+    private class ArrivalScheduler extends AsyncEngineWorker {
+        private final Random random = new Random();
+        private long dispatched = 0;
+
+        @Override
+        public void run() {
+            long phaseStart = System.nanoTime();
+            long durationNanos = TimeUnit.SECONDS.toNanos(phase.getDuration());
+            long intendedStart = phaseStart;
+
+            try {
+                while (!isFinished()) {
+                    long delay = intendedStart - System.nanoTime();
+                    if (delay > 0) {
+                        LockSupport.parkNanos(delay);
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException();
+                        }
+                        continue;
+                    }
+
+                    if (-delay > MAX_SCHEDULE_LAG_NANOS && !loggedLagWarning.getAndSet(true)) {
+                        LOG.warn("The arrival rate scheduler is falling behind. The desired rate could not be achieved.");
+                    }
+
+                    double currentRate = currentRate(intendedStart - phaseStart, durationNanos);
+                    if (currentRate > 0 && !dispatch(intendedStart)) {
+                        return;
+                    }
+                    intendedStart += interArrivalNanos(currentRate, random);
+                }
+            } catch (InterruptedException e) {
+                finishExecution();
+                LOG.warn("Arrival rate scheduler thread was interrupted.");
+            }
+        }
+
+        private boolean dispatch(long intendedStart) {
+            AbstractTest nextTest = phase.getTestSelector().next();
+            if (nextTest == null) {
+                LOG.info("Arrival rate scheduler thread finished, because there were no more tests to execute.");
+                finishExecution();
+                return false;
+            }
+
+            RunMap runMap = runMaps.get((int) (dispatched++ % runMaps.size()));
+            AsyncTestWorkerImpl worker = new AsyncTestWorkerImpl(testCache.getOrClone(nextTest), runMap, intendedStart);
+            testWorkers.add(worker);
+            exitLatch.register();
+            try {
+                executorService.execute(worker);
+            } catch (OutOfMemoryError e) {
+                exitLatch.exited();
+                testWorkers.remove(worker);
+                testCache.add(worker.test);
+                if (!loggedOOMWarning.getAndSet(true)) {
+                    LOG.warn("The desired arrival rate could not be achieved. We are creating as many threads as possible.");
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -11,8 +11,6 @@ governing permissions and limitations under the License.
 */
 package com.adobe.qe.toughday.internal.core.engine.runmodes;
 
-import com.adobe.qe.toughday.api.annotations.labels.NotNull;
-import com.adobe.qe.toughday.api.annotations.labels.Nullable;
 import com.adobe.qe.toughday.api.core.*;
 import com.adobe.qe.toughday.api.annotations.Description;
 import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
@@ -26,12 +24,13 @@ import org.slf4j.LoggerFactory;
 
 
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-@Description(desc = "Generates a constant load of test executions, regardless of their execution time.")
+@Description(desc = "Generates a constant load of test executions, regardless of their execution time. The executions " +
+        "of a round that find no free worker before the next round are dropped and counted by the Dropped metric.")
 public class ConstantLoad implements RunMode {
     private static final Logger LOG = LoggerFactory.getLogger(ConstantLoad.class);
 
@@ -39,22 +38,28 @@ public class ConstantLoad implements RunMode {
     private static final int DEFAULT_LOAD = Integer.parseInt(DEFAULT_LOAD_STRING);
     private static final String DEFAULT_INTERVAL_STRING = "1s";
     private static final long DEFAULT_INTERVAL = 1000;
+    private static final String DEFAULT_WORKERS_STRING = "-1";
 
     private AtomicBoolean loggedWarning = new AtomicBoolean(false);
 
-    private ExecutorService executorService = Executors.newCachedThreadPool();
-    private Collection<AsyncTestWorker> testWorkers = Collections.synchronizedSet(new HashSet<AsyncTestWorker>());
+    private ExecutorService executorService;
+    private ExecutorStrategy executor = ExecutorStrategy.PLATFORM;
+    private final List<AsyncTestWorker> testWorkers = Collections.synchronizedList(new ArrayList<>());
+    private final WorkerExitLatch exitLatch = new WorkerExitLatch();
+    private BlockingQueue<ScheduledExecution> executions;
     private AsyncTestWorkerScheduler scheduler;
     private final List<RunMap> runMaps = new ArrayList<>();
     private int load = DEFAULT_LOAD;
     private int start = DEFAULT_LOAD;
     private int end = DEFAULT_LOAD;
     private long interval = DEFAULT_INTERVAL;
+    private int workers = Integer.parseInt(DEFAULT_WORKERS_STRING);
     private int rate;
     private int currentLoad;
 
     private TestCache testCache;
     private Phase phase;
+    private Engine engine;
 
     private Boolean measurable = true;
 
@@ -117,22 +122,30 @@ public class ConstantLoad implements RunMode {
         this.end = Integer.valueOf(end);
     }
 
-    private static class TestCache {
-        public Map<TestId, Queue<AbstractTest>> cache = new HashMap<>();
+    @ConfigArgGet
+    public String getExecutor() {
+        return executor.toString();
+    }
 
-        public TestCache(TestSuite testSuite) {
-            for(AbstractTest test : testSuite.getTests()) {
-                cache.put(test.getId(), new ConcurrentLinkedQueue());
-            }
-        }
+    @ConfigArgSet(required = false, defaultValue = ExecutorStrategy.DEFAULT,
+            desc = "The threads running the tests: \"platform\" or \"virtual\". Virtual threads need Java 21 or newer, platform threads are used otherwise.")
+    public void setExecutor(String executor) {
+        this.executor = ExecutorStrategy.fromString(executor);
+    }
 
-        public void add(@NotNull AbstractTest test) {
-            cache.get(test.getId()).add(test);
-        }
+    @ConfigArgGet
+    public int getWorkers() {
+        return workers;
+    }
 
-        public @Nullable AbstractTest getCachedValue(@NotNull TestId testID) {
-            return cache.get(testID).poll();
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_WORKERS_STRING,
+            desc = "The number of workers executing the tests. By default there is a worker for every execution of a round, i.e. for the maximum load. " +
+                    "When the workers are all busy, the executions that do not fit are dropped and counted by the Dropped metric.")
+    public void setWorkers(String workers) {
+        if (!workers.equals("-1") && Long.parseLong(workers) < 1) {
+            throw new IllegalArgumentException("Property workers must be at least 1, or -1 for a worker for every execution of a round.");
         }
+        this.workers = Integer.parseInt(workers);
     }
 
     private boolean isVariableLoad() {
@@ -159,6 +172,7 @@ public class ConstantLoad implements RunMode {
     public void runTests(Engine engine) {
         checkInvalidArgs();
 
+        this.engine = engine;
         this.phase = engine.getCurrentPhase();
         TestSuite testSuite = phase.getTestSuite();
 
@@ -169,10 +183,25 @@ public class ConstantLoad implements RunMode {
             load = Math.max(start, end);
         }
 
-        for(int i = 0; i < load; i++) {
+        int workerCount = workers != -1 ? workers : load;
+        this.executions = new ArrayBlockingQueue<>(Math.max(1, workerCount));
+        this.executorService = executor.newExecutor();
+
+        for(int i = 0; i < workerCount; i++) {
+            RunMap runMap = phase.getPublishMode().getRunMap().newInstance();
+            AsyncTestWorkerImpl worker = new AsyncTestWorkerImpl(runMap);
+            exitLatch.register();
+            try {
+                executorService.execute(worker);
+            } catch (OutOfMemoryError e) {
+                exitLatch.exited();
+                LOG.warn("The desired load could not be achieved. Only " + i + " workers could be started.");
+                break;
+            }
             synchronized (runMaps) {
-                runMaps.add(phase.getPublishMode().getRunMap().newInstance());
+                runMaps.add(runMap);
             }
+            testWorkers.add(worker);
         }
 
         this.scheduler = new AsyncTestWorkerScheduler(engine);
@@ -193,7 +222,8 @@ public class ConstantLoad implements RunMode {
 
             @Override
             public boolean isRunFinished() {
-                return scheduler.isFinished();
+                // the scheduler is created when the tests start running
+                return scheduler != null && scheduler.isFinished();
             }
         };
     }
@@ -205,60 +235,96 @@ public class ConstantLoad implements RunMode {
         synchronized (testWorkers) {
             for(AsyncTestWorker testWorker : testWorkers) {
                 testWorker.finishExecution();
+                wakeUpIfIdle(testWorker);
             }
         }
 
-        boolean allExited = false;
-        while(!allExited) {
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-            }
-            allExited = true;
-
-            synchronized (testWorkers) {
-                for (AsyncTestWorker testWorker : testWorkers) {
-                    if (!testWorker.hasExited()) {
-                        if(!testWorker.getMutex().tryLock())
-                            continue;
-                        allExited = false;
-                        testWorker.getWorkerThread().interrupt();
-                        testWorker.getMutex().unlock();
-                    }
-                }
+        exitLatch.awaitOrInterrupt(testWorkers);
+    }
+
+    /* the idle workers are waiting for executions that will not come anymore. The ones running a test are left to
+    finish it. */
+    private void wakeUpIfIdle(AsyncTestWorker testWorker) {
+        testWorker.getMutex().lock();
+        try {
+            if (testWorker.getCurrentTest() == null && testWorker.getWorkerThread() != null) {
+                testWorker.getWorkerThread().interrupt();
             }
+        } finally {
+            testWorker.getMutex().unlock();
         }
+    }
+
+    /**
+     * A test execution scheduled by the {@link AsyncTestWorkerScheduler}, waiting for a free worker.
+     */
+    private static class ScheduledExecution {
+        private final AbstractTest test;
+        private final long intendedStart;
 
+        ScheduledExecution(AbstractTest test, long intendedStart) {
+            this.test = test;
+            this.intendedStart = intendedStart;
+        }
     }
 
+    /**
+     * Long lived worker that runs the scheduled executions, one at a time. The workers are created when the phase
+     * starts, each with its own run map, so only their current executions are tracked for timeouts.
+     */
     private class AsyncTestWorkerImpl extends AsyncTestWorker {
-        private AbstractTest test;
-        private RunMap runMap;
-        private boolean exited = false;
+        private final RunMap runMap;
+        private volatile boolean exited = false;
 
-        public AsyncTestWorkerImpl(AbstractTest test, RunMap runMap) {
-            this.test = test;
+        public AsyncTestWorkerImpl(RunMap runMap) {
             this.runMap = runMap;
         }
 
         @Override
         public void run() {
             mutex.lock();
-            lastTestStart = System.nanoTime();
             workerThread = Thread.currentThread();
-            currentTest = test;
             mutex.unlock();
             try {
-                AbstractTestRunner runner = RunnersContainer.getInstance().getRunner(test);
-                runner.runTest(test, runMap);
+                while (!isFinished()) {
+                    ScheduledExecution execution;
+                    try {
+                        execution = executions.take();
+                    } catch (InterruptedException e) {
+                        continue;
+                    }
+                    runExecution(execution);
+                }
+            } finally {
+                exited = true;
+                exitLatch.exited();
+            }
+        }
+
+        private void runExecution(ScheduledExecution execution) {
+            mutex.lock();
+            if (isFinished()) {
+                // taken just before the worker was woken up to exit
+                testCache.add(execution.test);
+                Thread.interrupted();
+                mutex.unlock();
+                return;
+            }
+            lastTestStart = System.nanoTime();
+            currentTest = execution.test;
+            watchTimeout(engine);
+            mutex.unlock();
+            try {
+                AbstractTestRunner runner = RunnersContainer.getInstance().getRunner(execution.test);
+                runner.runTest(execution.test, runMap, execution.intendedStart);
             } catch (Throwable e) {
                 LOG.warn("Exceptions from tests should not reach this point", e);
             }
 
+            cancelTimeout();
             mutex.lock();
             currentTest = null;
-            exited = true;
-            testCache.add(test);
+            testCache.add(execution.test);
             Thread.interrupted();
             mutex.unlock();
         }
@@ -365,11 +431,11 @@ public class ConstantLoad implements RunMode {
         }
 
         private void runRound() throws InterruptedException {
+            // all the executions of a round are intended to start at the beginning of the round
+            long roundStart = System.nanoTime();
             ArrayList<AbstractTest> nextRound = new ArrayList<>();
             for (int i = 0; i < currentLoad; i++) {
-                AbstractTest nextTest = Engine.getNextTest(phase.getTestSuite(),
-                        phase.getCounts(),
-                        engine.getEngineSync());
+                AbstractTest nextTest = phase.getTestSelector().next();
                 if (null == nextTest) {
                     LOG.info("Constant load scheduler thread finished, because there were no more tests to execute.");
                     this.finishExecution();
@@ -377,27 +443,21 @@ public class ConstantLoad implements RunMode {
                 }
 
                 // Use a cache test if available
-                AbstractTest localNextTest = testCache.getCachedValue(nextTest.getId());
-                if(localNextTest == null) {
-                    localNextTest = nextTest.clone();
-                }
-
-                nextRound.add(localNextTest);
+                nextRound.add(testCache.getOrClone(nextTest));
             }
 
             for (int i = 0; i < currentLoad && !isFinished(); i++) {
-                AsyncTestWorkerImpl worker = new AsyncTestWorkerImpl(nextRound.get(i), runMaps.get(i));
-                try {
-                    executorService.execute(worker);
-                } catch (OutOfMemoryError e) {
+                // the executions that no worker can take before the next round are dropped
+                if (!executions.offer(new ScheduledExecution(nextRound.get(i), roundStart))) {
+                    for (int j = i; j < currentLoad; j++) {
+                        phase.getPublishMode().getRunMap().recordDropped(nextRound.get(j));
+                        testCache.add(nextRound.get(j));
+                    }
                     if (!loggedWarning.getAndSet(true)) {
-                        LOG.warn("The desired load could not be achieved. We are creating as many threads as possible.");
+                        LOG.warn("The desired load could not be achieved. There are not enough workers to keep up with it.");
                     }
                     break;
                 }
-                synchronized (testWorkers) {
-                    testWorkers.add(worker);
-                }
             }
 
             //TODO use this
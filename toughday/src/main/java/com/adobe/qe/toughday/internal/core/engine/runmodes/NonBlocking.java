@@ -0,0 +1,255 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
+import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
+import com.adobe.qe.toughday.api.annotations.Description;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.AbstractTestRunner;
+import com.adobe.qe.toughday.api.core.AsyncTest;
+import com.adobe.qe.toughday.api.core.RunMap;
+import com.adobe.qe.toughday.api.core.RunnersContainer;
+import com.adobe.qe.toughday.api.core.TestId;
+import com.adobe.qe.toughday.internal.core.RunMapImpl;
+import com.adobe.qe.toughday.internal.core.engine.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Description(desc = "Runs \"concurrency\" users, like the normal mode, without a thread for each user. Works only " +
+        "with asynchronous tests, which do not block while their requests are in flight. Only plain http is supported, " +
+        "not https.")
+public class NonBlocking implements RunMode {
+    private static final Logger LOG = LoggerFactory.getLogger(NonBlocking.class);
+
+    private static final String DEFAULT_CONCURRENCY_STRING = "1000";
+    private static final int DEFAULT_CONCURRENCY = Integer.parseInt(DEFAULT_CONCURRENCY_STRING);
+
+    private static final String DEFAULT_WAIT_TIME_STRING = "300";
+    private static final long DEFAULT_WAIT_TIME = Long.parseLong(DEFAULT_WAIT_TIME_STRING);
+
+    // the users are spread over a few run maps to avoid contention on the recording path
+    private static final int RUN_MAPS_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final List<RunMap> runMaps = new ArrayList<>();
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    // every execution in flight counts as a worker, the users themselves never block a thread
+    private final WorkerExitLatch inFlight = new WorkerExitLatch();
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private Phase phase;
+    private long globalTimeout;
+
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private long waitTime = DEFAULT_WAIT_TIME;
+
+    public NonBlocking() {
+        AtomicInteger threadCount = new AtomicInteger();
+        scheduler = new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "toughday-nonblocking-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @ConfigArgGet
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @ConfigArgSet(required = false, desc = "The number of concurrent users. They are not bound to threads.",
+            defaultValue = DEFAULT_CONCURRENCY_STRING)
+    public void setConcurrency(String concurrencyString) {
+        checkNotNegative(Long.parseLong(concurrencyString), "concurrency");
+        this.concurrency = Integer.parseInt(concurrencyString);
+    }
+
+    @ConfigArgGet
+    public long getWaitTime() {
+        return waitTime;
+    }
+
+    @ConfigArgSet(required = false, desc = "The wait time between two consecutive test runs for a specific user. Expressed in milliseconds.",
+            defaultValue = DEFAULT_WAIT_TIME_STRING)
+    public void setWaitTime(String waitTime) {
+        checkNotNegative(Long.parseLong(waitTime), "waittime");
+        this.waitTime = Long.parseLong(waitTime);
+    }
+
+    private void checkNotNegative(long param, String property) {
+        if (param < 0) {
+            throw new IllegalArgumentException("Property " + property + " incorrectly configured as negative.");
+        }
+    }
+
+    @Override
+    public void runTests(Engine engine) {
+        // the asynchronous http client shared by the tests has no TLS support, fail once instead of on every execution
+        String protocol = engine.getGlobalArgs().getProtocol();
+        if (!"http".equalsIgnoreCase(protocol)) {
+            throw new IllegalArgumentException("The nonblocking run mode supports only the http protocol, not " + protocol + ".");
+        }
+
+        this.phase = engine.getCurrentPhase();
+        this.globalTimeout = engine.getGlobalArgs().getTimeout();
+
+        for (AbstractTest test : phase.getTestSuite().getTests()) {
+            if (!(test instanceof AsyncTest)) {
+                throw new IllegalArgumentException("The nonblocking run mode can only run asynchronous tests. "
+                        + test.getName() + " is not one.");
+            }
+        }
+
+        synchronized (runMaps) {
+            for (int i = 0; i < RUN_MAPS_COUNT; i++) {
+                RunMapImpl runMap = (RunMapImpl) phase.getPublishMode().getRunMap().newInstance();
+                // each user intends to start a new execution every 'waitTime' milliseconds
+                runMap.setExpectedInterval(waitTime);
+                runMaps.add(runMap);
+            }
+        }
+
+        // the users are started over one wait time, so that their executions do not all begin at the same moment
+        for (int i = 0; i < concurrency; i++) {
+            User user = new User(runMaps.get(i % runMaps.size()));
+            activeUsers.incrementAndGet();
+            long delay = concurrency > 1 ? waitTime * i / concurrency : 0;
+            scheduler.schedule(user::next, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public RunContext getRunContext() {
+        return new RunContext() {
+            @Override
+            public Collection<AsyncTestWorker> getTestWorkers() {
+                // the users are not threads, so there is nothing to interrupt. Timeouts are handled by this mode.
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<RunMap> getRunMaps() {
+                return runMaps;
+            }
+
+            @Override
+            public boolean isRunFinished() {
+                return activeUsers.get() == 0;
+            }
+        };
+    }
+
+    @Override
+    public void finishExecutionAndAwait() {
+        finished.set(true);
+        try {
+            // the executions in flight are bounded by their timeouts
+            inFlight.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public ExecutorService getExecutorService() {
+        return scheduler;
+    }
+
+    /**
+     * A virtual user: runs one test at a time and waits 'waitTime' between executions, like a worker of the normal
+     * mode, but only occupies a thread while a test is starting or completing.
+     */
+    private class User {
+        private final RunMap runMap;
+        private final Map<TestId, AbstractTest> localTests = new ConcurrentHashMap<>();
+
+        private User(RunMap runMap) {
+            this.runMap = runMap;
+        }
+
+        private void next() {
+            // registered before the check, so that finishExecutionAndAwait either waits for this execution or the
+            // user sees that the run is finished. Otherwise the scheduler could be shut down under its timeout.
+            inFlight.register();
+            if (finished.get()) {
+                inFlight.exited();
+                exit();
+                return;
+            }
+
+            AbstractTest nextTest = phase.getTestSelector().next();
+            if (nextTest == null) {
+                LOG.info("User finished, because there were no more tests to execute.");
+                inFlight.exited();
+                exit();
+                return;
+            }
+
+            AbstractTest localTest = localTests.computeIfAbsent(nextTest.getId(), id -> nextTest.clone());
+            long timeout = localTest.getTimeout() >= 0 ? localTest.getTimeout() : globalTimeout;
+            AtomicBoolean done = new AtomicBoolean(false);
+
+            ScheduledFuture<?> timeoutTask = scheduler.schedule(() -> {
+                if (done.compareAndSet(false, true)) {
+                    // the operations in flight are cancelled and not recorded, the user goes on with a new clone
+                    LOG.debug("Test " + localTest.getName() + " timed out after " + timeout + " ms.");
+                    localTests.remove(localTest.getId(), localTest);
+                    localTest.benchmark().cancelAsync();
+                    completed();
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+
+            CompletableFuture<Void> execution;
+            try {
+                AbstractTestRunner runner = RunnersContainer.getInstance().getRunner(localTest);
+                execution = runner.runTestAsync(localTest, runMap, System.nanoTime());
+            } catch (Throwable e) {
+                execution = new CompletableFuture<>();
+                execution.completeExceptionally(e);
+            }
+
+            execution.whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    LOG.warn("Exceptions from tests should not reach this point", throwable);
+                }
+                if (done.compareAndSet(false, true)) {
+                    timeoutTask.cancel(false);
+                    completed();
+                }
+            });
+        }
+
+        private void completed() {
+            inFlight.exited();
+            if (finished.get()) {
+                exit();
+                return;
+            }
+            try {
+                scheduler.schedule(this::next, waitTime, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                exit();
+            }
+        }
+
+        private void exit() {
+            activeUsers.decrementAndGet();
+        }
+    }
+}
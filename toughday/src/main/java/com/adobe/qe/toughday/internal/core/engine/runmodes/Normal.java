@@ -44,6 +44,7 @@ public class Normal implements RunMode {
     private ScheduledExecutorService removeWorkerScheduler = Executors.newSingleThreadScheduledExecutor();
 
     private final List<AsyncTestWorker> testWorkers = Collections.synchronizedList(new LinkedList<>());
+    private final WorkerExitLatch exitLatch = new WorkerExitLatch();
     private final List<RunMap> runMaps = new ArrayList<>();
     private Phase phase;
 
@@ -54,6 +55,7 @@ public class Normal implements RunMode {
     private long waitTime = DEFAULT_WAIT_TIME;
     private long interval = DEFAULT_INTERVAL;
     private int activeThreads = 0;
+    private ExecutorStrategy executor = ExecutorStrategy.PLATFORM;
 
     private RunContext context = null;
 
@@ -131,6 +133,17 @@ public class Normal implements RunMode {
         this.end = Integer.valueOf(end);
     }
 
+    @ConfigArgGet
+    public String getExecutor() {
+        return executor.toString();
+    }
+
+    @ConfigArgSet(required = false, defaultValue = ExecutorStrategy.DEFAULT,
+            desc = "The threads running the tests: \"platform\" or \"virtual\". Virtual threads need Java 21 or newer, platform threads are used otherwise.")
+    public void setExecutor(String executor) {
+        this.executor = ExecutorStrategy.fromString(executor);
+    }
+
     public int getActiveThreads() {
         return activeThreads;
     }
@@ -161,8 +174,10 @@ public class Normal implements RunMode {
 
         this.phase = engine.getCurrentPhase();
         TestSuite testSuite = phase.getTestSuite();
-        testsExecutorService = Executors.newCachedThreadPool();
-        ((ThreadPoolExecutor)testsExecutorService).setKeepAliveTime(1, TimeUnit.SECONDS);
+        testsExecutorService = executor.newExecutor();
+        if (testsExecutorService instanceof ThreadPoolExecutor) {
+            ((ThreadPoolExecutor) testsExecutorService).setKeepAliveTime(1, TimeUnit.SECONDS);
+        }
 
         // if no rate was provided, we'll create/remove one user at fixed rate,
         // namely every 'interval' milliseconds
@@ -194,7 +209,10 @@ public class Normal implements RunMode {
 
 
     private void createAndExecuteWorker(Engine engine, TestSuite testSuite) {
-        AsyncTestWorkerImpl testWorker = new AsyncTestWorkerImpl(engine, phase, testSuite, phase.getPublishMode().getRunMap().newInstance());
+        RunMapImpl localRunMap = (RunMapImpl) phase.getPublishMode().getRunMap().newInstance();
+        // each user intends to start a new execution every 'waitTime' milliseconds
+        localRunMap.setExpectedInterval(waitTime);
+        AsyncTestWorkerImpl testWorker = new AsyncTestWorkerImpl(engine, phase, testSuite, localRunMap);
         synchronized (testWorkers) {
             testWorkers.add(testWorker);
             activeThreads++;
@@ -203,9 +221,11 @@ public class Normal implements RunMode {
             runMaps.add(testWorker.getLocalRunMap());
         }
 
+        exitLatch.register();
         try {
             testsExecutorService.execute(testWorker);
         } catch (OutOfMemoryError e) {
+            exitLatch.exited();
             LOG.warn("Could not create the required number of threads. Number of created threads : " + String.valueOf(activeThreads) + ".");
         }
     }
@@ -235,8 +255,6 @@ public class Normal implements RunMode {
     private void rampDown() {
         // every 'interval' milliseconds, we'll stop 'rate' workers
         if (end < start) {
-            ThreadPoolExecutor executor = (ThreadPoolExecutor)testsExecutorService;
-
             removeWorkerScheduler.scheduleAtFixedRate(() -> {
                 Iterator<AsyncTestWorker> testWorkerIterator = testWorkers.iterator();
                 int toRemove = rate;
@@ -313,27 +331,7 @@ public class Normal implements RunMode {
             }
         }
 
-        boolean allExited = false;
-        while(!allExited) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-            }
-            allExited = true;
-            synchronized (testWorkers) {
-                for (AsyncTestWorker testWorker : testWorkers) {
-                    if (!testWorker.hasExited()) {
-                        if(!testWorker.getMutex().tryLock()) {
-                            continue;
-                        }
-                        allExited = false;
-
-                        testWorker.getWorkerThread().interrupt();
-                        testWorker.getMutex().unlock();
-                    }
-                }
-            }
-        }
+        exitLatch.awaitOrInterrupt(testWorkers);
     }
 
     @Override
@@ -347,7 +345,9 @@ public class Normal implements RunMode {
         private TestSuite testSuite;
         private RunMap localRunMap;
         private Phase phase;
-        private boolean exited = false;
+        private volatile boolean exited = false;
+        // released when the worker is told to finish, so it does not wait between tests anymore
+        private final CountDownLatch finished = new CountDownLatch(1);
 
         /**
          * Constructor
@@ -378,7 +378,7 @@ public class Normal implements RunMode {
             mutex.lock();
             try {
                 while(!isFinished()) {
-                    currentTest = Engine.getNextTest(this.testSuite, phase.getCounts(), engine.getEngineSync());
+                    currentTest = phase.getTestSelector().next();
                     // if no test available, finish
                     if (null == currentTest) {
                         LOG.info("Thread " + workerThread + " died! :(");
@@ -395,15 +395,17 @@ public class Normal implements RunMode {
                     AbstractTestRunner runner = RunnersContainer.getInstance().getRunner(currentTest);
 
                     lastTestStart = System.nanoTime();
+                    watchTimeout(engine);
                     mutex.unlock();
                     try {
                         runner.runTest(currentTest, localRunMap);
                     } catch (Throwable e) {
                         LOG.warn("Exceptions from tests should not reach this point", e);
                     }
+                    cancelTimeout();
                     mutex.lock();
                     Thread.interrupted();
-                    Thread.sleep(waitTime);
+                    finished.await(waitTime, TimeUnit.MILLISECONDS);
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -413,9 +415,16 @@ public class Normal implements RunMode {
             } finally {
                 mutex.unlock();
                 this.exited = true;
+                exitLatch.exited();
             }
         }
 
+        @Override
+        public void finishExecution() {
+            super.finishExecution();
+            finished.countDown();
+        }
+
         public RunMap getLocalRunMap() {
             return localRunMap;
         }
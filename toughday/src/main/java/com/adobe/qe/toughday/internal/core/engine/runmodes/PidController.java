@@ -0,0 +1,86 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+/**
+ * Adjusts an arrival rate so that a measured value stays at its target, one interval at a time. The controller is
+ * written in incremental form: every update computes a relative change of the current rate from the last three
+ * errors, so there is no accumulated integral term that could wind up while the rate is held at its limits. The
+ * change of a single update is limited, which damps the reaction to noisy measurements.
+ */
+class PidController {
+    private final double kp;
+    private final double ki;
+    private final double kd;
+    private final double maxChange;
+    private final double minRate;
+    private final double maxRate;
+
+    private volatile double rate;
+    private double previousError = 0;
+    private double olderError = 0;
+
+    /**
+     * Constructor.
+     * @param kp the gain of the change of the error
+     * @param ki the gain of the error, which moves the rate until the error is zero
+     * @param kd the gain of the second difference of the error
+     * @param maxChange the largest relative change of the rate in a single update, between 0 and 1
+     * @param initialRate the rate before the first update, in executions per second
+     * @param minRate the lowest rate the controller can set, in executions per second
+     * @param maxRate the highest rate the controller can set, in executions per second
+     */
+    PidController(double kp, double ki, double kd, double maxChange, double initialRate, double minRate, double maxRate) {
+        this.kp = kp;
+        this.ki = ki;
+        this.kd = kd;
+        this.maxChange = maxChange;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.rate = clamp(initialRate, minRate, maxRate);
+    }
+
+    /**
+     * Computes the error of a measured value, relative to the target. It is positive when the measured value is below
+     * the target, so the rate can be raised, and it is limited to [-1, 1].
+     */
+    static double error(double target, double measured) {
+        return clamp((target - measured) / target, -1, 1);
+    }
+
+    /**
+     * Getter for the current rate, in executions per second.
+     */
+    double getRate() {
+        return rate;
+    }
+
+    /**
+     * Updates the rate with the error measured during the last interval.
+     * @param error the relative error, as computed by {@link #error(double, double)}
+     * @return the new rate, in executions per second
+     */
+    synchronized double update(double error) {
+        double e = clamp(error, -1, 1);
+        double change = kp * (e - previousError) + ki * e + kd * (e - 2 * previousError + olderError);
+        change = clamp(change, -maxChange, maxChange);
+
+        olderError = previousError;
+        previousError = e;
+        rate = clamp(rate * (1 + change), minRate, maxRate);
+        return rate;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
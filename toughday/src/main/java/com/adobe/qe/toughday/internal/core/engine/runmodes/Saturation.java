@@ -0,0 +1,333 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
+import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
+import com.adobe.qe.toughday.api.annotations.Description;
+import com.adobe.qe.toughday.internal.core.RunMapImpl;
+import com.adobe.qe.toughday.internal.core.config.GlobalArgs;
+import com.adobe.qe.toughday.internal.core.engine.AsyncEngineWorker;
+import com.adobe.qe.toughday.internal.core.engine.Engine;
+import com.adobe.qe.toughday.internal.core.engine.ExecutorStrategy;
+import com.adobe.qe.toughday.internal.core.engine.Phase;
+import com.adobe.qe.toughday.internal.core.engine.RunMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Description(desc = "Searches for the highest arrival rate that meets an SLO. The load is generated like in the " +
+        "\"arrivalrate\" mode, in steps of constant rate: after a warm-up step, the rate is doubled until the SLO is " +
+        "violated, then bisected. " +
+        "The knee point and the throughput and latency of every step are logged at the end.")
+public class Saturation implements RunMode {
+    private static final Logger LOG = LoggerFactory.getLogger(Saturation.class);
+
+    private static final String DEFAULT_MIN_RATE_STRING = "1";
+    private static final String DEFAULT_MAX_RATE_STRING = "1000";
+    private static final String DEFAULT_STEP_STRING = "10s";
+    private static final String DEFAULT_PERCENTILE_STRING = "99";
+    private static final String DEFAULT_MAX_LATENCY_STRING = "1000";
+    private static final String DEFAULT_MAX_ERROR_RATE_STRING = "1";
+    private static final String DEFAULT_PRECISION_STRING = "5";
+
+    // the start of every step is not measured, to let the executions of the previous step drain
+    private static final double SETTLE_FRACTION = 0.2;
+    private static final double ONE_MILLION_D = 1000 * 1000.0d;
+    private static final double ONE_BILLION_D = 1000 * 1000 * 1000.0d;
+
+    private final ArrivalRate arrivalRate = new ArrivalRate();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final AtomicBoolean reported = new AtomicBoolean(false);
+    private SaturationSearch search;
+    private Phase phase;
+    private long timeout;
+    // no executions are dispatched while the ones of an overloaded step complete
+    private volatile boolean draining = false;
+
+    private double minRate = Double.parseDouble(DEFAULT_MIN_RATE_STRING);
+    private double maxRate = Double.parseDouble(DEFAULT_MAX_RATE_STRING);
+    private long step = GlobalArgs.parseDurationToSeconds(DEFAULT_STEP_STRING);
+    private double percentile = Double.parseDouble(DEFAULT_PERCENTILE_STRING);
+    private long maxLatency = Long.parseLong(DEFAULT_MAX_LATENCY_STRING);
+    private double maxErrorRate = Double.parseDouble(DEFAULT_MAX_ERROR_RATE_STRING);
+    private double precision = Double.parseDouble(DEFAULT_PRECISION_STRING);
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_MIN_RATE_STRING,
+            desc = "The arrival rate of the first step, in executions per second. Fractional values (e.g. 0.5) are allowed.")
+    public void setMinRate(String minRate) {
+        this.minRate = parsePositive(minRate, "minrate");
+    }
+
+    @ConfigArgGet
+    public double getMinRate() {
+        return minRate;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_MAX_RATE_STRING,
+            desc = "The highest arrival rate that is tried, in executions per second.")
+    public void setMaxRate(String maxRate) {
+        this.maxRate = parsePositive(maxRate, "maxrate");
+    }
+
+    @ConfigArgGet
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_STEP_STRING,
+            desc = "How long every rate is offered. Can be expressed in s(econds), m(inutes), h(ours).")
+    public void setStep(String step) {
+        this.step = GlobalArgs.parseDurationToSeconds(step);
+        if (this.step <= 0) {
+            throw new IllegalArgumentException("Property step must be at least one second.");
+        }
+    }
+
+    @ConfigArgGet
+    public long getStep() {
+        return step;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_PERCENTILE_STRING,
+            desc = "The percentile of the response time that is checked against \"maxlatency\".")
+    public void setPercentile(String percentile) {
+        double value = Double.parseDouble(percentile);
+        if (value <= 0 || value > 100) {
+            throw new IllegalArgumentException("Property percentile must be between 0 and 100.");
+        }
+        this.percentile = value;
+    }
+
+    @ConfigArgGet
+    public double getPercentile() {
+        return percentile;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_MAX_LATENCY_STRING,
+            desc = "The SLO for the response time at \"percentile\", in milliseconds.")
+    public void setMaxLatency(String maxLatency) {
+        this.maxLatency = (long) parsePositive(maxLatency, "maxlatency");
+    }
+
+    @ConfigArgGet
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_MAX_ERROR_RATE_STRING,
+            desc = "The SLO for the percentage of failed executions.")
+    public void setMaxErrorRate(String maxErrorRate) {
+        double value = Double.parseDouble(maxErrorRate);
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException("Property maxerrorrate must be between 0 and 100.");
+        }
+        this.maxErrorRate = value;
+    }
+
+    @ConfigArgGet
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_PRECISION_STRING,
+            desc = "The search stops when the rates that met and violated the SLO differ by less than this percentage.")
+    public void setPrecision(String precision) {
+        this.precision = parsePositive(precision, "precision");
+    }
+
+    @ConfigArgGet
+    public double getPrecision() {
+        return precision;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = "uniform",
+            desc = "The distribution of the time between two consecutive executions: \"uniform\" or \"poisson\".")
+    public void setDistribution(String distribution) {
+        arrivalRate.setDistribution(distribution);
+    }
+
+    @ConfigArgGet
+    public String getDistribution() {
+        return arrivalRate.getDistribution();
+    }
+
+    @ConfigArgSet(required = false, defaultValue = ExecutorStrategy.DEFAULT,
+            desc = "The threads running the tests: \"platform\" or \"virtual\". Virtual threads need Java 21 or newer, platform threads are used otherwise.")
+    public void setExecutor(String executor) {
+        arrivalRate.setExecutor(executor);
+    }
+
+    @ConfigArgGet
+    public String getExecutor() {
+        return arrivalRate.getExecutor();
+    }
+
+    private static double parsePositive(String value, String property) {
+        double parsed = Double.parseDouble(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("Property " + property + " must be positive.");
+        }
+        return parsed;
+    }
+
+    private void checkInvalidArgs() {
+        if (minRate > maxRate) {
+            throw new IllegalArgumentException("Saturation mode cannot be configured with minrate greater than maxrate.");
+        }
+    }
+
+    @Override
+    public void runTests(Engine engine) throws Exception {
+        checkInvalidArgs();
+
+        this.phase = engine.getCurrentPhase();
+        this.timeout = engine.getGlobalArgs().getTimeout();
+        this.search = new SaturationSearch(minRate, maxRate, precision / 100);
+        arrivalRate.setRateSupplier(() -> draining ? 0 : search.getRate());
+        arrivalRate.runTests(engine);
+        arrivalRate.getExecutorService().execute(new SearchController());
+    }
+
+    @Override
+    public void finishExecutionAndAwait() {
+        stopped.countDown();
+        arrivalRate.finishExecutionAndAwait();
+        report();
+    }
+
+    @Override
+    public ExecutorService getExecutorService() {
+        return arrivalRate.getExecutorService();
+    }
+
+    @Override
+    public RunContext getRunContext() {
+        return arrivalRate.getRunContext();
+    }
+
+    /**
+     * Evaluates what was recorded while a rate was offered against the SLO.
+     * @param rate the offered rate, in executions per second
+     * @param interval the statistics recorded while the rate was offered
+     * @param measuredSeconds how long the rate was measured, used if the interval does not know its duration
+     */
+    SaturationSearch.Step evaluate(double rate, RunMapImpl.Snapshot interval, double measuredSeconds) {
+        double seconds = interval.getDurationNanos() > 0 ? interval.getDurationNanos() / ONE_BILLION_D : measuredSeconds;
+        long completed = interval.getPassedRuns() + interval.getFailRuns();
+        double throughput = completed / seconds;
+        double errorRate = completed > 0 ? 100.0 * interval.getFailRuns() / completed : 0;
+        double latencyMillis = interval.getPassedRuns() > 0
+                ? interval.getResponseTimeAtPercentile(percentile) / ONE_MILLION_D : 0;
+
+        /* when the system cannot keep up, the executions pile up instead of completing and the latency of the
+        completed ones does not show it. The margin covers the variation of a poisson arrival process. */
+        double expected = rate * seconds;
+        boolean keepsUp = completed > 0 && completed >= expected - 3 * Math.sqrt(expected) - 1;
+
+        boolean withinSlo = keepsUp && errorRate <= maxErrorRate && latencyMillis <= maxLatency;
+        return new SaturationSearch.Step(rate, throughput, latencyMillis, errorRate, withinSlo);
+    }
+
+    private void report() {
+        if (search == null || !reported.compareAndSet(false, true)) {
+            return;
+        }
+
+        StringBuilder curve = new StringBuilder();
+        curve.append(String.format("%12s %14s %14s %10s %6s%n", "rate/s", "throughput/s",
+                "p" + formatNumber(percentile) + " (ms)", "errors %", "SLO"));
+        for (SaturationSearch.Step step : search.getSteps()) {
+            curve.append(String.format("%12.2f %14.2f %14.2f %10.2f %6s%n", step.getRate(), step.getThroughput(),
+                    step.getLatencyMillis(), step.getErrorRate(), step.isWithinSlo() ? "met" : "missed"));
+        }
+
+        String outcome;
+        if (Double.isNaN(search.getKnee())) {
+            outcome = "No arrival rate met the SLO, not even " + formatNumber(minRate) + " executions per second.";
+        } else if (!search.isSaturated()) {
+            outcome = "The SLO was met up to the maximum rate: " + formatNumber(search.getKnee()) + " executions per second.";
+        } else {
+            outcome = "Knee point: " + formatNumber(search.getKnee()) + " executions per second.";
+        }
+        if (!search.isFinished()) {
+            outcome += " The search did not finish before the end of the phase.";
+        }
+
+        LOG.info("Saturation search results:" + System.lineSeparator() + curve + outcome);
+    }
+
+    private static String formatNumber(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format("%.2f", value);
+    }
+
+    /**
+     * Offers every rate chosen by the search for a step and records what was measured meanwhile in the global run
+     * map. The results reach the global run map when they are aggregated, so both ends of the measurement are
+     * delayed by up to one aggregation.
+     */
+    private class SearchController extends AsyncEngineWorker {
+        @Override
+        public void run() {
+            RunMapImpl globalRunMap = phase.getPublishMode().getRunMap();
+            long settleMillis = Math.round(TimeUnit.SECONDS.toMillis(step) * SETTLE_FRACTION);
+            long measureMillis = TimeUnit.SECONDS.toMillis(step) - settleMillis;
+
+            try {
+                // the first executions are slower, while the connections and the tests are initialized
+                LOG.info("Saturation search: warming up at " + formatNumber(minRate) + " executions per second.");
+                if (stopped.await(settleMillis + measureMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+
+                while (!search.isFinished()) {
+                    double rate = search.getRate();
+                    LOG.info("Saturation search: offering " + formatNumber(rate) + " executions per second.");
+                    if (stopped.await(settleMillis, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                    RunMapImpl.Snapshot start = globalRunMap.snapshot();
+                    if (stopped.await(measureMillis, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                    SaturationSearch.Step result = evaluate(rate, globalRunMap.snapshot().since(start),
+                            measureMillis / 1000.0);
+                    LOG.info(String.format("Saturation search: %.2f executions per second, p%s %.2f ms, "
+                                    + "%.2f%% errors at %s executions per second. SLO %s.", result.getThroughput(),
+                            formatNumber(percentile), result.getLatencyMillis(), result.getErrorRate(),
+                            formatNumber(rate), result.isWithinSlo() ? "met" : "missed"));
+                    search.record(result);
+
+                    if (!result.isWithinSlo() && !search.isFinished()) {
+                        // the backlog of an overloaded step would be measured in the next one
+                        draining = true;
+                        arrivalRate.awaitIdle(timeout, TimeUnit.MILLISECONDS);
+                        draining = false;
+                    }
+                }
+            } catch (InterruptedException e) {
+                LOG.warn("Saturation search thread was interrupted.");
+                return;
+            } catch (Throwable e) {
+                LOG.error("Unexpected exception caught", e);
+                return;
+            }
+
+            // the run is finished, the engine moves on and reports the results
+            arrivalRate.stopDispatching();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Searches for the highest arrival rate that meets an SLO, one step at a time. Starting from the minimum rate, the rate
+ * is doubled until a step violates the SLO or the maximum rate is reached. Afterwards, the rate is bisected between the
+ * highest rate that met the SLO and the lowest one that violated it, until they are closer than the given precision.
+ */
+class SaturationSearch {
+    private final double minRate;
+    private final double maxRate;
+    private final double precision;
+    private final List<Step> steps = new ArrayList<>();
+
+    private volatile double rate;
+    private volatile boolean finished = false;
+    private double highestMet = Double.NaN;
+    private double lowestViolated = Double.NaN;
+
+    /**
+     * Constructor.
+     * @param minRate the rate of the first step, in executions per second
+     * @param maxRate the highest rate that is tried, in executions per second
+     * @param precision the search stops when the rates that met and violated the SLO are closer than this fraction
+     *                  of the former
+     */
+    SaturationSearch(double minRate, double maxRate, double precision) {
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.precision = precision;
+        this.rate = minRate;
+    }
+
+    /**
+     * Getter for the rate of the current step, in executions per second.
+     */
+    double getRate() {
+        return rate;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Records the outcome of the current step and computes the rate of the next one.
+     */
+    synchronized void record(Step step) {
+        steps.add(step);
+        if (step.isWithinSlo()) {
+            highestMet = Double.isNaN(highestMet) ? step.getRate() : Math.max(highestMet, step.getRate());
+        } else {
+            lowestViolated = Double.isNaN(lowestViolated) ? step.getRate() : Math.min(lowestViolated, step.getRate());
+        }
+
+        if (Double.isNaN(lowestViolated)) {
+            // still ramping up
+            if (rate >= maxRate) {
+                finished = true;
+            } else {
+                rate = Math.min(rate * 2, maxRate);
+            }
+        } else if (Double.isNaN(highestMet)) {
+            // even the minimum rate violates the SLO
+            finished = true;
+        } else if (lowestViolated - highestMet <= precision * highestMet) {
+            finished = true;
+        } else {
+            rate = (highestMet + lowestViolated) / 2;
+        }
+    }
+
+    /**
+     * Getter for the knee point: the highest rate that met the SLO, in executions per second.
+     * @return the rate, or NaN if no step met the SLO.
+     */
+    synchronized double getKnee() {
+        return highestMet;
+    }
+
+    /**
+     * @return true if a step violated the SLO, false if the SLO was met up to the maximum rate.
+     */
+    synchronized boolean isSaturated() {
+        return !Double.isNaN(lowestViolated);
+    }
+
+    /**
+     * Getter for the steps recorded so far, in order.
+     */
+    synchronized List<Step> getSteps() {
+        return Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+
+    /**
+     * The outcome of a step: the offered rate and what was measured while it was offered.
+     */
+    static class Step {
+        private final double rate;
+        private final double throughput;
+        private final double latencyMillis;
+        private final double errorRate;
+        private final boolean withinSlo;
+
+        Step(double rate, double throughput, double latencyMillis, double errorRate, boolean withinSlo) {
+            this.rate = rate;
+            this.throughput = throughput;
+            this.latencyMillis = latencyMillis;
+            this.errorRate = errorRate;
+            this.withinSlo = withinSlo;
+        }
+
+        double getRate() {
+            return rate;
+        }
+
+        double getThroughput() {
+            return throughput;
+        }
+
+        double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        double getErrorRate() {
+            return errorRate;
+        }
+
+        boolean isWithinSlo() {
+            return withinSlo;
+        }
+    }
+}
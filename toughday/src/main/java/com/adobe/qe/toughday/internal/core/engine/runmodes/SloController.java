@@ -0,0 +1,452 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
+import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
+import com.adobe.qe.toughday.api.annotations.Description;
+import com.adobe.qe.toughday.internal.core.RunMapImpl;
+import com.adobe.qe.toughday.internal.core.Timestamp;
+import com.adobe.qe.toughday.internal.core.config.GlobalArgs;
+import com.adobe.qe.toughday.internal.core.engine.AsyncEngineWorker;
+import com.adobe.qe.toughday.internal.core.engine.Engine;
+import com.adobe.qe.toughday.internal.core.engine.ExecutorStrategy;
+import com.adobe.qe.toughday.internal.core.engine.Phase;
+import com.adobe.qe.toughday.internal.core.engine.RunMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Description(desc = "Holds a latency percentile at its target by adjusting the arrival rate. The load is generated " +
+        "like in the \"arrivalrate\" mode and a PID controller fed with the percentile over the last intervals sets " +
+        "the rate of the next interval. Every decision of the controller is logged and written to a csv file.")
+public class SloController implements RunMode {
+    private static final Logger LOG = LoggerFactory.getLogger(SloController.class);
+
+    private static final String DEFAULT_TARGET_LATENCY_STRING = "500";
+    private static final String DEFAULT_PERCENTILE_STRING = "95";
+    private static final String DEFAULT_INTERVAL_STRING = "10s";
+    private static final String DEFAULT_WINDOW_STRING = "3";
+    private static final String DEFAULT_INITIAL_RATE_STRING = "10";
+    private static final String DEFAULT_MIN_RATE_STRING = "1";
+    private static final String DEFAULT_MAX_RATE_STRING = "1000";
+    private static final String DEFAULT_KP_STRING = "0.2";
+    private static final String DEFAULT_KI_STRING = "0.1";
+    private static final String DEFAULT_KD_STRING = "0";
+    private static final String DEFAULT_MAX_CHANGE_STRING = "20";
+    private static final String DEFAULT_MAX_ERROR_RATE_STRING = "5";
+    private static final String DEFAULT_DECISIONS_FILE = "slo_controller.csv";
+
+    private static final String DECISIONS_HEADER = "Timestamp,Elapsed (s),Rate (/s),Throughput (/s),Window p%s (ms)," +
+            "Target (ms),Errors (%%),In flight,Error,Next rate (/s)";
+    private static final double ONE_MILLION_D = 1000 * 1000.0d;
+    private static final double ONE_BILLION_D = 1000 * 1000 * 1000.0d;
+
+    private final ArrivalRate arrivalRate = new ArrivalRate();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private PidController controller;
+    private Phase phase;
+    private PrintWriter decisions;
+    private int adjustments = 0;
+
+    private long targetLatency = Long.parseLong(DEFAULT_TARGET_LATENCY_STRING);
+    private double percentile = Double.parseDouble(DEFAULT_PERCENTILE_STRING);
+    private long interval = GlobalArgs.parseDurationToSeconds(DEFAULT_INTERVAL_STRING);
+    private int window = Integer.parseInt(DEFAULT_WINDOW_STRING);
+    private double initialRate = Double.parseDouble(DEFAULT_INITIAL_RATE_STRING);
+    private double minRate = Double.parseDouble(DEFAULT_MIN_RATE_STRING);
+    private double maxRate = Double.parseDouble(DEFAULT_MAX_RATE_STRING);
+    private double kp = Double.parseDouble(DEFAULT_KP_STRING);
+    private double ki = Double.parseDouble(DEFAULT_KI_STRING);
+    private double kd = Double.parseDouble(DEFAULT_KD_STRING);
+    private double maxChange = Double.parseDouble(DEFAULT_MAX_CHANGE_STRING);
+    private double maxErrorRate = Double.parseDouble(DEFAULT_MAX_ERROR_RATE_STRING);
+    private String decisionsFile = DEFAULT_DECISIONS_FILE;
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_TARGET_LATENCY_STRING,
+            desc = "The response time at \"percentile\" that is held, in milliseconds.")
+    public void setTargetLatency(String targetLatency) {
+        this.targetLatency = (long) parsePositive(targetLatency, "targetlatency");
+    }
+
+    @ConfigArgGet
+    public long getTargetLatency() {
+        return targetLatency;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_PERCENTILE_STRING,
+            desc = "The percentile of the response time that is held at \"targetlatency\".")
+    public void setPercentile(String percentile) {
+        double value = Double.parseDouble(percentile);
+        if (value <= 0 || value > 100) {
+            throw new IllegalArgumentException("Property percentile must be between 0 and 100.");
+        }
+        this.percentile = value;
+    }
+
+    @ConfigArgGet
+    public double getPercentile() {
+        return percentile;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_INTERVAL_STRING,
+            desc = "How often the rate is adjusted. Can be expressed in s(econds), m(inutes), h(ours).")
+    public void setInterval(String interval) {
+        this.interval = GlobalArgs.parseDurationToSeconds(interval);
+        if (this.interval <= 0) {
+            throw new IllegalArgumentException("Property interval must be at least one second.");
+        }
+    }
+
+    @ConfigArgGet
+    public long getInterval() {
+        return interval;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_WINDOW_STRING,
+            desc = "The number of intervals over which the percentile is computed. Longer windows react slower, but to less noise.")
+    public void setWindow(String window) {
+        this.window = Integer.parseInt(window);
+        if (this.window <= 0) {
+            throw new IllegalArgumentException("Property window must be positive.");
+        }
+    }
+
+    @ConfigArgGet
+    public int getWindow() {
+        return window;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_INITIAL_RATE_STRING,
+            desc = "The arrival rate before the first adjustment, in executions per second.")
+    public void setInitialRate(String initialRate) {
+        this.initialRate = parsePositive(initialRate, "initialrate");
+    }
+
+    @ConfigArgGet
+    public double getInitialRate() {
+        return initialRate;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_MIN_RATE_STRING,
+            desc = "The lowest arrival rate the controller can set, in executions per second. Fractional values (e.g. 0.5) are allowed.")
+    public void setMinRate(String minRate) {
+        this.minRate = parsePositive(minRate, "minrate");
+    }
+
+    @ConfigArgGet
+    public double getMinRate() {
+        return minRate;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_MAX_RATE_STRING,
+            desc = "The highest arrival rate the controller can set, in executions per second.")
+    public void setMaxRate(String maxRate) {
+        this.maxRate = parsePositive(maxRate, "maxrate");
+    }
+
+    @ConfigArgGet
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_KP_STRING,
+            desc = "The proportional gain of the controller.")
+    public void setKp(String kp) {
+        this.kp = parseNotNegative(kp, "kp");
+    }
+
+    @ConfigArgGet
+    public double getKp() {
+        return kp;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_KI_STRING,
+            desc = "The integral gain of the controller. Without it, the percentile is not brought to the target.")
+    public void setKi(String ki) {
+        this.ki = parseNotNegative(ki, "ki");
+    }
+
+    @ConfigArgGet
+    public double getKi() {
+        return ki;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_KD_STRING,
+            desc = "The derivative gain of the controller. Amplifies the noise of the measurements, so it is disabled by default.")
+    public void setKd(String kd) {
+        this.kd = parseNotNegative(kd, "kd");
+    }
+
+    @ConfigArgGet
+    public double getKd() {
+        return kd;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_MAX_CHANGE_STRING,
+            desc = "The largest change of the rate in a single adjustment, as a percentage of the current rate.")
+    public void setMaxChange(String maxChange) {
+        double value = Double.parseDouble(maxChange);
+        if (value <= 0 || value >= 100) {
+            throw new IllegalArgumentException("Property maxchange must be between 0 and 100.");
+        }
+        this.maxChange = value;
+    }
+
+    @ConfigArgGet
+    public double getMaxChange() {
+        return maxChange;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_MAX_ERROR_RATE_STRING,
+            desc = "The rate is lowered whenever the percentage of failed executions in the window is above this value.")
+    public void setMaxErrorRate(String maxErrorRate) {
+        double value = Double.parseDouble(maxErrorRate);
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException("Property maxerrorrate must be between 0 and 100.");
+        }
+        this.maxErrorRate = value;
+    }
+
+    @ConfigArgGet
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_DECISIONS_FILE,
+            desc = "The csv file where the decisions of the controller are written, one line per interval. A relative " +
+                    "path is resolved in the logs folder of the run. When there are several phases, the number of the " +
+                    "phase is added to the name.")
+    public void setDecisionsFile(String decisionsFile) {
+        this.decisionsFile = decisionsFile;
+    }
+
+    @ConfigArgGet
+    public String getDecisionsFile() {
+        return decisionsFile;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = "uniform",
+            desc = "The distribution of the time between two consecutive executions: \"uniform\" or \"poisson\".")
+    public void setDistribution(String distribution) {
+        arrivalRate.setDistribution(distribution);
+    }
+
+    @ConfigArgGet
+    public String getDistribution() {
+        return arrivalRate.getDistribution();
+    }
+
+    @ConfigArgSet(required = false, defaultValue = ExecutorStrategy.DEFAULT,
+            desc = "The threads running the tests: \"platform\" or \"virtual\". Virtual threads need Java 21 or newer, platform threads are used otherwise.")
+    public void setExecutor(String executor) {
+        arrivalRate.setExecutor(executor);
+    }
+
+    @ConfigArgGet
+    public String getExecutor() {
+        return arrivalRate.getExecutor();
+    }
+
+    private static double parsePositive(String value, String property) {
+        double parsed = Double.parseDouble(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("Property " + property + " must be positive.");
+        }
+        return parsed;
+    }
+
+    private static double parseNotNegative(String value, String property) {
+        double parsed = Double.parseDouble(value);
+        if (parsed < 0) {
+            throw new IllegalArgumentException("Property " + property + " incorrectly configured as negative.");
+        }
+        return parsed;
+    }
+
+    private void checkInvalidArgs() {
+        if (minRate > maxRate) {
+            throw new IllegalArgumentException("SLO controller mode cannot be configured with minrate greater than maxrate.");
+        }
+    }
+
+    @Override
+    public void runTests(Engine engine) throws Exception {
+        checkInvalidArgs();
+
+        this.phase = engine.getCurrentPhase();
+        this.controller = new PidController(kp, ki, kd, maxChange / 100, initialRate, minRate, maxRate);
+        openDecisions(resolveDecisionsFile(engine.getGlobalArgs().getLogPath(), engine.getConfiguration().getPhases(),
+                phase));
+        arrivalRate.setRateSupplier(controller::getRate);
+        arrivalRate.runTests(engine);
+        arrivalRate.getExecutorService().execute(new ControlLoop());
+    }
+
+    @Override
+    public void finishExecutionAndAwait() {
+        stopped.countDown();
+        arrivalRate.finishExecutionAndAwait();
+        closeDecisions();
+        if (controller != null) {
+            LOG.info("SLO controller finished at " + String.format("%.2f", controller.getRate()) +
+                    " executions per second, after " + adjustments + " adjustments.");
+        }
+    }
+
+    @Override
+    public ExecutorService getExecutorService() {
+        return arrivalRate.getExecutorService();
+    }
+
+    @Override
+    public RunContext getRunContext() {
+        return arrivalRate.getRunContext();
+    }
+
+    /**
+     * Computes the error that is fed to the controller from the statistics of the window. The rate is lowered as much
+     * as possible when too many executions fail, or when none completes while some are still running.
+     * @param window the statistics recorded during the last intervals
+     * @param inFlight the number of executions that are still running
+     */
+    double error(RunMapImpl.Snapshot window, int inFlight) {
+        long completed = window.getPassedRuns() + window.getFailRuns();
+        if (completed > 0 && 100.0 * window.getFailRuns() / completed > maxErrorRate) {
+            return -1;
+        }
+        if (window.getPassedRuns() == 0) {
+            // with no measurement, the rate is only changed if the executions got stuck
+            return inFlight > 0 ? -1 : 0;
+        }
+        return PidController.error(targetLatency, window.getResponseTimeAtPercentile(percentile) / ONE_MILLION_D);
+    }
+
+    /**
+     * Get the file where the decisions of a phase are written, so that neither the earlier runs nor the other phases
+     * of this run are overwritten.
+     * @param logPath the path where the logs folder of the run is created
+     * @param phases all the phases of the run
+     * @param phase the phase run by this controller
+     */
+    File resolveDecisionsFile(String logPath, List<Phase> phases, Phase phase) {
+        File file = new File(decisionsFile);
+        if (!file.isAbsolute()) {
+            file = new File(new File(logPath, "logs_" + Timestamp.START_TIME), decisionsFile);
+        }
+        if (phases.size() > 1) {
+            String name = file.getName();
+            String suffix = "_phase" + (phases.indexOf(phase) + 1);
+            int extension = name.lastIndexOf('.');
+            name = extension > 0 ? name.substring(0, extension) + suffix + name.substring(extension) : name + suffix;
+            file = new File(file.getParentFile(), name);
+        }
+        return file;
+    }
+
+    private void openDecisions(File file) throws FileNotFoundException {
+        File folder = file.getAbsoluteFile().getParentFile();
+        if (folder != null) {
+            folder.mkdirs();
+        }
+        decisions = new PrintWriter(file);
+        LOG.info("SLO controller decisions are written to " + file.getPath());
+        decisions.println(String.format(DECISIONS_HEADER, formatNumber(percentile)));
+        decisions.flush();
+    }
+
+    private synchronized void writeDecision(String line) {
+        if (decisions != null) {
+            decisions.println(line);
+            decisions.flush();
+        }
+    }
+
+    private synchronized void closeDecisions() {
+        if (decisions != null) {
+            decisions.close();
+            decisions = null;
+        }
+    }
+
+    private static String formatNumber(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format("%.2f", value);
+    }
+
+    /**
+     * Adjusts the rate at the end of every interval. The percentile is computed over the last intervals, from the
+     * global run map, so it lags behind the executions by up to one aggregation.
+     */
+    private class ControlLoop extends AsyncEngineWorker {
+        private final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+        @Override
+        public void run() {
+            RunMapImpl globalRunMap = phase.getPublishMode().getRunMap();
+            ArrayDeque<RunMapImpl.Snapshot> snapshots = new ArrayDeque<>();
+            long start = System.nanoTime();
+            snapshots.addLast(globalRunMap.snapshot());
+
+            try {
+                while (!stopped.await(interval, TimeUnit.SECONDS)) {
+                    RunMapImpl.Snapshot now = globalRunMap.snapshot();
+                    RunMapImpl.Snapshot last = now.since(snapshots.peekLast());
+                    snapshots.addLast(now);
+                    while (snapshots.size() > window + 1) {
+                        snapshots.removeFirst();
+                    }
+                    RunMapImpl.Snapshot windowed = now.since(snapshots.peekFirst());
+
+                    int inFlight = arrivalRate.getInFlight();
+                    double rate = controller.getRate();
+                    double error = error(windowed, inFlight);
+                    double nextRate = controller.update(error);
+                    adjustments++;
+                    record(System.nanoTime() - start, rate, last, windowed, inFlight, error, nextRate);
+                }
+            } catch (InterruptedException e) {
+                LOG.warn("SLO controller thread was interrupted.");
+            } catch (Throwable e) {
+                LOG.error("Unexpected exception caught", e);
+            }
+        }
+
+        private void record(long elapsedNanos, double rate, RunMapImpl.Snapshot last, RunMapImpl.Snapshot windowed,
+                            int inFlight, double error, double nextRate) {
+            double seconds = last.getDurationNanos() > 0 ? last.getDurationNanos() / ONE_BILLION_D : interval;
+            long completed = windowed.getPassedRuns() + windowed.getFailRuns();
+            double throughput = (last.getPassedRuns() + last.getFailRuns()) / seconds;
+            double errorRate = completed > 0 ? 100.0 * windowed.getFailRuns() / completed : 0;
+            double latencyMillis = windowed.getPassedRuns() > 0
+                    ? windowed.getResponseTimeAtPercentile(percentile) / ONE_MILLION_D : Double.NaN;
+
+            LOG.info(String.format("SLO controller: p%s %.2f ms (target %d ms), %.2f executions per second, "
+                            + "%.2f%% errors, %d in flight. Rate %.2f -> %.2f executions per second.",
+                    formatNumber(percentile), latencyMillis, targetLatency, throughput, errorRate, inFlight, rate,
+                    nextRate));
+            writeDecision(String.format(Locale.ROOT, "%s,%.3f,%.3f,%.3f,%.3f,%d,%.3f,%d,%.4f,%.3f",
+                    timestampFormat.format(new Date()), elapsedNanos / ONE_BILLION_D, rate, throughput, latencyMillis,
+                    targetLatency, errorRate, inFlight, error, nextRate));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import com.adobe.qe.toughday.api.annotations.labels.NotNull;
+import com.adobe.qe.toughday.api.annotations.labels.Nullable;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.TestId;
+import com.adobe.qe.toughday.internal.core.TestSuite;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cache of test clones that are not currently running. Used by the run modes which do not bind a test instance
+ * to a worker, so that a clone is only created when all the existing ones are busy.
+ */
+class TestCache {
+    public Map<TestId, Queue<AbstractTest>> cache = new HashMap<>();
+
+    public TestCache(TestSuite testSuite) {
+        for(AbstractTest test : testSuite.getTests()) {
+            cache.put(test.getId(), new ConcurrentLinkedQueue());
+        }
+    }
+
+    public void add(@NotNull AbstractTest test) {
+        cache.get(test.getId()).add(test);
+    }
+
+    public @Nullable AbstractTest getCachedValue(@NotNull TestId testID) {
+        return cache.get(testID).poll();
+    }
+
+    /**
+     * Returns an idle clone of the given test, creating a new one if all the clones are busy.
+     */
+    public @NotNull AbstractTest getOrClone(@NotNull AbstractTest test) {
+        AbstractTest cached = getCachedValue(test.getId());
+        return cached != null ? cached : test.clone();
+    }
+}
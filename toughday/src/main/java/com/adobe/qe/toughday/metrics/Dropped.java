@@ -0,0 +1,38 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.metrics;
+
+import com.adobe.qe.toughday.api.annotations.Description;
+import com.adobe.qe.toughday.api.core.RunMap;
+
+@Description(desc = "Number of results that were not published by the raw publishers, because the raw results buffer or the queue " +
+        "of a publisher was full. " +
+        "They are still included in the other metrics. " +
+        "With the constantload run mode, it also counts the executions that were not started because no worker was free.")
+public class Dropped extends Metric {
+
+    @Override
+    public Object getValue(RunMap.TestStatistics testStatistics) {
+        return testStatistics.getDroppedResults();
+    }
+
+    @Override
+    public String getFormat() {
+        return "%d";
+    }
+
+    @Override
+    public String getUnitOfMeasure() {
+        return "";
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.metrics;
+
+import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
+import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
+import com.adobe.qe.toughday.api.core.RunMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base class for the metrics that report a duration. The durations are recorded in nanoseconds and they are only
+ * converted to the configured unit when the metric is published.
+ */
+public abstract class DurationMetric extends Metric {
+    private static final String DEFAULT_UNIT = "ms";
+    private static final Map<String, Double> NANOS_PER_UNIT = new HashMap<String, Double>() {{
+        put("ns", 1.0d);
+        put("us", 1000.0d);
+        put("ms", 1000.0d * 1000);
+        put("s", 1000.0d * 1000 * 1000);
+    }};
+
+    private String unit = DEFAULT_UNIT;
+
+    /**
+     * Get the value of the metric in nanoseconds.
+     * @param testStatistics
+     */
+    protected abstract double getNanoValue(RunMap.TestStatistics testStatistics);
+
+    @ConfigArgSet(required = false, desc = "The unit in which the duration is published. One of: ns, us, ms, s.", defaultValue = DEFAULT_UNIT)
+    public DurationMetric setUnit(String unit) {
+        if (!NANOS_PER_UNIT.containsKey(unit)) {
+            throw new IllegalArgumentException("Unknown unit \"" + unit + "\". Expected one of: " + NANOS_PER_UNIT.keySet());
+        }
+        this.unit = unit;
+        return this;
+    }
+
+    @ConfigArgGet
+    public String getUnit() {
+        return unit;
+    }
+
+    @Override
+    public Object getValue(RunMap.TestStatistics testStatistics) {
+        return getNanoValue(testStatistics) / NANOS_PER_UNIT.get(unit);
+    }
+
+    @Override
+    public String getFormat() {
+        return "%." + this.getDecimals() + "f";
+    }
+
+    @Override
+    public String getUnitOfMeasure() {
+        return unit;
+    }
+}
@@ -15,21 +15,10 @@ import com.adobe.qe.toughday.api.annotations.Description;
 import com.adobe.qe.toughday.api.core.RunMap;
 
 @Description(desc = "Highest duration of test execution.")
-public class Max extends Metric {
+public class Max extends DurationMetric {
 
     @Override
-    public Object getValue(RunMap.TestStatistics testStatistics) {
+    protected double getNanoValue(RunMap.TestStatistics testStatistics) {
         return testStatistics.getMaxDuration();
     }
-
-    @Override
-    public String getFormat() {
-        return "%d";
-    }
-
-    @Override
-    public String getUnitOfMeasure() {
-        return "ms";
-    }
-
 }
@@ -15,20 +15,10 @@ import com.adobe.qe.toughday.api.annotations.Description;
 import com.adobe.qe.toughday.api.core.RunMap;
 
 @Description(desc = "Lowest duration of test execution.")
-public class Min extends Metric {
+public class Min extends DurationMetric {
 
     @Override
-    public Object getValue(RunMap.TestStatistics testStatistics) {
+    protected double getNanoValue(RunMap.TestStatistics testStatistics) {
         return testStatistics.getMinDuration();
     }
-
-    @Override
-    public String getFormat() {
-        return "%d";
-    }
-
-    @Override
-    public String getUnitOfMeasure() {
-        return "ms";
-    }
 }
@@ -15,8 +15,8 @@ import com.adobe.qe.toughday.api.annotations.Description;
 import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
 import com.adobe.qe.toughday.api.core.RunMap;
 
-@Description(desc = "Percentile.")
-public class Percentile extends Metric {
+@Description(desc = "Percentile of the service time, measured from the moment the execution actually started.")
+public class Percentile extends DurationMetric {
     private double value;
 
     @ConfigArgSet(required = true, desc = "The value at which percentile will be calculated.")
@@ -29,17 +29,7 @@ public class Percentile extends Metric {
     }
 
     @Override
-    public Object getValue(RunMap.TestStatistics testStatistics) {
+    protected double getNanoValue(RunMap.TestStatistics testStatistics) {
         return testStatistics.getValueAtPercentile(value);
     }
-
-    @Override
-    public String getFormat() {
-        return "%d";
-    }
-
-    @Override
-    public String getUnitOfMeasure() {
-        return "ms";
-    }
 }
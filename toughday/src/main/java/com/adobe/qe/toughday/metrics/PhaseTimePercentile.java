@@ -0,0 +1,55 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.metrics;
+
+import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
+import com.adobe.qe.toughday.api.annotations.Description;
+import com.adobe.qe.toughday.api.core.RunMap;
+
+@Description(desc = "Percentile of the duration of a phase of the executions, for the tests that report phases. The " +
+        "Sling tests report the phases of their http requests: lease, connect, tls, write, firstbyte and transfer.")
+public class PhaseTimePercentile extends DurationMetric {
+    private String phase;
+    private double value;
+    private String valueString = "";
+    private String generatedName;
+
+    @ConfigArgSet(required = true, desc = "The phase for which the percentile will be calculated.")
+    public PhaseTimePercentile setPhase(String phase) {
+        this.phase = phase;
+        updateName();
+        return this;
+    }
+
+    @ConfigArgSet(required = true, desc = "The value at which percentile will be calculated.")
+    public PhaseTimePercentile setValue(String value) {
+        this.value = Double.valueOf(value.substring(0,value.length() - 1));
+        this.valueString = value;
+        updateName();
+        return this;
+    }
+
+    /*
+        The name is generated from both the phase and the value, unless it was configured.
+     */
+    private void updateName() {
+        if (this.name.equals(getClass().getSimpleName()) || this.name.equals(generatedName)) {
+            generatedName = (phase != null ? phase : "") + valueString;
+            this.name = generatedName;
+        }
+    }
+
+    @Override
+    protected double getNanoValue(RunMap.TestStatistics testStatistics) {
+        return testStatistics.getPhaseDurationAtPercentile(phase, value);
+    }
+}
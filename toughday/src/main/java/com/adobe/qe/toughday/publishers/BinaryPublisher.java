@@ -0,0 +1,97 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
+import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
+import com.adobe.qe.toughday.api.annotations.Description;
+import com.adobe.qe.toughday.api.core.MetricResult;
+import com.adobe.qe.toughday.api.core.Publisher;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Description(desc = "Publish raw results to a compact binary file. Use com.adobe.qe.toughday.RawResultsTool to convert it " +
+        "to csv or json, or to aggregate it.")
+public class BinaryPublisher extends Publisher {
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryPublisher.class);
+
+    /**
+     * The default name of the file where raw results are published
+     */
+    private static final String DEFAULT_RAW_FILE_PATH = "results.raw.bin";
+
+    private Gson GSON = new Gson();
+
+    private BinaryRawWriter rawResultsWriter;
+    private String rawFilePath = DEFAULT_RAW_FILE_PATH;
+
+    public BinaryPublisher() {
+        setAggregatedPublish("false");
+    }
+
+    @ConfigArgSet(required = false, desc = "The filename to write the raw results to", defaultValue = DEFAULT_RAW_FILE_PATH)
+    public void setRawFilePath(String rawResultsFilePath) {
+        this.rawFilePath = rawResultsFilePath;
+    }
+
+    @ConfigArgGet
+    public String getRawFilePath() {
+        return rawFilePath;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = "false", desc = "This publisher only writes raw results")
+    public void setAggregatedPublish(String aggregatedPublish) {
+        super.setAggregatedPublish(aggregatedPublish);
+    }
+
+    @Override
+    protected void doPublishAggregatedIntermediate(Map<String, List<MetricResult>> results) {
+    }
+
+    @Override
+    protected void doPublishAggregatedFinal(Map<String, List<MetricResult>> results) {
+    }
+
+    @Override
+    protected void doPublishRaw(Collection<TestResult> testResults) {
+        try {
+            if (rawResultsWriter == null) {
+                rawResultsWriter = new BinaryRawWriter(rawFilePath, GSON);
+            }
+
+            for (TestResult testResult : testResults) {
+                rawResultsWriter.write(testResult);
+            }
+            rawResultsWriter.flush();
+        } catch (IOException e) {
+            LOG.error("Could not publish results", e);
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (rawResultsWriter != null) {
+            try {
+                rawResultsWriter.close();
+            } catch (IOException e) {
+                LOG.error("Could not publish results", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+
+/**
+ * Layout of the binary raw results files. A file starts with {@link #MAGIC} and {@link #VERSION}, followed by records.
+ * Every record is prefixed by its length as a varint, which includes the type byte that follows it, so that readers
+ * can skip record types they do not know.
+ *
+ * <ul>
+ *     <li>{@link #NAME_RECORD}: varint name id, varint byte length, UTF-8 test name. Written before the first result
+ *     of each test, results then refer to the test by id.</li>
+ *     <li>{@link #RESULT_RECORD}: varint name id, status byte, varint thread id, zigzag varint start timestamp as
+ *     delta from the previous result, zigzag varint end timestamp as delta from the start, varint duration in
+ *     nanoseconds plus one (zero when the duration is unknown), varint schedule delay in nanoseconds, varint byte
+ *     length plus one of the json data (zero when there is no data), UTF-8 json data, varint number of phases and,
+ *     for each phase, varint phase name id and zigzag varint duration in nanoseconds. The phases are those reported by
+ *     {@link com.adobe.qe.toughday.api.core.benchmark.PhasedData}.</li>
+ *     <li>{@link #PHASE_NAME_RECORD}: varint phase name id, varint byte length, UTF-8 phase name. Written before the
+ *     first result that measured the phase.</li>
+ * </ul>
+ */
+final class BinaryRawFormat {
+    static final byte[] MAGIC = { 'T', 'D', '2', 'R', 'A', 'W' };
+    static final byte VERSION = 1;
+
+    static final byte NAME_RECORD = 1;
+    static final byte RESULT_RECORD = 2;
+    static final byte PHASE_NAME_RECORD = 3;
+
+    private static final byte PASSED = 0;
+    private static final byte FAILED = 1;
+    private static final byte SKIPPED = 2;
+
+    private BinaryRawFormat() {
+    }
+
+    static byte statusCode(TestResult.Status status) {
+        switch (status) {
+            case PASSED:
+                return PASSED;
+            case FAILED:
+                return FAILED;
+            case SKIPPED:
+                return SKIPPED;
+            default:
+                throw new IllegalArgumentException("Unknown status " + status);
+        }
+    }
+
+    static TestResult.Status status(byte code) {
+        switch (code) {
+            case PASSED:
+                return TestResult.Status.PASSED;
+            case FAILED:
+                return TestResult.Status.FAILED;
+            case SKIPPED:
+                return TestResult.Status.SKIPPED;
+            default:
+                throw new IllegalArgumentException("Unknown status code " + code);
+        }
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
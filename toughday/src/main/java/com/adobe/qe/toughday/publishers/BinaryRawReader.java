@@ -0,0 +1,299 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.api.annotations.labels.Nullable;
+import com.adobe.qe.toughday.api.core.benchmark.PhasedData;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Streams the records of a raw results file written by the {@link BinaryPublisher}. Not thread safe.
+ */
+public class BinaryRawReader implements Closeable {
+    private final InputStream in;
+    private final List<String> names = new ArrayList<>();
+    private final List<String> phaseNames = new ArrayList<>();
+    private byte[] record = new byte[256];
+    private int position;
+    private int size;
+    private long previousStart;
+
+    public BinaryRawReader(String filePath) throws IOException {
+        this(new FileInputStream(filePath));
+    }
+
+    public BinaryRawReader(InputStream in) throws IOException {
+        this.in = new BufferedInputStream(in, 1 << 16);
+        byte[] magic = new byte[BinaryRawFormat.MAGIC.length];
+        if (!readFully(magic, magic.length) || !Arrays.equals(magic, BinaryRawFormat.MAGIC)) {
+            throw new IOException("Not a raw results file");
+        }
+        int version = this.in.read();
+        if (version != BinaryRawFormat.VERSION) {
+            throw new IOException("Unsupported raw results file version " + version);
+        }
+    }
+
+    /**
+     * Reads the next result from the file.
+     * @return the result or null if the end of the file was reached
+     * @throws IOException if the file cannot be read or is truncated
+     */
+    public @Nullable Record next() throws IOException {
+        while (true) {
+            long length = readVarLong();
+            if (length < 0) {
+                return null;
+            }
+            if (length == 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Corrupted record of length " + length);
+            }
+            int type = in.read();
+            size = (int) length - 1;
+            if (record.length < size) {
+                record = new byte[Math.max(size, record.length * 2)];
+            }
+            if (type < 0 || !readFully(record, size)) {
+                throw new EOFException("Truncated record");
+            }
+            position = 0;
+
+            if (type == BinaryRawFormat.NAME_RECORD) {
+                readName(names);
+            } else if (type == BinaryRawFormat.PHASE_NAME_RECORD) {
+                readName(phaseNames);
+            } else if (type == BinaryRawFormat.RESULT_RECORD) {
+                return readResult();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readName(List<String> target) throws IOException {
+        int id = recordInt();
+        String name = recordString(recordInt());
+        while (target.size() <= id) {
+            target.add(null);
+        }
+        target.set(id, name);
+    }
+
+    private Record readResult() throws IOException {
+        int nameId = recordInt();
+        if (nameId >= names.size() || names.get(nameId) == null) {
+            throw new IOException("Result refers to an unknown test name " + nameId);
+        }
+        TestResult.Status status;
+        try {
+            status = BinaryRawFormat.status(recordByte());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted record", e);
+        }
+        long threadId = recordVarLong();
+        long start = previousStart + BinaryRawFormat.unZigZag(recordVarLong());
+        long end = start + BinaryRawFormat.unZigZag(recordVarLong());
+        long durationNano = recordVarLong() - 1;
+        long scheduleDelayNano = recordVarLong();
+        int dataLength = recordInt();
+        String data = dataLength == 0 ? null : recordString(dataLength - 1);
+        int phaseCount = recordInt();
+        if (phaseCount > size - position) {
+            throw new IOException("Corrupted record");
+        }
+        String[] phases = new String[phaseCount];
+        long[] phaseNanos = new long[phaseCount];
+        for (int i = 0; i < phaseCount; i++) {
+            int phaseId = recordInt();
+            if (phaseId >= phaseNames.size() || phaseNames.get(phaseId) == null) {
+                throw new IOException("Result refers to an unknown phase name " + phaseId);
+            }
+            phases[i] = phaseNames.get(phaseId);
+            phaseNanos[i] = BinaryRawFormat.unZigZag(recordVarLong());
+        }
+        previousStart = start;
+
+        return new Record(names.get(nameId), status, threadId, start, end, durationNano, scheduleDelayNano, data,
+                phases, phaseNanos);
+    }
+
+    /*
+        The reads within a record check its bounds, so that a corrupted length or varint fails with an IOException
+        instead of reading past the record or the end of the buffer.
+     */
+    private byte recordByte() throws IOException {
+        if (position >= size) {
+            throw new IOException("Corrupted record");
+        }
+        return record[position++];
+    }
+
+    private long recordVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = recordByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted record");
+    }
+
+    private int recordInt() throws IOException {
+        long value = recordVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Corrupted record");
+        }
+        return (int) value;
+    }
+
+    private String recordString(int length) throws IOException {
+        if (length > size - position) {
+            throw new IOException("Corrupted record");
+        }
+        String value = new String(record, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /*
+        Returns -1 on a clean end of file, before the first byte of the varint.
+     */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Truncated record length");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted record length");
+    }
+
+    private boolean readFully(byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = in.read(buffer, read, length - read);
+            if (count < 0) {
+                return false;
+            }
+            read += count;
+        }
+        return true;
+    }
+
+    /**
+     * A raw test result, as read from the file. The phases that were measured for the result are reported through
+     * {@link PhasedData}.
+     */
+    public static class Record implements PhasedData {
+        private final String name;
+        private final TestResult.Status status;
+        private final long threadId;
+        private final long startTimestamp;
+        private final long endTimestamp;
+        private final long durationNano;
+        private final long scheduleDelayNano;
+        private final String data;
+        private final String[] phases;
+        private final long[] phaseNanos;
+
+        Record(String name, TestResult.Status status, long threadId, long startTimestamp, long endTimestamp,
+               long durationNano, long scheduleDelayNano, String data, String[] phases, long[] phaseNanos) {
+            this.name = name;
+            this.status = status;
+            this.threadId = threadId;
+            this.startTimestamp = startTimestamp;
+            this.endTimestamp = endTimestamp;
+            this.durationNano = durationNano;
+            this.scheduleDelayNano = scheduleDelayNano;
+            this.data = data;
+            this.phases = phases;
+            this.phaseNanos = phaseNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public TestResult.Status getStatus() {
+            return status;
+        }
+
+        public long getThreadId() {
+            return threadId;
+        }
+
+        public long getStartTimestamp() {
+            return startTimestamp;
+        }
+
+        public long getEndTimestamp() {
+            return endTimestamp;
+        }
+
+        /**
+         * Duration in nanoseconds, or -1 if the result had no duration.
+         */
+        public long getDurationNano() {
+            return durationNano;
+        }
+
+        /**
+         * Duration in milliseconds, or NaN if the result had no duration.
+         */
+        public double getDuration() {
+            return durationNano < 0 ? Double.NaN : TestResult.milliDurationFromNano(0, durationNano);
+        }
+
+        public long getScheduleDelayNano() {
+            return scheduleDelayNano;
+        }
+
+        /**
+         * The data of the result, serialized as json.
+         */
+        public @Nullable String getData() {
+            return data;
+        }
+
+        @Override
+        public void forEachPhase(ObjLongConsumer<String> consumer) {
+            for (int i = 0; i < phases.length; i++) {
+                consumer.accept(phases[i], phaseNanos[i]);
+            }
+        }
+    }
+}
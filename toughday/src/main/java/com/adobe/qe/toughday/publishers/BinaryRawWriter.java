@@ -0,0 +1,198 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.api.core.benchmark.PhasedData;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.google.gson.Gson;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Writes raw test results in the binary format described in {@link BinaryRawFormat}. Every record is encoded in a
+ * reused buffer and only then written, prefixed with its length, to the file. Not thread safe.
+ */
+class BinaryRawWriter implements Closeable {
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    private final Gson gson;
+    private final OutputStream out;
+    private final Map<String, Integer> names = new HashMap<>();
+    private final Map<String, Integer> phaseIds = new HashMap<>();
+    private final ObjLongConsumer<String> phaseCollector = this::collectPhase;
+    private String[] phases = new String[8];
+    private long[] phaseNanos = new long[8];
+    private int phaseCount;
+    private final StringBuilder data = new StringBuilder(256);
+    private final Buffer record = new Buffer(256);
+    private final Buffer output = new Buffer(OUTPUT_BUFFER_SIZE);
+    private long previousStart;
+
+    BinaryRawWriter(String filePath, Gson gson) throws IOException {
+        this.gson = gson;
+        this.out = new FileOutputStream(filePath);
+        output.write(BinaryRawFormat.MAGIC, 0, BinaryRawFormat.MAGIC.length);
+        output.write(BinaryRawFormat.VERSION);
+    }
+
+    void write(TestResult testResult) throws IOException {
+        String name = testResult.getTestFullName();
+        Integer nameId = names.get(name);
+        if (nameId == null) {
+            nameId = names.size();
+            names.put(name, nameId);
+            record.reset();
+            record.writeVarLong(nameId);
+            record.writeString(name);
+            writeRecord(BinaryRawFormat.NAME_RECORD);
+        }
+
+        Object resultData = testResult.getData();
+        phaseCount = 0;
+        if (resultData instanceof PhasedData) {
+            ((PhasedData) resultData).forEachPhase(phaseCollector);
+        }
+        for (int i = 0; i < phaseCount; i++) {
+            if (!phaseIds.containsKey(phases[i])) {
+                int phaseId = phaseIds.size();
+                phaseIds.put(phases[i], phaseId);
+                record.reset();
+                record.writeVarLong(phaseId);
+                record.writeString(phases[i]);
+                writeRecord(BinaryRawFormat.PHASE_NAME_RECORD);
+            }
+        }
+
+        long start = testResult.getStartTimestamp();
+        record.reset();
+        record.writeVarLong(nameId);
+        record.write(BinaryRawFormat.statusCode(testResult.getStatus()));
+        record.writeVarLong(testResult.getThreadId());
+        record.writeVarLong(BinaryRawFormat.zigZag(start - previousStart));
+        record.writeVarLong(BinaryRawFormat.zigZag(testResult.getEndTimestamp() - start));
+        record.writeVarLong(testResult.getDurationNano() + 1);
+        record.writeVarLong(testResult.getScheduleDelayNano());
+
+        if (resultData == null) {
+            record.writeVarLong(0);
+        } else {
+            data.setLength(0);
+            gson.toJson(resultData, data);
+            byte[] bytes = data.toString().getBytes(StandardCharsets.UTF_8);
+            record.writeVarLong(bytes.length + 1);
+            record.write(bytes, 0, bytes.length);
+        }
+        record.writeVarLong(phaseCount);
+        for (int i = 0; i < phaseCount; i++) {
+            record.writeVarLong(phaseIds.get(phases[i]));
+            record.writeVarLong(BinaryRawFormat.zigZag(phaseNanos[i]));
+        }
+        writeRecord(BinaryRawFormat.RESULT_RECORD);
+        previousStart = start;
+    }
+
+    void flush() throws IOException {
+        output.writeTo(out);
+        output.reset();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void collectPhase(String phase, long durationNano) {
+        if (phaseCount == phases.length) {
+            phases = Arrays.copyOf(phases, phaseCount * 2);
+            phaseNanos = Arrays.copyOf(phaseNanos, phaseCount * 2);
+        }
+        phases[phaseCount] = phase;
+        phaseNanos[phaseCount++] = durationNano;
+    }
+
+    private void writeRecord(byte type) throws IOException {
+        output.writeVarLong(record.size + 1);
+        output.write(type);
+        output.write(record.bytes, 0, record.size);
+        if (output.size >= OUTPUT_BUFFER_SIZE) {
+            output.writeTo(out);
+            output.reset();
+        }
+    }
+
+    /**
+     * Growable byte array, without the synchronization of {@link java.io.ByteArrayOutputStream}.
+     */
+    private static class Buffer {
+        private byte[] bytes;
+        private int size;
+
+        Buffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void write(int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(encoded.length);
+            write(encoded, 0, encoded.length);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, size + extra)];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+    }
+}
@@ -18,12 +18,10 @@ import com.adobe.qe.toughday.api.core.MetricResult;
 import com.adobe.qe.toughday.api.core.Publisher;
 import com.adobe.qe.toughday.api.core.benchmark.TestResult;
 import com.google.gson.Gson;
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
@@ -45,15 +43,11 @@ public class CSVPublisher extends Publisher {
      */
     private static final String DEFAULT_RAW_FILE_PATH = "results.raw.csv";
 
-    /**
-     * Format of the raw results
-     */
-    private static final String RAW_FORMAT = "%s,%s,%s,%s,%s,%s,%s";
-
     /**
      * Header for the raw results
      */
-    private static final String[] RAW_HEADER = { "Name", "Status", "Thread", "Start Timestamp", "End Timestamp", "Duration", "Data" };
+    private static final String[] RAW_HEADER = { "Name", "Status", "Thread", "Start Timestamp", "End Timestamp", "Duration", "Data",
+            "Lease", "Connect", "TLS", "Write", "First Byte", "Transfer" };
 
     private Gson GSON = new Gson();
 
@@ -66,7 +60,7 @@ public class CSVPublisher extends Publisher {
     private BufferedWriter resultsWriter;
     private String filePath = DEFAULT_FILE_PATH;
 
-    private PrintWriter rawResultsWriter;
+    private CSVRawWriter rawResultsWriter;
     private String rawFilePath = DEFAULT_RAW_FILE_PATH;
 
     @ConfigArgSet(required = false, desc = "The filename to write results to", defaultValue = DEFAULT_FILE_PATH)
@@ -154,21 +148,11 @@ public class CSVPublisher extends Publisher {
     protected void doPublishRaw(Collection<TestResult> testResults) {
         try {
             if (rawResultsWriter == null) {
-                rawResultsWriter = new PrintWriter(new BufferedWriter(new FileWriter(rawFilePath)));
-                rawResultsWriter.println(String.format(RAW_FORMAT, RAW_HEADER));
+                rawResultsWriter = new CSVRawWriter(rawFilePath, GSON, String.join(",", RAW_HEADER));
             }
 
             for (TestResult testResult : testResults) {
-                Object data = testResult.getData();
-                rawResultsWriter.println(String.format(RAW_FORMAT,
-                        testResult.getTestFullName(),
-                        testResult.getStatus().toString(),
-                        testResult.getThreadId(),
-                        testResult.getFormattedStartTimestamp(),
-                        testResult.getFormattedEndTimestamp(),
-                        testResult.getDuration(),
-                        StringEscapeUtils.escapeCsv(data != null ? GSON.toJson(data) : "")
-                ));
+                rawResultsWriter.write(testResult);
             }
             rawResultsWriter.flush();
         } catch (IOException e) {
@@ -178,7 +162,13 @@ public class CSVPublisher extends Publisher {
 
     @Override
     public void finish() {
-        rawResultsWriter.flush();
+        if (rawResultsWriter != null) {
+            try {
+                rawResultsWriter.flush();
+            } catch (IOException e) {
+                LOG.error("Could not publish results", e);
+            }
+        }
     }
 
     private void createHeaderFormat(List<MetricResult> resultsList) {
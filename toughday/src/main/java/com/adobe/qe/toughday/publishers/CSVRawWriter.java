@@ -0,0 +1,167 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.api.core.benchmark.TimestampFormatter;
+import com.google.gson.Gson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the raw results as csv rows. The rows are built in a reused buffer, encoded by hand and written through a
+ * large direct buffer to a file channel, so that writing a row allocates close to nothing. The data is serialized
+ * with Gson straight into a reused buffer. The phases of the http requests, for the data that reports them through
+ * {@link com.adobe.qe.toughday.api.core.benchmark.PhasedData}, are also written in columns of their own, after the
+ * data. The columns of the values that are missing, like the duration of a result that did not finish, are left
+ * empty. Not thread safe.
+ */
+class CSVRawWriter implements Closeable {
+    private static final int CHANNEL_BUFFER_SIZE = 1 << 20;
+    private static final int ROWS_BUFFER_SIZE = 1 << 16;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Gson gson;
+    private final FileChannel channel;
+    private final ByteBuffer channelBuffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+    private final StringBuilder rows = new StringBuilder(ROWS_BUFFER_SIZE);
+    private final StringBuilder field = new StringBuilder(256);
+    private final PhaseColumns phaseColumns = new PhaseColumns();
+    private byte[] encoded = new byte[ROWS_BUFFER_SIZE * 3];
+
+    CSVRawWriter(String filePath, Gson gson, String header) throws IOException {
+        this.gson = gson;
+        this.channel = FileChannel.open(Paths.get(filePath),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        rows.append(header).append(LINE_SEPARATOR);
+    }
+
+    void write(TestResult testResult) throws IOException {
+        rows.append(testResult.getTestFullName()).append(',')
+                .append(testResult.getStatus().name()).append(',')
+                .append(testResult.getThreadId()).append(',');
+        TimestampFormatter.appendTo(rows, testResult.getStartTimestamp()).append(',');
+        TimestampFormatter.appendTo(rows, testResult.getEndTimestamp()).append(',');
+        if (testResult.getDurationNano() >= 0) {
+            rows.append(testResult.getDuration());
+        }
+        rows.append(',');
+
+        Object data = testResult.getData();
+        if (data != null) {
+            field.setLength(0);
+            gson.toJson(data, field);
+            appendCsv(rows, field);
+        }
+        phaseColumns.append(rows, data);
+        rows.append(LINE_SEPARATOR);
+
+        if (rows.length() >= ROWS_BUFFER_SIZE) {
+            encodeRows();
+        }
+    }
+
+    void flush() throws IOException {
+        encodeRows();
+        channelBuffer.flip();
+        while (channelBuffer.hasRemaining()) {
+            channel.write(channelBuffer);
+        }
+        channelBuffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /*
+        UTF-8 encoding straight from the rows buffer. Unpaired surrogates are replaced with '?', like the jdk encoder does.
+     */
+    private void encodeRows() throws IOException {
+        int length = rows.length();
+        if (encoded.length < length * 3) {
+            encoded = new byte[length * 3];
+        }
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            char c = rows.charAt(i);
+            if (c < 0x80) {
+                encoded[size++] = (byte) c;
+            } else if (c < 0x800) {
+                encoded[size++] = (byte) (0xC0 | (c >> 6));
+                encoded[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(rows.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, rows.charAt(++i));
+                encoded[size++] = (byte) (0xF0 | (codePoint >> 18));
+                encoded[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                encoded[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                encoded[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                encoded[size++] = '?';
+            } else {
+                encoded[size++] = (byte) (0xE0 | (c >> 12));
+                encoded[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                encoded[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        rows.setLength(0);
+
+        int offset = 0;
+        while (offset < size) {
+            int chunk = Math.min(size - offset, channelBuffer.remaining());
+            channelBuffer.put(encoded, offset, chunk);
+            offset += chunk;
+            if (!channelBuffer.hasRemaining()) {
+                channelBuffer.flip();
+                while (channelBuffer.hasRemaining()) {
+                    channel.write(channelBuffer);
+                }
+                channelBuffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Same escaping as {@code StringEscapeUtils.escapeCsv}: the value is quoted only if it contains a comma, a quote
+     * or a line break, and the quotes inside it are doubled.
+     */
+    static void appendCsv(StringBuilder out, CharSequence value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
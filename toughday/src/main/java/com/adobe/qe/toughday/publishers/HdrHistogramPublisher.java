@@ -0,0 +1,205 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.api.annotations.ConfigArgGet;
+import com.adobe.qe.toughday.api.annotations.ConfigArgSet;
+import com.adobe.qe.toughday.api.annotations.Description;
+import com.adobe.qe.toughday.api.core.MetricResult;
+import com.adobe.qe.toughday.api.core.Publisher;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.internal.core.config.GlobalArgs;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes the durations of the passed tests as HdrHistogram interval logs. The results are bucketed by their end
+ * timestamps into intervals of fixed length, with one histogram per test, tagged with the full name of the test.
+ * An interval is written once results from two intervals later were published, so that the results which were
+ * still on their way from the workers are included. Results that arrive later than that are written in an extra
+ * line for their interval. Durations are recorded in
+ * nanoseconds, the max column of the log is in milliseconds. The lines are written the same way as the
+ * {@code HistogramLogWriter} of HdrHistogram 2.1.10 and newer does, since the version we depend on cannot write tags.
+ */
+@Description(desc = "Publish the durations of every test as a tagged HdrHistogram interval log. Requires raw publishing.")
+public class HdrHistogramPublisher extends Publisher {
+    private static final Logger LOG = LoggerFactory.getLogger(HdrHistogramPublisher.class);
+
+    /**
+     * The default name of the file where the histograms are published
+     */
+    private static final String DEFAULT_FILE_PATH = "results.hlog";
+    private static final String DEFAULT_INTERVAL = "5s";
+
+    private static final String LOG_FORMAT_VERSION = "1.3";
+    private static final double MAX_VALUE_UNIT_RATIO = 1000000.0;
+
+    private final TreeMap<Long, Map<String, Histogram>> openIntervals = new TreeMap<>();
+    private final Deque<Histogram> freeHistograms = new ArrayDeque<>();
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(1 << 12);
+    private Writer writer;
+    private String filePath = DEFAULT_FILE_PATH;
+    private String interval = DEFAULT_INTERVAL;
+    private long intervalMillis = GlobalArgs.parseDurationToSeconds(DEFAULT_INTERVAL) * 1000;
+    private long baseTime;
+    private long lastInterval = Long.MIN_VALUE;
+
+    public HdrHistogramPublisher() {
+        setAggregatedPublish("false");
+    }
+
+    @ConfigArgSet(required = false, desc = "The filename to write the histograms to", defaultValue = DEFAULT_FILE_PATH)
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    @ConfigArgGet
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_INTERVAL, desc = "The length of the intervals of the histograms."
+            + " Can be expressed in s(econds), m(inutes), h(ours). Example: 1m30s.")
+    public void setInterval(String interval) {
+        long seconds = GlobalArgs.parseDurationToSeconds(interval);
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("The interval of the histograms must be at least one second, got " + interval);
+        }
+        this.interval = interval;
+        this.intervalMillis = seconds * 1000;
+    }
+
+    @ConfigArgGet
+    public String getInterval() {
+        return interval;
+    }
+
+    @ConfigArgSet(required = false, defaultValue = "false", desc = "This publisher only uses the raw results")
+    public void setAggregatedPublish(String aggregatedPublish) {
+        super.setAggregatedPublish(aggregatedPublish);
+    }
+
+    @Override
+    protected void doPublishAggregatedIntermediate(Map<String, List<MetricResult>> results) {
+    }
+
+    @Override
+    protected void doPublishAggregatedFinal(Map<String, List<MetricResult>> results) {
+    }
+
+    @Override
+    protected void doPublishRaw(Collection<TestResult> testResults) {
+        try {
+            if (writer == null) {
+                long now = System.currentTimeMillis();
+                baseTime = now;
+                for (TestResult testResult : testResults) {
+                    baseTime = Math.min(baseTime, testResult.getStartTimestamp() > 0 ? testResult.getStartTimestamp() : now);
+                }
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath), StandardCharsets.UTF_8));
+                writeHeader();
+            }
+
+            for (TestResult testResult : testResults) {
+                if (testResult.getStatus() != TestResult.Status.PASSED || testResult.getDurationNano() < 0) {
+                    continue;
+                }
+                long index = Math.floorDiv(testResult.getEndTimestamp() - baseTime, intervalMillis);
+                lastInterval = Math.max(lastInterval, index);
+                histogram(index, testResult.getTestFullName()).recordValue(testResult.getDurationNano());
+            }
+
+            writeIntervalsBefore(lastInterval - 1);
+            writer.flush();
+        } catch (IOException e) {
+            LOG.error("Could not publish histograms", e);
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (writer != null) {
+            try {
+                writeIntervalsBefore(Long.MAX_VALUE);
+                writer.close();
+            } catch (IOException e) {
+                LOG.error("Could not publish histograms", e);
+            }
+        }
+    }
+
+    private Histogram histogram(long index, String testName) {
+        Map<String, Histogram> histograms = openIntervals.computeIfAbsent(index, key -> new LinkedHashMap<>());
+        Histogram histogram = histograms.get(testName);
+        if (histogram == null) {
+            histogram = freeHistograms.isEmpty() ? new Histogram(3) : freeHistograms.pop();
+            histograms.put(testName, histogram);
+        }
+        return histogram;
+    }
+
+    /*
+        Writes and releases the histograms of the intervals that start before the given one, oldest first.
+     */
+    private void writeIntervalsBefore(long index) throws IOException {
+        Iterator<Map.Entry<Long, Map<String, Histogram>>> intervals = openIntervals.headMap(index).entrySet().iterator();
+        while (intervals.hasNext()) {
+            Map.Entry<Long, Map<String, Histogram>> entry = intervals.next();
+            long start = baseTime + entry.getKey() * intervalMillis;
+            for (Map.Entry<String, Histogram> histogram : entry.getValue().entrySet()) {
+                writeInterval(tag(histogram.getKey()), histogram.getValue(), start, start + intervalMillis);
+                histogram.getValue().reset();
+                freeHistograms.push(histogram.getValue());
+            }
+            intervals.remove();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        writer.write("#[Histogram log format version " + LOG_FORMAT_VERSION + "]\n");
+        writer.write(String.format(Locale.US, "#[StartTime: %.3f (seconds since epoch), %s]\n",
+                baseTime / 1000.0, new Date(baseTime)));
+        writer.write(String.format(Locale.US, "#[BaseTime: %.3f (seconds since epoch)]\n", baseTime / 1000.0));
+        writer.write("\"StartTimestamp\",\"Interval_Length\",\"Interval_Max\",\"Interval_Compressed_Histogram\"\n");
+    }
+
+    private void writeInterval(String tag, Histogram histogram, long start, long end) throws IOException {
+        int capacity = histogram.getNeededByteBufferCapacity();
+        if (encodeBuffer.capacity() < capacity) {
+            encodeBuffer = ByteBuffer.allocate(capacity);
+        }
+        encodeBuffer.clear();
+        int length = histogram.encodeIntoCompressedByteBuffer(encodeBuffer);
+        String encoded = Base64.getEncoder().encodeToString(Arrays.copyOf(encodeBuffer.array(), length));
+
+        writer.write(String.format(Locale.US, "Tag=%s,%.3f,%.3f,%.3f,%s\n", tag,
+                (start - baseTime) / 1000.0, (end - start) / 1000.0,
+                histogram.getMaxValue() / MAX_VALUE_UNIT_RATIO, encoded));
+    }
+
+    /*
+        The log readers split the lines on commas and whitespace, so these cannot be part of a tag.
+     */
+    static String tag(String testName) {
+        return testName.replaceAll("[\\s,]", "_");
+    }
+}
@@ -0,0 +1,57 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.api.core.benchmark.PhasedData;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Writes the columns of the raw results with the phases of the http requests, as reported through
+ * {@link PhasedData}. The durations are written in milliseconds and the columns of the phases that were not measured
+ * are left empty. Not thread safe, one instance is reused for all the rows of a file.
+ */
+public final class PhaseColumns {
+    private static final List<String> PHASES = PhasedData.HTTP_PHASES;
+    private static final double ONE_MILLION_D = 1000 * 1000.0d;
+
+    private final long[] nanos = new long[PHASES.size()];
+    private final boolean[] measured = new boolean[PHASES.size()];
+    private final ObjLongConsumer<String> collector = this::collect;
+
+    /**
+     * Appends a comma followed by the value of every column.
+     * @param data the data of the result, the columns are empty unless it is {@link PhasedData}
+     */
+    public void append(StringBuilder out, Object data) {
+        Arrays.fill(measured, false);
+        if (data instanceof PhasedData) {
+            ((PhasedData) data).forEachPhase(collector);
+        }
+        for (int i = 0; i < nanos.length; i++) {
+            out.append(',');
+            if (measured[i]) {
+                out.append(nanos[i] / ONE_MILLION_D);
+            }
+        }
+    }
+
+    private void collect(String phase, long durationNano) {
+        int index = PHASES.indexOf(phase);
+        if (index >= 0) {
+            nanos[index] = durationNano;
+            measured[index] = true;
+        }
+    }
+}
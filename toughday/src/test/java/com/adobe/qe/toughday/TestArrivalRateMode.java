@@ -0,0 +1,133 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday;
+
+import com.adobe.qe.toughday.internal.core.Timestamp;
+import com.adobe.qe.toughday.internal.core.config.Configuration;
+import com.adobe.qe.toughday.internal.core.engine.Engine;
+import com.adobe.qe.toughday.internal.core.engine.runmodes.ArrivalRate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TestArrivalRateMode {
+    private ArrayList<String> cmdLineArgs;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Before
+    public void before() {
+        cmdLineArgs = new ArrayList<>(Collections.singletonList("--host=localhost"));
+    }
+
+    @Test
+    public void testDefault() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=arrivalrate"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(configuration.getRunMode().getClass(), ArrivalRate.class);
+        Assert.assertEquals(50, ((ArrivalRate) configuration.getRunMode()).getRate(), 0);
+        Assert.assertEquals("uniform", ((ArrivalRate) configuration.getRunMode()).getDistribution());
+    }
+
+    @Test
+    public void testFractionalRate() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--duration=20s", "--runmode", "type=arrivalrate", "rate=0.5"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(0.5, ((ArrivalRate) configuration.getRunMode()).getRate(), 0);
+    }
+
+    @Test
+    public void testPoissonDistribution() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=arrivalrate", "rate=2500", "distribution=poisson"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(2500, ((ArrivalRate) configuration.getRunMode()).getRate(), 0);
+        Assert.assertEquals("poisson", ((ArrivalRate) configuration.getRunMode()).getDistribution());
+    }
+
+    @Test
+    public void testUnknownDistribution() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=arrivalrate", "distribution=gaussian"));
+        try {
+            new Configuration(cmdLineArgs.toArray(new String[0]));
+            Assert.fail("Unknown distributions should not be accepted.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testNegativeRate() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=arrivalrate", "rate=-2"));
+        try {
+            new Configuration(cmdLineArgs.toArray(new String[0]));
+            Assert.fail("Rate should not be negative.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testStartEnd() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--duration=20s", "--runmode", "type=arrivalrate", "start=0.5", "end=1000"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(0.5, ((ArrivalRate) configuration.getRunMode()).getStart(), 0);
+        Assert.assertEquals(1000, ((ArrivalRate) configuration.getRunMode()).getEnd(), 0);
+    }
+
+    @Test
+    public void testStartEndRate() {
+        cmdLineArgs.addAll(Arrays.asList("--duration=20s", "--runmode", "type=arrivalrate", "start=10", "end=50", "rate=40"));
+        try {
+            Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+            configuration.getRunMode().runTests(new Engine(configuration));
+            Assert.fail("Should not be able to have both start/end and rate.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testOnlyStart() {
+        cmdLineArgs.addAll(Arrays.asList("--duration=20s", "--runmode", "type=arrivalrate", "start=10"));
+        try {
+            Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+            configuration.getRunMode().runTests(new Engine(configuration));
+            Assert.fail("Should not be able to have only one of start/end.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @After
+    public void after() {
+        new File("toughday_" + Timestamp.START_TIME + ".yaml").delete();
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
@@ -11,23 +11,52 @@ governing permissions and limitations under the License.
 */
 package com.adobe.qe.toughday;
 
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.RunnersContainer;
+import com.adobe.qe.toughday.internal.core.TestSuite;
 import com.adobe.qe.toughday.internal.core.Timestamp;
 import com.adobe.qe.toughday.internal.core.config.Configuration;
+import com.adobe.qe.toughday.internal.core.engine.AsyncTestWorker;
 import com.adobe.qe.toughday.internal.core.engine.Engine;
+import com.adobe.qe.toughday.internal.core.engine.Phase;
+import com.adobe.qe.toughday.internal.core.engine.TestSelector;
+import com.adobe.qe.toughday.internal.core.engine.WorkerExitLatch;
+import com.adobe.qe.toughday.internal.core.engine.publishmodes.Simple;
 import com.adobe.qe.toughday.internal.core.engine.runmodes.ConstantLoad;
+import com.adobe.qe.toughday.mocks.MockCountingTest;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
 import org.junit.*;
+import org.mockito.Mockito;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TestConstantLoadMode {
     private ArrayList<String> cmdLineArgs;
+    private final AtomicInteger executions = new AtomicInteger();
+    private final Simple publishMode = new Simple();
+    private AbstractTest countingTest;
+    private final List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+    private final AbstractAppender warningsAppender = new AbstractAppender("warnings", null, null) {
+        @Override
+        public void append(LogEvent event) {
+            if (event.getLevel() == Level.WARN) {
+                warnings.add(event.getMessage().getFormattedMessage());
+            }
+        }
+    };
 
     @BeforeClass
     public static void onlyOnce() {
@@ -38,6 +67,48 @@ public class TestConstantLoadMode {
     @Before
     public void before() {
         cmdLineArgs = new ArrayList<>(Collections.singletonList("--host=localhost"));
+        warningsAppender.start();
+        ((Logger) LogManager.getLogger(ConstantLoad.class)).addAppender(warningsAppender);
+    }
+
+    /* Runs the configured constant load with a test that counts its executions, outside of the engine. */
+    private ConstantLoad runCountingTest(Semaphore permits, String... runModeArgs) throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=constantload"));
+        cmdLineArgs.addAll(Arrays.asList(runModeArgs));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+        ConstantLoad runMode = (ConstantLoad) configuration.getRunMode();
+
+        AbstractTest test = new MockCountingTest(executions, permits);
+        countingTest = test;
+        RunnersContainer.getInstance().addRunner(test);
+        TestSelector testSelector = Mockito.mock(TestSelector.class);
+        Mockito.when(testSelector.next()).thenReturn(test);
+        Phase phase = Mockito.mock(Phase.class);
+        Mockito.when(phase.getTestSuite()).thenReturn(new TestSuite().add(test));
+        Mockito.when(phase.getTestSelector()).thenReturn(testSelector);
+        Mockito.when(phase.getMeasurable()).thenReturn(true);
+        Mockito.when(phase.getPublishMode()).thenReturn(publishMode);
+        Engine engine = Mockito.mock(Engine.class);
+        Mockito.when(engine.getCurrentPhase()).thenReturn(phase);
+
+        runMode.runTests(engine);
+        return runMode;
+    }
+
+    private void awaitExecutions(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executions.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue("Expected " + count + " executions, got " + executions.get(), executions.get() >= count);
+    }
+
+    private void awaitWarning() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (warnings.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse("Expected a warning", warnings.isEmpty());
     }
 
     @Test
@@ -140,8 +211,97 @@ public class TestConstantLoadMode {
         Assert.assertEquals(((ConstantLoad)configuration.getRunMode()).getInterval(), 60);
     }
 
+    @Test
+    public void testCtLoadWorkers() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=constantload", "load=100", "workers=20"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(configuration.getRunMode().getClass(), ConstantLoad.class);
+        Assert.assertEquals(((ConstantLoad)configuration.getRunMode()).getLoad(), 100);
+        Assert.assertEquals(((ConstantLoad)configuration.getRunMode()).getWorkers(), 20);
+    }
+
+    @Test
+    public void testCtLoadNegativeWorkers() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=constantload", "workers=-5"));
+        try {
+            new Configuration(cmdLineArgs.toArray(new String[0]));
+            Assert.fail("The number of workers should not be negative.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCtLoadZeroWorkers() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=constantload", "workers=0"));
+        try {
+            new Configuration(cmdLineArgs.toArray(new String[0]));
+            Assert.fail("There should be at least one worker.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testRoundsRunTheLoad() throws Exception {
+        ConstantLoad runMode = runCountingTest(null, "load=5");
+        try {
+            Assert.assertEquals(5, runMode.getRunContext().getTestWorkers().size());
+            Assert.assertEquals(5, runMode.getRunContext().getRunMaps().size());
+
+            awaitExecutions(5);
+            // the next round starts a second after the first one
+            Thread.sleep(300);
+            Assert.assertEquals(5, executions.get());
+            awaitExecutions(10);
+        } finally {
+            runMode.finishExecutionAndAwait();
+        }
+        Assert.assertTrue(warnings.isEmpty());
+    }
+
+    @Test
+    public void testExecutionsDroppedWithoutFreeWorkers() throws Exception {
+        Semaphore permits = new Semaphore(0);
+        ConstantLoad runMode = runCountingTest(permits, "load=4", "workers=1");
+        try {
+            Assert.assertEquals(1, runMode.getRunContext().getTestWorkers().size());
+
+            // the worker is busy with the first execution and at most one more is queued for it
+            awaitWarning();
+            permits.release(4);
+            awaitExecutions(1);
+            Thread.sleep(300);
+            Assert.assertTrue("Dropped executions were run", executions.get() <= 2);
+            // the first round drops the two executions that neither run nor wait for the worker
+            Assert.assertTrue(publishMode.getRunMap().getRecord(countingTest).getDroppedResults() >= 2);
+        } finally {
+            permits.release(100);
+            runMode.finishExecutionAndAwait();
+        }
+        Assert.assertEquals(Collections.singletonList(
+                "The desired load could not be achieved. There are not enough workers to keep up with it."), warnings);
+    }
+
+    @Test
+    public void testIdleWorkersExit() throws Exception {
+        ConstantLoad runMode = runCountingTest(null, "load=3");
+        awaitExecutions(3);
+
+        long start = System.currentTimeMillis();
+        runMode.finishExecutionAndAwait();
+        // the idle workers are woken up instead of waiting for the grace period
+        Assert.assertTrue(System.currentTimeMillis() - start < WorkerExitLatch.GRACE_PERIOD_MILLIS);
+        for (AsyncTestWorker worker : runMode.getRunContext().getTestWorkers()) {
+            Assert.assertTrue(worker.hasExited());
+        }
+        Assert.assertTrue(runMode.getRunContext().isRunFinished());
+    }
+
     @After
     public void after() {
+        ((Logger) LogManager.getLogger(ConstantLoad.class)).removeAppender(warningsAppender);
         new File("toughday_" + Timestamp.START_TIME + ".yaml").delete();
     }
 
@@ -0,0 +1,185 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday;
+
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.RunnersContainer;
+import com.adobe.qe.toughday.internal.core.TestSuite;
+import com.adobe.qe.toughday.internal.core.Timestamp;
+import com.adobe.qe.toughday.internal.core.config.Configuration;
+import com.adobe.qe.toughday.internal.core.engine.Engine;
+import com.adobe.qe.toughday.internal.core.engine.Phase;
+import com.adobe.qe.toughday.internal.core.engine.TestSelector;
+import com.adobe.qe.toughday.internal.core.engine.publishmodes.Simple;
+import com.adobe.qe.toughday.internal.core.engine.runmodes.NonBlocking;
+import com.adobe.qe.toughday.mocks.MockAsyncTest;
+import com.adobe.qe.toughday.mocks.MockCountingTest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.*;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestNonBlockingMode {
+    private ArrayList<String> cmdLineArgs;
+    private final AtomicInteger executions = new AtomicInteger();
+    private NonBlocking runMode;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Before
+    public void before() {
+        cmdLineArgs = new ArrayList<>(Collections.singletonList("--host=localhost"));
+    }
+
+    /* Runs the configured non blocking mode with the given test, outside of the engine. */
+    private NonBlocking run(AbstractTest test, String... args) throws Exception {
+        cmdLineArgs.addAll(Arrays.asList(args));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+        runMode = (NonBlocking) configuration.getRunMode();
+
+        test.setGlobalArgs(configuration.getGlobalArgs());
+        RunnersContainer.getInstance().addRunner(test);
+        TestSelector testSelector = Mockito.mock(TestSelector.class);
+        Mockito.when(testSelector.next()).thenReturn(test);
+        Phase phase = Mockito.mock(Phase.class);
+        Mockito.when(phase.getTestSuite()).thenReturn(new TestSuite().add(test));
+        Mockito.when(phase.getTestSelector()).thenReturn(testSelector);
+        Mockito.when(phase.getMeasurable()).thenReturn(true);
+        Mockito.when(phase.getPublishMode()).thenReturn(new Simple());
+        Engine engine = Mockito.mock(Engine.class);
+        Mockito.when(engine.getCurrentPhase()).thenReturn(phase);
+        Mockito.when(engine.getGlobalArgs()).thenReturn(configuration.getGlobalArgs());
+
+        runMode.runTests(engine);
+        return runMode;
+    }
+
+    private void awaitExecutions(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executions.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue("Expected " + count + " executions, got " + executions.get(), executions.get() >= count);
+    }
+
+    private void assertStops() throws InterruptedException {
+        runMode.finishExecutionAndAwait();
+        int stopped = executions.get();
+        Thread.sleep(100);
+        Assert.assertEquals(stopped, executions.get());
+    }
+
+    @Test
+    public void testDefault() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=nonblocking"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(configuration.getRunMode().getClass(), NonBlocking.class);
+        Assert.assertEquals(1000, ((NonBlocking) configuration.getRunMode()).getConcurrency());
+        Assert.assertEquals(300, ((NonBlocking) configuration.getRunMode()).getWaitTime());
+    }
+
+    @Test
+    public void testConcurrencyAndWaitTime() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--duration=20s", "--runmode", "type=nonblocking", "concurrency=20000", "waittime=0"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(20000, ((NonBlocking) configuration.getRunMode()).getConcurrency());
+        Assert.assertEquals(0, ((NonBlocking) configuration.getRunMode()).getWaitTime());
+    }
+
+    @Test
+    public void testNegativeConcurrency() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=nonblocking", "concurrency=-1"));
+        try {
+            new Configuration(cmdLineArgs.toArray(new String[0]));
+            Assert.fail("Concurrency should not be negative.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testNegativeWaitTime() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=nonblocking", "waittime=-1"));
+        try {
+            new Configuration(cmdLineArgs.toArray(new String[0]));
+            Assert.fail("Wait time should not be negative.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testHttpsIsRejected() throws Exception {
+        try {
+            run(new MockAsyncTest(executions, false), "--protocol=https", "--runmode", "type=nonblocking", "concurrency=1");
+            Assert.fail("The nonblocking mode should not accept https.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("https"));
+        }
+        Assert.assertEquals(0, executions.get());
+    }
+
+    @Test
+    public void testBlockingTestsAreRejected() throws Exception {
+        try {
+            run(new MockCountingTest(executions, null), "--runmode", "type=nonblocking", "concurrency=1");
+            Assert.fail("The nonblocking mode should only run asynchronous tests.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("asynchronous"));
+        }
+        Assert.assertEquals(0, executions.get());
+    }
+
+    @Test
+    public void testUsersRunTheTests() throws Exception {
+        run(new MockAsyncTest(executions, false), "--runmode", "type=nonblocking", "concurrency=50", "waittime=10");
+
+        // every user runs again once its execution completed and it waited
+        awaitExecutions(150);
+        assertStops();
+    }
+
+    @Test
+    public void testTimedOutExecutionsReleaseTheUsers() throws Exception {
+        run(new MockAsyncTest(executions, true), "--timeout=1", "--runmode", "type=nonblocking", "concurrency=3", "waittime=10");
+
+        // the futures never complete, the users only go on because the executions time out
+        awaitExecutions(6);
+        assertStops();
+    }
+
+    @After
+    public void after() {
+        if (runMode != null) {
+            runMode.finishExecutionAndAwait();
+        }
+        new File("toughday_" + Timestamp.START_TIME + ".yaml").delete();
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
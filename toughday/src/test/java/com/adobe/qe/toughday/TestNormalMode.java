@@ -14,6 +14,7 @@ package com.adobe.qe.toughday;
 import com.adobe.qe.toughday.internal.core.Timestamp;
 import com.adobe.qe.toughday.internal.core.config.Configuration;
 import com.adobe.qe.toughday.internal.core.engine.Engine;
+import com.adobe.qe.toughday.internal.core.engine.ExecutorStrategy;
 import com.adobe.qe.toughday.internal.core.engine.runmodes.Normal;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.LoggerContext;
@@ -23,6 +24,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -141,6 +143,31 @@ public class TestNormalMode {
         Assert.assertEquals(runMode.getInterval(), 60000);
     }
 
+    @Test
+    public void testExecutor() throws Exception {
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+        Assert.assertEquals("platform", ((Normal)configuration.getRunMode()).getExecutor());
+
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=normal", "executor=virtual"));
+        configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+        Assert.assertEquals("virtual", ((Normal)configuration.getRunMode()).getExecutor());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testUnknownExecutor() {
+        new Normal().setExecutor("green");
+    }
+
+    @Test
+    public void testExecutorFallback() {
+        ExecutorService executorService = ExecutorStrategy.VIRTUAL.newExecutor();
+        try {
+            Assert.assertEquals(!ExecutorStrategy.isVirtualThreadsSupported(), executorService instanceof ThreadPoolExecutor);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
     @After
     public void after() {
         new File("toughday_" + Timestamp.START_TIME + ".yaml").delete();
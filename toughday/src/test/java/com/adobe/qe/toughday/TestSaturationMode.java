@@ -0,0 +1,106 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday;
+
+import com.adobe.qe.toughday.internal.core.Timestamp;
+import com.adobe.qe.toughday.internal.core.config.Configuration;
+import com.adobe.qe.toughday.internal.core.engine.Engine;
+import com.adobe.qe.toughday.internal.core.engine.runmodes.Saturation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TestSaturationMode {
+    private ArrayList<String> cmdLineArgs;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Before
+    public void before() {
+        cmdLineArgs = new ArrayList<>(Collections.singletonList("--host=localhost"));
+    }
+
+    @Test
+    public void testDefault() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=saturation"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(configuration.getRunMode().getClass(), Saturation.class);
+        Saturation saturation = (Saturation) configuration.getRunMode();
+        Assert.assertEquals(1, saturation.getMinRate(), 0);
+        Assert.assertEquals(1000, saturation.getMaxRate(), 0);
+        Assert.assertEquals(10, saturation.getStep());
+        Assert.assertEquals(99, saturation.getPercentile(), 0);
+        Assert.assertEquals(1000, saturation.getMaxLatency());
+        Assert.assertEquals(1, saturation.getMaxErrorRate(), 0);
+        Assert.assertEquals("uniform", saturation.getDistribution());
+    }
+
+    @Test
+    public void testSlo() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=saturation", "minrate=0.5", "maxrate=200", "step=1m",
+                "percentile=99.9", "maxlatency=250", "maxerrorrate=0.1", "distribution=poisson"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Saturation saturation = (Saturation) configuration.getRunMode();
+        Assert.assertEquals(0.5, saturation.getMinRate(), 0);
+        Assert.assertEquals(200, saturation.getMaxRate(), 0);
+        Assert.assertEquals(60, saturation.getStep());
+        Assert.assertEquals(99.9, saturation.getPercentile(), 0);
+        Assert.assertEquals(250, saturation.getMaxLatency());
+        Assert.assertEquals(0.1, saturation.getMaxErrorRate(), 0);
+        Assert.assertEquals("poisson", saturation.getDistribution());
+    }
+
+    @Test
+    public void testInvalidPercentile() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=saturation", "percentile=120"));
+        try {
+            new Configuration(cmdLineArgs.toArray(new String[0]));
+            Assert.fail("The percentile should not be greater than 100.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testMinRateGreaterThanMaxRate() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=saturation", "minrate=100", "maxrate=10"));
+        try {
+            Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+            configuration.getRunMode().runTests(new Engine(configuration));
+            Assert.fail("Should not be able to have minrate greater than maxrate.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @After
+    public void after() {
+        new File("toughday_" + Timestamp.START_TIME + ".yaml").delete();
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
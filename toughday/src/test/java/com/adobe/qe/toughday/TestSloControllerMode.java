@@ -0,0 +1,114 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday;
+
+import com.adobe.qe.toughday.internal.core.Timestamp;
+import com.adobe.qe.toughday.internal.core.config.Configuration;
+import com.adobe.qe.toughday.internal.core.engine.Engine;
+import com.adobe.qe.toughday.internal.core.engine.runmodes.SloController;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TestSloControllerMode {
+    private ArrayList<String> cmdLineArgs;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Before
+    public void before() {
+        cmdLineArgs = new ArrayList<>(Collections.singletonList("--host=localhost"));
+    }
+
+    @Test
+    public void testDefault() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=slocontroller"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        Assert.assertEquals(configuration.getRunMode().getClass(), SloController.class);
+        SloController controller = (SloController) configuration.getRunMode();
+        Assert.assertEquals(500, controller.getTargetLatency());
+        Assert.assertEquals(95, controller.getPercentile(), 0);
+        Assert.assertEquals(10, controller.getInterval());
+        Assert.assertEquals(3, controller.getWindow());
+        Assert.assertEquals(10, controller.getInitialRate(), 0);
+        Assert.assertEquals(1, controller.getMinRate(), 0);
+        Assert.assertEquals(1000, controller.getMaxRate(), 0);
+        Assert.assertEquals(20, controller.getMaxChange(), 0);
+        Assert.assertEquals("slo_controller.csv", controller.getDecisionsFile());
+    }
+
+    @Test
+    public void testController() throws Exception {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=slocontroller", "targetlatency=200", "percentile=99",
+                "interval=1m", "window=5", "initialrate=50", "minrate=0.5", "maxrate=500", "kp=0.1", "ki=0.2",
+                "kd=0", "maxchange=10", "decisionsfile=decisions.csv"));
+        Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+
+        SloController controller = (SloController) configuration.getRunMode();
+        Assert.assertEquals(200, controller.getTargetLatency());
+        Assert.assertEquals(99, controller.getPercentile(), 0);
+        Assert.assertEquals(60, controller.getInterval());
+        Assert.assertEquals(5, controller.getWindow());
+        Assert.assertEquals(50, controller.getInitialRate(), 0);
+        Assert.assertEquals(0.5, controller.getMinRate(), 0);
+        Assert.assertEquals(500, controller.getMaxRate(), 0);
+        Assert.assertEquals(0.1, controller.getKp(), 0);
+        Assert.assertEquals(0.2, controller.getKi(), 0);
+        Assert.assertEquals(0, controller.getKd(), 0);
+        Assert.assertEquals(10, controller.getMaxChange(), 0);
+        Assert.assertEquals("decisions.csv", controller.getDecisionsFile());
+    }
+
+    @Test
+    public void testInvalidMaxChange() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=slocontroller", "maxchange=100"));
+        try {
+            new Configuration(cmdLineArgs.toArray(new String[0]));
+            Assert.fail("The rate should not be allowed to drop to zero in one adjustment.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testMinRateGreaterThanMaxRate() {
+        cmdLineArgs.addAll(Arrays.asList("--runmode", "type=slocontroller", "minrate=100", "maxrate=10"));
+        try {
+            Configuration configuration = new Configuration(cmdLineArgs.toArray(new String[0]));
+            configuration.getRunMode().runTests(new Engine(configuration));
+            Assert.fail("Should not be able to have minrate greater than maxrate.");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @After
+    public void after() {
+        new File("toughday_" + Timestamp.START_TIME + ".yaml").delete();
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
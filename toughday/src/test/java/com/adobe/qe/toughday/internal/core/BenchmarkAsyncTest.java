@@ -0,0 +1,132 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core;
+
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.SkippedTestException;
+import com.adobe.qe.toughday.api.core.benchmark.Benchmark;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.api.core.config.GlobalArgs;
+import com.adobe.qe.toughday.api.core.runnermocks.MockTest;
+import com.adobe.qe.toughday.internal.core.benckmark.AdHocTest;
+import com.adobe.qe.toughday.internal.core.benckmark.BenchmarkImpl;
+import com.adobe.qe.toughday.mocks.MockRunMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class BenchmarkAsyncTest {
+    private static final String STEP_NAME = "STEP_NAME";
+    private static final Object RETURN_VALUE = "RETURN_VALUE";
+    private static final Throwable FAIL_EXCEPTION = new Exception();
+    private static final SkippedTestException SKIP_EXCEPTION = new SkippedTestException(new Exception());
+
+    private Benchmark benchmark;
+    private MockRunMap runMap;
+    private AbstractTest test;
+
+    @Before
+    public void before() {
+        benchmark = new BenchmarkImpl();
+        runMap = new MockRunMap();
+        benchmark.setRunMap(runMap);
+        test = new MockTest();
+        test.setGlobalArgs(Mockito.mock(GlobalArgs.class));
+    }
+
+    @Test
+    public void testRecordedOnCompletion() throws Exception {
+        CompletableFuture<Object> operation = new CompletableFuture<>();
+        CompletableFuture<Object> measured = benchmark.measureAsync(test, STEP_NAME,
+                (TestResult<Object> testResult) -> operation);
+
+        Assert.assertTrue("Nothing should be recorded before the operation completes", runMap.getResults().isEmpty());
+        operation.complete(RETURN_VALUE);
+
+        Assert.assertEquals(RETURN_VALUE, measured.get());
+        Assert.assertEquals(1, runMap.getResults().size());
+        TestResult result = runMap.getResults().get(0);
+        Assert.assertEquals(TestResult.Status.PASSED, result.getStatus());
+        Assert.assertTrue(result.getTest() instanceof AdHocTest);
+        Assert.assertEquals(STEP_NAME, result.getTest().getName());
+    }
+
+    @Test
+    public void testFailedOperation() throws Exception {
+        CompletableFuture<Object> operation = new CompletableFuture<>();
+        CompletableFuture<Object> measured = benchmark.measureAsync(test, (TestResult<Object> testResult) -> operation);
+        operation.completeExceptionally(FAIL_EXCEPTION);
+
+        try {
+            measured.get();
+            Assert.fail("The failure should be propagated");
+        } catch (ExecutionException e) {
+            Assert.assertSame(FAIL_EXCEPTION, e.getCause());
+        }
+        TestResult result = runMap.getResults().get(0);
+        Assert.assertEquals(TestResult.Status.FAILED, result.getStatus());
+        Assert.assertSame(FAIL_EXCEPTION, result.getFailCause());
+    }
+
+    @Test
+    public void testSkippedOperation() {
+        CompletableFuture<Object> measured = benchmark.measureAsync(test, (TestResult<Object> testResult) -> {
+            throw SKIP_EXCEPTION;
+        });
+
+        Assert.assertTrue(measured.isCompletedExceptionally());
+        TestResult result = runMap.getResults().get(0);
+        Assert.assertEquals(TestResult.Status.SKIPPED, result.getStatus());
+        Assert.assertSame(SKIP_EXCEPTION, result.getSkippedCause());
+    }
+
+    @Test
+    public void testRunMapCapturedAtStart() throws Exception {
+        CompletableFuture<Object> operation = new CompletableFuture<>();
+        CompletableFuture<Object> measured = benchmark.measureAsync(test, (TestResult<Object> testResult) -> operation);
+
+        MockRunMap otherRunMap = new MockRunMap();
+        benchmark.setRunMap(otherRunMap);
+        operation.complete(RETURN_VALUE);
+        measured.get();
+
+        Assert.assertEquals(1, runMap.getResults().size());
+        Assert.assertTrue(otherRunMap.getResults().isEmpty());
+    }
+
+    @Test
+    public void testCancelledOperationsAreNotRecorded() throws Exception {
+        CompletableFuture<Object> operation = new CompletableFuture<>();
+        CompletableFuture<Object> measured = benchmark.measureAsync(test, STEP_NAME,
+                (TestResult<Object> testResult) -> operation);
+        CompletableFuture<Object> finished = new CompletableFuture<>();
+        benchmark.measureAsync(test, (TestResult<Object> testResult) -> finished);
+        finished.complete(RETURN_VALUE);
+
+        benchmark.cancelAsync();
+        Assert.assertTrue(operation.isCancelled());
+        Assert.assertTrue(measured.isCompletedExceptionally());
+        // only the operation that completed before the cancellation was recorded
+        Assert.assertEquals(1, runMap.getResults().size());
+        Assert.assertFalse(runMap.getResults().get(0).getTest() instanceof AdHocTest);
+
+        // the benchmark is still usable afterwards
+        CompletableFuture<Object> next = new CompletableFuture<>();
+        benchmark.measureAsync(test, (TestResult<Object> testResult) -> next);
+        next.complete(RETURN_VALUE);
+        Assert.assertEquals(2, runMap.getResults().size());
+    }
+}
@@ -52,6 +52,36 @@ public class GlobalArgsTest {
         globalArgs.setLogPath(".");
     }
 
+    @Test
+    public void testApiDefaultsMatchTheRunDefaults() {
+        com.adobe.qe.toughday.api.core.config.GlobalArgs apiDefaults = new com.adobe.qe.toughday.api.core.config.GlobalArgs() {
+            public long getDuration() { return 0; }
+            public long getTimeout() { return 0; }
+            public String getHost() { return null; }
+            public int getPort() { return 0; }
+            public String getUser() { return null; }
+            public String getPassword() { return null; }
+            public String getProtocol() { return null; }
+            public String getAuthMethod() { return null; }
+            public boolean getInstallSampleContent() { return false; }
+            public String getContextPath() { return null; }
+            public org.apache.logging.log4j.Level getLogLevel() { return null; }
+            public boolean getDryRun() { return false; }
+            public boolean getSaveConfig() { return false; }
+            public boolean getShowSteps() { return false; }
+            public boolean getHostValidationEnabled() { return false; }
+            public String getLogPath() { return null; }
+        };
+
+        Assert.assertEquals(globalArgs.getHttpMaxTotal(), apiDefaults.getHttpMaxTotal());
+        Assert.assertEquals(globalArgs.getHttpMaxPerRoute(), apiDefaults.getHttpMaxPerRoute());
+        Assert.assertEquals(globalArgs.getHttpKeepAlive(), apiDefaults.getHttpKeepAlive());
+        Assert.assertEquals(globalArgs.getHttpValidateAfterInactivity(), apiDefaults.getHttpValidateAfterInactivity());
+        Assert.assertEquals(globalArgs.getHttpSocketBuffer(), apiDefaults.getHttpSocketBuffer());
+        Assert.assertEquals(globalArgs.getHttpTcpNoDelay(), apiDefaults.getHttpTcpNoDelay());
+        Assert.assertEquals(globalArgs.getHttpResponseBody(), apiDefaults.getHttpResponseBody());
+    }
+
     @Test
     public void testDuration() {
         globalArgs.setDuration(GlobalArgs.DEFAULT_DURATION);
@@ -0,0 +1,157 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core;
+
+import com.adobe.qe.toughday.LogFileEraser;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.mocks.MockTest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RawResultsBufferTest {
+    private static AbstractTest test;
+
+    @BeforeClass
+    public static void beforeAll() {
+        System.setProperty("logFileName", ".");
+        test = new MockTest();
+    }
+
+    @Test
+    public void testCapacityRoundedToPowerOfTwo() {
+        Assert.assertEquals(8, new RawResultsBuffer(5, RawResultsBuffer.Policy.BLOCK).getCapacity());
+        Assert.assertEquals(1, new RawResultsBuffer(1, RawResultsBuffer.Policy.BLOCK).getCapacity());
+        Assert.assertEquals(16, new RawResultsBuffer(16, RawResultsBuffer.Policy.BLOCK).getCapacity());
+    }
+
+    @Test
+    public void testResultsKeepTheirOrder() {
+        RawResultsBuffer buffer = new RawResultsBuffer(4, RawResultsBuffer.Policy.DROP_NEWEST);
+        TestResult[] results = new TestResult[10];
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                results[i] = new TestResult(test);
+                Assert.assertTrue(buffer.offer(results[i]));
+            }
+            Assert.assertEquals(3, buffer.snapshot().size());
+            List<TestResult> drained = buffer.drain();
+            Assert.assertEquals(3, drained.size());
+            for (int i = 0; i < 3; i++) {
+                Assert.assertSame(results[i], drained.get(i));
+            }
+            Assert.assertNull(buffer.poll());
+        }
+    }
+
+    @Test
+    public void testDropNewest() {
+        RawResultsBuffer buffer = new RawResultsBuffer(4, RawResultsBuffer.Policy.DROP_NEWEST);
+        TestResult first = new TestResult(test);
+        Assert.assertTrue(buffer.offer(first));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(buffer.offer(new TestResult(test)));
+        }
+
+        Assert.assertFalse(buffer.offer(new TestResult(test)));
+        Assert.assertEquals(1, buffer.getDroppedCount());
+        Assert.assertSame(first, buffer.poll());
+        Assert.assertTrue(buffer.offer(new TestResult(test)));
+    }
+
+    @Test
+    public void testSampleKeepsEverythingWhileBelowHalf() {
+        RawResultsBuffer buffer = new RawResultsBuffer(16, RawResultsBuffer.Policy.SAMPLE);
+        for (int i = 0; i < 8; i++) {
+            Assert.assertTrue(buffer.offer(new TestResult(test)));
+        }
+        for (int i = 0; i < 100; i++) {
+            buffer.offer(new TestResult(test));
+        }
+
+        Assert.assertEquals(16, buffer.size());
+        Assert.assertEquals(108 - 16, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void testBlockWaitsForRoom() throws InterruptedException {
+        RawResultsBuffer buffer = new RawResultsBuffer(2, RawResultsBuffer.Policy.BLOCK);
+        buffer.offer(new TestResult(test));
+        buffer.offer(new TestResult(test));
+
+        CountDownLatch added = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            buffer.offer(new TestResult(test));
+            added.countDown();
+        });
+        producer.start();
+
+        Assert.assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+        buffer.poll();
+        Assert.assertTrue(added.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, buffer.size());
+        Assert.assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void testDrainToLeavesWhatDoesNotFit() {
+        RawResultsBuffer source = new RawResultsBuffer(8, RawResultsBuffer.Policy.DROP_NEWEST);
+        RawResultsBuffer target = new RawResultsBuffer(4, RawResultsBuffer.Policy.DROP_NEWEST);
+        for (int i = 0; i < 6; i++) {
+            source.offer(new TestResult(test));
+        }
+
+        Assert.assertEquals(4, source.drainTo(target));
+        Assert.assertEquals(2, source.size());
+        Assert.assertEquals(4, target.size());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        final int THREADS = 8;
+        final int PER_THREAD = 10000;
+        RawResultsBuffer buffer = new RawResultsBuffer(1024, RawResultsBuffer.Policy.BLOCK);
+        Thread[] producers = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            producers[i] = new Thread(() -> {
+                for (int j = 0; j < PER_THREAD; j++) {
+                    buffer.offer(new TestResult(test));
+                }
+            });
+            producers[i].start();
+        }
+
+        int consumed = 0;
+        while (consumed < THREADS * PER_THREAD) {
+            consumed += buffer.drain().size();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assert.assertEquals(THREADS * PER_THREAD, consumed);
+        Assert.assertNull(buffer.poll());
+    }
+
+    @AfterClass
+    public static void deleteLogs()  {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
@@ -13,8 +13,12 @@ package com.adobe.qe.toughday.internal.core;
 
 import com.adobe.qe.toughday.LogFileEraser;
 import com.adobe.qe.toughday.api.core.*;
+import com.adobe.qe.toughday.api.core.benchmark.PhasedData;
 import com.adobe.qe.toughday.api.core.benchmark.TestResult;
 import com.adobe.qe.toughday.internal.core.benckmark.AdHocTest;
+import com.adobe.qe.toughday.metrics.Max;
+import com.adobe.qe.toughday.metrics.Percentile;
+import com.adobe.qe.toughday.metrics.PhaseTimePercentile;
 import com.adobe.qe.toughday.mocks.MockTest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.LoggerContext;
@@ -190,12 +194,12 @@ public class RunMapImplTest {
             Assert.assertEquals(1, testStatistics.getTotalRuns());
             Assert.assertEquals(0, testStatistics.getFailRuns());
             Assert.assertEquals(0, testStatistics.getSkippedRuns());
-            Assert.assertTrue(testStatistics.getMinDuration() >= 30 && testStatistics.getMinDuration() < 50);
-            Assert.assertTrue(testStatistics.getMaxDuration() >= 40 && testStatistics.getMaxDuration() < 50);
-            Assert.assertTrue(testStatistics.getAverageDuration() >= 40 && testStatistics.getAverageDuration() < 50);
-            Assert.assertTrue(testStatistics.getMedianDuration() >= 40 && testStatistics.getMedianDuration() < 50);
-            Assert.assertTrue(testStatistics.getTotalDuration() >= 40 && testStatistics.getTotalDuration() < 50);
-            Assert.assertTrue(testStatistics.getStandardDeviation() < 10);
+            Assert.assertTrue(millis(testStatistics.getMinDuration()) >= 30 && millis(testStatistics.getMinDuration()) < 50);
+            Assert.assertTrue(millis(testStatistics.getMaxDuration()) >= 40 && millis(testStatistics.getMaxDuration()) < 50);
+            Assert.assertTrue(millis(testStatistics.getAverageDuration()) >= 40 && millis(testStatistics.getAverageDuration()) < 50);
+            Assert.assertTrue(millis(testStatistics.getMedianDuration()) >= 40 && millis(testStatistics.getMedianDuration()) < 50);
+            Assert.assertTrue(millis(testStatistics.getTotalDuration()) >= 40 && millis(testStatistics.getTotalDuration()) < 50);
+            Assert.assertTrue(millis(testStatistics.getStandardDeviation()) < 10);
         } else if (status == TestResult.Status.FAILED) {
             Assert.assertEquals(0, testStatistics.getTotalRuns());
             Assert.assertEquals(1, testStatistics.getFailRuns());
@@ -394,8 +398,235 @@ public class RunMapImplTest {
         Assert.assertEquals(test1, cloneTests[0]);
         Assert.assertEquals(test2, cloneTests[1]);
         Assert.assertEquals(test3, cloneTests[2]);
-        Assert.assertEquals(0, clone.getCurrentTestResults().size());
         Assert.assertEquals(0, clone.getRecord(test1).getTotalRuns());
+        // the instances have no buffer of their own, they record into the one of the run map that created them
+        Assert.assertSame(runMap.getRawResults(), clone.getRawResults());
+        clone.record(createTestResult(test1, TestResult.Status.PASSED));
+        Assert.assertEquals(4, runMap.getCurrentTestResults().size());
+
+        // results of the instances which were not published yet are not discarded
+        runMap.reinitialize();
+        Assert.assertEquals(4, runMap.drainCurrentTestResults().size());
+    }
+
+    @Test
+    public void testSnapshotSince() throws InterruptedException {
+        AbstractTest test1 = new MockTest();
+        AbstractTest test2 = new MockTest();
+        runMap.record(createTestResult(test1, TestResult.Status.PASSED));
+        runMap.record(createTestResult(test2, TestResult.Status.FAILED));
+        RunMapImpl.Snapshot start = runMap.snapshot();
+
+        runMap.record(createTestResult(test1, TestResult.Status.PASSED));
+        runMap.record(createTestResult(test2, TestResult.Status.PASSED));
+        runMap.record(createTestResult(test2, TestResult.Status.FAILED));
+        runMap.record(createTestResult(test2, TestResult.Status.SKIPPED));
+        RunMapImpl.Snapshot interval = runMap.snapshot().since(start);
+
+        Assert.assertEquals(2, interval.getPassedRuns());
+        Assert.assertEquals(1, interval.getFailRuns());
+        Assert.assertTrue(interval.getResponseTimeAtPercentile(100) > 0);
+        // the results were recorded 40 ms apart
+        Assert.assertTrue(interval.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(4 * 40));
+
+        // the publish mode reinitializing the statistics does not cut the interval
+        runMap.reinitialize();
+        runMap.record(createTestResult(test1, TestResult.Status.PASSED));
+        interval = runMap.snapshot().since(start);
+        Assert.assertEquals(3, interval.getPassedRuns());
+        Assert.assertEquals(1, interval.getFailRuns());
+        Assert.assertTrue(interval.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(5 * 40));
+    }
+
+    @Test
+    public void testSnapshotSinceAcrossAggregations() throws InterruptedException {
+        AbstractTest test = new MockTest();
+        runMap.addTest(test);
+        RunMapImpl workerRunMap = (RunMapImpl) runMap.newInstance();
+        RunMapImpl.Snapshot start = runMap.snapshot();
+
+        workerRunMap.record(createTestResult(test, TestResult.Status.PASSED));
+        workerRunMap.record(createTestResult(test, TestResult.Status.FAILED));
+        runMap.aggregateAndReinitialize(workerRunMap);
+        runMap.reinitialize();
+
+        // a test that appears after the first snapshot is counted as well
+        AbstractTest newTest = new MockTest();
+        runMap.addTest(newTest);
+        workerRunMap.record(createTestResult(newTest, TestResult.Status.PASSED));
+        runMap.aggregateAndReinitialize(workerRunMap);
+
+        RunMapImpl.Snapshot interval = runMap.snapshot().since(start);
+        Assert.assertEquals(0, runMap.getRecord(test).getTotalRuns());
+        Assert.assertEquals(2, interval.getPassedRuns());
+        Assert.assertEquals(1, interval.getFailRuns());
+        Assert.assertTrue(interval.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(3 * 40));
+    }
+
+    @Test
+    public void testResponseTimeIncludesScheduleDelay() throws InterruptedException {
+        AbstractTest test = new MockTest();
+        runMap.addTest(test);
+
+        TestResult testResult = new TestResult(test)
+                .withScheduleDelay(TimeUnit.MILLISECONDS.toNanos(100))
+                .beginBenchmark();
+        Thread.sleep(40);
+        testResult.endBenchmark();
+        runMap.record(testResult);
+
+        RunMap.TestStatistics testStatistics = runMap.getRecord(test);
+        Assert.assertTrue(millis(testStatistics.getValueAtPercentile(100)) >= 40 && millis(testStatistics.getValueAtPercentile(100)) < 50);
+        Assert.assertTrue(millis(testStatistics.getResponseTimeAtPercentile(100)) >= 140 && millis(testStatistics.getResponseTimeAtPercentile(100)) < 150);
+    }
+
+    @Test
+    public void testResponseTimeCorrectedWithExpectedInterval() throws InterruptedException {
+        AbstractTest test = new MockTest();
+        runMap.addTest(test);
+        runMap.setExpectedInterval(10);
+
+        runMap.record(createTestResult(test, TestResult.Status.PASSED));
+
+        RunMap.TestStatistics testStatistics = runMap.getRecord(test);
+        // the service time is recorded once, the missing samples are only back-filled in the response time
+        Assert.assertEquals(1, testStatistics.getTotalRuns());
+        Assert.assertTrue(millis(testStatistics.getResponseTimeAtPercentile(0)) <= 20);
+        Assert.assertTrue(millis(testStatistics.getResponseTimeAtPercentile(100)) >= 40);
+    }
+
+    @Test
+    public void testAggregateWhileRecording() throws Exception {
+        RunMapImpl globalRunMap = new RunMapImpl();
+        AbstractTest test = new MockTest();
+        runMap.addTest(test);
+        globalRunMap.addTest(test);
+        TestResult passed = createTestResult(test, TestResult.Status.PASSED);
+        TestResult failed = createTestResult(test, TestResult.Status.FAILED);
+        final int TOTAL = 20000;
+        final int THREADS = 8;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executorService.submit(() -> {
+                for (int j = 0; j < TOTAL; j++) {
+                    runMap.record(j % 2 == 0 ? passed : failed);
+                }
+            }));
+        }
+
+        // the aggregator must neither block the writers, nor lose any of their records
+        boolean done = false;
+        while (!done) {
+            globalRunMap.aggregateAndReinitialize(runMap);
+            done = true;
+            for (Future<?> future : futures) {
+                done = done && future.isDone();
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+        globalRunMap.aggregateAndReinitialize(runMap);
+
+        Assert.assertEquals(THREADS * TOTAL / 2, globalRunMap.getRecord(test).getTotalRuns());
+        Assert.assertEquals(THREADS * TOTAL / 2, globalRunMap.getRecord(test).getFailRuns());
+        Assert.assertEquals(0, runMap.getRecord(test).getTotalRuns());
+        Assert.assertEquals(0, runMap.getRecord(test).getFailRuns());
+    }
+
+    @Test
+    public void testRecordDropped() throws InterruptedException {
+        AbstractTest test = new MockTest();
+        TestResult testResult = createTestResult(test, TestResult.Status.PASSED);
+        runMap.record(testResult);
+
+        // dropped later by a publisher, the result stays counted as a run
+        runMap.recordDropped(testResult);
+        Assert.assertEquals(1, runMap.getRecord(test).getTotalRuns());
+        Assert.assertEquals(1, runMap.getRecord(test).getDroppedResults());
+    }
+
+    @Test
+    public void testSharedRawResults() throws InterruptedException {
+        AbstractTest test = new MockTest();
+        runMap.addTest(test);
+        runMap.shareRawResults(new RawResultsBuffer(2, RawResultsBuffer.Policy.DROP_NEWEST));
+        RunMapImpl localRunMap = (RunMapImpl) runMap.newInstance();
+
+        for (int i = 0; i < 3; i++) {
+            localRunMap.record(createTestResult(test, TestResult.Status.PASSED));
+        }
+
+        // the local run map records directly in the buffer of the global one
+        Assert.assertEquals(2, runMap.getCurrentTestResults().size());
+        runMap.aggregateAndReinitialize(localRunMap);
+        Assert.assertEquals(3, runMap.getRecord(test).getTotalRuns());
+        Assert.assertEquals(1, runMap.getRecord(test).getDroppedResults());
+
+        // results of other instances which were not published yet are not discarded
+        runMap.reinitialize();
+        Assert.assertEquals(2, runMap.drainCurrentTestResults().size());
+        Assert.assertEquals(0, runMap.getCurrentTestResults().size());
+    }
+
+    @Test
+    public void testSubMillisecondAndLongDurations() {
+        AbstractTest test = new MockTest();
+        runMap.addTest(test);
+        RunMapImpl.TestEntry entry = (RunMapImpl.TestEntry) runMap.getRecord(test);
+
+        entry.recordRun(TimeUnit.MICROSECONDS.toNanos(250));
+        entry.recordRun(TimeUnit.HOURS.toNanos(2));
+
+        Percentile percentile = new Percentile();
+        percentile.setValue("0p");
+        percentile.setUnit("us");
+        Assert.assertEquals(250, (double) percentile.getValue(entry), 1);
+        Max max = new Max();
+        max.setUnit("s");
+        Assert.assertEquals(TimeUnit.HOURS.toSeconds(2), (double) max.getValue(entry), 10);
+    }
+
+    @Test
+    public void testPhaseHistograms() throws InterruptedException {
+        RunMapImpl globalRunMap = new RunMapImpl();
+        AbstractTest test = new MockTest();
+        runMap.addTest(test);
+        globalRunMap.addTest(test);
+
+        for (int i = 1; i <= 100; i++) {
+            long connectNano = TimeUnit.MILLISECONDS.toNanos(i);
+            PhasedData data = consumer -> {
+                consumer.accept("connect", connectNano);
+                consumer.accept("transfer", 2 * connectNano);
+            };
+            TestResult testResult = new TestResult(test).beginBenchmark();
+            testResult.endBenchmark();
+            runMap.record(testResult.withData(data));
+        }
+        // only the successful runs report their phases
+        runMap.record(createTestResult(test, TestResult.Status.FAILED)
+                .withData((PhasedData) consumer -> consumer.accept("connect", TimeUnit.SECONDS.toNanos(1))));
+        globalRunMap.aggregateAndReinitialize(runMap);
+
+        RunMap.TestStatistics testStatistics = globalRunMap.getRecord(test);
+        Assert.assertEquals(50, millis(testStatistics.getPhaseDurationAtPercentile("connect", 50)), 0.1);
+        Assert.assertEquals(200, millis(testStatistics.getPhaseDurationAtPercentile("transfer", 100)), 0.2);
+        Assert.assertEquals(0, testStatistics.getPhaseDurationAtPercentile("tls", 50));
+        Assert.assertEquals(0, runMap.getRecord(test).getPhaseDurationAtPercentile("connect", 100));
+
+        PhaseTimePercentile percentile = new PhaseTimePercentile();
+        percentile.setValue("90p");
+        percentile.setPhase("connect");
+        Assert.assertEquals("connect90p", percentile.getName());
+        Assert.assertEquals(90, (double) percentile.getValue(testStatistics), 0.1);
+    }
+
+    private static double millis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
     }
 
     @After
@@ -0,0 +1,192 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import com.adobe.qe.toughday.LogFileEraser;
+import com.adobe.qe.toughday.api.core.MetricResult;
+import com.adobe.qe.toughday.api.core.Publisher;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.internal.core.RawResultsBuffer;
+import com.adobe.qe.toughday.mocks.MockTest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AsyncPublisherTest {
+
+    private static class BlockingPublisher extends Publisher {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> published = Collections.synchronizedList(new ArrayList<>());
+
+        private void await() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        protected void doPublishAggregatedIntermediate(Map<String, List<MetricResult>> results) {
+            await();
+            published.add("intermediate " + results.keySet());
+        }
+
+        @Override
+        protected void doPublishAggregatedFinal(Map<String, List<MetricResult>> results) {
+            await();
+            published.add("final " + results.keySet());
+        }
+
+        @Override
+        protected void doPublishRaw(Collection<TestResult> testResults) {
+            await();
+            published.add("raw " + testResults.size());
+        }
+
+        @Override
+        public void finish() {
+            published.add("finish");
+        }
+    }
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private AsyncPublisher asyncPublisher(Publisher publisher, RawResultsBuffer.Policy policy) {
+        return new AsyncPublisher(publisher, policy, testResult -> droppedCount.incrementAndGet());
+    }
+
+    private static Map<String, List<MetricResult>> results(String testName) {
+        return Collections.singletonMap(testName, new ArrayList<>());
+    }
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Test
+    public void testSlowPublisherDoesNotBlockTheCaller() throws InterruptedException {
+        BlockingPublisher publisher = new BlockingPublisher();
+        AsyncPublisher asyncPublisher = asyncPublisher(publisher, RawResultsBuffer.Policy.BLOCK);
+
+        long start = System.nanoTime();
+        asyncPublisher.publishRaw(Collections.singletonList(new TestResult(new MockTest())));
+        asyncPublisher.publishAggregatedIntermediate(results("first"));
+        asyncPublisher.publishAggregatedFinal(results("final"));
+        asyncPublisher.finish();
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        Assert.assertTrue(publisher.published.isEmpty());
+
+        publisher.release.countDown();
+        Assert.assertTrue(asyncPublisher.stopAndAwait(5000));
+        Assert.assertEquals(Arrays.asList("raw 1", "intermediate [first]", "final [final]", "finish"), publisher.published);
+    }
+
+    @Test
+    public void testIntermediateReportsAreCoalesced() throws InterruptedException {
+        BlockingPublisher publisher = new BlockingPublisher();
+        AsyncPublisher asyncPublisher = asyncPublisher(publisher, RawResultsBuffer.Policy.BLOCK);
+
+        // the first one is taken by the publisher thread, which then blocks
+        asyncPublisher.publishAggregatedFinal(results("blocker"));
+        asyncPublisher.publishAggregatedIntermediate(results("first"));
+        asyncPublisher.publishAggregatedIntermediate(results("second"));
+        asyncPublisher.publishAggregatedIntermediate(results("third"));
+
+        publisher.release.countDown();
+        Assert.assertTrue(asyncPublisher.stopAndAwait(5000));
+        Assert.assertEquals(Arrays.asList("final [blocker]", "intermediate [third]"), publisher.published);
+    }
+
+    @Test
+    public void testRawBatchesAreDroppedWhenTheQueueIsFull() throws InterruptedException {
+        BlockingPublisher publisher = new BlockingPublisher();
+        publisher.setQueueCapacity("2");
+        AsyncPublisher asyncPublisher = asyncPublisher(publisher, RawResultsBuffer.Policy.DROP_NEWEST);
+        List<TestResult> batch = Arrays.asList(new TestResult(new MockTest()), new TestResult(new MockTest()));
+
+        asyncPublisher.publishAggregatedFinal(results("blocker"));
+        for (int i = 0; i < 5; i++) {
+            asyncPublisher.publishRaw(batch);
+        }
+
+        Assert.assertEquals(3 * batch.size(), asyncPublisher.getDroppedRawResults());
+        // every dropped result is reported as soon as it is dropped
+        Assert.assertEquals(3 * batch.size(), droppedCount.get());
+        publisher.release.countDown();
+        Assert.assertTrue(asyncPublisher.stopAndAwait(5000));
+        Assert.assertEquals(Arrays.asList("final [blocker]", "raw 2", "raw 2"), publisher.published);
+    }
+
+    @Test
+    public void testRawBatchesAreDroppedInsteadOfBlocking() throws InterruptedException {
+        BlockingPublisher publisher = new BlockingPublisher();
+        publisher.setQueueCapacity("2");
+        AsyncPublisher asyncPublisher = asyncPublisher(publisher, RawResultsBuffer.Policy.BLOCK);
+        List<TestResult> batch = Collections.singletonList(new TestResult(new MockTest()));
+
+        asyncPublisher.publishAggregatedFinal(results("blocker"));
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            asyncPublisher.publishRaw(batch);
+        }
+
+        // the backpressure of the block policy belongs to the raw results buffer, the caller never waits for a publisher
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        Assert.assertEquals(1, asyncPublisher.getDroppedRawResults());
+        Assert.assertEquals(1, droppedCount.get());
+        publisher.release.countDown();
+        Assert.assertTrue(asyncPublisher.stopAndAwait(5000));
+        Assert.assertEquals(Arrays.asList("final [blocker]", "raw 1", "raw 1"), publisher.published);
+    }
+
+    @Test
+    public void testRawResultsAreSampledWhenTheQueueFillsUp() throws InterruptedException {
+        BlockingPublisher publisher = new BlockingPublisher();
+        publisher.setQueueCapacity("4");
+        AsyncPublisher asyncPublisher = asyncPublisher(publisher, RawResultsBuffer.Policy.SAMPLE);
+        List<TestResult> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new TestResult(new MockTest()));
+        }
+
+        asyncPublisher.publishAggregatedFinal(results("blocker"));
+        for (int i = 0; i < 6; i++) {
+            asyncPublisher.publishRaw(batch);
+        }
+
+        // the first half of the queue takes whole batches, the rest only a sample of them
+        long dropped = asyncPublisher.getDroppedRawResults();
+        Assert.assertTrue(dropped > 0);
+        Assert.assertEquals(dropped, droppedCount.get());
+        publisher.release.countDown();
+        Assert.assertTrue(asyncPublisher.stopAndAwait(5000));
+        Assert.assertEquals("raw 100", publisher.published.get(1));
+        Assert.assertEquals("raw 100", publisher.published.get(2));
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
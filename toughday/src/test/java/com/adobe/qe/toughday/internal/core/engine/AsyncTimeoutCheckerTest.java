@@ -0,0 +1,136 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import com.adobe.qe.toughday.LogFileEraser;
+import com.adobe.qe.toughday.MockTest;
+import com.adobe.qe.toughday.internal.core.config.GlobalArgs;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class AsyncTimeoutCheckerTest {
+    private static final long TIMEOUT_MILLIS = 50;
+
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+    private AsyncTimeoutChecker checker;
+    private Thread checkerThread;
+    private Thread testThread;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Before
+    public void before() {
+        GlobalArgs globalArgs = Mockito.mock(GlobalArgs.class);
+        Mockito.when(globalArgs.getTimeout()).thenReturn(TIMEOUT_MILLIS);
+        Engine engine = Mockito.mock(Engine.class);
+        Mockito.when(engine.getGlobalArgs()).thenReturn(globalArgs);
+        Mockito.when(engine.getCurrentPhaseLock()).thenReturn(new ReentrantReadWriteLock());
+
+        checker = new AsyncTimeoutChecker(engine, Thread.currentThread());
+        checkerThread = new Thread(checker);
+        checkerThread.start();
+
+        testThread = new Thread(() -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        testThread.start();
+    }
+
+    @After
+    public void after() throws InterruptedException {
+        checker.finishExecution();
+        checkerThread.join(5000);
+        testThread.interrupt();
+        testThread.join(5000);
+    }
+
+    private AsyncTestWorker runningWorker() {
+        AsyncTestWorker worker = new AsyncTestWorker() {
+            @Override
+            public boolean hasExited() {
+                return false;
+            }
+
+            @Override
+            public void run() {
+            }
+        };
+        worker.workerThread = testThread;
+        worker.currentTest = new MockTest();
+        worker.lastTestStart = System.nanoTime();
+        return worker;
+    }
+
+    @Test
+    public void testInterruptsTheTimedOutTest() throws InterruptedException {
+        checker.watch(runningWorker());
+
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotInterrupt() throws InterruptedException {
+        checker.watch(runningWorker()).cancel();
+
+        Assert.assertFalse(interrupted.await(TIMEOUT_MILLIS * 4, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWorkerMovedOnIsNotInterrupted() throws InterruptedException {
+        AsyncTestWorker worker = runningWorker();
+        checker.watch(worker);
+        worker.currentTest = new MockTest();
+        worker.lastTestStart = System.nanoTime();
+
+        Assert.assertFalse(interrupted.await(TIMEOUT_MILLIS * 4, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRetriedWhileTheWorkerHoldsItsMutex() throws InterruptedException {
+        AsyncTestWorker worker = runningWorker();
+        worker.getMutex().lock();
+        try {
+            checker.watch(worker);
+            Assert.assertFalse(interrupted.await(TIMEOUT_MILLIS * 4, TimeUnit.MILLISECONDS));
+        } finally {
+            worker.getMutex().unlock();
+        }
+
+        // the deadline passed while the mutex was held, the test is interrupted as soon as it is released
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.internal.core.TestSuite;
+import com.adobe.qe.toughday.mocks.MockTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class TestSelectorTest {
+    private TestSuite testSuite;
+    private Map<AbstractTest, AtomicLong> counts;
+
+    @Before
+    public void before() {
+        testSuite = new TestSuite();
+        counts = new HashMap<>();
+    }
+
+    private AbstractTest addTest(String name, int weight) {
+        AbstractTest test = new MockTest();
+        test.setName(name);
+        test.setWeight(Integer.toString(weight));
+        testSuite.add(test);
+        counts.put(test, new AtomicLong(0));
+        return test;
+    }
+
+    private TestSelector newSelector() {
+        return new TestSelector(testSuite, counts, new ReentrantReadWriteLock());
+    }
+
+    @Test
+    public void testEmptySuite() {
+        Assert.assertNull(newSelector().next());
+    }
+
+    @Test
+    public void testWeightsAreRespected() {
+        AbstractTest light = addTest("Light", 1);
+        AbstractTest heavy = addTest("Heavy", 3);
+        AbstractTest never = addTest("Never", 0);
+
+        TestSelector selector = newSelector();
+        Map<AbstractTest, Integer> picks = new HashMap<>();
+        final int TOTAL = 100000;
+        for (int i = 0; i < TOTAL; i++) {
+            picks.merge(selector.next(), 1, Integer::sum);
+        }
+
+        Assert.assertFalse(picks.containsKey(never));
+        Assert.assertEquals(0.25, picks.get(light) / (double) TOTAL, 0.02);
+        Assert.assertEquals(0.75, picks.get(heavy) / (double) TOTAL, 0.02);
+    }
+
+    @Test
+    public void testTestIsRemovedWhenCountIsReached() {
+        AbstractTest limited = addTest("Limited", 1);
+        AbstractTest unlimited = addTest("Unlimited", 1);
+        limited.setCount("5");
+
+        TestSelector selector = newSelector();
+        counts.get(limited).set(6);
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(unlimited, selector.next());
+        }
+        Assert.assertFalse(testSuite.contains("Limited"));
+        Assert.assertTrue(testSuite.contains("Unlimited"));
+    }
+
+    @Test
+    public void testNoTestLeftWhenAllCountsAreReached() {
+        AbstractTest test = addTest("Limited", 1);
+        test.setCount("0");
+
+        TestSelector selector = newSelector();
+        Assert.assertEquals(test, selector.next());
+
+        counts.get(test).set(1);
+        Assert.assertNull(selector.next());
+        Assert.assertEquals(0, testSuite.getTests().size());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import com.adobe.qe.toughday.LogFileEraser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TimeoutWheelTest {
+    private static final long TICK = 1000;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Test
+    public void testFiresAtDeadline() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK, 8, 0);
+        AtomicInteger fired = new AtomicInteger();
+        TimeoutWheel.Timeout timeout = wheel.schedule(fired::incrementAndGet, 5 * TICK + 1);
+
+        wheel.advance(5 * TICK);
+        Assert.assertEquals(0, fired.get());
+        Assert.assertFalse(timeout.isExpired());
+
+        wheel.advance(6 * TICK);
+        Assert.assertEquals(1, fired.get());
+        Assert.assertTrue(timeout.isExpired());
+    }
+
+    @Test
+    public void testFiresOnlyOnce() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK, 8, 0);
+        AtomicInteger fired = new AtomicInteger();
+        TimeoutWheel.Timeout timeout = wheel.schedule(fired::incrementAndGet, 2 * TICK);
+
+        for (long now = 0; now < 100 * TICK; now += TICK) {
+            wheel.advance(now);
+        }
+        Assert.assertEquals(1, fired.get());
+        Assert.assertFalse("An expired timeout cannot be cancelled", timeout.cancel());
+    }
+
+    @Test
+    public void testDeadlinesLongerThanTheWheel() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK, 8, 0);
+        List<Long> firedAt = new ArrayList<>();
+        long[] now = new long[1];
+        wheel.schedule(() -> firedAt.add(now[0]), 20 * TICK);
+        wheel.schedule(() -> firedAt.add(now[0]), 4 * TICK);
+
+        for (now[0] = 0; now[0] <= 30 * TICK; now[0] += TICK) {
+            wheel.advance(now[0]);
+        }
+        Assert.assertEquals(2, firedAt.size());
+        Assert.assertEquals(4 * TICK, (long) firedAt.get(0));
+        Assert.assertEquals(20 * TICK, (long) firedAt.get(1));
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotFire() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK, 8, 0);
+        AtomicInteger fired = new AtomicInteger();
+        TimeoutWheel.Timeout cancelledBeforeTransfer = wheel.schedule(fired::incrementAndGet, 3 * TICK);
+        Assert.assertTrue(cancelledBeforeTransfer.cancel());
+
+        TimeoutWheel.Timeout cancelledInBucket = wheel.schedule(fired::incrementAndGet, 3 * TICK);
+        wheel.advance(TICK);
+        Assert.assertTrue(cancelledInBucket.cancel());
+
+        wheel.advance(10 * TICK);
+        Assert.assertEquals(0, fired.get());
+        Assert.assertTrue(cancelledInBucket.isCancelled());
+    }
+
+    @Test
+    public void testPastDeadlineFiresOnNextAdvance() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK, 8, 0);
+        wheel.advance(10 * TICK);
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(fired::incrementAndGet, 2 * TICK);
+
+        wheel.advance(11 * TICK);
+        Assert.assertEquals(1, fired.get());
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
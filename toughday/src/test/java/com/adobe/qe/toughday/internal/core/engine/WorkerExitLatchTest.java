@@ -0,0 +1,63 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class WorkerExitLatchTest {
+
+    @Test
+    public void testNoWorkers() throws InterruptedException {
+        WorkerExitLatch latch = new WorkerExitLatch();
+        Assert.assertTrue(latch.await(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTimesOutWhileWorkersRun() throws InterruptedException {
+        WorkerExitLatch latch = new WorkerExitLatch();
+        latch.register();
+        latch.register();
+        latch.exited();
+
+        Assert.assertFalse(latch.await(10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, latch.getRunning());
+    }
+
+    @Test
+    public void testReleasedWhenLastWorkerExits() throws InterruptedException {
+        WorkerExitLatch latch = new WorkerExitLatch();
+        int workers = 8;
+        for (int i = 0; i < workers; i++) {
+            latch.register();
+            new Thread(latch::exited).start();
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, latch.getRunning());
+    }
+
+    @Test
+    public void testWorkersRegisteredLater() throws InterruptedException {
+        WorkerExitLatch latch = new WorkerExitLatch();
+        latch.register();
+        latch.exited();
+        Assert.assertTrue(latch.await(0, TimeUnit.MILLISECONDS));
+
+        latch.register();
+        Assert.assertFalse(latch.await(10, TimeUnit.MILLISECONDS));
+        latch.exited();
+        Assert.assertTrue(latch.await(0, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import com.adobe.qe.toughday.LogFileEraser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class ArrivalRateTest {
+    private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(100);
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Test
+    public void testConstantRate() {
+        ArrivalRate arrivalRate = new ArrivalRate();
+        arrivalRate.setRate("20");
+
+        Assert.assertEquals(20, arrivalRate.currentRate(0, DURATION_NANOS), 0);
+        Assert.assertEquals(20, arrivalRate.currentRate(DURATION_NANOS / 2, DURATION_NANOS), 0);
+        Assert.assertEquals(20, arrivalRate.currentRate(2 * DURATION_NANOS, DURATION_NANOS), 0);
+    }
+
+    @Test
+    public void testRampInterpolation() {
+        ArrivalRate arrivalRate = new ArrivalRate();
+        arrivalRate.setStart("10");
+        arrivalRate.setEnd("50");
+
+        Assert.assertEquals(10, arrivalRate.currentRate(0, DURATION_NANOS), 1e-9);
+        Assert.assertEquals(20, arrivalRate.currentRate(DURATION_NANOS / 4, DURATION_NANOS), 1e-9);
+        Assert.assertEquals(30, arrivalRate.currentRate(DURATION_NANOS / 2, DURATION_NANOS), 1e-9);
+        Assert.assertEquals(50, arrivalRate.currentRate(DURATION_NANOS, DURATION_NANOS), 1e-9);
+        // the end rate is kept after the end of the phase
+        Assert.assertEquals(50, arrivalRate.currentRate(2 * DURATION_NANOS, DURATION_NANOS), 1e-9);
+        // a phase without a duration runs at the end rate
+        Assert.assertEquals(50, arrivalRate.currentRate(0, 0), 1e-9);
+    }
+
+    @Test
+    public void testDescendingRamp() {
+        ArrivalRate arrivalRate = new ArrivalRate();
+        arrivalRate.setStart("40");
+        arrivalRate.setEnd("0");
+
+        Assert.assertEquals(40, arrivalRate.currentRate(0, DURATION_NANOS), 1e-9);
+        Assert.assertEquals(10, arrivalRate.currentRate(3 * DURATION_NANOS / 4, DURATION_NANOS), 1e-9);
+        Assert.assertEquals(0, arrivalRate.currentRate(DURATION_NANOS, DURATION_NANOS), 1e-9);
+    }
+
+    @Test
+    public void testRateSupplierReplacesConfiguredRate() {
+        ArrivalRate arrivalRate = new ArrivalRate();
+        arrivalRate.setStart("10");
+        arrivalRate.setEnd("50");
+        arrivalRate.setRateSupplier(() -> 7);
+
+        Assert.assertEquals(7, arrivalRate.currentRate(0, DURATION_NANOS), 0);
+        Assert.assertEquals(7, arrivalRate.currentRate(DURATION_NANOS, DURATION_NANOS), 0);
+    }
+
+    @Test
+    public void testUniformGaps() {
+        ArrivalRate arrivalRate = new ArrivalRate();
+        Random random = new Random(42);
+
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(10), arrivalRate.interArrivalNanos(100, random));
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(2), arrivalRate.interArrivalNanos(0.5, random));
+        // the gap never drops to zero, even for rates above one per nanosecond
+        Assert.assertEquals(1, arrivalRate.interArrivalNanos(1e10, random));
+    }
+
+    @Test
+    public void testPoissonGaps() {
+        ArrivalRate arrivalRate = new ArrivalRate();
+        arrivalRate.setDistribution("poisson");
+        Random random = new Random(42);
+
+        int count = 100000;
+        double meanNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < count; i++) {
+            long gap = arrivalRate.interArrivalNanos(100, random);
+            Assert.assertTrue(gap >= 1);
+            sum += gap;
+            sumOfSquares += (double) gap * gap;
+        }
+
+        double mean = sum / count;
+        double standardDeviation = Math.sqrt(sumOfSquares / count - mean * mean);
+        Assert.assertEquals(meanNanos, mean, meanNanos * 0.02);
+        // the exponential distribution has the standard deviation equal to the mean
+        Assert.assertEquals(meanNanos, standardDeviation, meanNanos * 0.03);
+    }
+
+    @Test
+    public void testIdleTickWithoutRate() {
+        ArrivalRate arrivalRate = new ArrivalRate();
+        Random random = new Random(42);
+        long idleTick = TimeUnit.MILLISECONDS.toNanos(10);
+
+        Assert.assertEquals(idleTick, arrivalRate.interArrivalNanos(0, random));
+        Assert.assertEquals(idleTick, arrivalRate.interArrivalNanos(-1, random));
+
+        arrivalRate.setDistribution("poisson");
+        Assert.assertEquals(idleTick, arrivalRate.interArrivalNanos(0, random));
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
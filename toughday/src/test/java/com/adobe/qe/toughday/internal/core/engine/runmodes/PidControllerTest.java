@@ -0,0 +1,82 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PidControllerTest {
+
+    /* the response time of a queue served at the given capacity, in milliseconds */
+    private static double latency(double rate, double capacity) {
+        return rate >= capacity ? Double.MAX_VALUE : 100 / (1 - rate / capacity);
+    }
+
+    @Test
+    public void testHoldsTarget() {
+        PidController controller = new PidController(0.2, 0.1, 0, 0.2, 10, 1, 1000);
+        for (int i = 0; i < 200; i++) {
+            controller.update(PidController.error(500, latency(controller.getRate(), 200)));
+        }
+
+        // 100 / (1 - rate / 200) = 500
+        Assert.assertEquals(160, controller.getRate(), 160 * 0.02);
+    }
+
+    @Test
+    public void testFollowsCapacityChanges() {
+        PidController controller = new PidController(0.2, 0.1, 0, 0.2, 10, 1, 1000);
+        for (int i = 0; i < 200; i++) {
+            controller.update(PidController.error(500, latency(controller.getRate(), 200)));
+        }
+        for (int i = 0; i < 200; i++) {
+            controller.update(PidController.error(500, latency(controller.getRate(), 100)));
+        }
+
+        Assert.assertEquals(80, controller.getRate(), 80 * 0.02);
+    }
+
+    @Test
+    public void testLimitsChange() {
+        PidController controller = new PidController(1, 1, 1, 0.2, 100, 1, 1000);
+
+        Assert.assertEquals(120, controller.update(1), 1e-9);
+        Assert.assertEquals(96, controller.update(-1), 1e-9);
+    }
+
+    @Test
+    public void testLimitsRate() {
+        PidController controller = new PidController(0.3, 0.3, 0, 0.5, 2000, 5, 1000);
+        Assert.assertEquals(1000, controller.getRate(), 0);
+
+        for (int i = 0; i < 100; i++) {
+            controller.update(1);
+        }
+        Assert.assertEquals(1000, controller.getRate(), 0);
+
+        for (int i = 0; i < 100; i++) {
+            controller.update(-1);
+        }
+        Assert.assertEquals(5, controller.getRate(), 0);
+
+        // no wind up: the rate rises as soon as the error changes sign
+        Assert.assertTrue(controller.update(0.5) > 5);
+    }
+
+    @Test
+    public void testError() {
+        Assert.assertEquals(0.5, PidController.error(100, 50), 1e-9);
+        Assert.assertEquals(-0.5, PidController.error(100, 150), 1e-9);
+        Assert.assertEquals(-1, PidController.error(100, 1000), 0);
+        Assert.assertEquals(1, PidController.error(100, -50), 0);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SaturationSearchTest {
+
+    /* runs the search against a system that meets the SLO up to the given capacity */
+    private static SaturationSearch search(double minRate, double maxRate, double capacity) {
+        SaturationSearch search = new SaturationSearch(minRate, maxRate, 0.05);
+        for (int i = 0; i < 100 && !search.isFinished(); i++) {
+            double rate = search.getRate();
+            search.record(new SaturationSearch.Step(rate, rate, 10, 0, rate <= capacity));
+        }
+        Assert.assertTrue("The search should finish", search.isFinished());
+        return search;
+    }
+
+    @Test
+    public void testFindsKnee() {
+        SaturationSearch search = search(1, 1000, 300);
+
+        Assert.assertTrue(search.isSaturated());
+        Assert.assertTrue(search.getKnee() <= 300);
+        Assert.assertTrue(search.getKnee() >= 300 / 1.05);
+    }
+
+    @Test
+    public void testRampsUpExponentially() {
+        SaturationSearch search = search(1, 1000, 300);
+
+        double[] ramp = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512};
+        for (int i = 0; i < ramp.length; i++) {
+            Assert.assertEquals(ramp[i], search.getSteps().get(i).getRate(), 0);
+        }
+        // bisecting between 256 and 512
+        Assert.assertEquals(384, search.getSteps().get(ramp.length).getRate(), 0);
+    }
+
+    @Test
+    public void testSloMetUpToMaxRate() {
+        SaturationSearch search = search(10, 100, 1000);
+
+        Assert.assertFalse(search.isSaturated());
+        Assert.assertEquals(100, search.getKnee(), 0);
+        Assert.assertEquals(100, search.getSteps().get(search.getSteps().size() - 1).getRate(), 0);
+    }
+
+    @Test
+    public void testSloMissedAtMinRate() {
+        SaturationSearch search = search(10, 100, 5);
+
+        Assert.assertTrue(search.isSaturated());
+        Assert.assertTrue(Double.isNaN(search.getKnee()));
+        Assert.assertEquals(1, search.getSteps().size());
+    }
+}
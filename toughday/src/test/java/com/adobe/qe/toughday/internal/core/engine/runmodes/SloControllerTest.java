@@ -0,0 +1,83 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.engine.runmodes;
+
+import com.adobe.qe.toughday.LogFileEraser;
+import com.adobe.qe.toughday.internal.core.Timestamp;
+import com.adobe.qe.toughday.internal.core.engine.Phase;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SloControllerTest {
+    private static final String LOGS_FOLDER = "logs_" + Timestamp.START_TIME;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Test
+    public void testDecisionsInTheLogsFolder() {
+        SloController controller = new SloController();
+        Phase phase = new Phase();
+
+        Assert.assertEquals(new File(new File("/tmp/runs", LOGS_FOLDER), "slo_controller.csv"),
+                controller.resolveDecisionsFile("/tmp/runs", Collections.singletonList(phase), phase));
+
+        controller.setDecisionsFile("decisions/slo.csv");
+        Assert.assertEquals(new File(new File(".", LOGS_FOLDER), "decisions/slo.csv"),
+                controller.resolveDecisionsFile(".", Collections.singletonList(phase), phase));
+    }
+
+    @Test
+    public void testAbsoluteDecisionsFile() {
+        SloController controller = new SloController();
+        Phase phase = new Phase();
+        String path = new File("slo.csv").getAbsolutePath();
+        controller.setDecisionsFile(path);
+
+        Assert.assertEquals(new File(path),
+                controller.resolveDecisionsFile("/tmp/runs", Collections.singletonList(phase), phase));
+    }
+
+    @Test
+    public void testDecisionsOfEveryPhase() {
+        SloController controller = new SloController();
+        List<Phase> phases = Arrays.asList(new Phase(), new Phase(), new Phase());
+        File folder = new File("/tmp/runs", LOGS_FOLDER);
+
+        Assert.assertEquals(new File(folder, "slo_controller_phase1.csv"),
+                controller.resolveDecisionsFile("/tmp/runs", phases, phases.get(0)));
+        Assert.assertEquals(new File(folder, "slo_controller_phase3.csv"),
+                controller.resolveDecisionsFile("/tmp/runs", phases, phases.get(2)));
+
+        controller.setDecisionsFile("decisions");
+        Assert.assertEquals(new File(folder, "decisions_phase2"),
+                controller.resolveDecisionsFile("/tmp/runs", phases, phases.get(1)));
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
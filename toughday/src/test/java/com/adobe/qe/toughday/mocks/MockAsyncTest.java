@@ -0,0 +1,51 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.mocks;
+
+import com.adobe.qe.toughday.api.annotations.Internal;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.AsyncTest;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous test that counts its executions, shared by all its clones. Its future completes right away, or never
+ * when it is built to hang.
+ */
+@Internal
+public class MockAsyncTest extends AsyncTest {
+    private final AtomicInteger executions;
+    private final boolean hangs;
+
+    public MockAsyncTest(AtomicInteger executions, boolean hangs) {
+        this.executions = executions;
+        this.hangs = hangs;
+    }
+
+    @Override
+    public CompletableFuture<?> test() {
+        executions.incrementAndGet();
+        return hangs ? new CompletableFuture<>() : CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public AbstractTest newInstance() {
+        return new MockAsyncTest(executions, hangs);
+    }
+
+    @Override
+    public Logger logger() {
+        return MockTest.getLogger();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.mocks;
+
+import com.adobe.qe.toughday.api.annotations.Internal;
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.AbstractTestRunner;
+import com.adobe.qe.toughday.api.core.RunMap;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test that counts its executions, shared by all its clones. When it has permits, every execution waits for one.
+ */
+@Internal
+public class MockCountingTest extends AbstractTest {
+    private static final List<AbstractTest> NO_CHILDREN = new ArrayList<>();
+
+    private final AtomicInteger executions;
+    private final Semaphore permits;
+
+    public MockCountingTest(AtomicInteger executions, Semaphore permits) {
+        this.executions = executions;
+        this.permits = permits;
+    }
+
+    @Override
+    public List<AbstractTest> getChildren() {
+        return NO_CHILDREN;
+    }
+
+    @Override
+    public Class<? extends AbstractTestRunner> getTestRunnerClass() {
+        return Runner.class;
+    }
+
+    @Override
+    public AbstractTest newInstance() {
+        return new MockCountingTest(executions, permits);
+    }
+
+    @Override
+    public Logger logger() {
+        return MockTest.getLogger();
+    }
+
+    public static class Runner extends AbstractTestRunner<MockCountingTest> {
+        public Runner(Class<? extends AbstractTest> testClass) {
+            super(testClass);
+        }
+
+        @Override
+        protected void run(MockCountingTest testObject, RunMap runMap) throws Throwable {
+            if (testObject.permits != null) {
+                testObject.permits.acquire();
+            }
+            testObject.executions.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.LogFileEraser;
+import com.adobe.qe.toughday.MockTest;
+import com.adobe.qe.toughday.RawResultsTool;
+import com.adobe.qe.toughday.api.core.benchmark.PhasedData;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.google.gson.Gson;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.ObjLongConsumer;
+
+public class BinaryPublisherTest {
+    private File rawFile;
+    private File csvFile;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Before
+    public void before() throws IOException {
+        rawFile = File.createTempFile("results", ".raw.bin");
+        csvFile = File.createTempFile("results", ".raw.csv");
+    }
+
+    private static class HttpData implements PhasedData {
+        private final String url;
+        private final transient long[] phases;
+
+        HttpData(String url, long... phases) {
+            this.url = url;
+            this.phases = phases;
+        }
+
+        @Override
+        public void forEachPhase(ObjLongConsumer<String> consumer) {
+            for (int i = 0; i < phases.length; i++) {
+                consumer.accept(HTTP_PHASES.get(i), phases[i]);
+            }
+        }
+    }
+
+    private static Map<String, Long> phases(Object data) {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        if (data instanceof PhasedData) {
+            ((PhasedData) data).forEachPhase(phases::put);
+        }
+        return phases;
+    }
+
+    private static List<TestResult> results(int count) throws Exception {
+        List<TestResult> testResults = new ArrayList<>();
+        MockTest first = new MockTest();
+        first.setName("First");
+        MockTest second = new MockTest();
+        second.setName("Second \u00e9");
+        for (int i = 0; i < count; i++) {
+            TestResult testResult = new TestResult(i % 2 == 0 ? first : second)
+                    .withScheduleDelay(i * 1000L)
+                    .beginBenchmark();
+            testResult.endBenchmark();
+            if (i % 5 == 0) {
+                testResult.markAsFailed(new Exception());
+            } else if (i % 7 == 0) {
+                testResult = new TestResult(first);
+            }
+            if (i % 3 == 0) {
+                testResult.withData(i % 2 == 0 ? new HttpData("/content/" + i, i * 1000L, 1500, 0, 250, i * 50000L, 42)
+                        : new HttpData("/content/" + i, 2000));
+            } else if (i % 3 == 1) {
+                testResult.withData(Collections.singletonMap("key", "value, \"" + i + "\""));
+            }
+            testResults.add(testResult);
+        }
+        return testResults;
+    }
+
+    @Test
+    public void testRecordsAreReadBack() throws Exception {
+        List<TestResult> testResults = results(1000);
+        BinaryPublisher publisher = new BinaryPublisher();
+        publisher.setRawFilePath(rawFile.getPath());
+        publisher.publishRaw(testResults.subList(0, 500));
+        publisher.publishRaw(testResults.subList(500, 1000));
+        publisher.finish();
+
+        Gson gson = new Gson();
+        try (BinaryRawReader reader = new BinaryRawReader(rawFile.getPath())) {
+            for (TestResult testResult : testResults) {
+                BinaryRawReader.Record record = reader.next();
+                Assert.assertNotNull(record);
+                Assert.assertEquals(testResult.getTestFullName(), record.getName());
+                Assert.assertEquals(testResult.getStatus(), record.getStatus());
+                Assert.assertEquals(testResult.getThreadId(), record.getThreadId());
+                Assert.assertEquals(testResult.getStartTimestamp(), record.getStartTimestamp());
+                Assert.assertEquals(testResult.getEndTimestamp(), record.getEndTimestamp());
+                Assert.assertEquals(testResult.getDurationNano(), record.getDurationNano());
+                Assert.assertEquals(testResult.getScheduleDelayNano(), record.getScheduleDelayNano());
+                Assert.assertEquals(testResult.getData() == null ? null : gson.toJson(testResult.getData()), record.getData());
+                Assert.assertEquals(phases(testResult.getData()), phases(record));
+            }
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testConvertedCsvMatchesTheCsvPublisher() throws Exception {
+        List<TestResult> testResults = results(300);
+        BinaryPublisher publisher = new BinaryPublisher();
+        publisher.setRawFilePath(rawFile.getPath());
+        publisher.publishRaw(testResults);
+        publisher.finish();
+
+        CSVPublisher csvPublisher = new CSVPublisher();
+        csvPublisher.setRawFilePath(csvFile.getPath());
+        csvPublisher.publishRaw(testResults);
+        csvPublisher.finish();
+
+        StringWriter converted = new StringWriter();
+        try (BinaryRawReader reader = new BinaryRawReader(rawFile.getPath())) {
+            RawResultsTool.toCsv(reader, converted);
+        }
+        Assert.assertEquals(new String(Files.readAllBytes(csvFile.toPath()), StandardCharsets.UTF_8), converted.toString());
+    }
+
+    @Test
+    public void testAggregate() throws Exception {
+        List<TestResult> testResults = results(100);
+        BinaryPublisher publisher = new BinaryPublisher();
+        publisher.setRawFilePath(rawFile.getPath());
+        publisher.publishRaw(testResults);
+        publisher.finish();
+
+        StringWriter aggregated = new StringWriter();
+        try (BinaryRawReader reader = new BinaryRawReader(rawFile.getPath())) {
+            RawResultsTool.aggregate(reader, aggregated);
+        }
+        String[] lines = aggregated.toString().split(System.lineSeparator());
+        Assert.assertEquals(3, lines.length);
+        Assert.assertTrue(lines[1].startsWith("First,"));
+        Assert.assertTrue(lines[2].startsWith("Second \u00e9,"));
+
+        long total = 0;
+        for (int i = 1; i < lines.length; i++) {
+            String[] columns = lines[i].split(",");
+            total += Long.parseLong(columns[1]) + Long.parseLong(columns[2]) + Long.parseLong(columns[3]);
+        }
+        Assert.assertEquals(testResults.size(), total);
+    }
+
+    private static byte[] fileWithResult(byte[] result) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(BinaryRawFormat.MAGIC);
+        file.write(BinaryRawFormat.VERSION);
+        byte[] name = { 0, 1, 'T' };
+        file.write(name.length + 1);
+        file.write(BinaryRawFormat.NAME_RECORD);
+        file.write(name);
+        file.write(result.length + 1);
+        file.write(BinaryRawFormat.RESULT_RECORD);
+        file.write(result);
+        return file.toByteArray();
+    }
+
+    private static void assertCorrupted(byte[] result) throws IOException {
+        try (BinaryRawReader reader = new BinaryRawReader(new ByteArrayInputStream(fileWithResult(result)))) {
+            reader.next();
+            Assert.fail("The record should have been rejected");
+        } catch (IOException e) {
+            Assert.assertEquals("Corrupted record", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadsAHandWrittenResult() throws Exception {
+        // name id, status, thread, start, end, duration plus one, schedule delay, no data, no phases
+        byte[] result = { 0, 0, 7, 2, 4, 11, 0, 0, 0 };
+        try (BinaryRawReader reader = new BinaryRawReader(new ByteArrayInputStream(fileWithResult(result)))) {
+            BinaryRawReader.Record record = reader.next();
+            Assert.assertEquals("T", record.getName());
+            Assert.assertEquals(7, record.getThreadId());
+            Assert.assertEquals(1, record.getStartTimestamp());
+            Assert.assertEquals(3, record.getEndTimestamp());
+            Assert.assertEquals(10, record.getDurationNano());
+            Assert.assertNull(record.getData());
+            Assert.assertTrue(phases(record).isEmpty());
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testRejectsCorruptedRecords() throws Exception {
+        // the record ends before the phases
+        assertCorrupted(new byte[] { 0, 0, 7, 2, 4, 11, 0, 0 });
+        // the data is longer than the record
+        assertCorrupted(new byte[] { 0, 0, 7, 2, 4, 11, 0, 100, 0 });
+        // a varint that never ends
+        assertCorrupted(new byte[] { 0, 0, (byte) 0x80, (byte) 0x80 });
+        // an unknown status
+        assertCorrupted(new byte[] { 0, 9, 7, 2, 4, 11, 0, 0, 0 });
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws Exception {
+        Files.write(rawFile.toPath(), "Name,Status".getBytes(StandardCharsets.UTF_8));
+        new BinaryRawReader(rawFile.getPath()).close();
+    }
+
+    @After
+    public void after() {
+        rawFile.delete();
+        csvFile.delete();
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.api.core.RunMap;
+import com.adobe.qe.toughday.api.core.benchmark.PhasedData;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import com.adobe.qe.toughday.MockTest;
+import com.google.gson.Gson;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.ObjLongConsumer;
+
+public class CSVRawWriterTest {
+    private static final Gson GSON = new Gson();
+    private File rawFile;
+
+    @Before
+    public void before() throws IOException {
+        rawFile = File.createTempFile("results", ".raw.csv");
+    }
+
+    private static class HttpData implements PhasedData {
+        private final String url = "/content/dam/asset.jpg?a=1&b=2";
+        private final Map<String, String> query = new LinkedHashMap<>();
+        private final double latency = 0.123456;
+        private final transient long[] phases;
+
+        HttpData(long... phases) {
+            this.phases = phases;
+            query.put("q", "<a href='x'>&\"quoted\"</a>\n\u2028\u015f");
+            query.put("skipped", null);
+        }
+
+        @Override
+        public void forEachPhase(ObjLongConsumer<String> consumer) {
+            for (int i = 0; i < phases.length; i++) {
+                consumer.accept(HTTP_PHASES.get(i), phases[i]);
+            }
+        }
+    }
+
+    private static HttpData httpData() {
+        return new HttpData(500000, 1250000, 2000000, 1000, 12750000, 3500000);
+    }
+
+    @Test
+    public void testCsvEscapedLikeStringEscapeUtils() {
+        for (String value : new String[] { "plain", "with,comma", "with \"quotes\"", "line\nbreak", "" }) {
+            StringBuilder out = new StringBuilder();
+            CSVRawWriter.appendCsv(out, value);
+            Assert.assertEquals(StringEscapeUtils.escapeCsv(value), out.toString());
+        }
+    }
+
+    @Test
+    public void testRowsMatchTheFormattedOnes() throws Exception {
+        List<TestResult> testResults = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            TestResult testResult = new TestResult(new MockTest()).beginBenchmark();
+            testResult.endBenchmark();
+            testResult.withData(i % 3 == 0 ? httpData() : i % 3 == 1 ? Collections.singletonMap("key", "v\u00e4lue," + i) : null);
+            testResults.add(testResult);
+        }
+
+        try (CSVRawWriter writer = new CSVRawWriter(rawFile.getPath(), GSON, "Name,Status")) {
+            for (TestResult testResult : testResults) {
+                writer.write(testResult);
+            }
+        }
+
+        List<String> lines = Files.readAllLines(rawFile.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(testResults.size() + 1, lines.size());
+        Assert.assertEquals("Name,Status", lines.get(0));
+        for (int i = 0; i < testResults.size(); i++) {
+            TestResult testResult = testResults.get(i);
+            Object data = testResult.getData();
+            String expected = String.format("%s,%s,%s,%s,%s,%s,%s%s",
+                    testResult.getTestFullName(),
+                    testResult.getStatus().toString(),
+                    testResult.getThreadId(),
+                    RunMap.TIME_STAMP_FORMAT.format(new Date(testResult.getStartTimestamp())),
+                    RunMap.TIME_STAMP_FORMAT.format(new Date(testResult.getEndTimestamp())),
+                    testResult.getDurationNano() >= 0 ? testResult.getDuration() : "",
+                    StringEscapeUtils.escapeCsv(data != null ? GSON.toJson(data) : ""),
+                    data instanceof PhasedData ? ",0.5,1.25,2.0,0.001,12.75,3.5" : ",,,,,,");
+            // the sample data contains line breaks, which are quoted
+            if (!expected.contains("\n")) {
+                Assert.assertEquals(expected, lines.get(i + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testPhasesOnlyWrittenWhenMeasured() {
+        PhaseColumns phaseColumns = new PhaseColumns();
+        StringBuilder out = new StringBuilder();
+        phaseColumns.append(out, httpData());
+        Assert.assertEquals(",0.5,1.25,2.0,0.001,12.75,3.5", out.toString());
+
+        out.setLength(0);
+        phaseColumns.append(out, new HttpData(1000000, 2000000));
+        Assert.assertEquals(",1.0,2.0,,,,", out.toString());
+
+        out.setLength(0);
+        phaseColumns.append(out, (PhasedData) consumer -> consumer.accept("unknown", 1));
+        Assert.assertEquals(",,,,,,", out.toString());
+
+        out.setLength(0);
+        phaseColumns.append(out, "not phased");
+        Assert.assertEquals(",,,,,,", out.toString());
+    }
+
+    @Test
+    public void testMissingDurationLeavesTheColumnEmpty() throws Exception {
+        try (CSVRawWriter writer = new CSVRawWriter(rawFile.getPath(), GSON, "Name,Status")) {
+            writer.write(new TestResult(new MockTest()));
+        }
+
+        List<String> lines = Files.readAllLines(rawFile.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(2, lines.size());
+        String[] columns = lines.get(1).split(",", -1);
+        Assert.assertEquals(13, columns.length);
+        Assert.assertEquals("", columns[5]);
+    }
+
+    @After
+    public void after() {
+        rawFile.delete();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.publishers;
+
+import com.adobe.qe.toughday.LogFileEraser;
+import com.adobe.qe.toughday.MockTest;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+import org.HdrHistogram.Histogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class HdrHistogramPublisherTest {
+    private File logFile;
+
+    @BeforeClass
+    public static void onlyOnce() {
+        System.setProperty("logFileName", ".");
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+    }
+
+    @Before
+    public void before() throws IOException {
+        logFile = File.createTempFile("results", ".hlog");
+    }
+
+    private static List<TestResult> results(MockTest test, int count) throws Exception {
+        List<TestResult> testResults = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TestResult testResult = new TestResult(test).beginBenchmark();
+            testResult.endBenchmark();
+            testResults.add(testResult);
+        }
+        return testResults;
+    }
+
+    private static TestResult endedAt(MockTest test, long endTimestamp) {
+        TestResult testResult = new TestResult(test) {
+            @Override
+            public long getStartTimestamp() {
+                return endTimestamp - 1;
+            }
+
+            @Override
+            public long getEndTimestamp() {
+                return endTimestamp;
+            }
+        }.beginBenchmark();
+        testResult.endBenchmark();
+        return testResult;
+    }
+
+    private static List<String> intervals(File logFile) throws IOException {
+        List<String> intervals = new ArrayList<>();
+        for (String line : Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8)) {
+            if (line.startsWith("Tag=")) {
+                intervals.add(line);
+            } else {
+                Assert.assertTrue(line, line.startsWith("#[") || line.startsWith("\"StartTimestamp\""));
+            }
+        }
+        return intervals;
+    }
+
+    @Test
+    public void testTaggedIntervals() throws Exception {
+        MockTest first = new MockTest();
+        first.setName("First test");
+        MockTest second = new MockTest();
+        second.setName("Second");
+
+        HdrHistogramPublisher publisher = new HdrHistogramPublisher();
+        publisher.setFilePath(logFile.getPath());
+        List<TestResult> firstInterval = results(first, 10);
+        firstInterval.addAll(results(second, 5));
+        List<TestResult> failed = results(second, 3);
+        for (TestResult testResult : failed) {
+            testResult.markAsFailed(new Exception());
+        }
+        firstInterval.addAll(failed);
+        publisher.publishRaw(firstInterval);
+        publisher.publishRaw(results(second, 7));
+        publisher.finish();
+
+        // both batches end within the same interval
+        List<String> intervals = intervals(logFile);
+        Assert.assertEquals(2, intervals.size());
+        Assert.assertEquals(10, decode(intervals.get(0), "First_test").getTotalCount());
+        Assert.assertEquals(12, decode(intervals.get(1), "Second").getTotalCount());
+    }
+
+    @Test
+    public void testResultsBucketedByTheirTimestamps() throws Exception {
+        MockTest test = new MockTest();
+        test.setName("Test");
+        long base = 1500000000000L;
+
+        HdrHistogramPublisher publisher = new HdrHistogramPublisher();
+        publisher.setFilePath(logFile.getPath());
+        publisher.setInterval("2s");
+        publisher.publishRaw(Arrays.asList(endedAt(test, base + 1), endedAt(test, base + 500), endedAt(test, base + 2500)));
+        // the first interval stays open until results two intervals later arrive
+        Assert.assertTrue(intervals(logFile).isEmpty());
+
+        publisher.publishRaw(Arrays.asList(endedAt(test, base + 1999), endedAt(test, base + 4000)));
+        List<String> intervals = intervals(logFile);
+        Assert.assertEquals(1, intervals.size());
+        Assert.assertEquals(3, decode(intervals.get(0), "Test").getTotalCount());
+        Assert.assertEquals("0.000", intervals.get(0).split(",")[1]);
+        Assert.assertEquals("2.000", intervals.get(0).split(",")[2]);
+
+        // a late result of an interval that was already written gets a line of its own
+        publisher.publishRaw(Collections.singletonList(endedAt(test, base + 100)));
+        publisher.finish();
+        intervals = intervals(logFile);
+        Assert.assertEquals(4, intervals.size());
+        Assert.assertEquals("0.000", intervals.get(1).split(",")[1]);
+        Assert.assertEquals(1, decode(intervals.get(1), "Test").getTotalCount());
+        Assert.assertEquals("2.000", intervals.get(2).split(",")[1]);
+        Assert.assertEquals(1, decode(intervals.get(2), "Test").getTotalCount());
+        Assert.assertEquals("4.000", intervals.get(3).split(",")[1]);
+        Assert.assertEquals(1, decode(intervals.get(3), "Test").getTotalCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyIntervals() {
+        new HdrHistogramPublisher().setInterval("0s");
+    }
+
+    private static Histogram decode(String line, String expectedTag) throws Exception {
+        String[] columns = line.split(",");
+        Assert.assertEquals(5, columns.length);
+        Assert.assertEquals("Tag=" + expectedTag, columns[0]);
+        Assert.assertTrue(Double.parseDouble(columns[1]) >= 0);
+        Assert.assertTrue(Double.parseDouble(columns[2]) >= 0);
+        return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(columns[4])), 0);
+    }
+
+    @After
+    public void after() {
+        logFile.delete();
+    }
+
+    @AfterClass
+    public static void deleteLogs() {
+        ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        LogFileEraser.deteleFiles(((LoggerContext) LogManager.getContext(false)).getConfiguration());
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.logging.log4j.core.config.AppenderRef;
 import org.apache.logging.log4j.core.config.LoggerConfig;
 import org.apache.logging.log4j.core.layout.PatternLayout;
 
+import java.io.Closeable;
 import java.io.File;
 import java.util.*;
 
@@ -41,6 +42,7 @@ import java.util.*;
  */
 public abstract class AbstractTest {
     protected static List<Thread> extraThreads = Collections.synchronizedList(new ArrayList<Thread>());
+    protected static List<Closeable> sharedResources = Collections.synchronizedList(new ArrayList<Closeable>());
 
     private @NotNull TestId id;
     private String name;
@@ -82,6 +84,17 @@ public abstract class AbstractTest {
         extraThreads.add(thread);
     }
 
+    public static List<Closeable> getSharedResources() {
+        return sharedResources;
+    }
+
+    /**
+     * Registers a resource shared by the tests, like a connection pool, to be closed when the execution ends.
+     */
+    public static void addSharedResource(Closeable resource) {
+        sharedResources.add(resource);
+    }
+
     /**
      * Getter for the name of the test. It will not include the name of the parents.
      * @return by default, it will return the class name, except otherwise configured using the setter
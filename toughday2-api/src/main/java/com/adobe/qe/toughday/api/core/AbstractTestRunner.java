@@ -11,17 +11,10 @@ governing permissions and limitations under the License.
 */
 package com.adobe.qe.toughday.api.core;
 
-import com.adobe.qe.toughday.api.annotations.Before;
-import com.adobe.qe.toughday.api.annotations.After;
-import com.adobe.qe.toughday.api.annotations.CloneSetup;
 import com.adobe.qe.toughday.api.core.benchmark.TestResult;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Base class of all runners. For each test only one runner will be instantiated by the Engine and placed into the
@@ -32,56 +25,19 @@ import java.util.LinkedList;
  */
 public abstract class AbstractTestRunner<T extends AbstractTest> {
     private volatile boolean cloneSetupExecuted;
-    private Method[] setupMethods;
-    private Method[] beforeMethods;
-    private Method[] afterMethods;
+    private final LifecycleMethods lifecycleMethods;
 
     /**
      * Constructor
      * @param testClass
      */
     public AbstractTestRunner(Class<? extends AbstractTest> testClass) {
-        cloneSetupExecuted = true;
-        LinkedList<Method> setupMethodList = new LinkedList<>();
-        LinkedList<Method> beforeMethodList = new LinkedList<>();
-        LinkedList<Method> afterMethodList = new LinkedList<>();
-
-        Class currentClass = testClass;
-
-        while(!currentClass.getName().equals(AbstractTest.class.getName())) {
-            for (Method method : currentClass.getDeclaredMethods()) {
-                for (Annotation annotation : method.getAnnotations()) {
-                    if (annotation.annotationType() == CloneSetup.class) {
-                        AssumptionUtils.validateAnnotatedMethod(method, CloneSetup.class);
-                        setupMethodList.addFirst(method);
-                        method.setAccessible(true);
-                        cloneSetupExecuted = false;
-                    } else if (annotation.annotationType() == Before.class) {
-                        AssumptionUtils.validateAnnotatedMethod(method, Before.class);
-                        method.setAccessible(true);
-                        beforeMethodList.addFirst(method);
-                    } else if (annotation.annotationType() == After.class) {
-                        AssumptionUtils.validateAnnotatedMethod(method, After.class);
-                        method.setAccessible(true);
-                        afterMethodList.addLast(method);
-                    }
-                }
-            }
-            currentClass = currentClass.getSuperclass();
-        }
-
-        if (setupMethodList.size() > 0)
-            this.setupMethods = setupMethodList.toArray(new Method[setupMethodList.size()]);
-
-        if (beforeMethodList.size() >0)
-            this.beforeMethods = beforeMethodList.toArray(new Method[beforeMethodList.size()]);
-
-        if (afterMethodList.size() > 0)
-            this.afterMethods = afterMethodList.toArray(new Method[afterMethodList.size()]);
+        lifecycleMethods = LifecycleMethods.forClass(testClass);
+        cloneSetupExecuted = !lifecycleMethods.hasCloneSetup();
     }
 
     /**
-     * Method for executing the setup method using reflection for the specified instance of the test class.
+     * Method for executing the setup method for the specified instance of the test class.
      * The setup is guaranteed to be executed once even if the test is replicated(cloned) for multiple threads.
      * @param testObject
      */
@@ -93,7 +49,7 @@ public abstract class AbstractTestRunner<T extends AbstractTest> {
             synchronized (this) {
                 if (!cloneSetupExecuted) {
                     try {
-                        executeMethods(testObject, setupMethods, CloneSetup.class);
+                        lifecycleMethods.invokeCloneSetup(testObject);
                     } catch (Throwable e) {
                         testObject.logger().error("Failure in @CloneSetup: ", e);
                         if(testObject.getParent() != null) {
@@ -110,14 +66,14 @@ public abstract class AbstractTestRunner<T extends AbstractTest> {
     }
 
     /**
-     * Method for executing the before method using reflection for the specified instance of the test class.
+     * Method for executing the before method for the specified instance of the test class.
      * It will run before each test run.
      * @param testObject
      */
     private void executeBefore(AbstractTest testObject, RunMap runMap) throws Throwable {
-        if (beforeMethods != null) {
+        if (lifecycleMethods.hasBefore()) {
             try {
-                executeMethods(testObject, beforeMethods, Before.class);
+                lifecycleMethods.invokeBefore(testObject);
             }
             catch (Throwable e) {
                 TestResult testResult = new TestResult(testObject).markAsSkipped(new SkippedTestException(e));
@@ -129,14 +85,14 @@ public abstract class AbstractTestRunner<T extends AbstractTest> {
     }
 
     /**
-     * Method for executing the after method using reflection for the specified instance of the test class.
+     * Method for executing the after method for the specified instance of the test class.
      * The after method is guaranteed to run after every test run, even if exceptions occur.
      * @param testObject
      */
     private void executeAfter(AbstractTest testObject) {
-        if (afterMethods != null) {
+        if (lifecycleMethods.hasAfter()) {
             try{
-                executeMethods(testObject, afterMethods, After.class);
+                lifecycleMethods.invokeAfter(testObject);
             } catch (Throwable e) {
                 testObject.logger().debug("Failure in @After: ", e);
             }
@@ -150,7 +106,20 @@ public abstract class AbstractTestRunner<T extends AbstractTest> {
      * @throws Throwable any throwable occurred in the test and was propagated upstream by the implementation runner
      */
     public final void runTest(AbstractTest testObject, RunMap runMap) throws Throwable {
+        runTest(testObject, runMap, System.nanoTime());
+    }
+
+    /**
+     * Runs a test that was scheduled to start at a certain moment and benchmarks its execution. The delay between the
+     * intended start and the actual start is reported with every result of this execution.
+     * @param testObject instance of the test to run
+     * @param runMap the run map in which the benchmark will be recorded.
+     * @param intendedStartNano the {@code System.nanoTime()} at which the execution was supposed to start
+     * @throws Throwable any throwable occurred in the test and was propagated upstream by the implementation runner
+     */
+    public final void runTest(AbstractTest testObject, RunMap runMap, long intendedStartNano) throws Throwable {
         testObject.benchmark().setRunMap(runMap);
+        testObject.benchmark().setScheduleDelay(Math.max(0, System.nanoTime() - intendedStartNano));
         if(!executeCloneSetup(testObject, runMap)) { return; }
 
         Throwable throwable = null;
@@ -171,6 +140,55 @@ public abstract class AbstractTestRunner<T extends AbstractTest> {
         }
     }
 
+    /**
+     * Runs a test without waiting for it to finish. The setup and the before methods are executed on the calling
+     * thread, the after methods when the execution completes.
+     * @param testObject instance of the test to run
+     * @param runMap the run map in which the benchmark will be recorded.
+     * @param intendedStartNano the {@code System.nanoTime()} at which the execution was supposed to start
+     * @return a future completed when the execution is done. It is completed exceptionally only if the test has a
+     * parent, like {@link #runTest(AbstractTest, RunMap)} throws only in that case
+     */
+    public final CompletableFuture<Void> runTestAsync(AbstractTest testObject, RunMap runMap, long intendedStartNano) {
+        testObject.benchmark().setRunMap(runMap);
+        testObject.benchmark().setScheduleDelay(Math.max(0, System.nanoTime() - intendedStartNano));
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            if (!executeCloneSetup(testObject, runMap)) {
+                result.complete(null);
+                return result;
+            }
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        CompletableFuture<?> execution;
+        try {
+            executeBefore(testObject, runMap);
+            execution = runAsync((T) testObject, runMap);
+        } catch (Throwable e) {
+            execution = new CompletableFuture<>();
+            execution.completeExceptionally(e);
+        }
+
+        execution.whenComplete((value, throwable) -> {
+            executeAfter(testObject);
+            if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                throwable = throwable.getCause();
+            }
+            if (throwable != null) {
+                if (testObject.getParent() != null) {
+                    result.completeExceptionally(throwable);
+                    return;
+                }
+                testObject.logger().debug("Test failed with error:", throwable);
+            }
+            result.complete(null);
+        });
+        return result;
+    }
+
     /**
      * Method for delegating the responsibility of correctly running and benchmarking the test to subclasses.
      * @param testObject instance of the test to run
@@ -180,20 +198,15 @@ public abstract class AbstractTestRunner<T extends AbstractTest> {
     protected abstract void run(T testObject, RunMap runMap) throws Throwable;
 
     /**
-     * Run a annotated method using reflections.
-     * @param testObject instance of the test for which the method will be executed
-     * @param methods that will be invoked by using reflections
-     * @param annotation what annotation caused this method to be ran
+     * Asynchronous flavour of {@link #run(AbstractTest, RunMap)}. By default the test is run on the calling thread.
+     * @param testObject instance of the test to run
+     * @param runMap the run map in which the benchmark will be recorded.
+     * @return a future completed when the test is done
+     * @throws Throwable any throwable occurred while starting the test
      */
-    private void executeMethods(AbstractTest testObject, Method[] methods, Class<? extends Annotation> annotation)
-            throws Throwable {
-        for (Method method : methods) {
-            try {
-                method.invoke(testObject);
-            } catch (InvocationTargetException e) {
-                throw e.getCause();
-            }
-        }
+    protected CompletableFuture<?> runAsync(T testObject, RunMap runMap) throws Throwable {
+        run(testObject, runMap);
+        return CompletableFuture.completedFuture(null);
     }
 
 }
@@ -0,0 +1,41 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.api.core;
+
+import com.adobe.qe.toughday.api.runners.AsyncTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Test that does not block the thread that runs it: it starts its operations and returns a future that completes
+ * when they are done. The NonBlocking run mode runs these tests without dedicating a thread to every user, the other
+ * run modes wait for the future. Operations should be measured with
+ * {@link com.adobe.qe.toughday.api.core.benchmark.Benchmark#measureAsync}. The continuations of the future can run on
+ * the threads of the asynchronous client, so they must not block either.
+ */
+public abstract class AsyncTest extends AbstractTest {
+    private static final List<AbstractTest> noChildren = new ArrayList<>();
+
+    @Override
+    public List<AbstractTest> getChildren() {
+        return noChildren;
+    }
+
+    @Override
+    public Class<? extends AbstractTestRunner> getTestRunnerClass() {
+        return AsyncTestRunner.class;
+    }
+
+    public abstract CompletableFuture<?> test() throws Throwable;
+}
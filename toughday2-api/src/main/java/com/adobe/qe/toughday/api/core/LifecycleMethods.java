@@ -0,0 +1,159 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.api.core;
+
+import com.adobe.qe.toughday.api.annotations.After;
+import com.adobe.qe.toughday.api.annotations.Before;
+import com.adobe.qe.toughday.api.annotations.CloneSetup;
+import com.adobe.qe.toughday.api.annotations.Setup;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The lifecycle methods (@Setup, @CloneSetup, @Before and @After) of a test class. The annotated methods are looked
+ * up once per class and compiled into a single method handle for each step, so running a step does not go through
+ * reflection. The methods of the superclasses run before the ones of the subclasses, except for the @After methods
+ * which run in the reverse order.
+ */
+public final class LifecycleMethods {
+    private static final MethodType HOOK_TYPE = MethodType.methodType(void.class, AbstractTest.class);
+    private static final ConcurrentHashMap<Class<?>, LifecycleMethods> CACHE = new ConcurrentHashMap<>();
+
+    private final MethodHandle setup;
+    private final MethodHandle cloneSetup;
+    private final MethodHandle before;
+    private final MethodHandle after;
+
+    /**
+     * Get the lifecycle methods of a test class. They are compiled the first time the class is requested.
+     * @param testClass the test class
+     * @throws AssertionError if an annotated method is not valid.
+     */
+    public static LifecycleMethods forClass(Class<? extends AbstractTest> testClass) {
+        return CACHE.computeIfAbsent(testClass, LifecycleMethods::new);
+    }
+
+    private LifecycleMethods(Class<?> testClass) {
+        LinkedList<Method> setupMethods = new LinkedList<>();
+        LinkedList<Method> cloneSetupMethods = new LinkedList<>();
+        LinkedList<Method> beforeMethods = new LinkedList<>();
+        LinkedList<Method> afterMethods = new LinkedList<>();
+
+        Class currentClass = testClass;
+        while (!currentClass.getName().equals(AbstractTest.class.getName())) {
+            for (Method method : currentClass.getDeclaredMethods()) {
+                for (Annotation annotation : method.getAnnotations()) {
+                    if (annotation.annotationType() == Setup.class) {
+                        AssumptionUtils.validateAnnotatedMethod(method, Setup.class);
+                        setupMethods.addFirst(method);
+                    } else if (annotation.annotationType() == CloneSetup.class) {
+                        AssumptionUtils.validateAnnotatedMethod(method, CloneSetup.class);
+                        cloneSetupMethods.addFirst(method);
+                    } else if (annotation.annotationType() == Before.class) {
+                        AssumptionUtils.validateAnnotatedMethod(method, Before.class);
+                        beforeMethods.addFirst(method);
+                    } else if (annotation.annotationType() == After.class) {
+                        AssumptionUtils.validateAnnotatedMethod(method, After.class);
+                        afterMethods.addLast(method);
+                    }
+                }
+            }
+            currentClass = currentClass.getSuperclass();
+        }
+
+        this.setup = compile(setupMethods);
+        this.cloneSetup = compile(cloneSetupMethods);
+        this.before = compile(beforeMethods);
+        this.after = compile(afterMethods);
+    }
+
+    /* Chains the methods into a single handle taking the test object. Returns null if there are no methods. */
+    private static MethodHandle compile(LinkedList<Method> methods) {
+        MethodHandle chain = null;
+        for (Method method : methods) {
+            MethodHandle handle;
+            try {
+                method.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(method).asType(HOOK_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access method \"" + method + "\"", e);
+            }
+            chain = chain == null ? handle : MethodHandles.foldArguments(handle, chain);
+        }
+        return chain;
+    }
+
+    private static void invoke(MethodHandle handle, AbstractTest testObject) throws Throwable {
+        if (handle != null) {
+            handle.invokeExact(testObject);
+        }
+    }
+
+    /**
+     * @return true if the class has methods annotated with @CloneSetup.
+     */
+    public boolean hasCloneSetup() {
+        return cloneSetup != null;
+    }
+
+    /**
+     * @return true if the class has methods annotated with @Before.
+     */
+    public boolean hasBefore() {
+        return before != null;
+    }
+
+    /**
+     * @return true if the class has methods annotated with @After.
+     */
+    public boolean hasAfter() {
+        return after != null;
+    }
+
+    /**
+     * Runs the methods annotated with @Setup. Exceptions thrown by the methods are propagated as they are.
+     * @param testObject instance of the test
+     */
+    public void invokeSetup(AbstractTest testObject) throws Throwable {
+        invoke(setup, testObject);
+    }
+
+    /**
+     * Runs the methods annotated with @CloneSetup. Exceptions thrown by the methods are propagated as they are.
+     * @param testObject instance of the test
+     */
+    public void invokeCloneSetup(AbstractTest testObject) throws Throwable {
+        invoke(cloneSetup, testObject);
+    }
+
+    /**
+     * Runs the methods annotated with @Before. Exceptions thrown by the methods are propagated as they are.
+     * @param testObject instance of the test
+     */
+    public void invokeBefore(AbstractTest testObject) throws Throwable {
+        invoke(before, testObject);
+    }
+
+    /**
+     * Runs the methods annotated with @After. Exceptions thrown by the methods are propagated as they are.
+     * @param testObject instance of the test
+     */
+    public void invokeAfter(AbstractTest testObject) throws Throwable {
+        invoke(after, testObject);
+    }
+}
@@ -21,12 +21,15 @@ import java.util.Map;
 
 /**
  * Common interface for all publishers. Classes implementing this interface, if not abstract,
- * will be shown in help.
+ * will be shown in help. Each publisher is called from its own thread, one request at a time.
  */
 public abstract class Publisher {
+    private static final String DEFAULT_QUEUE_CAPACITY = "16";
+
     private String name;
     private boolean rawPublish = true;
     private boolean aggregatedPublish = true;
+    private int queueCapacity = Integer.parseInt(DEFAULT_QUEUE_CAPACITY);
 
     /**
      * Constructor
@@ -69,6 +72,18 @@ public abstract class Publisher {
         return aggregatedPublish;
     }
 
+    @ConfigArgSet(required = false, defaultValue = DEFAULT_QUEUE_CAPACITY, desc = "How many batches of raw results can wait " +
+            "to be published by this publisher. When it cannot keep up and the queue is full, the new batches are dropped, or sampled with " +
+            "the sample raw buffer policy, and counted by the Dropped metric. The aggregation never waits for a publisher.")
+    public void setQueueCapacity(String queueCapacity) {
+        this.queueCapacity = Integer.parseInt(queueCapacity);
+    }
+
+    @ConfigArgGet
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
     /**
      * Publish aggregated intermediate report
      * @param results Map from test name to metrics
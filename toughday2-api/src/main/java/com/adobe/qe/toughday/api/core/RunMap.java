@@ -28,7 +28,8 @@ public interface RunMap {
     TestStatistics getRecord(AbstractTest test);
 
     /**
-     * Test statistics
+     * Test statistics. All the durations are in nanoseconds, it is up to the consumers to convert them to the unit in
+     * which they are displayed.
      */
      interface TestStatistics {
 
@@ -44,7 +45,7 @@ public interface RunMap {
         String getTimestamp();
 
         /**
-         * Get total number of seconds that all the threads have spent in the test
+         * Get total number of nanoseconds that all the threads have spent in the test
          * @return
          */
         double getTotalDuration();
@@ -106,9 +107,36 @@ public interface RunMap {
          */
         long getSkippedRuns();
 
+        /**
+         * Get total numbers of results of this test that were not published, because the publishers could not keep up.
+         * @return
+         */
+        long getDroppedResults();
 
+        /**
+         * Get the duration at the given percentile.
+         * @param percentile
+         * @return
+         */
         long getValueAtPercentile(double percentile);
 
+        /**
+         * Get the response time at the given percentile. Unlike the duration, the response time is measured from the
+         * moment the execution was intended to start, so it is corrected for coordinated omission.
+         * @param percentile
+         * @return
+         */
+        long getResponseTimeAtPercentile(double percentile);
+
+        /**
+         * Get the duration of a phase of the executions at the given percentile. The phases are reported by the data
+         * of the results, see {@link com.adobe.qe.toughday.api.core.benchmark.PhasedData}.
+         * @param phase the name of the phase
+         * @param percentile
+         * @return the duration in nanoseconds, 0 if the phase was never reported
+         */
+        long getPhaseDurationAtPercentile(String phase, double percentile);
+
         /**
          * Get the standard deviation of the results of this test.
          * @return
@@ -20,6 +20,8 @@ import com.adobe.qe.toughday.api.core.benchmark.signatures.InjectTestResultCalla
 import com.adobe.qe.toughday.api.core.benchmark.signatures.VoidCallable;
 import com.adobe.qe.toughday.api.core.benchmark.signatures.VoidInjectTestResultCallable;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This class provides methods for benchmarking arbitrary code blocks and method calls + helper methods.
  * These benchmarks are used as entries in the run map. An entry will contain, among other information
@@ -78,6 +80,20 @@ public interface Benchmark {
      */
     RunMap getRunMap();
 
+    /**
+     * Setter for the schedule delay of the current execution: the time between the moment the run mode intended to
+     * start the execution and the moment it actually started. It is attached to every test result computed during
+     * the execution, so that response times can be corrected for coordinated omission.
+     * @param scheduleDelayNano the delay in nanoseconds
+     */
+    void setScheduleDelay(long scheduleDelayNano);
+
+    /**
+     * Getter for the schedule delay of the current execution.
+     * @return the delay in nanoseconds
+     */
+    long getScheduleDelay();
+
     /**
      * Computes the test result of the operation from the functional interface. It creates a triplet containing:
      * The test result, the return value and any Throwable that occurred. If a throwable occurred the return value will be
@@ -93,6 +109,69 @@ public interface Benchmark {
      */
     <R, K> ResultInfo<R, K> computeTestResult(AbstractTest test, InjectTestResultCallable<R, K> callable);
 
+    /**
+     * Asynchronous flavour of {@link #computeTestResult(AbstractTest, InjectTestResultCallable)}. The benchmark starts
+     * when the callable is called and ends when the future returned by it completes, so no thread waits for the
+     * operation while it is in flight.
+     * IMPORTANT: This method does not record the test result in the run map either.
+     * @param test The {@link AbstractTest} representation of the of the operation from the functional interface
+     * @param callable The functional interface that starts the operation that is benchmarked
+     * @param <R> The type of the return value
+     * @param <K> The type of the data from the {@link TestResult}
+     * @return A future, never completed exceptionally, of the triplet containing: The test result, the return value
+     * and any Throwable that occurred.
+     */
+    <R, K> CompletableFuture<ResultInfo<R, K>> computeTestResultAsync(AbstractTest test,
+                                                                     InjectTestResultCallable<CompletableFuture<R>, K> callable);
+
+    /**
+     * Measures the duration of an asynchronous operation. Injects the {@link TestResult}.
+     * <pre>
+     *     <code>
+     *         benchmark().measureAsync(test, (TestResult testResult) -> {
+     *             //start the operation that needs to be benchmarked
+     *             return myFuture;
+     *         });
+     *     </code>
+     * </pre>
+     * The {@link TestResult} is recorded in the {@link RunMap} when the future returned by the callable completes.
+     * @param test The {@link AbstractTest} representation of the of the operation from the functional interface
+     * @param callable The functional interface that starts the operation that is benchmarked
+     * @param <T> The type of the return value
+     * @param <K> The type of the data from the {@link TestResult} object
+     * @return A future of the return value of the operation, completed after the result was recorded
+     */
+    <T, K> CompletableFuture<T> measureAsync(AbstractTest test, InjectTestResultCallable<CompletableFuture<T>, K> callable);
+
+    /**
+     * Measures the duration of an asynchronous operation. Injects the {@link TestResult}.
+     * <pre>
+     *     <code>
+     *         benchmark().measureAsync(parent, "Simple Step", (TestResult testResult) -> {
+     *             //start the operation that needs to be benchmarked
+     *             return myFuture;
+     *         });
+     *     </code>
+     * </pre>
+     * The {@link TestResult} is recorded in the {@link RunMap} when the future returned by the callable completes.
+     * @param parent The parent test.
+     * @param label The name of the ad hoc test
+     * @param callable The functional interface that starts the operation that is benchmarked
+     * @param <T> The type of the return value
+     * @param <K> The type of the data from the {@link TestResult} object
+     * @return A future of the return value of the operation, completed after the result was recorded
+     */
+    <T, K> CompletableFuture<T> measureAsync(AbstractTest parent, String label,
+                                             InjectTestResultCallable<CompletableFuture<T>, K> callable);
+
+    /**
+     * Cancels the futures of the asynchronous operations measured with
+     * {@link #measureAsync(AbstractTest, InjectTestResultCallable)} that are still in flight, so that the operations
+     * can release what they hold. Their test results are not recorded. Used by the run modes when an execution times
+     * out.
+     */
+    void cancelAsync();
+
     /**
      * Measures the duration of a method call using either a registered proxy implementation for the object's class, or
      * the default proxy implementation.
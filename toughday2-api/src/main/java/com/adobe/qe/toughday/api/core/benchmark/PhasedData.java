@@ -0,0 +1,43 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.api.core.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Data of a test result that breaks the duration of the execution down into phases, for example the phases of an http
+ * request. A histogram is kept for every phase of every test, next to the one of the durations.
+ */
+public interface PhasedData {
+    String LEASE_PHASE = "lease";
+    String CONNECT_PHASE = "connect";
+    String TLS_PHASE = "tls";
+    String WRITE_PHASE = "write";
+    String FIRST_BYTE_PHASE = "firstbyte";
+    String TRANSFER_PHASE = "transfer";
+
+    /**
+     * The phases of an http request, in the order in which they happen. The raw results publishers write a column for
+     * each of them.
+     */
+    List<String> HTTP_PHASES = Collections.unmodifiableList(Arrays.asList(LEASE_PHASE, CONNECT_PHASE, TLS_PHASE,
+            WRITE_PHASE, FIRST_BYTE_PHASE, TRANSFER_PHASE));
+
+    /**
+     * Passes every phase that was measured, with its duration in nanoseconds, to the consumer.
+     * @param consumer receives the name and the duration of the phase
+     */
+    void forEachPhase(ObjLongConsumer<String> consumer);
+}
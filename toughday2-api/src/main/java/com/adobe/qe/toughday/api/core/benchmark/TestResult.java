@@ -12,12 +12,9 @@ governing permissions and limitations under the License.
 package com.adobe.qe.toughday.api.core.benchmark;
 
 import com.adobe.qe.toughday.api.core.AbstractTest;
-import com.adobe.qe.toughday.api.core.RunMap;
 import com.adobe.qe.toughday.api.core.SkippedTestException;
 import com.adobe.qe.toughday.api.annotations.labels.Nullable;
 
-import java.util.Date;
-
 /**
  * Holds the benchmark information for one test run.
  * @param <K> The type of the additional data
@@ -56,7 +53,8 @@ public class TestResult<K> {
     private boolean showInAggregatedView = true;
     private @Nullable K data;
 
-    private double duration = Double.NaN;
+    private long durationNano = -1;
+    private long scheduleDelayNano = 0;
     private @Nullable SkippedTestException skippedCause;
     private @Nullable Throwable failCause;
 
@@ -84,10 +82,53 @@ public class TestResult<K> {
 
     /**
      * Getter for the duration
-     * @return The duration if the benchmarking operation finished. NaN otherwise
+     * @return The duration in milliseconds, with sub-millisecond precision, if the benchmarking operation finished.
+     * NaN otherwise
      */
     public double getDuration() {
-        return duration;
+        return durationNano < 0 ? Double.NaN : milliDurationFromNano(0, durationNano);
+    }
+
+    /**
+     * Getter for the duration
+     * @return The duration in nanoseconds if the benchmarking operation finished. -1 otherwise
+     */
+    public long getDurationNano() {
+        return durationNano;
+    }
+
+    /**
+     * Getter for the delay between the moment the execution that produced this result was scheduled to start and
+     * the moment it actually started. This is the time the execution spent queued behind previous executions.
+     * @return the delay in milliseconds
+     */
+    public double getScheduleDelay() {
+        return milliDurationFromNano(0, scheduleDelayNano);
+    }
+
+    /**
+     * Getter for the schedule delay
+     * @return the delay in nanoseconds
+     */
+    public long getScheduleDelayNano() {
+        return scheduleDelayNano;
+    }
+
+    /**
+     * Getter for the response time, which, unlike the duration (service time), also accounts for the time the
+     * execution was delayed from its intended start time.
+     * @return The response time in milliseconds if the benchmarking operation finished. NaN otherwise
+     */
+    public double getResponseTime() {
+        return getDuration() + getScheduleDelay();
+    }
+
+    /**
+     * Getter for the response time
+     * @return The response time in nanoseconds if the benchmarking operation finished. -1 otherwise
+     */
+    public long getResponseTimeNano() {
+        return durationNano < 0 ? -1 : durationNano + scheduleDelayNano;
     }
 
     /**
@@ -104,14 +145,14 @@ public class TestResult<K> {
      * Getter for the formatted start timestamp
      */
     public String getFormattedStartTimestamp() {
-        return RunMap.TIME_STAMP_FORMAT.format(new Date(startMillis));
+        return TimestampFormatter.format(startMillis);
     }
 
     /**
      * Getter for the formatted end timestamp
      */
     public String getFormattedEndTimestamp() {
-        return RunMap.TIME_STAMP_FORMAT.format(new Date(endMillis));
+        return TimestampFormatter.format(endMillis);
     }
 
     /**
@@ -249,6 +290,17 @@ public class TestResult<K> {
         return (T) this;
     }
 
+    /**
+     * Setter for the schedule delay of the execution that produced this result
+     * @param scheduleDelayNano the delay from the intended start time, in nanoseconds
+     * @param <T> return type
+     * @return Builder pattern. Returns {@code this}
+     */
+    public <T extends TestResult<K>> T withScheduleDelay(long scheduleDelayNano) {
+        this.scheduleDelayNano = Math.max(0, scheduleDelayNano);
+        return (T) this;
+    }
+
     /**
      * Begin the benchmarking. Records the thread and the timestamp
      * @param <T> return type
@@ -271,12 +323,12 @@ public class TestResult<K> {
             throw new IllegalStateException("beginBenchmark() was not called");
 
         withEndTimestamp(System.currentTimeMillis());
-        withDuration(milliDurationFromNano(startNano, System.nanoTime()));
+        withDuration(System.nanoTime() - startNano);
         return (T) this;
     }
 
-    private void withDuration(double duration) {
-        this.duration = duration;
+    private void withDuration(long durationNano) {
+        this.durationNano = durationNano;
     }
 
     private void withStartTimestamp(long startMillis) {
@@ -291,9 +343,10 @@ public class TestResult<K> {
      * Converts a duration from nano seconds to milliseconds
      * @param start the start nano time
      * @param end the end nano time
-     * @return the duration between {@code start} and {@code end} in milliseconds
+     * @return the duration between {@code start} and {@code end} in milliseconds, including the fraction of
+     * millisecond
      */
     public static double milliDurationFromNano(long start, long end) {
-        return ((end - start)/1000000l);
+        return ((end - start) / 1000000.0d);
     }
 }
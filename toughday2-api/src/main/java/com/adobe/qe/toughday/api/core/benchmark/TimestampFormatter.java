@@ -0,0 +1,78 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.api.core.benchmark;
+
+import com.adobe.qe.toughday.api.core.RunMap;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Thread safe formatter for timestamps, with the same pattern as {@link RunMap#TIME_STAMP_FORMAT}. Consecutive
+ * timestamps usually fall in the same second, so the formatted second is cached and only the milliseconds are
+ * appended to it.
+ */
+public final class TimestampFormatter {
+    private static final DateTimeFormatter SECONDS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.");
+
+    private static final class FormattedSecond {
+        private final long second;
+        private final String formatted;
+
+        private FormattedSecond(long second, String formatted) {
+            this.second = second;
+            this.formatted = formatted;
+        }
+    }
+
+    private static volatile FormattedSecond cache = new FormattedSecond(Long.MIN_VALUE, "");
+
+    private TimestampFormatter() {
+    }
+
+    /**
+     * Format a timestamp
+     * @param millis the timestamp, in milliseconds since the epoch
+     */
+    public static String format(long millis) {
+        return appendTo(new StringBuilder(23), millis).toString();
+    }
+
+    /**
+     * Append a formatted timestamp, without creating any intermediate string when the second is cached.
+     * @param out where to append the timestamp
+     * @param millis the timestamp, in milliseconds since the epoch
+     * @return {@code out}
+     */
+    public static StringBuilder appendTo(StringBuilder out, long millis) {
+        long second = Math.floorDiv(millis, 1000L);
+        int milliOfSecond = (int) Math.floorMod(millis, 1000L);
+
+        FormattedSecond formattedSecond = cache;
+        if (formattedSecond.second != second) {
+            formattedSecond = new FormattedSecond(second,
+                    SECONDS_FORMAT.format(LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault())));
+            cache = formattedSecond;
+        }
+
+        out.append(formattedSecond.formatted);
+        if (milliOfSecond < 100) {
+            out.append('0');
+        }
+        if (milliOfSecond < 10) {
+            out.append('0');
+        }
+        return out.append(milliOfSecond);
+    }
+}
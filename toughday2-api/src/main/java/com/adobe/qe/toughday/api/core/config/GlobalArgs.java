@@ -30,4 +30,36 @@ public interface GlobalArgs {
     boolean getShowSteps();
     boolean getHostValidationEnabled();
     String getLogPath();
+
+    /*
+        The http settings were added later. They return the defaults of a run, so that existing implementations
+        of this interface keep compiling.
+     */
+    default int getHttpMaxTotal() {
+        return 1000;
+    }
+
+    default int getHttpMaxPerRoute() {
+        return 1000;
+    }
+
+    default long getHttpKeepAlive() {
+        return 30000;
+    }
+
+    default int getHttpValidateAfterInactivity() {
+        return 2000;
+    }
+
+    default int getHttpSocketBuffer() {
+        return 65536;
+    }
+
+    default boolean getHttpTcpNoDelay() {
+        return true;
+    }
+
+    default String getHttpResponseBody() {
+        return "discard";
+    }
 }
@@ -0,0 +1,46 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.api.runners;
+
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.AbstractTestRunner;
+import com.adobe.qe.toughday.api.core.AsyncTest;
+import com.adobe.qe.toughday.api.core.RunMap;
+import com.adobe.qe.toughday.api.core.benchmark.TestResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runner for an asynchronous test.
+ */
+public class AsyncTestRunner extends AbstractTestRunner<AsyncTest> {
+    public AsyncTestRunner(Class<? extends AbstractTest> testClass) {
+        super(testClass);
+    }
+
+    @Override
+    protected void run(AsyncTest testObject, RunMap runMap) throws Throwable {
+        try {
+            runAsync(testObject, runMap).get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    protected CompletableFuture<?> runAsync(AsyncTest testObject, RunMap runMap) throws Throwable {
+        return testObject.benchmark().measureAsync(testObject, (TestResult<Object> testResult) -> {
+            return testObject.test();
+        });
+    }
+}
@@ -40,7 +40,8 @@ public class CompositeTestRunner extends AbstractTestRunner<CompositeTest> {
         testObject.benchmark().measure(testObject, () -> {
             for (AbstractTest child : testObject.getChildren()) {
                 AbstractTestRunner runner = RunnersContainer.getInstance().getRunner(child);
-                runner.runTest(child, runMap);
+                // children inherit the delay of the parent execution
+                runner.runTest(child, runMap, System.nanoTime() - testObject.benchmark().getScheduleDelay());
             }
         });
     }
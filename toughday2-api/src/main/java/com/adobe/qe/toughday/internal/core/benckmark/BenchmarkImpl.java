@@ -20,13 +20,16 @@ import com.adobe.qe.toughday.api.core.benchmark.signatures.Callable;
 import com.adobe.qe.toughday.api.core.benchmark.signatures.InjectTestResultCallable;
 import com.adobe.qe.toughday.api.core.benchmark.signatures.VoidCallable;
 import com.adobe.qe.toughday.api.core.benchmark.signatures.VoidInjectTestResultCallable;
-import org.mockito.Mockito;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Implementation of the {@link Benchmark} interface. See the interface for documentation.
@@ -35,6 +38,10 @@ public class BenchmarkImpl implements Benchmark {
 
     private ProxiesContainer proxiesContainer = new ProxiesContainer();
     private RunMap runMap;
+    private long scheduleDelay;
+    // the futures of the asynchronous operations in flight and the results of those that were cancelled
+    private final Map<TestResult<?>, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final Set<TestResult<?>> cancelled = ConcurrentHashMap.newKeySet();
 
     @Override
     public <T, F extends T> void registerClassProxy(Class<T> klass, Class<F> proxyClass) {
@@ -61,6 +68,16 @@ public class BenchmarkImpl implements Benchmark {
         return runMap;
     }
 
+    @Override
+    public void setScheduleDelay(long scheduleDelayNano) {
+        this.scheduleDelay = scheduleDelayNano;
+    }
+
+    @Override
+    public long getScheduleDelay() {
+        return scheduleDelay;
+    }
+
     /*  ############ Default proxy flavour. Default proxy will use the simple lambda flavour. ############ */
 
     @Override
@@ -68,6 +85,7 @@ public class BenchmarkImpl implements Benchmark {
         Throwable throwableResult = null;
         R callableResult = null;
         TestResult<K> testResult = new TestResult<K>(test)
+                .withScheduleDelay(scheduleDelay)
                 .beginBenchmark();
         try {
             callableResult = callable.call(testResult);
@@ -106,6 +124,83 @@ public class BenchmarkImpl implements Benchmark {
         return new ImmutableResultInfo(testResult, callableResult, throwableResult);
     }
 
+    @Override
+    public <R, K> CompletableFuture<ResultInfo<R, K>> computeTestResultAsync(AbstractTest test,
+                                                                            InjectTestResultCallable<CompletableFuture<R>, K> callable) {
+        TestResult<K> testResult = new TestResult<K>(test)
+                .withScheduleDelay(scheduleDelay)
+                .beginBenchmark();
+        CompletableFuture<R> future;
+        try {
+            future = callable.call(testResult);
+        } catch (Throwable e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        inFlight.put(testResult, future);
+
+        return future.<ResultInfo<R, K>>handle((callableResult, throwable) -> {
+            inFlight.remove(testResult);
+            Throwable throwableResult = unwrap(throwable);
+            if (throwableResult instanceof SkippedTestException) {
+                testResult.markAsSkipped((SkippedTestException) throwableResult);
+            } else if (throwableResult != null) {
+                testResult.markAsFailed(throwableResult);
+            }
+            testResult.endBenchmark();
+            if(test instanceof AdHocTest) {
+                testResult.withShowInAggregatedView(test.getShowStepsResolved());
+            }
+
+            return new ImmutableResultInfo<>(testResult, throwableResult == null ? callableResult : null, throwableResult);
+        });
+    }
+
+    @Override
+    public <T, K> CompletableFuture<T> measureAsync(AbstractTest test, InjectTestResultCallable<CompletableFuture<T>, K> callable) {
+        // the run map is captured now, the benchmark could be moved to another one until the operation completes
+        RunMap runMap = this.runMap;
+        return this.computeTestResultAsync(test, callable).thenCompose(result -> {
+            if (!cancelled.remove(result.getTestResult())) {
+                runMap.record(result.getTestResult());
+            }
+            CompletableFuture<T> future = new CompletableFuture<>();
+            if (result.getThrowable() != null) {
+                future.completeExceptionally(result.getThrowable());
+            } else {
+                future.complete(result.getReturnValue());
+            }
+            return future;
+        });
+    }
+
+    @Override
+    public <T, K> CompletableFuture<T> measureAsync(AbstractTest parent, String label,
+                                                    InjectTestResultCallable<CompletableFuture<T>, K> callable) {
+        return measureAsync(new AdHocTest((UUID) null, parent, label), callable);
+    }
+
+    @Override
+    public void cancelAsync() {
+        for (Map.Entry<TestResult<?>, CompletableFuture<?>> operation : new ArrayList<>(inFlight.entrySet())) {
+            // marked first, the result must not be recorded even if the operation completes while it is cancelled
+            cancelled.add(operation.getKey());
+            if (inFlight.remove(operation.getKey(), operation.getValue())) {
+                operation.getValue().cancel(true);
+            } else {
+                cancelled.remove(operation.getKey());
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof ExecutionException
+                || throwable instanceof InvocationTargetException) && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+
     @Override
     public <T> T measure(AbstractTest test, T object) throws Throwable {
         T proxyObject = proxiesContainer.getProxy(object, test, this);
@@ -229,21 +324,8 @@ public class BenchmarkImpl implements Benchmark {
         measure((UUID) null, parent, label, callable);
     }
 
-    private <T> T createDefaultProxy(AbstractTest test, T object) throws Throwable {
-        return Mockito.mock((Class<T>)object.getClass(), new Answer() {
-            @Override
-            public Object answer(InvocationOnMock invocation) throws Throwable {
-                return measure(test, new Callable<Object>() {
-                    @Override
-                    public Object call() throws Exception {
-                        if(!Modifier.isPublic(invocation.getMethod().getModifiers())) {
-                            invocation.getMethod().setAccessible(true);
-                        }
-                        return invocation.getMethod().invoke(object, ProxyHelpers.canonicArguments(invocation.getMethod(), invocation.getArguments()));
-                    }
-                });
-            }
-        });
+    private <T> T createDefaultProxy(AbstractTest test, T object) {
+        return DefaultProxyFactory.createProxy(test, object, this);
     }
 
     public BenchmarkImpl clone() {
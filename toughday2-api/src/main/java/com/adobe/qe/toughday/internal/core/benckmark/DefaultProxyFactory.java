@@ -0,0 +1,153 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.benckmark;
+
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.benchmark.Benchmark;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.loading.MultipleParentClassLoader;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.implementation.bind.annotation.AllArguments;
+import net.bytebuddy.implementation.bind.annotation.FieldValue;
+import net.bytebuddy.implementation.bind.annotation.Origin;
+import net.bytebuddy.implementation.bind.annotation.Pipe;
+import net.bytebuddy.implementation.bind.annotation.RuntimeType;
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.bytebuddy.matcher.ElementMatchers.isFinalizer;
+import static net.bytebuddy.matcher.ElementMatchers.isPublic;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+
+/**
+ * Creates the proxies used by {@link BenchmarkImpl} when no custom proxy is registered for a class. Every call on a
+ * proxy is measured and forwarded to the target object. The proxy class is generated only once for every target
+ * class, afterwards creating a proxy means allocating an instance and setting its handler. Public methods are
+ * forwarded to the target directly, the other ones through reflection.
+ */
+public final class DefaultProxyFactory {
+    private static final String HANDLER_FIELD = "handler";
+    private static final Objenesis OBJENESIS = new ObjenesisStd(true);
+    private static final ConcurrentHashMap<Class<?>, ObjectInstantiator<?>> INSTANTIATORS = new ConcurrentHashMap<>();
+
+    private DefaultProxyFactory() {
+        //no-op
+    }
+
+    /**
+     * Creates a proxy that measures every call on the given object.
+     * @param test the test for which the calls are measured
+     * @param object the target of the calls
+     * @param benchmark the benchmark that measures the calls
+     */
+    public static <T> T createProxy(AbstractTest test, T object, Benchmark benchmark) {
+        T proxy = (T) INSTANTIATORS.computeIfAbsent(object.getClass(), DefaultProxyFactory::generate).newInstance();
+        ((ProxyState) proxy).setHandler(new Handler(test, object, benchmark));
+        return proxy;
+    }
+
+    private static ObjectInstantiator<?> generate(Class<?> type) {
+        ClassLoader classLoader = new MultipleParentClassLoader.Builder().append(type, DefaultProxyFactory.class).build();
+        // only a proxy defined by the class loader of its target can override the package private methods
+        ClassLoadingStrategy<ClassLoader> strategy = classLoader == type.getClassLoader()
+                ? ClassLoadingStrategy.Default.INJECTION
+                : ClassLoadingStrategy.Default.WRAPPER;
+
+        Class<?> proxyClass = new ByteBuddy()
+                .subclass(type)
+                .defineField(HANDLER_FIELD, Handler.class, Visibility.PRIVATE)
+                .method(isPublic().and(not(isFinalizer())))
+                .intercept(MethodDelegation.withDefaultConfiguration()
+                        .withBinders(Pipe.Binder.install(Forwarder.class))
+                        .to(Interceptor.class))
+                .method(not(isPublic()).and(not(isFinalizer())))
+                .intercept(MethodDelegation.to(ReflectiveInterceptor.class))
+                .implement(ProxyState.class)
+                .intercept(FieldAccessor.ofField(HANDLER_FIELD))
+                .make()
+                .load(classLoader, strategy)
+                .getLoaded();
+        return OBJENESIS.getInstantiatorOf(proxyClass);
+    }
+
+    /**
+     * The state of a proxy. Implemented by the generated proxy classes.
+     */
+    public interface ProxyState {
+        Handler getHandler();
+
+        void setHandler(Handler handler);
+    }
+
+    /**
+     * Forwards a call to another instance. Implemented by the classes generated for the public methods of a proxy.
+     */
+    public interface Forwarder<T, S> {
+        T to(S target);
+    }
+
+    /**
+     * The test, target and benchmark of a proxy instance.
+     */
+    public static final class Handler {
+        private final AbstractTest test;
+        private final Object target;
+        private final Benchmark benchmark;
+
+        Handler(AbstractTest test, Object target, Benchmark benchmark) {
+            this.test = test;
+            this.target = target;
+            this.benchmark = benchmark;
+        }
+    }
+
+    /**
+     * Measures the calls of the public methods.
+     */
+    public static final class Interceptor {
+        private Interceptor() {
+            //no-op
+        }
+
+        @RuntimeType
+        public static Object intercept(@Pipe Forwarder<Object, Object> forwarder,
+                                       @FieldValue(HANDLER_FIELD) Handler handler) throws Throwable {
+            return handler.benchmark.measure(handler.test, () -> forwarder.to(handler.target));
+        }
+    }
+
+    /**
+     * Measures the calls of the methods that cannot be forwarded directly.
+     */
+    public static final class ReflectiveInterceptor {
+        private ReflectiveInterceptor() {
+            //no-op
+        }
+
+        @RuntimeType
+        public static Object intercept(@Origin Method method, @AllArguments Object[] arguments,
+                                       @FieldValue(HANDLER_FIELD) Handler handler) throws Throwable {
+            // the benchmark unwraps the InvocationTargetException, like for any other reflective call
+            return handler.benchmark.measure(handler.test, () -> {
+                method.setAccessible(true);
+                return method.invoke(handler.target, arguments);
+            });
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Index of the classes compiled into a jar, generated at build time by the {@link ComponentIndexProcessor}. Every
+ * line of an index file contains the binary name of a class followed by the names of all its supertypes, so the
+ * components of a certain type can be found without scanning the class path. Classes that cannot be loaded are
+ * skipped, the same way a scan would skip them.
+ */
+public class ComponentIndex {
+    /**
+     * The location of the index in every jar or class output directory.
+     */
+    public static final String RESOURCE = "META-INF/toughday/components.index";
+
+    private final ClassLoader classLoader;
+    private final Set<String> classNames = new HashSet<>();
+    private final Map<String, Set<String>> subTypes = new HashMap<>();
+
+    /**
+     * Constructor.
+     * @param classLoader the class loader used for loading the indexed classes
+     */
+    public ComponentIndex(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Loads all the indexes visible to a class loader.
+     * @param classLoader the class loader
+     * @return the union of the indexes. Empty if none of the jars on the class path was indexed.
+     * @throws IOException if an index could not be read
+     */
+    public static ComponentIndex load(ClassLoader classLoader) throws IOException {
+        ComponentIndex index = new ComponentIndex(classLoader);
+        Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+        while (resources.hasMoreElements()) {
+            try (InputStream in = resources.nextElement().openStream()) {
+                index.read(in);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Adds the content of an index file to this index.
+     * @param in the content of the index file
+     * @throws IOException if the index could not be read
+     */
+    public void read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] names = line.split("\\s+");
+            add(names[0], Arrays.asList(names).subList(1, names.length));
+        }
+    }
+
+    /**
+     * Adds a class that was loaded without being indexed, like the ones from the jars built without the index.
+     * @param klass the class
+     */
+    public void add(Class<?> klass) {
+        Set<String> superTypes = new LinkedHashSet<>();
+        collectSuperTypes(klass, superTypes);
+        add(klass.getName(), superTypes);
+    }
+
+    private void add(String className, Collection<String> superTypes) {
+        classNames.add(className);
+        for (String superType : superTypes) {
+            subTypes.computeIfAbsent(superType, key -> new LinkedHashSet<>()).add(className);
+        }
+    }
+
+    private static void collectSuperTypes(Class<?> klass, Set<String> superTypes) {
+        List<Class<?>> directSuperTypes = new ArrayList<>(Arrays.asList(klass.getInterfaces()));
+        if (klass.getSuperclass() != null && klass.getSuperclass() != Object.class) {
+            directSuperTypes.add(klass.getSuperclass());
+        }
+        for (Class<?> superType : directSuperTypes) {
+            if (superTypes.add(superType.getName())) {
+                collectSuperTypes(superType, superTypes);
+            }
+        }
+    }
+
+    /**
+     * @return true if no class was indexed.
+     */
+    public boolean isEmpty() {
+        return classNames.isEmpty();
+    }
+
+    /**
+     * Verifies if a class was indexed.
+     * @param className the binary name of the class
+     */
+    public boolean contains(String className) {
+        return classNames.contains(className);
+    }
+
+    /**
+     * Get all the indexed classes that extend or implement, directly or not, the given type.
+     * @param type the supertype
+     */
+    public <T> Set<Class<? extends T>> getSubTypesOf(Class<T> type) {
+        Set<Class<? extends T>> result = new LinkedHashSet<>();
+        for (String className : subTypes.getOrDefault(type.getName(), Collections.emptySet())) {
+            try {
+                Class<?> klass = Class.forName(className, false, classLoader);
+                if (type.isAssignableFrom(klass)) {
+                    result.add(klass.asSubclass(type));
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                // the index is stale or a dependency of the class is missing from the class path
+            }
+        }
+        return result;
+    }
+}
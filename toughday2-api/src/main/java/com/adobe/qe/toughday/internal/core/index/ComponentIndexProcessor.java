@@ -0,0 +1,137 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Annotation processor that writes the {@link ComponentIndex} of the compiled classes. It is registered as a service
+ * of this jar, so every module that compiles against the api gets its tests, publishers, metrics, feeders, run
+ * modes, publish modes and suite setups indexed without any configuration.
+ */
+public class ComponentIndexProcessor extends AbstractProcessor {
+    private final Map<String, Set<String>> index = new TreeMap<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element element : roundEnv.getRootElements()) {
+            addType(element);
+        }
+        return false;
+    }
+
+    private void addType(Element element) {
+        if (!element.getKind().isClass() && !element.getKind().isInterface()
+                || element.getKind() == ElementKind.ANNOTATION_TYPE) {
+            return;
+        }
+
+        TypeElement type = (TypeElement) element;
+        Set<String> superTypes = new TreeSet<>();
+        collectSuperTypes(type.asType(), superTypes);
+        index.put(binaryName(type), superTypes);
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            addType(enclosed);
+        }
+    }
+
+    private void collectSuperTypes(TypeMirror type, Set<String> superTypes) {
+        for (TypeMirror superType : processingEnv.getTypeUtils().directSupertypes(type)) {
+            TypeElement superElement = (TypeElement) ((DeclaredType) superType).asElement();
+            String name = binaryName(superElement);
+            if (!name.equals(Object.class.getName()) && superTypes.add(name)) {
+                collectSuperTypes(superType, superTypes);
+            }
+        }
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void writeIndex() {
+        try {
+            readPreviousIndex();
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    ComponentIndex.RESOURCE);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+                    writer.write(entry.getKey());
+                    for (String superType : entry.getValue()) {
+                        writer.write(' ');
+                        writer.write(superType);
+                    }
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + ComponentIndex.RESOURCE + ": " + e.getMessage());
+        }
+    }
+
+    /* Incremental builds compile only the changed sources, so the entries of the classes that were not recompiled
+    are kept, as long as the classes still exist. */
+    private void readPreviousIndex() {
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                    ComponentIndex.RESOURCE);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(file.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] names = line.trim().split("\\s+");
+                    if (names[0].isEmpty() || index.containsKey(names[0])
+                            || processingEnv.getElementUtils().getTypeElement(names[0].replace('$', '.')) == null) {
+                        continue;
+                    }
+                    index.put(names[0], new TreeSet<>(Arrays.asList(names).subList(1, names.length)));
+                }
+            }
+        } catch (IOException e) {
+            // first build, there is no previous index
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+Copyright 2015 Adobe. All rights reserved.
+This file is licensed to you under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License. You may obtain a copy
+of the License at http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software distributed under
+the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+OF ANY KIND, either express or implied. See the License for the specific language
+governing permissions and limitations under the License.
+*/
+package com.adobe.qe.toughday.internal.core.index;
+
+import com.adobe.qe.toughday.api.core.AbstractTest;
+import com.adobe.qe.toughday.api.core.Publisher;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class ComponentIndexProcessorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JavaCompiler compiler;
+    private File sources;
+    private File classes;
+
+    @Before
+    public void before() throws IOException {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+        sources = folder.newFolder("sources");
+        classes = folder.newFolder("classes");
+    }
+
+    private File source(String className, String content) throws IOException {
+        File file = new File(sources, className.replace('.', File.separatorChar) + ".java");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private void compile(File... files) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-d", classes.getPath(),
+                "-classpath", classes.getPath() + File.pathSeparator + System.getProperty("java.class.path"),
+                "-processor", ComponentIndexProcessor.class.getName()));
+        for (File file : files) {
+            arguments.add(file.getPath());
+        }
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int status = compiler.run(null, null, errors, arguments.toArray(new String[0]));
+        Assert.assertEquals(new String(errors.toByteArray(), StandardCharsets.UTF_8), 0, status);
+    }
+
+    private Map<String, Set<String>> readIndex() throws IOException {
+        File file = new File(classes, ComponentIndex.RESOURCE);
+        Assert.assertTrue("The index was not generated", file.isFile());
+        Map<String, Set<String>> index = new HashMap<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] names = line.split(" ");
+            index.put(names[0], new HashSet<>(Arrays.asList(names).subList(1, names.length)));
+        }
+        return index;
+    }
+
+    private File demoTest() throws IOException {
+        return source("demo.DemoTest",
+                "package demo;\n" +
+                "\n" +
+                "import com.adobe.qe.toughday.api.annotations.Description;\n" +
+                "import com.adobe.qe.toughday.api.core.AbstractTest;\n" +
+                "\n" +
+                "@Description(desc = \"Demo test\")\n" +
+                "public abstract class DemoTest extends AbstractTest implements Runnable {\n" +
+                "    public abstract static class Nested extends DemoTest {\n" +
+                "    }\n" +
+                "\n" +
+                "    public @interface Marker {\n" +
+                "    }\n" +
+                "}\n");
+    }
+
+    @Test
+    public void testIndexesTheCompiledClasses() throws IOException {
+        compile(demoTest());
+
+        Map<String, Set<String>> index = readIndex();
+        Assert.assertEquals(new HashSet<>(Arrays.asList(AbstractTest.class.getName(), Runnable.class.getName())),
+                index.get("demo.DemoTest"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("demo.DemoTest", AbstractTest.class.getName(),
+                Runnable.class.getName())), index.get("demo.DemoTest$Nested"));
+        Assert.assertFalse("Annotations are not components", index.containsKey("demo.DemoTest$Marker"));
+        Assert.assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testGeneratedIndexFindsTheComponents() throws IOException {
+        compile(demoTest());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classes.toURI().toURL() },
+                getClass().getClassLoader())) {
+            // the index of the api itself is also on the class path
+            ComponentIndex index = ComponentIndex.load(classLoader);
+            Set<String> tests = new HashSet<>();
+            for (Class<? extends AbstractTest> test : index.getSubTypesOf(AbstractTest.class)) {
+                if (test.getName().startsWith("demo.")) {
+                    tests.add(test.getName());
+                    Assert.assertSame(classLoader, test.getClassLoader());
+                }
+            }
+            Assert.assertEquals(new HashSet<>(Arrays.asList("demo.DemoTest", "demo.DemoTest$Nested")), tests);
+            Assert.assertTrue(index.contains("demo.DemoTest"));
+        }
+    }
+
+    @Test
+    public void testIncrementalBuildKeepsTheOtherClasses() throws IOException {
+        File demoTest = demoTest();
+        File demoPublisher = source("demo.DemoPublisher",
+                "package demo;\n" +
+                "\n" +
+                "public abstract class DemoPublisher extends com.adobe.qe.toughday.api.core.Publisher {\n" +
+                "}\n");
+        compile(demoTest, demoPublisher);
+
+        // only the publisher is recompiled, after the test was removed from the sources
+        Assert.assertTrue(demoTest.delete());
+        compile(demoPublisher);
+        Map<String, Set<String>> index = readIndex();
+        Assert.assertTrue(index.containsKey("demo.DemoTest"));
+        Assert.assertEquals(Collections.singleton(Publisher.class.getName()), index.get("demo.DemoPublisher"));
+
+        // stale entries are dropped once their classes are gone
+        Assert.assertTrue(new File(classes, "demo/DemoTest.class").delete());
+        Assert.assertTrue(new File(classes, "demo/DemoTest$Nested.class").delete());
+        compile(demoPublisher);
+        Assert.assertEquals(Collections.singleton("demo.DemoPublisher"), readIndex().keySet());
+    }
+}